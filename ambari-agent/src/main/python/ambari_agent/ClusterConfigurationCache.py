@@ -19,6 +19,7 @@ limitations under the License.
 """
 
 from ambari_agent.ClusterCache import ClusterCache
+from ambari_agent.Utils import Utils
 import logging
 
 logger = logging.getLogger(__name__)
@@ -38,5 +39,26 @@ class ClusterConfigurationCache(ClusterCache):
     """
     super(ClusterConfigurationCache, self).__init__(cluster_cache_dir)
 
+  def apply_delta(self, changed_clusters, removed_configurations, cache_hash):
+    """
+    Applies a configurations delta received from server. Changed properties are merged into the cache,
+    removed properties are deleted from it. An empty list of removed properties removes the whole config type.
+    :param changed_clusters: added and changed properties in the same format as a full configurations update
+    :param removed_configurations: names of removed properties grouped by cluster id and config type
+    :param cache_hash: hash of the configurations after the delta is applied
+    """
+    merged_dict = Utils.update_nested(self._get_mutable_copy(), changed_clusters)
+
+    for cluster_id, removed_types in removed_configurations.items():
+      configurations = merged_dict.get(cluster_id, {}).get('configurations', {})
+      for config_type, removed_properties in removed_types.items():
+        if not removed_properties:
+          configurations.pop(config_type, None)
+        elif config_type in configurations:
+          for property_name in removed_properties:
+            configurations[config_type].pop(property_name, None)
+
+    self.rewrite_cache(merged_dict, cache_hash)
+
   def get_cache_name(self):
     return 'configurations'
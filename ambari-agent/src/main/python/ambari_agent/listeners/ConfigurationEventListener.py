@@ -47,13 +47,38 @@ class ConfigurationEventListener(EventListener):
     if message == {}:
       return
 
-    self.configurations_cache.rewrite_cache(message['clusters'], message['hash'])
+    if 'baseHash' in message:
+      # a delta can only be applied on top of the configurations it was computed from
+      if message['baseHash'] != self.configurations_cache.hash:
+        logger.info("Configurations delta is based on hash {0} but the cache has hash {1}. Requesting full configurations".format(message['baseHash'], self.configurations_cache.hash))
+        self.request_configurations()
+        return
 
-    if message['clusters']:
+      self.configurations_cache.apply_delta(message.get('clusters', {}), message.get('removedConfigurations', {}), message['hash'])
+    else:
+      self.configurations_cache.rewrite_cache(message['clusters'], message['hash'])
+
+    if message.get('clusters'):
       # FIXME: Recovery manager does not support multiple cluster as of now.
       self.recovery_manager.cluster_id = list(message['clusters'].keys())[0]
       self.recovery_manager.on_config_update()
 
+  def request_configurations(self):
+    """
+    Asynchronously requests the configurations from server. The response is handled by this listener.
+    """
+    if not self.initializer_module.is_registered:
+      # configurations are requested during registration anyway
+      return
+
+    server_responses_listener = self.initializer_module.server_responses_listener
+
+    def presend_hook(correlation_id):
+      server_responses_listener.listener_functions[correlation_id] = self.on_event
+      server_responses_listener.logging_handlers[correlation_id] = self.get_log_message
+
+    self.initializer_module.connection.send(message={'hash': self.configurations_cache.hash}, destination=Constants.CONFIGURATIONS_REQUEST_ENDPOINT, presend_hook=presend_hook)
+
   def get_handled_path(self):
     return Constants.CONFIGURATIONS_TOPIC
     
@@ -0,0 +1,126 @@
+#!/usr/bin/env python3
+
+'''
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+'''
+
+import shutil
+import tempfile
+
+from unittest import TestCase
+from mock.mock import MagicMock
+
+from ambari_agent import Constants
+from ambari_agent.ClusterConfigurationCache import ClusterConfigurationCache
+from ambari_agent.listeners.ConfigurationEventListener import ConfigurationEventListener
+
+
+class TestConfigurationEventListener(TestCase):
+
+  def setUp(self):
+    self.cache_dir = tempfile.mkdtemp()
+    self.configurations_cache = ClusterConfigurationCache(self.cache_dir)
+    self.configurations_cache.rewrite_cache({
+      '0': {
+        'configurations': {
+          'foo-site': {'foo': 'bar', 'foobar': 'baz'},
+          'bar-site': {'bar': 'foo'}
+        }
+      }
+    }, 'hash-1')
+
+    self.initializer_module = MagicMock()
+    self.initializer_module.configurations_cache = self.configurations_cache
+    self.initializer_module.is_registered = True
+    self.listener = ConfigurationEventListener(self.initializer_module)
+
+  def tearDown(self):
+    shutil.rmtree(self.cache_dir, ignore_errors=True)
+
+  def test_apply_delta(self):
+    self.configurations_cache.apply_delta(
+      {'0': {'configurations': {'foo-site': {'foo': 'changed', 'new': 'added'}}}},
+      {'0': {'foo-site': ['foobar'], 'bar-site': []}},
+      'hash-2')
+
+    self.assertEqual({'foo-site': {'foo': 'changed', 'new': 'added'}}, self.configurations_cache['0']['configurations'])
+    self.assertEqual('hash-2', self.configurations_cache.hash)
+
+    # the delta is persisted like a full update
+    reloaded_cache = ClusterConfigurationCache(self.cache_dir)
+    self.assertEqual(self.configurations_cache['0'], reloaded_cache['0'])
+    self.assertEqual('hash-2', reloaded_cache.hash)
+
+  def test_delta_is_applied_on_matching_hash(self):
+    self.listener.on_event({}, {
+      'timestamp': 1,
+      'hash': 'hash-2',
+      'baseHash': 'hash-1',
+      'clusters': {'0': {'configurations': {'bar-site': {'bar': 'changed'}}}},
+      'removedConfigurations': {'0': {'foo-site': ['foo']}}
+    })
+
+    self.assertEqual({
+      'foo-site': {'foobar': 'baz'},
+      'bar-site': {'bar': 'changed'}
+    }, self.configurations_cache['0']['configurations'])
+    self.assertEqual('hash-2', self.configurations_cache.hash)
+    self.assertFalse(self.initializer_module.connection.send.called)
+
+  def test_full_configurations_are_requested_on_hash_mismatch(self):
+    self.listener.on_event({}, {
+      'timestamp': 1,
+      'hash': 'hash-3',
+      'baseHash': 'hash-2',
+      'clusters': {'0': {'configurations': {'bar-site': {'bar': 'changed'}}}}
+    })
+
+    # the delta is not applied on top of other configurations
+    self.assertEqual({'bar': 'foo'}, self.configurations_cache['0']['configurations']['bar-site'])
+    self.assertEqual('hash-1', self.configurations_cache.hash)
+
+    send_mock = self.initializer_module.connection.send
+    self.assertEqual(1, send_mock.call_count)
+    self.assertEqual({'hash': 'hash-1'}, send_mock.call_args[1]['message'])
+    self.assertEqual(Constants.CONFIGURATIONS_REQUEST_ENDPOINT, send_mock.call_args[1]['destination'])
+
+    # the response is handled by the listener and replaces the cache
+    server_responses_listener = self.initializer_module.server_responses_listener
+    server_responses_listener.listener_functions = {}
+    server_responses_listener.logging_handlers = {}
+    send_mock.call_args[1]['presend_hook'](7)
+    server_responses_listener.listener_functions[7]({}, {
+      'timestamp': 2,
+      'hash': 'hash-3',
+      'clusters': {'0': {'configurations': {'bar-site': {'bar': 'changed'}}}}
+    })
+
+    self.assertEqual({'bar-site': {'bar': 'changed'}}, self.configurations_cache['0']['configurations'])
+    self.assertEqual('hash-3', self.configurations_cache.hash)
+
+  def test_full_configurations_are_not_requested_before_registration(self):
+    self.initializer_module.is_registered = False
+
+    self.listener.on_event({}, {
+      'timestamp': 1,
+      'hash': 'hash-3',
+      'baseHash': 'hash-2',
+      'clusters': {}
+    })
+
+    self.assertEqual('hash-1', self.configurations_cache.hash)
+    self.assertFalse(self.initializer_module.connection.send.called)
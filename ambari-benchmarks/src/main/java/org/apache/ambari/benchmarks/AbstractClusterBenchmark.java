@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for the benchmark suites which need a populated cluster. The
+ * cluster is built once per trial, so the size of the topology can be varied
+ * from the command line with {@code -p hostCount=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public abstract class AbstractClusterBenchmark {
+
+  @Param({ "100", "500", "2000" })
+  public int hostCount;
+
+  protected SyntheticCluster syntheticCluster;
+
+  private int hostCursor;
+
+  @Setup(Level.Trial)
+  public void setUpCluster() throws Exception {
+    syntheticCluster = SyntheticCluster.create(hostCount);
+    setUp();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownCluster() {
+    syntheticCluster.tearDown();
+  }
+
+  /**
+   * Invoked once the cluster has been built, before any iteration runs.
+   *
+   * @throws Exception if the suite can not be prepared
+   */
+  protected abstract void setUp() throws Exception;
+
+  /**
+   * Returns the cluster hosts in a round-robin fashion so that per-host
+   * benchmarks do not keep hitting the same cached entries.
+   *
+   * @return the next host name
+   */
+  protected String nextHostName() {
+    hostCursor = (hostCursor + 1) % syntheticCluster.getHostNames().size();
+    return syntheticCluster.getHostNames().get(hostCursor);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.actionmanager.ActionDBAccessor;
+import org.apache.ambari.server.actionmanager.ActionManager;
+import org.apache.ambari.server.actionmanager.ActionScheduler;
+import org.apache.ambari.server.actionmanager.Request;
+import org.apache.ambari.server.actionmanager.Stage;
+import org.apache.ambari.server.actionmanager.StageFactory;
+import org.apache.ambari.server.state.Cluster;
+import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.utils.StageUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures a single {@link ActionScheduler#doWork()} pass over an in-progress
+ * request. The request consists of {@code stageCount} stages, each with one
+ * {@code DATANODE} restart command per host, so after the first pass every
+ * invocation measures the steady-state scan of queued commands.
+ */
+public class ActionSchedulerBenchmark extends AbstractClusterBenchmark {
+
+  @Param({ "1", "10" })
+  public int stageCount;
+
+  private ActionScheduler actionScheduler;
+
+  @Override
+  protected void setUp() throws Exception {
+    Cluster cluster = syntheticCluster.getCluster();
+    Clusters clusters = syntheticCluster.getClusters();
+    ActionManager actionManager = syntheticCluster.getInjector().getInstance(ActionManager.class);
+    StageFactory stageFactory = syntheticCluster.getInjector().getInstance(StageFactory.class);
+
+    long requestId = actionManager.getNextRequestId();
+    String clusterHostInfo = StageUtils.getGson().toJson(StageUtils.getClusterHostInfo(cluster));
+
+    List<Stage> stages = new ArrayList<>(stageCount);
+    for (int stageId = 0; stageId < stageCount; stageId++) {
+      Stage stage = stageFactory.createNew(requestId, "/tmp", cluster.getClusterName(), cluster.getClusterId(),
+          "Restart DataNodes", "{}", "{}");
+      stage.setStageId(stageId);
+      for (String hostName : syntheticCluster.getHostNames()) {
+        stage.addHostRoleExecutionCommand(hostName, Role.DATANODE, RoleCommand.START, null,
+            cluster.getClusterName(), "HDFS", false, false);
+      }
+      stages.add(stage);
+    }
+
+    Request request = new Request(stages, clusterHostInfo, clusters);
+    syntheticCluster.getInjector().getInstance(ActionDBAccessor.class).persistActions(request);
+
+    actionScheduler = syntheticCluster.getInjector().getInstance(ActionScheduler.class);
+
+    // the first pass queues the commands, the benchmark measures the following ones
+    actionScheduler.doWork();
+  }
+
+  @Benchmark
+  public void doWork() throws Exception {
+    actionScheduler.doWork();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.apache.ambari.server.audit.AuditLogger;
+import org.apache.ambari.server.audit.event.AuditEvent;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.ControllerModule;
+import org.apache.ambari.server.events.AgentConfigsUpdateEvent;
+import org.apache.ambari.server.ldap.LdapModule;
+import org.apache.ambari.server.security.encryption.Encryptor;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+/**
+ * Guice module used by every benchmark suite. It installs the production
+ * {@link ControllerModule} against the in-memory H2 database and the stack
+ * definitions shipped with the ambari-server test resources.
+ * <p/>
+ * The resources directory can be overridden with the
+ * {@value #RESOURCES_PROPERTY} system property when the benchmarks are not
+ * launched from the ambari-benchmarks module directory.
+ */
+public class BenchmarkModule extends AbstractModule {
+
+  /**
+   * System property pointing at a directory laid out like
+   * {@code ambari-server/src/test/resources}.
+   */
+  public static final String RESOURCES_PROPERTY = "ambari.benchmarks.resources";
+
+  private static final String DEFAULT_RESOURCES = "../ambari-server/src/test/resources";
+
+  private final Properties properties = new Properties();
+
+  @Override
+  protected void configure() {
+    File resources = new File(System.getProperty(RESOURCES_PROPERTY, DEFAULT_RESOURCES));
+
+    properties.setProperty(Configuration.SERVER_PERSISTENCE_TYPE.getKey(), "in-memory");
+    properties.setProperty(Configuration.METADATA_DIR_PATH.getKey(), new File(resources, "stacks").getPath());
+    properties.setProperty(Configuration.COMMON_SERVICES_DIR_PATH.getKey(), new File(resources, "common-services").getPath());
+    properties.setProperty(Configuration.SERVER_VERSION_FILE.getKey(), new File(resources, "version").getPath());
+    properties.setProperty(Configuration.MPACKS_V2_STAGING_DIR_PATH.getKey(), new File(resources, "mpacks-v2").getPath());
+    properties.setProperty(Configuration.OS_VERSION.getKey(), "centos6");
+    properties.setProperty(Configuration.SHARED_RESOURCES_DIR.getKey(), resources.getPath());
+    properties.setProperty(Configuration.RESOURCES_DIR.getKey(), resources.getPath());
+
+    try {
+      install(new LdapModule());
+      install(new ControllerModule(properties));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+
+    bind(AuditLogger.class).toInstance(new AuditLogger() {
+      @Override
+      public void log(AuditEvent event) {
+      }
+
+      @Override
+      public boolean isEnabled() {
+        return false;
+      }
+    });
+
+    bind(new TypeLiteral<Encryptor<AgentConfigsUpdateEvent>>() {}).annotatedWith(Names.named("AgentConfigEncryptor")).toInstance(Encryptor.NONE);
+  }
+
+  /**
+   * Gets the properties used to initialize the {@link Configuration}.
+   *
+   * @return the server properties
+   */
+  public Properties getProperties() {
+    return properties;
+  }
+}
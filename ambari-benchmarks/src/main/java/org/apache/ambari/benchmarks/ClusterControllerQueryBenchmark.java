@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ambari.server.api.query.Query;
+import org.apache.ambari.server.api.query.render.DefaultRenderer;
+import org.apache.ambari.server.api.resources.ResourceInstanceFactoryImpl;
+import org.apache.ambari.server.api.services.Result;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the execution of a {@code hosts} collection query through
+ * {@link org.apache.ambari.server.api.query.QueryImpl} and the
+ * {@link org.apache.ambari.server.controller.internal.ClusterControllerImpl},
+ * including resource population by the property providers and sub-resource
+ * expansion.
+ */
+public class ClusterControllerQueryBenchmark extends AbstractClusterBenchmark {
+
+  /**
+   * Comma separated list of requested fields, as passed in the
+   * {@code fields} query parameter of the REST API.
+   */
+  @Param({ "Hosts/host_name", "Hosts/*", "Hosts/host_name,host_components/HostRoles/state" })
+  public String fields;
+
+  @Override
+  protected void setUp() throws Exception {
+  }
+
+  @Benchmark
+  public Result queryHosts() throws Exception {
+    return createHostsQuery(fields).execute();
+  }
+
+  /**
+   * Creates the query which the REST API would create for
+   * {@code GET /api/v1/clusters/c1/hosts?fields=...}.
+   *
+   * @param fields the comma separated fields to request
+   * @return the query
+   */
+  static Query createHostsQuery(String fields) {
+    Map<Resource.Type, String> mapIds = new HashMap<>();
+    mapIds.put(Resource.Type.Cluster, SyntheticCluster.CLUSTER_NAME);
+    mapIds.put(Resource.Type.Host, null);
+
+    Query query = new ResourceInstanceFactoryImpl().createResource(Resource.Type.Host, mapIds).getQuery();
+    for (String field : fields.split(",")) {
+      query.addProperty(field, null);
+    }
+    query.setRenderer(new DefaultRenderer());
+    return query;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.Map;
+
+import org.apache.ambari.server.state.Cluster;
+import org.apache.ambari.server.state.ConfigHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the per-host effective configuration calculation which merges the
+ * cluster desired configurations with the config group overrides of a host.
+ */
+public class ConfigHelperBenchmark extends AbstractClusterBenchmark {
+
+  private ConfigHelper configHelper;
+
+  @Override
+  protected void setUp() throws Exception {
+    configHelper = syntheticCluster.getInjector().getInstance(ConfigHelper.class);
+  }
+
+  @Benchmark
+  public Map<String, Map<String, String>> getEffectiveDesiredTags() throws Exception {
+    return configHelper.getEffectiveDesiredTags(syntheticCluster.getCluster(), nextHostName());
+  }
+
+  @Benchmark
+  public Map<String, Map<String, String>> getEffectiveConfigProperties() throws Exception {
+    Cluster cluster = syntheticCluster.getCluster();
+    return configHelper.getEffectiveConfigProperties(cluster,
+        configHelper.getEffectiveDesiredTags(cluster, nextHostName()));
+  }
+}
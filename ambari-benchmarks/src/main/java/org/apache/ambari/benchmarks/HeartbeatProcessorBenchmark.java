@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ambari.server.agent.ComponentStatus;
+import org.apache.ambari.server.agent.HeartBeat;
+import org.apache.ambari.server.agent.HeartBeatHandler;
+import org.apache.ambari.server.agent.HeartbeatProcessor;
+import org.apache.ambari.server.state.ServiceComponentHost;
+import org.apache.ambari.server.state.State;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the handling of agent reports by the {@link HeartbeatProcessor}.
+ * Each invocation processes the full set of component statuses of one host,
+ * cycling through every host of the cluster.
+ */
+public class HeartbeatProcessorBenchmark extends AbstractClusterBenchmark {
+
+  private HeartbeatProcessor heartbeatProcessor;
+
+  private final Map<String, List<ComponentStatus>> statusesByHost = new HashMap<>();
+
+  @Override
+  protected void setUp() throws Exception {
+    heartbeatProcessor = syntheticCluster.getInjector().getInstance(HeartBeatHandler.class).getHeartbeatProcessor();
+
+    long clusterId = syntheticCluster.getCluster().getClusterId();
+    for (String hostName : syntheticCluster.getHostNames()) {
+      List<ComponentStatus> statuses = new ArrayList<>();
+      for (ServiceComponentHost sch : syntheticCluster.getCluster().getServiceComponentHosts(hostName)) {
+        ComponentStatus status = new ComponentStatus();
+        status.setClusterId(clusterId);
+        status.setServiceName(sch.getServiceName());
+        status.setComponentName(sch.getServiceComponentName());
+        status.setStatus(State.STARTED.name());
+        statuses.add(status);
+      }
+      statusesByHost.put(hostName, statuses);
+    }
+  }
+
+  @Benchmark
+  public void processStatusReports() throws Exception {
+    String hostName = nextHostName();
+    heartbeatProcessor.processStatusReports(statusesByHost.get(hostName), hostName);
+  }
+
+  @Benchmark
+  public void processHeartbeat() throws Exception {
+    String hostName = nextHostName();
+
+    HeartBeat heartBeat = new HeartBeat();
+    heartBeat.setHostname(hostName);
+    heartBeat.setTimestamp(System.currentTimeMillis());
+    heartBeat.setComponentStatus(statusesByHost.get(hostName));
+    heartbeatProcessor.processHeartbeat(heartBeat);
+  }
+}
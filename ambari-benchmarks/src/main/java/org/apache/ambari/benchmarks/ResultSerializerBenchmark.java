@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import org.apache.ambari.server.api.services.Result;
+import org.apache.ambari.server.api.services.serializers.JsonSerializer;
+import org.apache.ambari.server.api.services.serializers.ResultSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the JSON serialization of a {@code hosts} query result, which is
+ * the last step of every REST API read. The result is produced once per trial
+ * so only the serializer is measured.
+ */
+public class ResultSerializerBenchmark extends AbstractClusterBenchmark {
+
+  @Param({ "Hosts/*", "Hosts/host_name,host_components/HostRoles/state" })
+  public String fields;
+
+  private final ResultSerializer serializer = new JsonSerializer();
+
+  private Result result;
+
+  @Override
+  protected void setUp() throws Exception {
+    result = ClusterControllerQueryBenchmark.createHostsQuery(fields).execute();
+  }
+
+  @Benchmark
+  public Object serialize() {
+    return serializer.serialize(result);
+  }
+}
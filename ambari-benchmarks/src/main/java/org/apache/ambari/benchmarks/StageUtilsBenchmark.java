@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ambari.server.utils.StageUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the construction of the {@code clusterHostInfo} structure which is
+ * attached to every stage and execution command.
+ */
+public class StageUtilsBenchmark extends AbstractClusterBenchmark {
+
+  private Map<String, Set<String>> clusterHostInfo;
+
+  @Override
+  protected void setUp() throws Exception {
+    clusterHostInfo = StageUtils.getClusterHostInfo(syntheticCluster.getCluster());
+  }
+
+  @Benchmark
+  public Map<String, Set<String>> getClusterHostInfo() throws Exception {
+    return StageUtils.getClusterHostInfo(syntheticCluster.getCluster());
+  }
+
+  @Benchmark
+  public Map<String, Set<String>> substituteHostIndexes() throws Exception {
+    // substitution happens in place, so each invocation works on its own copy
+    return StageUtils.substituteHostIndexes(new HashMap<>(clusterHostInfo));
+  }
+}
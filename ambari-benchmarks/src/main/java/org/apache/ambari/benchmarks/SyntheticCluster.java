@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.AmbariManagementController;
+import org.apache.ambari.server.controller.AmbariServer;
+import org.apache.ambari.server.controller.ResourceProviderFactory;
+import org.apache.ambari.server.controller.internal.AbstractControllerResourceProvider;
+import org.apache.ambari.server.controller.internal.HostResourceProvider;
+import org.apache.ambari.server.controller.metrics.ThreadPoolEnabledPropertyProvider;
+import org.apache.ambari.server.orm.GuiceJpaInitializer;
+import org.apache.ambari.server.orm.dao.RepositoryVersionDAO;
+import org.apache.ambari.server.orm.dao.StackDAO;
+import org.apache.ambari.server.orm.entities.RepoOsEntity;
+import org.apache.ambari.server.orm.entities.RepositoryVersionEntity;
+import org.apache.ambari.server.orm.entities.StackEntity;
+import org.apache.ambari.server.security.authorization.internal.InternalAuthenticationToken;
+import org.apache.ambari.server.state.Cluster;
+import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.Config;
+import org.apache.ambari.server.state.ConfigFactory;
+import org.apache.ambari.server.state.Host;
+import org.apache.ambari.server.state.HostState;
+import org.apache.ambari.server.state.Service;
+import org.apache.ambari.server.state.ServiceComponent;
+import org.apache.ambari.server.state.ServiceComponentHost;
+import org.apache.ambari.server.state.StackId;
+import org.apache.ambari.server.state.State;
+import org.apache.ambari.server.state.configgroup.ConfigGroup;
+import org.apache.ambari.server.state.configgroup.ConfigGroupFactory;
+import org.apache.ambari.server.topology.TopologyManager;
+import org.apache.ambari.server.utils.StageUtils;
+import org.apache.ambari.server.view.ViewRegistry;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+
+/**
+ * Builds an in-memory cluster with a synthetic topology of {@code hostCount}
+ * hosts which the benchmark suites run against.
+ * <p/>
+ * The topology mirrors a typical large deployment: the masters
+ * ({@code NAMENODE}, {@code SECONDARY_NAMENODE}, {@code RESOURCEMANAGER}) live
+ * on the first host, {@code ZOOKEEPER_SERVER} on the first three hosts and
+ * every host carries {@code DATANODE}, {@code NODEMANAGER} and the clients.
+ * One config group is created for every {@value #HOSTS_PER_CONFIG_GROUP}
+ * hosts so that effective configuration lookups include host overrides.
+ */
+public class SyntheticCluster {
+
+  public static final String CLUSTER_NAME = "c1";
+
+  public static final StackId STACK_ID = new StackId("HDP", "2.0.6");
+
+  static final int HOSTS_PER_CONFIG_GROUP = 100;
+
+  private static final int CONFIG_PROPERTY_COUNT = 200;
+
+  private final Injector injector;
+  private final Clusters clusters;
+  private final Cluster cluster;
+  private final List<String> hostNames;
+
+  private SyntheticCluster(Injector injector, Cluster cluster, List<String> hostNames) {
+    this.injector = injector;
+    this.cluster = cluster;
+    this.hostNames = hostNames;
+    clusters = injector.getInstance(Clusters.class);
+  }
+
+  /**
+   * Creates a new injector and H2 database and populates it with a cluster
+   * of the given size.
+   *
+   * @param hostCount the number of hosts in the cluster
+   * @return the synthetic cluster
+   * @throws Exception if the cluster can not be built
+   */
+  public static SyntheticCluster create(int hostCount) throws Exception {
+    Injector injector = Guice.createInjector(new BenchmarkModule());
+    injector.getInstance(GuiceJpaInitializer.class);
+
+    InternalAuthenticationToken authentication = new InternalAuthenticationToken("benchmarks");
+    authentication.setAuthenticated(true);
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+    StackDAO stackDAO = injector.getInstance(StackDAO.class);
+    StackEntity stackEntity = stackDAO.find(STACK_ID.getStackName(), STACK_ID.getStackVersion());
+    if (stackEntity == null) {
+      stackEntity = new StackEntity();
+      stackEntity.setStackName(STACK_ID.getStackName());
+      stackEntity.setStackVersion(STACK_ID.getStackVersion());
+      stackDAO.create(stackEntity);
+    }
+
+    RepositoryVersionEntity repositoryVersion = injector.getInstance(RepositoryVersionDAO.class).create(
+        stackEntity, STACK_ID.getStackVersion() + ".0-1", STACK_ID.getStackId(), new ArrayList<RepoOsEntity>());
+
+    Clusters clusters = injector.getInstance(Clusters.class);
+    clusters.addCluster(CLUSTER_NAME, STACK_ID);
+    Cluster cluster = clusters.getCluster(CLUSTER_NAME);
+
+    List<String> hostNames = new ArrayList<>(hostCount);
+    Map<String, String> hostAttributes = new HashMap<>();
+    hostAttributes.put("os_family", "redhat");
+    hostAttributes.put("os_release_version", "6.4");
+    for (int i = 0; i < hostCount; i++) {
+      String hostName = String.format("c6%04d.ambari.apache.org", i);
+      clusters.addHost(hostName);
+
+      Host host = clusters.getHost(hostName);
+      host.setHostAttributes(hostAttributes);
+      host.setIPv4("10.0." + (i / 250) + "." + (i % 250));
+      host.setRackInfo("/rack-" + (i / 40));
+      host.setState(HostState.HEALTHY);
+      hostNames.add(hostName);
+    }
+    clusters.mapAndPublishHostsToCluster(new LinkedHashSet<>(hostNames), CLUSTER_NAME);
+
+    addService(cluster, repositoryVersion, "HDFS", hostNames,
+        "NAMENODE", "SECONDARY_NAMENODE", "DATANODE", "HDFS_CLIENT");
+    addService(cluster, repositoryVersion, "YARN", hostNames,
+        "RESOURCEMANAGER", "NODEMANAGER", "YARN_CLIENT");
+    addService(cluster, repositoryVersion, "ZOOKEEPER", hostNames,
+        "ZOOKEEPER_SERVER", "ZOOKEEPER_CLIENT");
+
+    SyntheticCluster syntheticCluster = new SyntheticCluster(injector, cluster, hostNames);
+    syntheticCluster.addConfigurations();
+
+    performStaticInjection(injector);
+    return syntheticCluster;
+  }
+
+  /**
+   * Performs the subset of {@code AmbariServer#performStaticInjection()}
+   * needed by the code paths which are benchmarked.
+   */
+  private static void performStaticInjection(Injector injector) {
+    AmbariServer.setController(injector.getInstance(AmbariManagementController.class));
+    ViewRegistry.initInstance(injector.getInstance(ViewRegistry.class));
+    StageUtils.setConfiguration(injector.getInstance(Configuration.class));
+    StageUtils.setTopologyManager(injector.getInstance(TopologyManager.class));
+    AbstractControllerResourceProvider.init(injector.getInstance(ResourceProviderFactory.class));
+    HostResourceProvider.setTopologyManager(injector.getInstance(TopologyManager.class));
+    ThreadPoolEnabledPropertyProvider.init(injector.getInstance(Configuration.class));
+  }
+
+  /**
+   * Adds the service and places its components according to the topology
+   * described on the class.
+   */
+  private static void addService(Cluster cluster, RepositoryVersionEntity repositoryVersion,
+                                 String serviceName, List<String> hostNames, String... componentNames) throws Exception {
+    Service service = cluster.addService(serviceName, repositoryVersion);
+    for (String componentName : componentNames) {
+      ServiceComponent component = service.addServiceComponent(componentName);
+      component.setDesiredState(State.INSTALLED);
+
+      for (String hostName : getHostsForComponent(componentName, hostNames)) {
+        ServiceComponentHost sch = component.addServiceComponentHost(hostName);
+        sch.setDesiredState(State.STARTED);
+        sch.setState(State.STARTED);
+      }
+    }
+  }
+
+  private static List<String> getHostsForComponent(String componentName, List<String> hostNames) {
+    switch (componentName) {
+      case "NAMENODE":
+      case "SECONDARY_NAMENODE":
+      case "RESOURCEMANAGER":
+        return hostNames.subList(0, 1);
+      case "ZOOKEEPER_SERVER":
+        return hostNames.subList(0, Math.min(3, hostNames.size()));
+      default:
+        return hostNames;
+    }
+  }
+
+  /**
+   * Creates {@code core-site} and {@code hdfs-site} with
+   * {@value #CONFIG_PROPERTY_COUNT} properties each and a config group with a
+   * {@code hdfs-site} override for every {@value #HOSTS_PER_CONFIG_GROUP}
+   * hosts.
+   */
+  private void addConfigurations() throws Exception {
+    ConfigFactory configFactory = injector.getInstance(ConfigFactory.class);
+    ConfigGroupFactory configGroupFactory = injector.getInstance(ConfigGroupFactory.class);
+
+    Set<Config> desiredConfigs = new HashSet<>();
+    for (String type : new String[] { "core-site", "hdfs-site" }) {
+      Map<String, String> properties = new HashMap<>();
+      for (int i = 0; i < CONFIG_PROPERTY_COUNT; i++) {
+        properties.put(type + ".property." + i, "value-" + i);
+      }
+      desiredConfigs.add(configFactory.createNew(cluster, type, "version1", properties,
+          new HashMap<String, Map<String, String>>()));
+    }
+    cluster.addDesiredConfig("admin", desiredConfigs);
+
+    for (int start = 0, group = 0; start < hostNames.size(); start += HOSTS_PER_CONFIG_GROUP, group++) {
+      Map<Long, Host> groupHosts = new HashMap<>();
+      for (String hostName : hostNames.subList(start, Math.min(start + HOSTS_PER_CONFIG_GROUP, hostNames.size()))) {
+        Host host = clusters.getHost(hostName);
+        groupHosts.put(host.getHostId(), host);
+      }
+
+      String tag = "group-" + group;
+      Config override = configFactory.createNew(cluster, "hdfs-site", tag,
+          Collections.singletonMap("hdfs-site.property.0", tag), new HashMap<String, Map<String, String>>());
+
+      ConfigGroup configGroup = configGroupFactory.createNew(cluster, "HDFS", tag, tag, "",
+          Collections.singletonMap("hdfs-site", override), groupHosts);
+      cluster.addConfigGroup(configGroup);
+    }
+  }
+
+  /**
+   * Stops the persistence service and drops the in-memory database.
+   */
+  public void tearDown() {
+    injector.getInstance(PersistService.class).stop();
+    SecurityContextHolder.clearContext();
+  }
+
+  public Injector getInjector() {
+    return injector;
+  }
+
+  public Cluster getCluster() {
+    return cluster;
+  }
+
+  public Clusters getClusters() {
+    return clusters;
+  }
+
+  public List<String> getHostNames() {
+    return hostNames;
+  }
+}
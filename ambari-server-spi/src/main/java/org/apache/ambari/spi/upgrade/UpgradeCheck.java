@@ -17,6 +17,7 @@
  */
 package org.apache.ambari.spi.upgrade;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -50,6 +51,17 @@ public interface UpgradeCheck {
    */
   List<CheckQualification> getQualifications();
 
+  /**
+   * Gets the checks which have to complete before this check is performed,
+   * since it uses their results. Checks of the same request which do not
+   * depend on each other may be performed concurrently.
+   *
+   * @return the checks which this check depends on, or an empty set.
+   */
+  default Set<UpgradeCheckDescription> getDependencies() {
+    return Collections.emptySet();
+  }
+
   /**
    * Executes check against given cluster.
    * @param request pre upgrade check request
@@ -18,8 +18,8 @@
 package org.apache.ambari.spi.upgrade;
 
 import java.net.HttpURLConnection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ambari.spi.ClusterInformation;
 import org.apache.ambari.spi.RepositoryVersion;
@@ -37,9 +37,10 @@ public class UpgradeCheckRequest {
   private final HttpURLConnectionProvider m_httpURLConnectionProvider;
 
   /**
-   * Used for tracking results during a check request.
+   * Used for tracking results during a check request, whose checks may be
+   * performed concurrently.
    */
-  private Map<UpgradeCheckDescription, UpgradeCheckStatus> m_results = new HashMap<>();
+  private Map<UpgradeCheckDescription, UpgradeCheckStatus> m_results = new ConcurrentHashMap<>();
 
   /**
    * Constructor.
@@ -32,6 +32,7 @@ public class UpgradeCheckResult {
   private String m_failReason = "";
   private LinkedHashSet<String> m_failedOn = new LinkedHashSet<>();
   private List<Object> m_failedDetail = new ArrayList<>();
+  private long m_duration = 0;
 
   public UpgradeCheckResult(UpgradeCheck check) {
     m_upgradeCheck = check;
@@ -117,6 +118,25 @@ public class UpgradeCheckResult {
     m_failedOn = failedOn;
   }
 
+  /**
+   * Gets the time it took to perform the upgrade check.
+   *
+   * @return the duration of the check, in milliseconds.
+   */
+  public long getDuration() {
+    return m_duration;
+  }
+
+  /**
+   * Sets the time it took to perform the upgrade check.
+   *
+   * @param duration
+   *          the duration of the check, in milliseconds.
+   */
+  public void setDuration(long duration) {
+    m_duration = duration;
+  }
+
   /**
    * Gets the area of Ambari that the upgrade check is for.
    *
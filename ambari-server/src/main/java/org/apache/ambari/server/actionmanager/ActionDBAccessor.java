@@ -103,6 +103,19 @@ public interface ActionDBAccessor {
    */
   List<Stage> getStagesInProgressForRequest(Long requestId);
 
+  /**
+   * Returns the first stage in progress of a single request, which is the
+   * stage {@link #getFirstStageInProgressPerRequest()} would return for it.
+   *
+   * @param requestId
+   *          the ID of the request.
+   * @return the first stage in progress, or {@code null} if the request has
+   *         no stage in progress.
+   *
+   * @see HostRoleStatus#IN_PROGRESS_STATUSES
+   */
+  Stage getFirstStageInProgress(Long requestId);
+
   /**
    * Gets the number of commands in progress.
    *
@@ -310,6 +310,20 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
     return stages;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Stage getFirstStageInProgress(Long requestId) {
+    StageEntity stageEntity = stageDAO.findFirstStageByRequestIdAndStatus(requestId,
+        HostRoleStatus.IN_PROGRESS_STATUSES);
+    if (null == stageEntity) {
+      return null;
+    }
+
+    return stageFactory.createExisting(stageEntity);
+  }
+
   private List<Stage> getStagesForEntities(List<StageEntity> stageEntities) {
     List<Stage> stages = new ArrayList<>(stageEntities.size());
     for (StageEntity stageEntity : stageEntities) {
@@ -557,10 +571,9 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
           LOG.debug("Setting status from {} to {} for {}", existingTaskStatus, reportedTaskStatus, commandEntity.getTaskId());
           commandEntity.setStatus(reportedTaskStatus);
         }
-        commandEntity.setStdOut(report.getStdOut() == null ? null : report.getStdOut().getBytes());
-        commandEntity.setStdError(report.getStdErr() == null ? null : report.getStdErr().getBytes());
-        commandEntity.setStructuredOut(report.getStructuredOut() == null ? null :
-            report.getStructuredOut().getBytes());
+        commandEntity.setStdOut(TaskBlobCodec.encode(report.getStdOut()));
+        commandEntity.setStdError(TaskBlobCodec.encode(report.getStdErr()));
+        commandEntity.setStructuredOut(TaskBlobCodec.encode(report.getStructuredOut()));
         commandEntity.setExitcode(report.getExitCode());
         if (commandEntity.getStatus().isCompletedState()) {
           commandEntity.setEndTime(now);
@@ -625,10 +638,9 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
       }
 
       command.setStatus(status);
-      command.setStdOut(report.getStdOut().getBytes());
-      command.setStdError(report.getStdErr().getBytes());
-      command.setStructuredOut(report.getStructuredOut() == null ? null :
-        report.getStructuredOut().getBytes());
+      command.setStdOut(TaskBlobCodec.encode(report.getStdOut()));
+      command.setStdError(TaskBlobCodec.encode(report.getStdErr()));
+      command.setStructuredOut(TaskBlobCodec.encode(report.getStructuredOut()));
 
       if (HostRoleStatus.getCompletedStates().contains(command.getStatus())) {
         command.setEndTime(now);
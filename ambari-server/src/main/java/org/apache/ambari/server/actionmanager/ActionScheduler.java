@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -47,14 +48,17 @@ import org.apache.ambari.server.agent.ExecutionCommand;
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.HostsMap;
 import org.apache.ambari.server.events.ActionFinalReportReceivedEvent;
+import org.apache.ambari.server.events.TaskEvent;
 import org.apache.ambari.server.events.jpa.EntityManagerCacheInvalidationEvent;
 import org.apache.ambari.server.events.listeners.tasks.TaskStatusListener;
 import org.apache.ambari.server.events.publishers.AgentCommandsPublisher;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.events.publishers.JPAEventPublisher;
+import org.apache.ambari.server.events.publishers.TaskEventPublisher;
 import org.apache.ambari.server.metadata.RoleCommandOrder;
 import org.apache.ambari.server.metadata.RoleCommandOrderProvider;
 import org.apache.ambari.server.metadata.RoleCommandPair;
+import org.apache.ambari.server.orm.AmbariJpaLocalTxnInterceptor;
 import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
 import org.apache.ambari.server.orm.entities.RequestEntity;
@@ -143,6 +147,9 @@ class ActionScheduler implements Runnable {
   @Inject
   private AgentCommandsPublisher agentCommandsPublisher;
 
+  @Inject
+  private TaskEventPublisher taskEventPublisher;
+
   /**
    * The current thread's reference to the {@link EntityManager}.
    */
@@ -185,6 +192,38 @@ class ActionScheduler implements Runnable {
 
   private AtomicBoolean taskStatusLoaded = new AtomicBoolean();
 
+  /**
+   * {@code true} if only the stages of requests which changed since the
+   * previous run are evaluated, see
+   * {@link Configuration#isActionSchedulerEventDriven()}.
+   */
+  private volatile boolean eventDriven = false;
+
+  /**
+   * Request IDs whose tasks were created or changed since the previous run.
+   * Only populated when {@link #eventDriven}.
+   */
+  private final Set<Long> changedRequests = ConcurrentHashMap.newKeySet();
+
+  /**
+   * [ RequestId -> StageId ] of the stage evaluated for each request by the
+   * previous run, used to detect requests which advanced to their next stage.
+   * Only accessed by the scheduler thread.
+   */
+  private final Map<Long, Long> evaluatedStages = new HashMap<>();
+
+  /**
+   * The IDs of the requests which had a stage in progress during the previous
+   * run. Only accessed by the scheduler thread.
+   */
+  private final Set<Long> inProgressRequests = new HashSet<>();
+
+  /**
+   * The time, in milliseconds, at which all in-progress stages are evaluated
+   * again when {@link #eventDriven}. Only accessed by the scheduler thread.
+   */
+  private long nextFullScanTime = 0L;
+
   //Cache for clusterHostinfo, key - stageId-requestId
   private Cache<String, Map<String, Set<String>>> clusterHostInfoCache;
   private Cache<String, Map<String, String>> commandParamsStageCache;
@@ -303,6 +342,11 @@ class ActionScheduler implements Runnable {
   }
 
   public void start() {
+    eventDriven = configuration.isActionSchedulerEventDriven();
+    if (eventDriven && null != taskEventPublisher) {
+      taskEventPublisher.register(this);
+    }
+
     schedulerThread = new Thread(this, "ambari-action-scheduler");
     schedulerThread.start();
 
@@ -351,14 +395,42 @@ class ActionScheduler implements Runnable {
       } catch (Exception ex) {
         LOG.warn("Exception received", ex);
         requestsInProgress.clear();
+        nextFullScanTime = 0L;
       } catch (Throwable t) {
         LOG.warn("ERROR", t);
         requestsInProgress.clear();
+        nextFullScanTime = 0L;
       }
     }
   }
 
   public void doWork() throws AmbariException {
+    // when event driven, only requests which changed are evaluated in between
+    // the periodic full scans which detect timed out tasks and lost hosts
+    boolean fullScan = true;
+    boolean changedRequestsOnly = false;
+    Set<Long> changedRequestIds = Collections.emptySet();
+    if (eventDriven) {
+      long now = System.currentTimeMillis();
+      fullScan = now >= nextFullScanTime;
+      if (fullScan) {
+        nextFullScanTime = now + TimeUnit.SECONDS.toMillis(configuration.getActionSchedulerFullScanInterval());
+      }
+
+      changedRequestIds = new HashSet<>(changedRequests);
+      changedRequests.removeAll(changedRequestIds);
+
+      if (!fullScan && changedRequestIds.isEmpty() && requestsToBeCancelled.isEmpty()) {
+        LOG.debug("No requests changed since the previous run");
+        return;
+      }
+
+      // unchanged requests which are in progress can still hold back the
+      // changed ones (exclusive requests, shared hosts), so the stages of the
+      // changed requests alone are only read if no such request exists
+      changedRequestsOnly = !fullScan && changedRequestIds.containsAll(inProgressRequests);
+    }
+
     try {
       unitOfWork.begin();
 
@@ -368,20 +440,33 @@ class ActionScheduler implements Runnable {
       // The first thing to do is to abort requests that are cancelled
       processCancelledRequestsList();
 
-      // !!! getting the stages in progress could be a very expensive call due
-      // to the join being used; there's no need to make it if there are
-      // no commands in progress
-      if (db.getCommandsInProgressCount() == 0) {
-        // Nothing to do
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("There are no stages currently in progress.");
+      List<Stage> firstStageInProgressPerRequest;
+      if (changedRequestsOnly) {
+        firstStageInProgressPerRequest = getFirstStageInProgressPerRequest(changedRequestIds);
+      } else {
+        // !!! getting the stages in progress could be a very expensive call due
+        // to the join being used; there's no need to make it if there are
+        // no commands in progress
+        if (db.getCommandsInProgressCount() == 0) {
+          inProgressRequests.clear();
+
+          // Nothing to do
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("There are no stages currently in progress.");
+          }
+
+          return;
         }
 
-        return;
+        firstStageInProgressPerRequest = db.getFirstStageInProgressPerRequest();
+      }
+
+      inProgressRequests.clear();
+      for (Stage stage : firstStageInProgressPerRequest) {
+        inProgressRequests.add(stage.getRequestId());
       }
 
       Set<Long> runningRequestIds = new HashSet<>();
-      List<Stage> firstStageInProgressPerRequest = db.getFirstStageInProgressPerRequest();
       if (LOG.isDebugEnabled()) {
         LOG.debug("Scheduler wakes up");
         LOG.debug("Processing {} in progress stages", firstStageInProgressPerRequest.size());
@@ -436,11 +521,40 @@ class ActionScheduler implements Runnable {
           }
         }
 
+        if (!fullScan && !changedRequestIds.contains(requestId)
+            && Long.valueOf(stage.getStageId()).equals(evaluatedStages.get(requestId))) {
+          LOG.debug("==> Stage {} of request {} has not changed", stage.getStageId(), requestId);
+          if (!configuration.getParallelStageExecution()) {
+            return;
+          }
+
+          if (exclusiveRequestIsGoing) {
+            break;
+          }
+
+          continue;
+        }
+
+        evaluatedStages.put(requestId, stage.getStageId());
+
         // Commands that will be scheduled in current scheduler wakeup
         List<ExecutionCommand> commandsToSchedule = new ArrayList<>();
         Multimap<Long, AgentCommand> commandsToEnqueue = ArrayListMultimap.create();
         Map<String, RoleStats> roleStats = processInProgressStage(stage, commandsToSchedule, commandsToEnqueue);
 
+        // pending commands which could not be scheduled yet wait for other
+        // commands or hosts, so evaluate the stage again on the next run
+        if (eventDriven) {
+          int numPending = 0;
+          for (RoleStats stats : roleStats.values()) {
+            numPending += stats.numPending;
+          }
+
+          if (numPending > commandsToSchedule.size()) {
+            changedRequests.add(requestId);
+          }
+        }
+
         // Check if stage is failed
         boolean failed = false;
         for (Map.Entry<String, RoleStats> entry : roleStats.entrySet()) {
@@ -558,6 +672,7 @@ class ActionScheduler implements Runnable {
       }
 
       requestsInProgress.retainAll(runningRequestIds);
+      evaluatedStages.keySet().retainAll(runningRequestIds);
 
     } finally {
       LOG.debug("Scheduler finished work.");
@@ -565,6 +680,27 @@ class ActionScheduler implements Runnable {
     }
   }
 
+  /**
+   * Gets the first stage in progress of each of the specified requests,
+   * ordered by request ID like
+   * {@link ActionDBAccessor#getFirstStageInProgressPerRequest()}.
+   *
+   * @param requestIds
+   *          the IDs of the requests.
+   * @return the first stage in progress of the requests which have one.
+   */
+  private List<Stage> getFirstStageInProgressPerRequest(Set<Long> requestIds) {
+    List<Stage> stages = new ArrayList<>(requestIds.size());
+    for (Long requestId : new TreeSet<>(requestIds)) {
+      Stage stage = db.getFirstStageInProgress(requestId);
+      if (null != stage) {
+        stages.add(stage);
+      }
+    }
+
+    return stages;
+  }
+
   /**
    * publish event to load {@link TaskStatusListener#activeTasksMap} {@link TaskStatusListener#activeStageMap}
    * and {@link TaskStatusListener#activeRequestMap} for all running request once during server startup.
@@ -1359,6 +1495,33 @@ class ActionScheduler implements Runnable {
     taskTimeoutAdjustment = val;
   }
 
+  /**
+   * Records the requests whose tasks were created or changed so that their
+   * stages are evaluated when the scheduler is event driven, and wakes the
+   * scheduler up to do so.
+   * <p/>
+   * Task events are published from inside of the transaction which changes the
+   * tasks. The requests are only marked once that transaction has completed;
+   * otherwise the scheduler could evaluate them before the new task statuses
+   * are visible, record the stages as evaluated and then skip them until the
+   * next full scan.
+   *
+   * @param event
+   *          the task event (not {@code null}).
+   */
+  @Subscribe
+  public void onTaskEvent(TaskEvent event) {
+    final Set<Long> requestIds = new HashSet<>();
+    for (HostRoleCommand hostRoleCommand : event.getHostRoleCommands()) {
+      requestIds.add(hostRoleCommand.getRequestId());
+    }
+
+    AmbariJpaLocalTxnInterceptor.runAfterCompletion(() -> {
+      changedRequests.addAll(requestIds);
+      awake();
+    });
+  }
+
   ServerActionExecutor getServerActionExecutor() {
     return serverActionExecutor;
   }
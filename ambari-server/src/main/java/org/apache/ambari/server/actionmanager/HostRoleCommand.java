@@ -164,11 +164,11 @@ public class HostRoleCommand {
     hostName = hostRoleCommandEntity.getHostName();
     role = hostRoleCommandEntity.getRole();
     status = hostRoleCommandEntity.getStatus();
-    stdout = hostRoleCommandEntity.getStdOut() != null ? new String(hostRoleCommandEntity.getStdOut()) : "";
-    stderr = hostRoleCommandEntity.getStdError() != null ? new String(hostRoleCommandEntity.getStdError()) : "";
+    stdout = hostRoleCommandEntity.getStdOut() != null ? TaskBlobCodec.decode(hostRoleCommandEntity.getStdOut()) : "";
+    stderr = hostRoleCommandEntity.getStdError() != null ? TaskBlobCodec.decode(hostRoleCommandEntity.getStdError()) : "";
     outputLog = hostRoleCommandEntity.getOutputLog();
     errorLog = hostRoleCommandEntity.getErrorLog();
-    structuredOut = hostRoleCommandEntity.getStructuredOut() != null ? new String(hostRoleCommandEntity.getStructuredOut()) : "";
+    structuredOut = hostRoleCommandEntity.getStructuredOut() != null ? TaskBlobCodec.decode(hostRoleCommandEntity.getStructuredOut()) : "";
     exitCode = hostRoleCommandEntity.getExitcode();
     startTime = hostRoleCommandEntity.getStartTime() != null ? hostRoleCommandEntity.getStartTime() : -1L;
     originalStartTime = hostRoleCommandEntity.getOriginalStartTime() != null ? hostRoleCommandEntity.getOriginalStartTime() : -1L;
@@ -191,10 +191,10 @@ public class HostRoleCommand {
     HostRoleCommandEntity hostRoleCommandEntity = new HostRoleCommandEntity();
     hostRoleCommandEntity.setRole(role);
     hostRoleCommandEntity.setStatus(status);
-    hostRoleCommandEntity.setStdError(stderr.getBytes());
+    hostRoleCommandEntity.setStdError(TaskBlobCodec.encode(stderr));
     hostRoleCommandEntity.setExitcode(exitCode);
-    hostRoleCommandEntity.setStdOut(stdout.getBytes());
-    hostRoleCommandEntity.setStructuredOut(structuredOut.getBytes());
+    hostRoleCommandEntity.setStdOut(TaskBlobCodec.encode(stdout));
+    hostRoleCommandEntity.setStructuredOut(TaskBlobCodec.encode(structuredOut));
     hostRoleCommandEntity.setStartTime(startTime);
     hostRoleCommandEntity.setOriginalStartTime(originalStartTime);
     hostRoleCommandEntity.setEndTime(endTime);
@@ -236,7 +236,7 @@ public class HostRoleCommand {
 
   ExecutionCommandEntity constructExecutionCommandEntity() {
     ExecutionCommandEntity executionCommandEntity = new ExecutionCommandEntity();
-    executionCommandEntity.setCommand(executionCommandWrapper.getJson().getBytes());
+    executionCommandEntity.setCommand(TaskBlobCodec.encode(executionCommandWrapper.getJson()));
     return executionCommandEntity;
   }
 
@@ -419,7 +419,7 @@ public class HostRoleCommand {
         throw new RuntimeException("Invalid DB state, broken one-to-one relation for taskId=" + taskId);
       }
 
-      executionCommandWrapper = ecwFactory.createFromJson(new String(commandEntity.getCommand()));
+      executionCommandWrapper = ecwFactory.createFromJson(TaskBlobCodec.decode(commandEntity.getCommand()));
     }
 
     return executionCommandWrapper;
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Encodes the large task columns ({@code execution_command.command},
+ * {@code host_role_command.std_out}, {@code std_error} and
+ * {@code structured_out}) before they are written and decodes them after
+ * they are read.
+ * <p/>
+ * When {@link Configuration#TASK_BLOB_COMPRESSION_ENABLED} is set, values of at
+ * least {@link Configuration#TASK_BLOB_COMPRESSION_MIN_SIZE} bytes are stored
+ * GZIP compressed. Decoding recognizes compressed values by the GZIP header,
+ * which can not start the UTF-8 encoding of the JSON and text stored in these
+ * columns, so rows written before the storage mode was enabled (or after it
+ * was disabled again) are read unchanged.
+ */
+public final class TaskBlobCodec {
+
+  /**
+   * The first two bytes of every GZIP stream.
+   */
+  private static final int GZIP_MAGIC_FIRST = 0x1f;
+  private static final int GZIP_MAGIC_SECOND = 0x8b;
+
+  private static volatile boolean compressionEnabled = false;
+  private static volatile int compressionMinSize = Integer.MAX_VALUE;
+
+  private TaskBlobCodec() {
+  }
+
+  //todo: proper static injection
+  public static void setConfiguration(Configuration configuration) {
+    compressionEnabled = configuration.isTaskBlobCompressionEnabled();
+    compressionMinSize = configuration.getTaskBlobCompressionMinSize();
+  }
+
+  /**
+   * Encodes the value for storage.
+   *
+   * @param value
+   *          the value to store, may be {@code null}.
+   * @return the bytes to store, or {@code null} if the value is {@code null}.
+   */
+  public static byte[] encode(String value) {
+    if (null == value) {
+      return null;
+    }
+
+    byte[] bytes = value.getBytes();
+    if (!compressionEnabled || bytes.length < compressionMinSize) {
+      return bytes;
+    }
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      // can not happen when writing to memory
+      throw new IllegalStateException("Unable to compress task data", e);
+    }
+
+    byte[] result = compressed.toByteArray();
+    return result.length < bytes.length ? result : bytes;
+  }
+
+  /**
+   * Decodes a stored value, decompressing it if it was stored compressed.
+   *
+   * @param bytes
+   *          the stored bytes, may be {@code null}.
+   * @return the value, or {@code null} if the bytes are {@code null}.
+   */
+  public static String decode(byte[] bytes) {
+    if (null == bytes) {
+      return null;
+    }
+
+    if (!isCompressed(bytes)) {
+      return new String(bytes);
+    }
+
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(IOUtils.toByteArray(in));
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to decompress task data", e);
+    }
+  }
+
+  /**
+   * @param bytes
+   *          the stored bytes.
+   * @return {@code true} if the bytes start with the GZIP header.
+   */
+  static boolean isCompressed(byte[] bytes) {
+    return bytes.length > 2 && (bytes[0] & 0xff) == GZIP_MAGIC_FIRST
+        && (bytes[1] & 0xff) == GZIP_MAGIC_SECOND;
+  }
+}
@@ -19,69 +19,264 @@ package org.apache.ambari.server.agent;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.HostsRemovedEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.persist.UnitOfWork;
 
+/**
+ * Processes the reports received from the agents.
+ * <p/>
+ * Reports are queued per host and the queue of a host is drained by at most
+ * one worker at a time, so the reports of a host are always processed in the
+ * order in which they were received. The workers of a work-stealing
+ * {@link ForkJoinPool} pick up whichever host queue is ready, so a host with
+ * slow reports only delays its own reports instead of every host which
+ * happens to hash to the same thread. Up to
+ * {@link Configuration#getAgentsReportProcessingBatchSize()} queued reports
+ * of a host are processed in a single unit of work before the worker moves on
+ * to other hosts. A report which fails ends the batch, so that the reports
+ * after it are processed in a new unit of work.
+ */
 @Singleton
 public class AgentReportsProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(AgentReportsProcessor.class);
 
-  private final int poolSize;
+  private static final String POOL_NAME = "agent-report-processor";
+
+  private final ForkJoinPool pool;
 
-  private final List<ExecutorService> executors;
+  private final int batchSize;
+
+  /**
+   * [ HostName -> Queue ]
+   */
+  private final Map<String, HostReportQueue> hostQueues = new ConcurrentHashMap<>();
 
   public void addAgentReport(AgentReport agentReport) {
-    int hash = agentReport.getHostName().hashCode();
-    hash = hash == Integer.MIN_VALUE ? 0 : hash;
-    int executorNumber = Math.abs(hash) % poolSize;
-    executors.get(executorNumber).execute(new AgentReportProcessingTask(agentReport));
+    HostReportQueue hostQueue = hostQueues.computeIfAbsent(agentReport.getHostName(), HostReportQueue::new);
+    hostQueue.add(agentReport);
   }
 
   @Inject
   private UnitOfWork unitOfWork;
 
   @Inject
-  public AgentReportsProcessor(Configuration configuration) {
+  public AgentReportsProcessor(Configuration configuration, AmbariEventPublisher ambariEventPublisher) {
+    batchSize = Math.max(1, configuration.getAgentsReportProcessingBatchSize());
+    pool = new ForkJoinPool(configuration.getAgentsReportThreadPoolSize(),
+        forkJoinPool -> {
+          ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+          worker.setName(POOL_NAME + "-" + worker.getPoolIndex());
+          return worker;
+        },
+        (t, e) -> LOG.error("Unexpected exception in thread: " + t, e),
+        true);
+    ambariEventPublisher.register(this);
+  }
+
+  /**
+   * Drops the queues of the removed hosts, along with the reports they still
+   * hold.
+   *
+   * @param event
+   *          the event listing the removed hosts.
+   */
+  @Subscribe
+  public void onHostsRemoved(HostsRemovedEvent event) {
+    for (String hostName : event.getHostNames()) {
+      hostQueues.remove(hostName);
+    }
+  }
+
+  /**
+   * Gets the processing statistics of every host which received reports since
+   * the previous invocation. The latency values are reset by this call.
+   *
+   * @return the statistics of the active hosts.
+   */
+  public List<HostReportStatistics> getHostReportStatistics() {
+    List<HostReportStatistics> statistics = new ArrayList<>();
+    for (HostReportQueue hostQueue : hostQueues.values()) {
+      HostReportStatistics hostStatistics = hostQueue.snapshot();
+      if (hostStatistics.getQueueDepth() > 0 || hostStatistics.getProcessedCount() > 0) {
+        statistics.add(hostStatistics);
+      }
+    }
+    return statistics;
+  }
+
+  /**
+   * A report together with the time it was queued.
+   */
+  private static final class QueuedReport {
+    private final AgentReport report;
+    private final long queuedAt = System.nanoTime();
 
-    ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("agent-report-processor-%d").build();
-    poolSize = configuration.getAgentsReportThreadPoolSize();
-    executors = new ArrayList<>();
-    for (int i = 0; i < poolSize; i++) {
-      executors.add(Executors.newSingleThreadExecutor(threadFactory));
+    private QueuedReport(AgentReport report) {
+      this.report = report;
     }
   }
 
-  private class AgentReportProcessingTask implements Runnable {
+  /**
+   * The reports of a single host waiting to be processed. The queue is
+   * submitted to the pool whenever it becomes non-empty and resubmits itself
+   * after each batch while reports remain, so other hosts get their turn.
+   */
+  private final class HostReportQueue implements Runnable {
+    private final String hostName;
+    private final Queue<QueuedReport> reports = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    private HostReportQueue(String hostName) {
+      this.hostName = hostName;
+    }
 
-    private final AgentReport agentReport;
+    private void add(AgentReport report) {
+      depth.incrementAndGet();
+      reports.add(new QueuedReport(report));
+      schedule();
+    }
 
-    public AgentReportProcessingTask(AgentReport agentReport) {
-      this.agentReport = agentReport;
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        pool.execute(this);
+      }
     }
 
     @Override
     public void run() {
       try {
-        unitOfWork.begin();
-        try {
-          agentReport.process();
-        } catch (AmbariException e) {
-          LOG.error("Error processing agent reports", e);
+        processBatch();
+      } finally {
+        scheduled.set(false);
+
+        // a report may have been added after the queue was drained but before
+        // the flag was cleared
+        if (!reports.isEmpty()) {
+          schedule();
+        }
+      }
+    }
+
+    private void processBatch() {
+      unitOfWork.begin();
+      try {
+        for (int i = 0; i < batchSize; i++) {
+          QueuedReport queuedReport = reports.poll();
+          if (null == queuedReport) {
+            break;
+          }
+
+          depth.decrementAndGet();
+          boolean failed = false;
+          try {
+            queuedReport.report.process();
+          } catch (AmbariException | RuntimeException e) {
+            LOG.error("Error processing agent reports", e);
+            failed = true;
+          }
+
+          long latency = System.nanoTime() - queuedReport.queuedAt;
+          processed.incrementAndGet();
+          totalLatency.addAndGet(latency);
+          maxLatency.accumulateAndGet(latency, Math::max);
+
+          // the entity manager may be unusable after a failure, so the
+          // remaining reports are left to the next batch
+          if (failed) {
+            break;
+          }
         }
       } finally {
         unitOfWork.end();
       }
     }
+
+    private HostReportStatistics snapshot() {
+      long processedCount = processed.getAndSet(0);
+      long latency = totalLatency.getAndSet(0);
+      long max = maxLatency.getAndSet(0);
+      return new HostReportStatistics(hostName, depth.get(), processedCount,
+          processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latency / processedCount),
+          TimeUnit.NANOSECONDS.toMillis(max));
+    }
+  }
+
+  /**
+   * The report processing statistics of a host since the previous call to
+   * {@link AgentReportsProcessor#getHostReportStatistics()}.
+   */
+  public static final class HostReportStatistics {
+    private final String hostName;
+    private final int queueDepth;
+    private final long processedCount;
+    private final long averageLatency;
+    private final long maxLatency;
+
+    HostReportStatistics(String hostName, int queueDepth, long processedCount, long averageLatency,
+                         long maxLatency) {
+      this.hostName = hostName;
+      this.queueDepth = queueDepth;
+      this.processedCount = processedCount;
+      this.averageLatency = averageLatency;
+      this.maxLatency = maxLatency;
+    }
+
+    public String getHostName() {
+      return hostName;
+    }
+
+    /**
+     * @return the number of reports waiting to be processed.
+     */
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * @return the number of reports processed in the interval.
+     */
+    public long getProcessedCount() {
+      return processedCount;
+    }
+
+    /**
+     * @return the average time, in milliseconds, from receiving a report to
+     *         having processed it.
+     */
+    public long getAverageLatency() {
+      return averageLatency;
+    }
+
+    /**
+     * @return the maximum time, in milliseconds, from receiving a report to
+     *         having processed it.
+     */
+    public long getMaxLatency() {
+      return maxLatency;
+    }
   }
 }
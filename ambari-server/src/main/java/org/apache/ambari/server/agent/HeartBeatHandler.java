@@ -216,6 +216,8 @@ public class HeartBeatHandler {
       LOG.warn("Asking agent to re-register due to " + ex.getMessage(), ex);
       hostObject.setState(HostState.INIT);
       return createRegisterCommand();
+    } finally {
+      heartbeatMonitor.scheduleHeartbeatCheck(hostObject);
     }
 
     heartbeatProcessor.addHeartbeat(heartbeat);
@@ -247,6 +249,8 @@ public class HeartBeatHandler {
       LOG.warn("Asking agent to re-register due to " + ex.getMessage(), ex);
       host.setState(HostState.INIT);
       agentSessionManager.unregisterByHost(host.getHostId());
+    } finally {
+      heartbeatMonitor.scheduleHeartbeatCheck(host);
     }
   }
 
@@ -349,6 +353,7 @@ public class HeartBeatHandler {
         null != register.getPublicHostname() ? register.getPublicHostname() : hostname,
         new AgentVersion(register.getAgentVersion()), now, register.getHardwareProfile(),
         register.getAgentEnv(), register.getAgentStartTime()));
+    heartbeatMonitor.scheduleHeartbeatCheck(hostObject);
 
     // publish the event
     HostRegisteredEvent event = new HostRegisteredEvent(hostname, hostObject.getHostId());
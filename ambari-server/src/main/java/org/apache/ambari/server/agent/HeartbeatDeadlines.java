@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timer wheel of the times at which the {@link HeartbeatMonitor} has to check
+ * the hosts.
+ * <p/>
+ * Each host has at most one deadline. The wheel has a fixed number of buckets, each
+ * covering one tick; a deadline is put into the bucket of its tick modulo the number
+ * of buckets, so that scheduling, rescheduling and removing a host take constant time
+ * and expiring only visits the buckets of the ticks which have passed.
+ */
+final class HeartbeatDeadlines {
+
+  /**
+   * The length of a tick in milliseconds.
+   */
+  private final long tickMillis;
+
+  /**
+   * The hosts of each bucket.
+   */
+  private final List<Set<Long>> buckets;
+
+  /**
+   * The deadline of each scheduled host.
+   */
+  private final Map<Long, Deadline> deadlines = new HashMap<>();
+
+  /**
+   * The first tick which has not been expired completely.
+   */
+  private long currentTick;
+
+  /**
+   * Constructor.
+   *
+   * @param tickMillis  the length of a tick in milliseconds
+   * @param wheelSize   the number of buckets
+   * @param now         the current time
+   */
+  HeartbeatDeadlines(long tickMillis, int wheelSize, long now) {
+    this.tickMillis = Math.max(1, tickMillis);
+    buckets = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new HashSet<>());
+    }
+    currentTick = now / this.tickMillis;
+  }
+
+  /**
+   * Schedule the given host, replacing its previous deadline.
+   *
+   * @param hostId    the host
+   * @param deadline  the time at which the host has to be checked
+   */
+  synchronized void schedule(Long hostId, long deadline) {
+    // deadlines which have passed already are expired with the current tick
+    long tick = Math.max(deadline / tickMillis, currentTick);
+    int bucket = (int) (tick % buckets.size());
+
+    Deadline previous = deadlines.put(hostId, new Deadline(deadline, bucket));
+    if (null != previous && previous.bucket != bucket) {
+      buckets.get(previous.bucket).remove(hostId);
+    }
+    buckets.get(bucket).add(hostId);
+  }
+
+  /**
+   * Remove the deadline of the given host.
+   *
+   * @param hostId  the host
+   */
+  synchronized void remove(Long hostId) {
+    Deadline previous = deadlines.remove(hostId);
+    if (null != previous) {
+      buckets.get(previous.bucket).remove(hostId);
+    }
+  }
+
+  /**
+   * Remove the hosts whose deadline has passed.
+   *
+   * @param now  the current time
+   *
+   * @return the hosts whose deadline has passed
+   */
+  synchronized List<Long> expire(long now) {
+    List<Long> expired = new ArrayList<>();
+    long nowTick = now / tickMillis;
+    // each bucket has to be visited at most once, however long ago the last expiry was
+    long firstTick = Math.max(currentTick, nowTick - buckets.size() + 1);
+
+    for (long tick = firstTick; tick <= nowTick; tick++) {
+      Iterator<Long> iterator = buckets.get((int) (tick % buckets.size())).iterator();
+      while (iterator.hasNext()) {
+        Long hostId = iterator.next();
+        // later rounds of the wheel share the bucket
+        if (deadlines.get(hostId).time <= now) {
+          iterator.remove();
+          deadlines.remove(hostId);
+          expired.add(hostId);
+        }
+      }
+    }
+
+    // deadlines later in the current tick are expired with the next call
+    currentTick = Math.max(currentTick, nowTick);
+    return expired;
+  }
+
+  /**
+   * @return the number of scheduled hosts
+   */
+  synchronized int size() {
+    return deadlines.size();
+  }
+
+  /**
+   * The deadline of a host and the bucket it was put into.
+   */
+  private static final class Deadline {
+    private final long time;
+    private final int bucket;
+
+    private Deadline(long time, int bucket) {
+      this.time = time;
+      this.bucket = bucket;
+    }
+  }
+}
@@ -35,11 +35,13 @@ import java.util.Set;
 import java.util.TreeMap;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.HostNotFoundException;
 import org.apache.ambari.server.RoleCommand;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.AmbariManagementController;
+import org.apache.ambari.server.events.HostsRemovedEvent;
 import org.apache.ambari.server.events.MessageNotDelivered;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.state.Cluster;
@@ -82,6 +84,17 @@ public class HeartbeatMonitor implements Runnable {
   private final AgentRequests agentRequests;
   private final AmbariEventPublisher ambariEventPublisher;
 
+  /**
+   * The number of wakeup intervals covered by one round of the deadline wheel; the
+   * deadlines are at most five intervals ahead.
+   */
+  private static final int DEADLINE_WHEEL_SIZE = 8;
+
+  /**
+   * The times at which the hosts have to be checked.
+   */
+  private final HeartbeatDeadlines deadlines;
+
   public HeartbeatMonitor(Clusters clusters, ActionManager am,
                           int threadWakeupInterval, Injector injector) {
     this.clusters = clusters;
@@ -93,6 +106,7 @@ public class HeartbeatMonitor implements Runnable {
             AmbariManagementController.class);
     configuration = injector.getInstance(Configuration.class);
     agentRequests = new AgentRequests();
+    deadlines = new HeartbeatDeadlines(threadWakeupInterval, DEADLINE_WHEEL_SIZE, System.currentTimeMillis());
     ambariEventPublisher = injector.getInstance(AmbariEventPublisher.class);
     ambariEventPublisher.register(this);
   }
@@ -120,6 +134,10 @@ public class HeartbeatMonitor implements Runnable {
 
   @Override
   public void run() {
+    // hosts which have not sent a heartbeat since the server started
+    for (Host hostObj : clusters.getHosts()) {
+      scheduleHeartbeatCheck(hostObj);
+    }
     while (shouldRun) {
       try {
         doWork();
@@ -136,38 +154,65 @@ public class HeartbeatMonitor implements Runnable {
     }
   }
 
-  //Go through all the nodes, check for last heartbeat or any waiting state
+  //Go through the nodes whose deadline has passed, check for last heartbeat or any waiting state
   //If heartbeat is lost, update node clusters state, purge the action queue
   //notify action manager for node failure.
-  private void doWork() throws InvalidStateTransitionException, AmbariException {
-    List<Host> allHosts = clusters.getHosts();
+  private void doWork() {
     long now = System.currentTimeMillis();
-    for (Host hostObj : allHosts) {
-      if (hostObj.getState() == HostState.HEARTBEAT_LOST) {
-        //do not check if host already known be lost
-        continue;
-      }
-      Long hostId = hostObj.getHostId();
-      HostState hostState = hostObj.getState();
-
-      long lastHeartbeat = 0;
+    for (Long hostId : deadlines.expire(now)) {
       try {
-        lastHeartbeat = clusters.getHostById(hostId).getLastHeartbeatTime();
-      } catch (AmbariException e) {
-        LOG.warn("Exception in getting host object; Is it fatal?", e);
+        checkHost(clusters.getHostById(hostId), now);
+      } catch (HostNotFoundException e) {
+        LOG.debug("Host {} was removed, not checking its heartbeat", hostId);
+      } catch (Exception e) {
+        LOG.warn("Exception received while checking host {}, checking it again later", hostId, e);
+        deadlines.schedule(hostId, now + threadWakeupInterval);
       }
-      if (lastHeartbeat + 2 * threadWakeupInterval < now) {
-        handleHeartbeatLost(hostId);
-      }
-      if (hostState == HostState.WAITING_FOR_HOST_STATUS_UPDATES) {
-        long timeSpentInState = hostObj.getTimeInState();
-        if (timeSpentInState + 5 * threadWakeupInterval < now) {
-          //Go back to init, the agent will be asked to register again in the next heartbeat
-          LOG.warn("timeSpentInState + 5*threadWakeupInterval < now, Go back to init");
-          hostObj.setState(HostState.INIT);
-        }
+    }
+  }
+
+  private void checkHost(Host hostObj, long now) throws InvalidStateTransitionException, AmbariException {
+    if (hostObj.getState() == HostState.HEARTBEAT_LOST) {
+      //do not check if host already known be lost
+      return;
+    }
+    Long hostId = hostObj.getHostId();
+    HostState hostState = hostObj.getState();
+
+    long lastHeartbeat = hostObj.getLastHeartbeatTime();
+    if (lastHeartbeat + 2 * threadWakeupInterval < now) {
+      handleHeartbeatLost(hostId);
+    }
+    if (hostState == HostState.WAITING_FOR_HOST_STATUS_UPDATES) {
+      long timeSpentInState = hostObj.getTimeInState();
+      if (timeSpentInState + 5 * threadWakeupInterval < now) {
+        //Go back to init, the agent will be asked to register again in the next heartbeat
+        LOG.warn("timeSpentInState + 5*threadWakeupInterval < now, Go back to init");
+        hostObj.setState(HostState.INIT);
       }
     }
+    scheduleHeartbeatCheck(hostObj);
+  }
+
+  /**
+   * Schedules the next check of the given host, after its heartbeat has been
+   * received or it registered. The host is checked once its heartbeat is overdue or
+   * it has been waiting for status updates for too long, whichever comes first.
+   * Hosts whose heartbeat is known to be lost are not checked until they heartbeat again.
+   *
+   * @param hostObj the host
+   */
+  public void scheduleHeartbeatCheck(Host hostObj) {
+    HostState hostState = hostObj.getState();
+    if (hostState == HostState.HEARTBEAT_LOST) {
+      deadlines.remove(hostObj.getHostId());
+      return;
+    }
+    long deadline = hostObj.getLastHeartbeatTime() + 2L * threadWakeupInterval + 1;
+    if (hostState == HostState.WAITING_FOR_HOST_STATUS_UPDATES) {
+      deadline = Math.min(deadline, hostObj.getTimeInState() + 5L * threadWakeupInterval + 1);
+    }
+    deadlines.schedule(hostObj.getHostId(), deadline);
   }
 
   /**
@@ -351,6 +396,13 @@ public class HeartbeatMonitor implements Runnable {
     actionManager.handleLostHost(host);
   }
 
+  @Subscribe
+  public void onHostsRemoved(HostsRemovedEvent event) {
+    for (Long hostId : event.getHostIds()) {
+      deadlines.remove(hostId);
+    }
+  }
+
   @Subscribe
   public void onMessageNotDelivered(MessageNotDelivered messageNotDelivered) {
     try {
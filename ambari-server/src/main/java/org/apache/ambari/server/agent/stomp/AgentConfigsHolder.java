@@ -18,10 +18,20 @@
 package org.apache.ambari.server.agent.stomp;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.agent.stomp.dto.ClusterConfigs;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.AgentConfigsUpdateEvent;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.security.encryption.Encryptor;
@@ -53,6 +63,13 @@ public class AgentConfigsHolder extends AgentHostDataHolder<AgentConfigsUpdateEv
   @Inject
   private ThreadPools threadPools;
 
+  @Inject
+  private Configuration configuration;
+
+  private final AtomicLong fullUpdates = new AtomicLong();
+  private final AtomicLong deltaUpdates = new AtomicLong();
+  private final AtomicLong savedBytes = new AtomicLong();
+
   @Inject
   public AgentConfigsHolder(AmbariEventPublisher ambariEventPublisher, @Named("AgentConfigEncryptor") Encryptor<AgentConfigsUpdateEvent> encryptor) {
     this.encryptor = encryptor;
@@ -99,6 +116,204 @@ public class AgentConfigsHolder extends AgentHostDataHolder<AgentConfigsUpdateEv
     return update;
   }
 
+  /**
+   * Sends only the config types and properties which changed since the configs the host received
+   * last. A full snapshot is sent if the host had no configs yet, the delta is disabled or it would
+   * not be smaller than the snapshot.
+   */
+  @Override
+  protected AgentConfigsUpdateEvent getUpdateToPublish(AgentConfigsUpdateEvent previous, AgentConfigsUpdateEvent update) {
+    AgentConfigsUpdateEvent delta = null;
+    if (previous != null && isIdentifierValid(previous) && configuration.isAgentConfigsDeltaEnabled()) {
+      delta = createDelta(previous, update);
+    }
+
+    if (delta == null) {
+      fullUpdates.incrementAndGet();
+      return update;
+    }
+
+    long fullSize = estimateSize(update.getClustersConfigs(), null);
+    long deltaSize = estimateSize(delta.getClustersConfigs(), delta.getRemovedConfigurations());
+    if (deltaSize >= fullSize) {
+      fullUpdates.incrementAndGet();
+      return update;
+    }
+
+    delta.setHash(update.getHash());
+    delta.setTimestamp(update.getTimestamp());
+    deltaUpdates.incrementAndGet();
+    savedBytes.addAndGet(fullSize - deltaSize);
+    return delta;
+  }
+
+  /**
+   * Gets the number of full and delta updates sent to the agents and the approximate number of
+   * bytes the deltas saved. The counters are reset by this call so that each invocation reports the
+   * interval since the previous one.
+   *
+   * @return the statistics.
+   */
+  public ConfigUpdateStatistics getUpdateStatistics() {
+    return new ConfigUpdateStatistics(fullUpdates.getAndSet(0), deltaUpdates.getAndSet(0), savedBytes.getAndSet(0));
+  }
+
+  /**
+   * Computes the delta between the configs of a host before and after an update.
+   *
+   * @param previous configs the host received last.
+   * @param update the new configs.
+   * @return the delta, or {@code null} if the update can only be sent as a full snapshot.
+   */
+  static AgentConfigsUpdateEvent createDelta(AgentConfigsUpdateEvent previous, AgentConfigsUpdateEvent update) {
+    SortedMap<String, ClusterConfigs> previousClusters = previous.getClustersConfigs();
+    SortedMap<String, ClusterConfigs> updatedClusters = update.getClustersConfigs();
+    if (previousClusters == null || updatedClusters == null || !previousClusters.keySet().equals(updatedClusters.keySet())) {
+      return null;
+    }
+
+    SortedMap<String, ClusterConfigs> changedClusters = new TreeMap<>();
+    SortedMap<String, SortedMap<String, SortedSet<String>>> removedClusters = new TreeMap<>();
+    for (Map.Entry<String, ClusterConfigs> cluster : updatedClusters.entrySet()) {
+      ClusterConfigs previousConfigs = previousClusters.get(cluster.getKey());
+      ClusterConfigs updatedConfigs = cluster.getValue();
+
+      SortedMap<String, SortedMap<String, SortedMap<String, String>>> changedAttributes = diffAttributes(
+          previousConfigs == null ? null : previousConfigs.getConfigurationAttributes(),
+          updatedConfigs == null ? null : updatedConfigs.getConfigurationAttributes());
+      if (changedAttributes == null) {
+        return null;
+      }
+
+      SortedMap<String, SortedMap<String, String>> previousTypes = nullToEmpty(
+          previousConfigs == null ? null : previousConfigs.getConfigurations());
+      SortedMap<String, SortedMap<String, String>> updatedTypes = nullToEmpty(
+          updatedConfigs == null ? null : updatedConfigs.getConfigurations());
+
+      SortedMap<String, SortedMap<String, String>> changedTypes = new TreeMap<>();
+      SortedMap<String, SortedSet<String>> removedTypes = new TreeMap<>();
+      for (Map.Entry<String, SortedMap<String, String>> type : updatedTypes.entrySet()) {
+        SortedMap<String, String> previousProperties = previousTypes.get(type.getKey());
+        SortedMap<String, String> updatedProperties = nullToEmpty(type.getValue());
+        if (previousProperties == null) {
+          changedTypes.put(type.getKey(), updatedProperties);
+          continue;
+        }
+
+        SortedMap<String, String> changedProperties = new TreeMap<>();
+        for (Map.Entry<String, String> property : updatedProperties.entrySet()) {
+          if (!previousProperties.containsKey(property.getKey())
+              || !Objects.equals(previousProperties.get(property.getKey()), property.getValue())) {
+            changedProperties.put(property.getKey(), property.getValue());
+          }
+        }
+        SortedSet<String> removedProperties = new TreeSet<>(previousProperties.keySet());
+        removedProperties.removeAll(updatedProperties.keySet());
+
+        if (!changedProperties.isEmpty()) {
+          changedTypes.put(type.getKey(), changedProperties);
+        }
+        if (!removedProperties.isEmpty()) {
+          removedTypes.put(type.getKey(), removedProperties);
+        }
+      }
+      for (String type : previousTypes.keySet()) {
+        if (!updatedTypes.containsKey(type)) {
+          removedTypes.put(type, Collections.emptySortedSet());
+        }
+      }
+
+      if (!changedTypes.isEmpty() || !changedAttributes.isEmpty()) {
+        changedClusters.put(cluster.getKey(), new ClusterConfigs(changedTypes, changedAttributes));
+      }
+      if (!removedTypes.isEmpty()) {
+        removedClusters.put(cluster.getKey(), removedTypes);
+      }
+    }
+
+    return AgentConfigsUpdateEvent.delta(update.getHostId(), previous.getHash(), changedClusters, removedClusters);
+  }
+
+  /**
+   * Gets the attributes of the config types whose attributes changed. The attributes of a changed
+   * type are sent as a whole and merged into the agent's ones, so an update which removes attributes
+   * can not be sent as a delta.
+   *
+   * @return the changed attributes, or {@code null} if attributes were removed.
+   */
+  private static SortedMap<String, SortedMap<String, SortedMap<String, String>>> diffAttributes(
+      SortedMap<String, SortedMap<String, SortedMap<String, String>>> previous,
+      SortedMap<String, SortedMap<String, SortedMap<String, String>>> updated) {
+    previous = nullToEmpty(previous);
+    updated = nullToEmpty(updated);
+    if (!updated.keySet().containsAll(previous.keySet())) {
+      return null;
+    }
+
+    SortedMap<String, SortedMap<String, SortedMap<String, String>>> changed = new TreeMap<>();
+    for (Map.Entry<String, SortedMap<String, SortedMap<String, String>>> type : updated.entrySet()) {
+      SortedMap<String, SortedMap<String, String>> previousAttributes = nullToEmpty(previous.get(type.getKey()));
+      SortedMap<String, SortedMap<String, String>> updatedAttributes = nullToEmpty(type.getValue());
+      if (previous.containsKey(type.getKey()) && previousAttributes.equals(updatedAttributes)) {
+        continue;
+      }
+      if (!updatedAttributes.keySet().containsAll(previousAttributes.keySet())) {
+        return null;
+      }
+      for (Map.Entry<String, SortedMap<String, String>> attribute : previousAttributes.entrySet()) {
+        if (!nullToEmpty(updatedAttributes.get(attribute.getKey())).keySet().containsAll(nullToEmpty(attribute.getValue()).keySet())) {
+          return null;
+        }
+      }
+      changed.put(type.getKey(), updatedAttributes);
+    }
+    return changed;
+  }
+
+  /**
+   * Approximates the serialized size of configs by the length of their names and values.
+   */
+  static long estimateSize(SortedMap<String, ClusterConfigs> clusters, SortedMap<String, SortedMap<String, SortedSet<String>>> removed) {
+    long size = 0;
+    for (Map.Entry<String, ClusterConfigs> cluster : nullToEmpty(clusters).entrySet()) {
+      size += cluster.getKey().length();
+      if (cluster.getValue() == null) {
+        continue;
+      }
+      for (Map.Entry<String, SortedMap<String, String>> type : nullToEmpty(cluster.getValue().getConfigurations()).entrySet()) {
+        size += type.getKey().length() + estimateSize(type.getValue());
+      }
+      for (Map.Entry<String, SortedMap<String, SortedMap<String, String>>> type : nullToEmpty(cluster.getValue().getConfigurationAttributes()).entrySet()) {
+        size += type.getKey().length();
+        for (Map.Entry<String, SortedMap<String, String>> attribute : nullToEmpty(type.getValue()).entrySet()) {
+          size += attribute.getKey().length() + estimateSize(attribute.getValue());
+        }
+      }
+    }
+    for (Map.Entry<String, SortedMap<String, SortedSet<String>>> cluster : nullToEmpty(removed).entrySet()) {
+      size += cluster.getKey().length();
+      for (Map.Entry<String, SortedSet<String>> type : cluster.getValue().entrySet()) {
+        size += type.getKey().length();
+        for (String property : type.getValue()) {
+          size += property.length();
+        }
+      }
+    }
+    return size;
+  }
+
+  private static long estimateSize(SortedMap<String, String> properties) {
+    long size = 0;
+    for (Map.Entry<String, String> property : nullToEmpty(properties).entrySet()) {
+      size += property.getKey().length() + (property.getValue() == null ? 0 : property.getValue().length());
+    }
+    return size;
+  }
+
+  private static <K, V> SortedMap<K, V> nullToEmpty(SortedMap<K, V> map) {
+    return map == null ? Collections.emptySortedMap() : map;
+  }
+
   @Override
   protected void regenerateDataIdentifiers(AgentConfigsUpdateEvent data) {
     data.setHash(getHash(data, encryptor.getEncryptionKey()));
@@ -121,4 +336,41 @@ public class AgentConfigsHolder extends AgentHostDataHolder<AgentConfigsUpdateEv
   protected AgentConfigsUpdateEvent getEmptyData() {
     return AgentConfigsUpdateEvent.emptyUpdate();
   }
+
+  /**
+   * The number of full and delta config updates sent to the agents since the previous call to
+   * {@link AgentConfigsHolder#getUpdateStatistics()}.
+   */
+  public static final class ConfigUpdateStatistics {
+    private final long fullUpdates;
+    private final long deltaUpdates;
+    private final long savedBytes;
+
+    ConfigUpdateStatistics(long fullUpdates, long deltaUpdates, long savedBytes) {
+      this.fullUpdates = fullUpdates;
+      this.deltaUpdates = deltaUpdates;
+      this.savedBytes = savedBytes;
+    }
+
+    /**
+     * @return the number of updates sent as full snapshots.
+     */
+    public long getFullUpdates() {
+      return fullUpdates;
+    }
+
+    /**
+     * @return the number of updates sent as deltas.
+     */
+    public long getDeltaUpdates() {
+      return deltaUpdates;
+    }
+
+    /**
+     * @return the approximate number of bytes the deltas saved compared to full snapshots.
+     */
+    public long getSavedBytes() {
+      return savedBytes;
+    }
+  }
 }
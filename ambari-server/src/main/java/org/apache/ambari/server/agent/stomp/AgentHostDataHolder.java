@@ -21,6 +21,7 @@ package org.apache.ambari.server.agent.stomp;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
@@ -76,8 +77,10 @@ public abstract class AgentHostDataHolder<T extends STOMPHostEvent & Hashable> e
    * event to listeners.
    */
   public void updateData(T update) throws AmbariException {
+    AtomicReference<T> published = new AtomicReference<>(update);
     try {
       data.compute(update.getHostId(), (id, current) -> {
+        T previous = current;
         if (current == null) {
           current = initializeData(id, true);
         }
@@ -93,12 +96,14 @@ public abstract class AgentHostDataHolder<T extends STOMPHostEvent & Hashable> e
         } else {
           regenerateDataIdentifiers(updated);
           setIdentifiersToEventUpdate(update, updated);
+          published.set(getUpdateToPublish(previous, update));
           return updated;
         }
       });
     } catch(AmbariRuntimeException e) {
       throw new AmbariException(e.getMessage(), e);
     }
+    update = published.get();
     if (isIdentifierValid(update)) {
       if (update.getType().equals(STOMPEvent.Type.AGENT_CONFIGS)) {
         LOG.info("Configs update with hash {} will be sent to host {}", update.getHash(), update.getHostId());
@@ -107,6 +112,17 @@ public abstract class AgentHostDataHolder<T extends STOMPHostEvent & Hashable> e
     }
   }
 
+  /**
+   * Gets the event which is published to the host for an applied update. Is invoked while the data
+   * of the host is locked, so the previous data is the one the host received last.
+   * @param previous data of the host before the update, {@code null} if the host had no data yet
+   * @param update the update with the identifiers of the new data
+   * @return the event to publish, by default the update itself
+   */
+  protected T getUpdateToPublish(T previous, T update) {
+    return update;
+  }
+
   protected void setIdentifiersToEventUpdate(T update, T hostData) {
     update.setHash(hostData.getHash());
   }
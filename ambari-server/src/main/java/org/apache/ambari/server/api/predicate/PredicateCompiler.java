@@ -18,15 +18,35 @@
 
 package org.apache.ambari.server.api.predicate;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.ambari.server.controller.spi.Predicate;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Compiler which takes a query expression as input and produces a predicate instance as output.
  */
 public class PredicateCompiler {
 
+  /**
+   * The maximum number of parsed predicates to keep.
+   */
+  static final int PREDICATE_CACHE_SIZE = 1000;
+
+  /**
+   * Predicates parsed from the same tokens, shared by all compilers.  Clients
+   * such as the web UI poll with the same filters over and over.  The cache is
+   * keyed by tokens rather than by the query string so that ignored properties,
+   * like the cache busting "_" parameter, don't defeat it.  Predicates are
+   * immutable, so a cached instance may be used by any number of requests.
+   */
+  private static final Cache<List<Token>, Predicate> PREDICATE_CACHE =
+      CacheBuilder.newBuilder().maximumSize(PREDICATE_CACHE_SIZE).build();
+
   /**
    * Lexer instance used to translate expressions into stream of tokens.
    */
@@ -46,7 +66,7 @@ public class PredicateCompiler {
    * @throws InvalidQueryException if unable to compile the expression
    */
   public Predicate compile(String exp) throws InvalidQueryException {
-    return parser.parse(lexer.tokens(exp));
+    return parse(lexer.tokens(exp));
   }
 
   /**
@@ -59,6 +79,35 @@ public class PredicateCompiler {
    * @throws InvalidQueryException if unable to compile the expression
    */
   public Predicate compile(String exp, Collection<String> ignoredProperties) throws InvalidQueryException {
-    return parser.parse(lexer.tokens(exp, ignoredProperties));
+    return parse(lexer.tokens(exp, ignoredProperties));
+  }
+
+  /**
+   * Get the predicate for the given tokens, parsing them only if no predicate
+   * has been cached for the same tokens.
+   *
+   * @param tokens  the tokens of a query expression
+   *
+   * @return a predicate instance
+   * @throws InvalidQueryException if unable to parse the tokens
+   */
+  private Predicate parse(Token[] tokens) throws InvalidQueryException {
+    List<Token> key = Arrays.asList(tokens);
+
+    Predicate predicate = PREDICATE_CACHE.getIfPresent(key);
+    if (predicate == null) {
+      predicate = parser.parse(tokens);
+      if (predicate != null) {
+        PREDICATE_CACHE.put(key, predicate);
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * Clear the cache of parsed predicates.
+   */
+  static void clearCache() {
+    PREDICATE_CACHE.invalidateAll();
   }
 }
@@ -18,14 +18,17 @@
 
 package org.apache.ambari.server.api.query;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.ambari.server.StaticallyInject;
 import org.apache.ambari.server.api.query.render.DefaultRenderer;
 import org.apache.ambari.server.api.query.render.Renderer;
 import org.apache.ambari.server.api.resources.ResourceDefinition;
@@ -40,6 +43,7 @@ import org.apache.ambari.server.api.util.TreeNodeImpl;
 import org.apache.ambari.server.controller.internal.QueryResponseImpl;
 import org.apache.ambari.server.controller.predicate.AndPredicate;
 import org.apache.ambari.server.controller.predicate.EqualsPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
 import org.apache.ambari.server.controller.spi.ClusterController;
 import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
 import org.apache.ambari.server.controller.spi.NoSuchResourceException;
@@ -62,11 +66,21 @@ import org.apache.ambari.server.security.authorization.AuthorizationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.Inject;
+
 /**
  * Default read query.
  */
+@StaticallyInject
 public class QueryImpl implements Query, ResourceInstance {
 
+  /**
+   * Runs the sub-resource queries; sub-resources are queried sequentially,
+   * one parent resource at a time, if not injected.
+   */
+  @Inject
+  private static SubResourceQueryExecutor subResourceQueryExecutor;
+
   /**
    * Definition for the resource type.  The definition contains all information specific to the
    * resource type.
@@ -464,22 +478,69 @@ public class QueryImpl implements Query, ResourceInstance {
       NoSuchResourceException,
       NoSuchParentResourceException {
 
-    for (Map.Entry<String, QueryImpl> entry : requestedSubResources.entrySet()) {
-      QueryImpl     subResource         = entry.getValue();
-      Resource.Type resourceType        = subResource.getResourceDefinition().getType();
-      Request       request             = subResource.createRequest();
-      Set<Resource> providerResourceSet = new HashSet<>();
+    List<SubResourceQueryExecutor.SubResourceQuery> queries = new ArrayList<>(requestedSubResources.size());
+    for (QueryImpl subResource : requestedSubResources.values()) {
+      queries.add(() -> queryForSubResource(subResource));
+    }
 
-      for (QueryResult queryResult : populatedQueryResults.values()) {
-        for (Resource resource : queryResult.getQueryResponse().getResources()) {
-          Map<Resource.Type, String> map = getKeyValueMap(resource, queryResult.getKeyValueMap());
+    if (subResourceQueryExecutor == null) {
+      for (SubResourceQueryExecutor.SubResourceQuery query : queries) {
+        query.execute();
+      }
+    } else {
+      subResourceQueryExecutor.invokeAll(queries);
+    }
+  }
 
-          Predicate     queryPredicate = subResource.createPredicate(map, subResource.processedPredicate);
-          Set<Resource> resourceSet    = new LinkedHashSet<>();
+  /**
+   * Query the cluster controller for the given sub-resource of every resource
+   * associated with this query object.  The sub-resources of several parent
+   * resources are fetched with a single query if the executor allows it for
+   * the sub-resource type.
+   *
+   * @param subResource  the sub-resource query
+   */
+  private void queryForSubResource(QueryImpl subResource)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
 
+    Resource.Type resourceType        = subResource.getResourceDefinition().getType();
+    Request       request             = subResource.createRequest();
+    Set<Resource> providerResourceSet = new HashSet<>();
+
+    List<Resource>                   parents       = new ArrayList<>();
+    List<Map<Resource.Type, String>> parentKeyMaps = new ArrayList<>();
+    for (QueryResult queryResult : populatedQueryResults.values()) {
+      for (Resource resource : queryResult.getQueryResponse().getResources()) {
+        parents.add(resource);
+        parentKeyMaps.add(getKeyValueMap(resource, queryResult.getKeyValueMap()));
+      }
+    }
+
+    // paging and sorting apply to the sub-resources of each parent separately
+    int batchSize = subResourceQueryExecutor == null || subResource.pageRequest != null || subResource.sortRequest != null ?
+        1 : subResourceQueryExecutor.getBatchSize(resourceType);
+
+    for (int start = 0; start < parents.size(); start += batchSize) {
+      int end = Math.min(start + batchSize, parents.size());
+      List<Set<Resource>> batchResults = end - start > 1 ?
+          subResource.doBatchQuery(resourceType, request, parentKeyMaps.subList(start, end)) : null;
+
+      for (int i = start; i < end; i++) {
+        Resource                   resource       = parents.get(i);
+        Map<Resource.Type, String> map            = parentKeyMaps.get(i);
+        Predicate                  queryPredicate = subResource.createPredicate(map, subResource.processedPredicate);
+        Set<Resource>              resourceSet    = new LinkedHashSet<>();
+
+        if (batchResults != null) {
+          resourceSet.addAll(batchResults.get(i - start));
+          providerResourceSet.addAll(resourceSet);
+        } else {
           try {
             Set<Resource> queryResources =
-                subResource.doQuery(resourceType, request, queryPredicate, false).getResources();
+                subResource.doSubResourceQuery(resourceType, request, queryPredicate, 1).getResources();
 
             providerResourceSet.addAll(queryResources);
             resourceSet.addAll(queryResources);
@@ -489,19 +550,112 @@ public class QueryImpl implements Query, ResourceInstance {
             // do nothing, since the user does not have access to the data ...
             LOG.debug("User does not have authorization to get {} resources. The data will not be added to the response.", resourceType.name());
           }
-          subResource.queryResults.put(resource,
-              new QueryResult(request, queryPredicate, subResourcePredicate, map, new QueryResponseImpl(resourceSet)));
-          subResource.populatedQueryResults.put(resource,
-            new QueryResult(request, queryPredicate, subResourcePredicate, map, new QueryResponseImpl(resourceSet)));
         }
+        subResource.queryResults.put(resource,
+            new QueryResult(request, queryPredicate, subResourcePredicate, map, new QueryResponseImpl(resourceSet)));
+        subResource.populatedQueryResults.put(resource,
+          new QueryResult(request, queryPredicate, subResourcePredicate, map, new QueryResponseImpl(resourceSet)));
+      }
+    }
+
+    if (renderer.requiresPropertyProviderInput()) {
+      clusterController.populateResources(resourceType, providerResourceSet, request, subResourcePredicate);
+    }
+
+    subResource.queryForSubResources();
+  }
+
+  /**
+   * Query the cluster controller for the resources of several parent
+   * resources at once by OR-ing the predicates of the individual parents.
+   * The resources are assigned back to their parents by their key property
+   * values.
+   *
+   * @param type        the resource type
+   * @param request     the request information
+   * @param keyMaps     the key value maps of the parent resources
+   *
+   * @return the resources of each parent, in the order of the given key value
+   *         maps; {@code null} if the resources must be queried for each
+   *         parent separately
+   */
+  private List<Set<Resource>> doBatchQuery(Resource.Type type, Request request,
+                                           List<Map<Resource.Type, String>> keyMaps)
+      throws UnsupportedPropertyException,
+      SystemException {
+
+    Map<Map<String, String>, Integer> parentsByKey = new HashMap<>();
+    Set<String>                       keyProperties = null;
+    Predicate[]                       predicates    = new Predicate[keyMaps.size()];
+
+    for (int i = 0; i < keyMaps.size(); i++) {
+      Map<String, String> keyPropertyValues = getKeyPropertyValues(keyMaps.get(i));
+
+      // the resources could not be told apart, or the provider amends the
+      // predicate in a way which the key values do not reflect
+      if (keyPropertyValues.isEmpty() ||
+          (keyProperties != null && !keyProperties.equals(keyPropertyValues.keySet())) ||
+          parentsByKey.put(keyPropertyValues, i) != null ||
+          clusterController.getAmendedPredicate(type, createKeyPredicate(keyPropertyValues)) != null) {
+        return null;
       }
+      keyProperties = keyPropertyValues.keySet();
+      predicates[i] = createPredicate(keyMaps.get(i), processedPredicate);
+    }
+
+    Set<Resource> resources;
+    try {
+      resources = doSubResourceQuery(type, request, new OrPredicate(predicates), keyMaps.size()).getResources();
+    } catch (NoSuchResourceException | NoSuchParentResourceException | AuthorizationException e) {
+      // query each parent separately so that the error only affects the
+      // parents it applies to
+      return null;
+    }
+
+    List<Set<Resource>> results = new ArrayList<>(keyMaps.size());
+    for (int i = 0; i < keyMaps.size(); i++) {
+      results.add(new LinkedHashSet<>());
+    }
 
-      if (renderer.requiresPropertyProviderInput()) {
-        clusterController.populateResources(resourceType, providerResourceSet, request, subResourcePredicate);
+    for (Resource resource : resources) {
+      Map<String, String> keyPropertyValues = new HashMap<>(keyProperties.size());
+      for (String keyProperty : keyProperties) {
+        Object value = resource.getPropertyValue(keyProperty);
+        if (value != null) {
+          keyPropertyValues.put(keyProperty, value.toString());
+        }
+      }
+      Integer parent = parentsByKey.get(keyPropertyValues);
+      if (parent == null) {
+        // the resource does not carry the key values of its parent
+        return null;
       }
+      results.get(parent).add(resource);
+    }
+    return results;
+  }
 
-      subResource.queryForSubResources();
+  /**
+   * Query the cluster controller for sub-resources, recording the query in
+   * the sub-resource query statistics.
+   *
+   * @param type       the resource type
+   * @param request    the request information
+   * @param predicate  the predicate
+   * @param parents    the number of parent resources covered by the query
+   *
+   * @return the result of the cluster controller query
+   */
+  private QueryResponse doSubResourceQuery(Resource.Type type, Request request, Predicate predicate, int parents)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
+
+    if (subResourceQueryExecutor != null) {
+      subResourceQueryExecutor.recordProviderQuery(parents);
     }
+    return doQuery(type, request, predicate, false);
   }
 
   /**
@@ -899,36 +1053,50 @@ public class QueryImpl implements Query, ResourceInstance {
   }
 
   private Predicate createInternalPredicate(Map<Resource.Type, String> mapResourceIds) {
+    Predicate p = createKeyPredicate(getKeyPropertyValues(mapResourceIds));
+
+    if (p == null) {
+      return null;
+    }
+
+    Resource.Type type = getResourceDefinition().getType();
+    Predicate override = clusterController.getAmendedPredicate(type, p);
+    if (null != override) {
+      p = override;
+    }
+
+    return p;
+  }
+
+  // Get the values of the key properties of this query's resource type from the given key value map
+  private Map<String, String> getKeyPropertyValues(Map<Resource.Type, String> mapResourceIds) {
     Resource.Type resourceType = getResourceDefinition().getType();
     Schema schema = clusterController.getSchema(resourceType);
 
-    Set<Predicate> setPredicates = new HashSet<>();
+    Map<String, String> keyPropertyValues = new HashMap<>();
     for (Map.Entry<Resource.Type, String> entry : mapResourceIds.entrySet()) {
       if (entry.getValue() != null) {
         String keyPropertyId = schema.getKeyPropertyId(entry.getKey());
         if (keyPropertyId != null) {
-          setPredicates.add(new EqualsPredicate<>(keyPropertyId, entry.getValue()));
+          keyPropertyValues.put(keyPropertyId, entry.getValue());
         }
       }
     }
+    return keyPropertyValues;
+  }
 
-    Predicate p = null;
+  private Predicate createKeyPredicate(Map<String, String> keyPropertyValues) {
+    Set<Predicate> setPredicates = new HashSet<>();
+    for (Map.Entry<String, String> entry : keyPropertyValues.entrySet()) {
+      setPredicates.add(new EqualsPredicate<>(entry.getKey(), entry.getValue()));
+    }
 
     if (setPredicates.size() == 1) {
-      p = setPredicates.iterator().next();
+      return setPredicates.iterator().next();
     } else if (setPredicates.size() > 1) {
-      p = new AndPredicate(setPredicates.toArray(new Predicate[setPredicates.size()]));
-    } else {
-      return null;
-    }
-
-    Resource.Type type = getResourceDefinition().getType();
-    Predicate override = clusterController.getAmendedPredicate(type, p);
-    if (null != override) {
-      p = override;
+      return new AndPredicate(setPredicates.toArray(new Predicate[setPredicates.size()]));
     }
-
-    return p;
+    return null;
   }
 
   private Predicate createPredicate() {
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.spi.NoSuchParentResourceException;
+import org.apache.ambari.server.controller.spi.NoSuchResourceException;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.SystemException;
+import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+
+/**
+ * Runs the sub-resource queries of an API request.
+ * <p/>
+ * The independent sub-resources of a resource (for example the
+ * {@code host_components} and {@code alerts} of the hosts of a cluster) are
+ * queried concurrently on a bounded pool, while the request thread queries
+ * the first of them itself. Every pool thread runs with the security context
+ * of the request and in its own unit of work. Queries started from a pool
+ * thread are run on that thread one after the other so that nested
+ * sub-resources never wait for pool threads which are waiting for them.
+ * <p/>
+ * The executor also decides which sub-resource types {@link QueryImpl} may
+ * fetch for several parent resources with a single provider query, see
+ * {@link #getBatchSize(Resource.Type)}.
+ */
+@Singleton
+public class SubResourceQueryExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(SubResourceQueryExecutor.class);
+
+  private static final String POOL_NAME = "subresource-query";
+
+  /**
+   * Set while a pool thread runs a query.
+   */
+  private static final ThreadLocal<Boolean> IN_POOL = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  /**
+   * The pool, or {@code null} if sub-resources are queried sequentially.
+   */
+  private final ExecutorService executor;
+
+  private final long timeout;
+
+  private final int batchSize;
+
+  private final Set<Resource.Type> batchTypes = new HashSet<>();
+
+  @Inject
+  private UnitOfWork unitOfWork;
+
+  private final AtomicLong providerQueries = new AtomicLong();
+  private final AtomicLong batchedParents = new AtomicLong();
+  private final AtomicLong concurrentQueries = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+
+  @Inject
+  public SubResourceQueryExecutor(Configuration configuration) {
+    timeout = configuration.getApiSubResourceQueryTimeout();
+    batchSize = Math.max(1, configuration.getApiSubResourceQueryBatchSize());
+
+    for (String typeName : configuration.getApiSubResourceQueryBatchTypes()) {
+      try {
+        batchTypes.add(Resource.Type.valueOf(typeName));
+      } catch (IllegalArgumentException e) {
+        LOG.warn("Ignoring unknown resource type {} in {}", typeName,
+            Configuration.API_SUBRESOURCE_QUERY_BATCH_TYPES.getKey());
+      }
+    }
+
+    int poolSize = configuration.getApiSubResourceQueryThreadPoolSize();
+    if (poolSize > 0) {
+      LOG.info("Creating '{}' thread pool with configured size {}", POOL_NAME, poolSize);
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder().setNameFormat(POOL_NAME + "-%d").setDaemon(true).build());
+      pool.allowCoreThreadTimeOut(true);
+      executor = pool;
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Runs the given queries and waits for all of them to complete.
+   *
+   * @param queries
+   *          the queries to run.
+   * @throws SystemException
+   *           if the queries did not complete within the configured timeout,
+   *           or one of them failed unexpectedly.
+   */
+  public void invokeAll(List<SubResourceQuery> queries)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
+
+    if (null == executor || queries.size() < 2 || IN_POOL.get()) {
+      for (SubResourceQuery query : queries) {
+        query.execute();
+      }
+      return;
+    }
+
+    // the timeout covers the query run by the request thread as well
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    List<Future<Void>> futures = new ArrayList<>(queries.size() - 1);
+    boolean completed = false;
+    try {
+      for (SubResourceQuery query : queries.subList(1, queries.size())) {
+        futures.add(executor.submit(() -> {
+          runInPool(query, securityContext);
+          return null;
+        }));
+      }
+      concurrentQueries.addAndGet(futures.size());
+
+      queries.get(0).execute();
+
+      for (Future<Void> future : futures) {
+        try {
+          future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          timeouts.incrementAndGet();
+          throw new SystemException("Timed out after " + timeout + "ms waiting for sub-resource queries", e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SystemException("Interrupted while waiting for sub-resource queries", e);
+        } catch (ExecutionException e) {
+          rethrow(e.getCause());
+        }
+      }
+      completed = true;
+    } finally {
+      if (!completed) {
+        for (Future<Void> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the maximum number of parent resources whose sub-resources of the
+   * given type may be fetched with a single provider query.
+   *
+   * @param type
+   *          the sub-resource type.
+   * @return the batch size; {@code 1} if the sub-resources of every parent
+   *         must be queried separately.
+   */
+  public int getBatchSize(Resource.Type type) {
+    return batchTypes.contains(type) ? batchSize : 1;
+  }
+
+  /**
+   * Records provider queries issued for sub-resources.
+   *
+   * @param parents
+   *          the number of parent resources covered by the query.
+   */
+  void recordProviderQuery(int parents) {
+    providerQueries.incrementAndGet();
+    if (parents > 1) {
+      batchedParents.addAndGet(parents);
+    }
+  }
+
+  /**
+   * Gets the statistics of the sub-resource queries. The counters are reset by
+   * this call so that each invocation reports the interval since the previous
+   * one.
+   *
+   * @return the statistics.
+   */
+  public QueryStatistics getStatistics() {
+    return new QueryStatistics(providerQueries.getAndSet(0), batchedParents.getAndSet(0),
+        concurrentQueries.getAndSet(0), timeouts.getAndSet(0));
+  }
+
+  private void runInPool(SubResourceQuery query, SecurityContext securityContext) throws Exception {
+    SecurityContext previousContext = SecurityContextHolder.getContext();
+    SecurityContextHolder.setContext(securityContext);
+    IN_POOL.set(Boolean.TRUE);
+    unitOfWork.begin();
+    try {
+      query.execute();
+    } finally {
+      unitOfWork.end();
+      IN_POOL.set(Boolean.FALSE);
+      SecurityContextHolder.setContext(previousContext);
+    }
+  }
+
+  private static void rethrow(Throwable cause)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
+
+    if (cause instanceof UnsupportedPropertyException) {
+      throw (UnsupportedPropertyException) cause;
+    }
+    if (cause instanceof SystemException) {
+      throw (SystemException) cause;
+    }
+    if (cause instanceof NoSuchResourceException) {
+      throw (NoSuchResourceException) cause;
+    }
+    if (cause instanceof NoSuchParentResourceException) {
+      throw (NoSuchParentResourceException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new SystemException("Sub-resource query failed", cause);
+  }
+
+  /**
+   * A query for the sub-resources of a resource.
+   */
+  @FunctionalInterface
+  public interface SubResourceQuery {
+    void execute()
+        throws UnsupportedPropertyException,
+        SystemException,
+        NoSuchResourceException,
+        NoSuchParentResourceException;
+  }
+
+  /**
+   * The statistics of the sub-resource queries since the previous call to
+   * {@link SubResourceQueryExecutor#getStatistics()}.
+   */
+  public static final class QueryStatistics {
+    private final long providerQueries;
+    private final long batchedParents;
+    private final long concurrentQueries;
+    private final long timeouts;
+
+    QueryStatistics(long providerQueries, long batchedParents, long concurrentQueries, long timeouts) {
+      this.providerQueries = providerQueries;
+      this.batchedParents = batchedParents;
+      this.concurrentQueries = concurrentQueries;
+      this.timeouts = timeouts;
+    }
+
+    /**
+     * @return the number of provider queries issued for sub-resources.
+     */
+    public long getProviderQueries() {
+      return providerQueries;
+    }
+
+    /**
+     * @return the number of parent resources whose sub-resources were fetched
+     *         together with those of other parents.
+     */
+    public long getBatchedParents() {
+      return batchedParents;
+    }
+
+    /**
+     * @return the number of sub-resource queries run on the pool.
+     */
+    public long getConcurrentQueries() {
+      return concurrentQueries;
+    }
+
+    /**
+     * @return the number of requests which timed out waiting for sub-resources.
+     */
+    public long getTimeouts() {
+      return timeouts;
+    }
+  }
+}
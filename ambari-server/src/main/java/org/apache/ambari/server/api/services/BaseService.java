@@ -24,9 +24,11 @@ import java.util.Set;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.ambari.server.api.predicate.QueryLexer;
 import org.apache.ambari.server.api.resources.ResourceInstance;
 import org.apache.ambari.server.api.resources.ResourceInstanceFactory;
 import org.apache.ambari.server.api.resources.ResourceInstanceFactoryImpl;
@@ -36,6 +38,7 @@ import org.apache.ambari.server.api.services.parsers.RequestBodyParser;
 import org.apache.ambari.server.api.services.serializers.CsvSerializer;
 import org.apache.ambari.server.api.services.serializers.JsonSerializer;
 import org.apache.ambari.server.api.services.serializers.ResultSerializer;
+import org.apache.ambari.server.api.services.serializers.StreamingJsonSerializer;
 import org.apache.ambari.server.audit.request.RequestAuditLogger;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.utils.RetryHelper;
@@ -180,7 +183,8 @@ public abstract class BaseService {
       throw t;
     }
 
-    ResultSerializer serializer = mediaType == null ? getResultSerializer() : getResultSerializer(mediaType);
+    ResultSerializer serializer = mediaType != null ? getResultSerializer(mediaType) :
+        isStreaming(uriInfo) ? new StreamingJsonSerializer() : getResultSerializer();
 
     Response.ResponseBuilder builder = Response.status(result.getStatus().getStatusCode()).entity(
         serializer.serialize(result));
@@ -257,6 +261,20 @@ public abstract class BaseService {
     throw new IllegalArgumentException("The media type " + mediaType + " is not supported.");
   }
 
+  /**
+   * Check to see if 'stream=true' is specified in the query string, in which case the
+   * result is written to the response as it is serialized instead of being buffered.
+   *
+   * @param uriInfo  uri information; may be null
+   *
+   * @return true if the response should be streamed, false otherwise
+   */
+  private boolean isStreaming(UriInfo uriInfo) {
+    MultivaluedMap<String, String> queryParameters = uriInfo == null ? null : uriInfo.getQueryParameters();
+    String stream = queryParameters == null ? null : queryParameters.getFirst(QueryLexer.QUERY_STREAM);
+    return stream != null && stream.equalsIgnoreCase("true");
+  }
+
   /**
    * Get the default serializer.
    *
@@ -20,8 +20,10 @@ package org.apache.ambari.server.api.services.serializers;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -66,9 +68,7 @@ public class JsonSerializer implements ResultSerializer {
         return serializeError(result.getStatus());
       }
 
-      TreeNode<Resource> treeNode = result.getResultTree();
-      processNode(treeNode);
-      processResultMetadata(result.getResultMetadata());
+      writeResult(result);
       m_generator.close();
       return bytesOut.toString("UTF-8");
     } catch (IOException e) {
@@ -106,6 +106,29 @@ public class JsonSerializer implements ResultSerializer {
     return bytesOut;
   }
 
+  /**
+   * Write the result tree and metadata of the given result to the current generator.
+   *
+   * @param result  the result to write
+   *
+   * @throws IOException if the result could not be written
+   */
+  void writeResult(Result result) throws IOException {
+    processNode(result.getResultTree());
+    processResultMetadata(result.getResultMetadata());
+  }
+
+  /**
+   * Determine whether child nodes are detached from the result tree once they have
+   * been written so that they can be garbage collected while the rest of the tree
+   * is being serialized.
+   *
+   * @return true if written nodes should be released; false otherwise
+   */
+  protected boolean isReleaseWrittenNodes() {
+    return false;
+  }
+
   private void processResultMetadata(ResultMetadata resultMetadata) throws IOException {
     if (resultMetadata == null) {
       return;
@@ -172,7 +195,11 @@ public class JsonSerializer implements ResultSerializer {
   }
 
   private void processNode(TreeNode<Resource> node) throws IOException {
-    if (isObject(node)) {
+    // evaluated once as releasing written children changes the shape of the node
+    boolean isObject = isObject(node);
+    boolean isArray = isArray(node);
+
+    if (isObject) {
       m_generator.writeStartObject();
 
       writeHref(node);
@@ -184,7 +211,7 @@ public class JsonSerializer implements ResultSerializer {
       }
     }
 
-    if (isArray(node)) {
+    if (isArray) {
       if (node.getName() != null) {
         m_generator.writeArrayFieldStart(node.getName());
       } else {
@@ -192,15 +219,19 @@ public class JsonSerializer implements ResultSerializer {
       }
     }
 
-    for (TreeNode<Resource> child : node.getChildren()) {
-      processNode(child);
+    Iterator<TreeNode<Resource>> iterator = node.getChildren().iterator();
+    while (iterator.hasNext()) {
+      processNode(iterator.next());
+      if (isReleaseWrittenNodes()) {
+        iterator.remove();
+      }
     }
 
-    if (isArray(node)) {
+    if (isArray) {
       m_generator.writeEndArray();
     }
 
-    if (isObject(node)) {
+    if (isObject) {
       m_generator.writeEndObject();
     }
   }
@@ -272,8 +303,8 @@ public class JsonSerializer implements ResultSerializer {
     }
   }
 
-  private JsonGenerator createJsonGenerator(ByteArrayOutputStream baos) throws IOException {
-    JsonGenerator generator = m_factory.createJsonGenerator(new OutputStreamWriter(baos,
+  JsonGenerator createJsonGenerator(OutputStream out) throws IOException {
+    JsonGenerator generator = m_factory.createJsonGenerator(new OutputStreamWriter(out,
         Charset.forName("UTF-8").newEncoder()));
 
     DefaultPrettyPrinter p = new DefaultPrettyPrinter();
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.services.serializers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.ambari.server.api.services.Result;
+import org.codehaus.jackson.JsonGenerator;
+
+/**
+ * Streaming JSON serializer.
+ * Produces the same JSON as {@link JsonSerializer} but, rather than building the
+ * complete document in memory, returns a {@link StreamingOutput} which writes the
+ * result tree directly to the response stream when the response is committed.
+ * Each resource node is detached from the result tree as soon as it has been written
+ * so that the memory held by a large result is released while it is being sent.
+ * <p/>
+ * A serializer instance holds the generator of the response being written and
+ * must therefore only be used for a single request.
+ */
+public class StreamingJsonSerializer extends JsonSerializer {
+
+  @Override
+  public Object serialize(final Result result) {
+    if (result.getStatus().isErrorState()) {
+      return serializeError(result.getStatus());
+    }
+
+    return new StreamingOutput() {
+      @Override
+      public void write(OutputStream output) throws IOException {
+        m_generator = createJsonGenerator(output);
+        // the container owns the response stream
+        m_generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        writeResult(result);
+        m_generator.close();
+      }
+    };
+  }
+
+  @Override
+  protected boolean isReleaseWrittenNodes() {
+    return true;
+  }
+}
@@ -18,41 +18,100 @@
 package org.apache.ambari.server.audit;
 
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.server.audit.event.AuditEvent;
 import org.apache.ambari.server.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.google.common.eventbus.AsyncEventBus;
-import com.google.common.eventbus.EventBus;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
 /**
- * This is a wrapper for an audit log implementation that uses {@link EventBus} to make audit logging asynchronous
+ * This is a wrapper for an audit log implementation that makes audit logging asynchronous.
+ * <p/>
+ * Events are put on a bounded queue which a single thread drains into the wrapped audit
+ * logger. While the queue is full, events are appended to a spill file instead of making
+ * the caller wait or write the audit log itself. Once the queue has been drained, the spilled
+ * events are written to the audit log in the order they were spilled, and events logged
+ * meanwhile are queued again. Spilled events which were not written before the server stopped
+ * are written after it starts again.
  */
 @Singleton
-class AsyncAuditLogger implements AuditLogger {
+public class AsyncAuditLogger implements AuditLogger {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncAuditLogger.class);
+
   /**
    * Name for guice injection
    */
   final static String InnerLogger = "AsyncAuditLogger";
 
   /**
-   * Event bus that holds audit event objects
+   * Suffix of the spill file while its events are written to the audit log
    */
-  private EventBus eventBus;
+  private static final String REPLAY_FILE_SUFFIX = ".replay";
+
+  /**
+   * The audit logger events are written to
+   */
+  private final AuditLogger auditLogger;
 
   /**
    * Indicates if audit log feature is enabled
    */
   private final boolean isEnabled;
 
+  /**
+   * The events to be written
+   */
+  private BlockingQueue<AuditEvent> queue;
+
+  /**
+   * The file events are appended to while the queue is full
+   */
+  private File spillFile;
+
+  /**
+   * The spill file while its events are written to the audit log
+   */
+  private File replayFile;
+
+  /**
+   * Guards the spill file and {@link #spilling}. Events are queued while holding it as well, so
+   * that no event is queued once an earlier one has been spilled.
+   */
+  private final Object spillLock = new Object();
+
+  /**
+   * The writer of the spill file, or {@code null} if it is not open
+   */
+  private Writer spillWriter;
+
+  /**
+   * Set while the spill file holds events which have not been written to the audit log. New
+   * events are spilled as well until then, so that they are not written before older ones.
+   */
+  private boolean spilling;
+
+  private final AtomicLong spilledEvents = new AtomicLong();
+  private final AtomicLong replayedEvents = new AtomicLong();
+  private final AtomicLong spillFailures = new AtomicLong();
+
   /**
    * Constructor.
    *
@@ -60,19 +119,27 @@ class AsyncAuditLogger implements AuditLogger {
    */
   @Inject
   public AsyncAuditLogger(@Named(InnerLogger) AuditLogger auditLogger, Configuration configuration) {
+    this.auditLogger = auditLogger;
     isEnabled = configuration.isAuditLogEnabled();
     if(isEnabled) {
-      eventBus = new AsyncEventBus("AuditLoggerEventBus", new ThreadPoolExecutor(0, 1, 5L, TimeUnit.MINUTES,
-        new LinkedBlockingQueue<>(configuration.getAuditLoggerCapacity()), new AuditLogThreadFactory(),
-        new ThreadPoolExecutor.CallerRunsPolicy()));
-      eventBus.register(auditLogger);
+      queue = new LinkedBlockingQueue<>(configuration.getAuditLoggerCapacity());
+      spillFile = new File(configuration.getAuditLoggerSpillFile());
+      replayFile = new File(spillFile.getPath() + REPLAY_FILE_SUFFIX);
+      // events spilled before the server stopped are written before new ones
+      spilling = spillFile.exists();
+
+      Thread thread = new AuditLogThreadFactory().newThread(this::drain);
+      thread.start();
     }
   }
 
   @Override
   public void log(AuditEvent event) {
-    if(isEnabled) {
-      eventBus.post(event);
+    if(!isEnabled) {
+      return;
+    }
+    if (!offer(event)) {
+      write(event);
     }
   }
 
@@ -81,6 +148,273 @@ class AsyncAuditLogger implements AuditLogger {
     return isEnabled;
   }
 
+  /**
+   * Gets the statistics of the audit logger. The counters are reset by this call so that each
+   * invocation reports the interval since the previous one.
+   *
+   * @return the statistics
+   */
+  public QueueStatistics getStatistics() {
+    return new QueueStatistics(isEnabled ? queue.size() : 0, spilledEvents.getAndSet(0),
+        replayedEvents.getAndSet(0), spillFailures.getAndSet(0));
+  }
+
+  /**
+   * Queues an event, or appends it to the spill file while the queue is full or the spill file
+   * holds events which have not been written to the audit log.
+   *
+   * @param event the event
+   * @return {@code false} if the spill file cannot be written, in which case the event is
+   *         written to the audit log by the caller rather than being lost
+   */
+  private boolean offer(AuditEvent event) {
+    synchronized (spillLock) {
+      if (!spilling && queue.offer(event)) {
+        return true;
+      }
+      try {
+        if (null == spillWriter) {
+          File parent = spillFile.getAbsoluteFile().getParentFile();
+          if (null != parent && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parent);
+          }
+          spillWriter = new OutputStreamWriter(new FileOutputStream(spillFile, true), StandardCharsets.UTF_8);
+        }
+        spillWriter.write(encode(event));
+        spillWriter.flush();
+        spilling = true;
+        spilledEvents.incrementAndGet();
+        return true;
+      } catch (IOException e) {
+        spillFailures.incrementAndGet();
+        LOG.warn("Unable to spill an audit event to {}, writing it directly: {}", spillFile, e.getMessage());
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Writes the queued events to the audit log, and the spilled events once the queue is empty.
+   */
+  private void drain() {
+    // events spilled before the server stopped
+    replay(replayFile);
+
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        AuditEvent event = queue.poll();
+        if (null == event && !replaySpillFile()) {
+          // events are only spilled while the queue is full, so this does not wait for spilled events
+          event = queue.take();
+        }
+        if (null != event) {
+          write(event);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Writes the events of the spill file to the audit log if the queue is empty. Events logged
+   * meanwhile are queued again, or spilled to a new spill file.
+   *
+   * @return {@code false} if there are no spilled events, or queued events to be written first
+   */
+  private boolean replaySpillFile() {
+    synchronized (spillLock) {
+      if (!spilling || !queue.isEmpty()) {
+        return false;
+      }
+    }
+
+    // left over if it could not be deleted before
+    replay(replayFile);
+
+    synchronized (spillLock) {
+      if (null != spillWriter) {
+        try {
+          spillWriter.close();
+        } catch (IOException e) {
+          LOG.warn("Unable to close the audit log spill file {}", spillFile, e);
+        }
+        spillWriter = null;
+      }
+      if (spillFile.exists() && (replayFile.exists() || !spillFile.renameTo(replayFile))) {
+        LOG.error("Unable to rename the audit log spill file {} to {}", spillFile, replayFile);
+        spilling = false;
+        return true;
+      }
+      spilling = false;
+    }
+    replay(replayFile);
+    return true;
+  }
+
+  /**
+   * Writes the events of the given file to the audit log and deletes the file.
+   *
+   * @param file the file
+   */
+  private void replay(File file) {
+    if (!file.exists()) {
+      return;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while (null != (line = reader.readLine())) {
+        AuditEvent event = decode(line);
+        if (null == event) {
+          LOG.warn("Skipping malformed audit event in {}: {}", file, line);
+          continue;
+        }
+        replayedEvents.incrementAndGet();
+        write(event);
+      }
+    } catch (IOException e) {
+      LOG.error("Unable to read the spilled audit events from {}", file, e);
+      return;
+    }
+    if (!file.delete()) {
+      LOG.error("Unable to delete the audit log spill file {}", file);
+    }
+  }
+
+  private void write(AuditEvent event) {
+    try {
+      auditLogger.log(event);
+    } catch (RuntimeException e) {
+      LOG.error("Unable to write an audit event", e);
+    }
+  }
+
+  /**
+   * Encodes an event as one line of the spill file.
+   */
+  static String encode(AuditEvent event) {
+    String message = event.getAuditMessage();
+    StringBuilder line = new StringBuilder(message == null ? 24 : message.length() + 24);
+    line.append(event.getTimestamp()).append('\t');
+    if (null != message) {
+      for (int i = 0; i < message.length(); i++) {
+        char c = message.charAt(i);
+        switch (c) {
+          case '\\':
+            line.append("\\\\");
+            break;
+          case '\n':
+            line.append("\\n");
+            break;
+          case '\r':
+            line.append("\\r");
+            break;
+          default:
+            line.append(c);
+        }
+      }
+    }
+    return line.append('\n').toString();
+  }
+
+  /**
+   * Decodes a line of the spill file.
+   *
+   * @return the event, or {@code null} if the line is malformed
+   */
+  static AuditEvent decode(String line) {
+    int separator = line.indexOf('\t');
+    if (separator < 1) {
+      return null;
+    }
+    long timestamp;
+    try {
+      timestamp = Long.parseLong(line.substring(0, separator));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    StringBuilder message = new StringBuilder(line.length() - separator);
+    for (int i = separator + 1; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && i + 1 < line.length()) {
+        char escaped = line.charAt(++i);
+        message.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+      } else {
+        message.append(c);
+      }
+    }
+    return new SpilledAuditEvent(timestamp, message.toString());
+  }
+
+  /**
+   * An event read from the spill file.
+   */
+  private static final class SpilledAuditEvent implements AuditEvent {
+    private final Long timestamp;
+    private final String auditMessage;
+
+    private SpilledAuditEvent(Long timestamp, String auditMessage) {
+      this.timestamp = timestamp;
+      this.auditMessage = auditMessage;
+    }
+
+    @Override
+    public Long getTimestamp() {
+      return timestamp;
+    }
+
+    @Override
+    public String getAuditMessage() {
+      return auditMessage;
+    }
+  }
+
+  /**
+   * The statistics of the audit logger since the previous call to
+   * {@link AsyncAuditLogger#getStatistics()}.
+   */
+  public static final class QueueStatistics {
+    private final int queueDepth;
+    private final long spilledEvents;
+    private final long replayedEvents;
+    private final long spillFailures;
+
+    QueueStatistics(int queueDepth, long spilledEvents, long replayedEvents, long spillFailures) {
+      this.queueDepth = queueDepth;
+      this.spilledEvents = spilledEvents;
+      this.replayedEvents = replayedEvents;
+      this.spillFailures = spillFailures;
+    }
+
+    /**
+     * @return the current number of queued events.
+     */
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * @return the number of events appended to the spill file.
+     */
+    public long getSpilledEvents() {
+      return spilledEvents;
+    }
+
+    /**
+     * @return the number of events written from the spill file to the audit log.
+     */
+    public long getReplayedEvents() {
+      return replayedEvents;
+    }
+
+    /**
+     * @return the number of events which could not be spilled and were written by the caller.
+     */
+    public long getSpillFailures() {
+      return spillFailures;
+    }
+  }
+
   /**
    * A custom {@link ThreadFactory} for the threads that logs audit events
    */
@@ -509,6 +509,37 @@ public class Configuration {
   public static final ConfigurationProperty<String> API_GZIP_MIN_COMPRESSION_SIZE = new ConfigurationProperty<>(
       "api.gzip.compression.min.size", "10240");
 
+  /**
+   * The number of threads used to query independent sub-resources of an API
+   * request concurrently.
+   */
+  @Markdown(description = "The number of threads used to query the independent sub-resources of an API request (such as the `host_components` and `alerts` of a host) concurrently. A value of `0` queries them one after the other on the request thread.")
+  public static final ConfigurationProperty<Integer> API_SUBRESOURCE_QUERY_THREAD_POOL_SIZE = new ConfigurationProperty<>(
+      "api.query.subresource.threadpool.size", 8);
+
+  /**
+   * The time to wait for the concurrently queried sub-resources of an API
+   * request.
+   */
+  @Markdown(description = "The time, in milliseconds, that an API request waits for its concurrently queried sub-resources before it fails.")
+  public static final ConfigurationProperty<Long> API_SUBRESOURCE_QUERY_TIMEOUT = new ConfigurationProperty<>(
+      "api.query.subresource.timeout", 60000L);
+
+  /**
+   * The maximum number of parent resources whose sub-resources are fetched
+   * with a single resource provider query.
+   */
+  @Markdown(description = "The maximum number of parent resources whose sub-resources are fetched with a single resource provider query. A value of `1` queries the sub-resources of every parent separately.")
+  public static final ConfigurationProperty<Integer> API_SUBRESOURCE_QUERY_BATCH_SIZE = new ConfigurationProperty<>(
+      "api.query.subresource.batch.size", 100);
+
+  /**
+   * The sub-resource types which are fetched for several parents at once.
+   */
+  @Markdown(description = "A comma-separated list of the resource types whose instances are fetched for several parent resources with a single resource provider query. Only types whose providers evaluate `OR` predicates efficiently should be listed.")
+  public static final ConfigurationProperty<String> API_SUBRESOURCE_QUERY_BATCH_TYPES = new ConfigurationProperty<>(
+      "api.query.subresource.batch.types", "Service,Component,HostComponent");
+
   /**
    * Determiens whether communication with the Ambari Agents should have the
    * JSON payloads compressed with GZIP.
@@ -1094,6 +1125,15 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> SERVER_STALE_CONFIG_CACHE_EXPIRATION = new ConfigurationProperty<>(
       "server.cache.isStale.expiration", 600);
 
+  /**
+   * The maximum number of merged effective configurations kept in memory. Hosts
+   * with the same desired configuration tags share an entry. A value of
+   * {@code 0} disables the cache.
+   */
+  @Markdown(description = "The maximum number of merged effective configurations, keyed by the desired configuration tags of a host, that are kept in memory. Hosts with the same desired tags share an entry. A value of `0` disables the cache.")
+  public static final ConfigurationProperty<Integer> SERVER_EFFECTIVE_CONFIG_CACHE_SIZE = new ConfigurationProperty<>(
+      "server.cache.effectiveConfigs.size", 1000);
+
   /**
    * The {@link PersistenceType} of the database.
    */
@@ -1161,6 +1201,13 @@ public class Configuration {
   public static final ConfigurationProperty<Boolean> STACK_UPGRADE_BYPASS_PRECHECKS = new ConfigurationProperty<>(
       "stack.upgrade.bypass.prechecks", Boolean.FALSE);
 
+  /**
+   * The number of threads used to perform pre-upgrade checks.
+   */
+  @Markdown(description = "The number of threads shared by all requests to perform their pre-upgrade checks concurrently. A check which depends on other checks is only performed once they have completed. A value of `1` performs the checks one after another.")
+  public static final ConfigurationProperty<Integer> STACK_UPGRADE_PRECHECK_THREADPOOL_SIZE = new ConfigurationProperty<>(
+      "stack.upgrade.prechecks.threadpool.size", 4);
+
   /**
    * If a host is shutdown or ambari-agent is stopped, then Ambari Server will
    * still keep waiting til the task timesout, say 10-20 mins. If the host comes
@@ -1244,6 +1291,14 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> KERBEROS_OPERATION_RETRY_TIMEOUT = new ConfigurationProperty<>(
       "kerberos.operation.retry.timeout", 10);
 
+  @Markdown(
+      relatedTo = "server.kerberos.action.threadpool.size",
+      description = "Determines whether queries to an MIT KDC are sent through long-lived `kadmin` sessions "
+          + "instead of starting a `kadmin` process for each query. At most one session is opened for each "
+          + "thread executing server-side Kerberos commands.")
+  public static final ConfigurationProperty<Boolean> KERBEROS_OPERATION_KADMIN_SESSIONS_ENABLED = new ConfigurationProperty<>(
+      "kerberos.operation.kadmin.sessions.enabled", Boolean.FALSE);
+
   /**
    * A flag indicating whether to validate the trust of an SSL certificate provided by a KDC when
    * performing Kerberos operations.
@@ -1722,6 +1777,22 @@ public class Configuration {
   public static final ConfigurationProperty<Boolean> PARALLEL_STAGE_EXECUTION = new ConfigurationProperty<>(
       "server.stages.parallel", Boolean.TRUE);
 
+  /**
+   * Determines whether the action scheduler only re-evaluates requests which
+   * changed since its previous run.
+   */
+  @Markdown(description = "Determines whether the action scheduler only re-evaluates the stages of requests whose tasks changed since its previous run, instead of every in-progress stage on every run. Task events wake the scheduler up, and when all in-progress requests changed only their stages are read from the database. A full evaluation of all stages still runs periodically, see `server.action.scheduler.full.scan.interval`.")
+  public static final ConfigurationProperty<Boolean> ACTION_SCHEDULER_EVENT_DRIVEN = new ConfigurationProperty<>(
+      "server.action.scheduler.event.driven.enabled", Boolean.FALSE);
+
+  /**
+   * The interval, in seconds, between full evaluations of all in-progress
+   * stages when the action scheduler is event driven.
+   */
+  @Markdown(description = "The interval, in seconds, between evaluations of all in-progress stages when `server.action.scheduler.event.driven.enabled` is set. Task timeouts and lost hosts are detected by these evaluations.")
+  public static final ConfigurationProperty<Integer> ACTION_SCHEDULER_FULL_SCAN_INTERVAL = new ConfigurationProperty<>(
+      "server.action.scheduler.full.scan.interval", 30);
+
   /**
    *
    * Property driving the view extraction.
@@ -1785,6 +1856,22 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> SERVER_TASK_TIMEOUT = new ConfigurationProperty<>(
       "server.task.timeout", 1200);
 
+  /**
+   * Determines whether execution commands and task output are stored
+   * compressed.
+   */
+  @Markdown(description = "Determines whether the execution commands and the output of tasks are stored GZIP compressed in the database. Values which were stored uncompressed can still be read after enabling this property, and compressed values can still be read after disabling it.")
+  public static final ConfigurationProperty<Boolean> TASK_BLOB_COMPRESSION_ENABLED = new ConfigurationProperty<>(
+      "server.task.blob.compression.enabled", Boolean.FALSE);
+
+  /**
+   * The minimum size of an execution command or task output before it is
+   * stored compressed.
+   */
+  @Markdown(description = "Used in conjunction with `server.task.blob.compression.enabled`, determines the minimum size that an execution command or task output must be before it is stored compressed. This is measured in bytes.")
+  public static final ConfigurationProperty<Integer> TASK_BLOB_COMPRESSION_MIN_SIZE = new ConfigurationProperty<>(
+      "server.task.blob.compression.min.size", 1024);
+
   /**
    * A location of hooks folder relative to resources folder.
    */
@@ -1914,6 +2001,20 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> AGENTS_REPORT_THREAD_POOL_SIZE = new ConfigurationProperty<>(
       "agents.reports.thread.pool.size", 10);
 
+  /**
+   * The maximum number of reports of a host processed in one unit of work.
+   */
+  @Markdown(description = "The maximum number of queued reports of the same host which are processed in a single unit of work. A value of 1 processes every report in its own unit of work.")
+  public static final ConfigurationProperty<Integer> AGENTS_REPORT_PROCESSING_BATCH_SIZE = new ConfigurationProperty<>(
+      "agents.reports.processing.batch.size", 10);
+
+  /**
+   * Whether configuration updates are sent to agents as deltas.
+   */
+  @Markdown(description = "Determines whether configuration updates are sent to the agents as deltas which contain only the changed config types and properties. A full snapshot is sent if the agent's configuration version is unknown or the delta would not be smaller. Only enable this once every agent is able to apply deltas; older agents treat a delta as a full snapshot.")
+  public static final ConfigurationProperty<Boolean> AGENT_CONFIGS_DELTA_ENABLED = new ConfigurationProperty<>(
+      "agent.configs.delta.enabled", Boolean.FALSE);
+
   /**
    * Server to API STOMP endpoint heartbeat interval in milliseconds.
    */
@@ -2070,6 +2171,16 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> TIMELINE_METRICS_CACHE_ENTRY_UNIT_SIZE = new ConfigurationProperty<>(
           "server.timeline.metrics.cache.entry.entry.unit.size", 100);
 
+  /**
+   * Size, in megabytes, of the off-heap tier of the Ambari Metrics cache.
+   */
+  @Markdown(
+      relatedTo = "server.timeline.metrics.cache.disabled",
+      description = "The size, in megabytes, of the off-heap tier which holds Ambari Metrics data evicted from the on-heap cache. "
+          + "A value of 0 disables the off-heap tier. The JVM must allow at least this much direct memory.")
+  public static final ConfigurationProperty<Integer> TIMELINE_METRICS_CACHE_OFFHEAP_SIZE = new ConfigurationProperty<>(
+      "server.timeline.metrics.cache.offheap.size.mb", 0);
+
   /**
    * The time, in {@link TimeUnit#MILLISECONDS}, that initial requests made to
    * Ambari Metrics will wait while reading from the socket before timing out.
@@ -2420,6 +2531,17 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> AUDIT_LOGGER_CAPACITY = new ConfigurationProperty<>(
       "auditlog.logger.capacity", 10000);
 
+  /**
+   * The file audit logger events are appended to while the worker queue is full.
+   */
+  @Markdown(
+      relatedTo = "auditlog.logger.capacity",
+      description = "The file audit logger events are appended to while the worker queue is full, instead of "
+          + "making the caller wait. The events are written to the audit log from this file once the queue "
+          + "has been drained, including after a restart of Ambari Server.")
+  public static final ConfigurationProperty<String> AUDIT_LOGGER_SPILL_FILE = new ConfigurationProperty<>(
+      "auditlog.logger.spill.file", AmbariPath.getPath("/var/lib/ambari-server/data/audit-spill.log"));
+
   /**
    * The UDP port to use when binding the SNMP dispatcher on Ambari Server startup.
    */
@@ -2507,6 +2629,17 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> METRIC_RETRIEVAL_SERVICE_REQUEST_TTL = new ConfigurationProperty<>(
       "metrics.retrieval-service.request.ttl", 5);
 
+  /**
+   * The maximum number of requests which the {@link MetricsRetrievalService}
+   * makes to a single host at the same time. Further requests for that host
+   * wait for one of the running requests to complete without occupying a
+   * thread of the service.
+   */
+  @Markdown(description = "The maximum number of concurrent JMX and REST metric requests made to a single host. "
+      + "Requests beyond this limit are queued until an earlier request to the same host completes. A value of 0 disables the limit.")
+  public static final ConfigurationProperty<Integer> METRIC_RETRIEVAL_SERVICE_MAX_REQUESTS_PER_HOST = new ConfigurationProperty<>(
+      "server.metrics.retrieval-service.requests.per.host.max", 4);
+
   /**
    * Indicates whether the current ambari server instance is the active instance.
    * If this property is missing, the value will be considered to be true.
@@ -2683,6 +2816,14 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> DEFAULT_FORK_JOIN_THREADPOOL_SIZE = new ConfigurationProperty<>(
     "server.pools.default.size", 5);
 
+  @Markdown(description = "The number of threads used to dispatch server side events. Events of the same cluster are always dispatched in order by the same thread.")
+  public static final ConfigurationProperty<Integer> AMBARI_EVENT_BUS_PARTITIONS = new ConfigurationProperty<>(
+    "server.events.bus.partitions", 1);
+
+  @Markdown(description = "The number of threads used by each of the agent and API STOMP update buses. Agent updates for the same host and UI updates of the same type are always dispatched in order by the same thread.")
+  public static final ConfigurationProperty<Integer> STOMP_EVENT_BUS_PARTITIONS = new ConfigurationProperty<>(
+    "server.events.stomp.bus.partitions", 4);
+
   /**
    * A flag to determine whether error stacks appear on the error page
    */
@@ -3478,6 +3619,13 @@ public class Configuration {
     return Boolean.parseBoolean(getProperty(STACK_UPGRADE_BYPASS_PRECHECKS));
   }
 
+  /**
+   * @return the number of threads used to perform pre-upgrade checks
+   */
+  public int getUpgradePrecheckThreadPoolSize() {
+    return Integer.parseInt(getProperty(STACK_UPGRADE_PRECHECK_THREADPOOL_SIZE));
+  }
+
   /**
    * During stack upgrade, can auto-retry failures for up to x mins. This is useful to improve the robustness in unstable environments.
    * Suggested value is 0-30 mins.
@@ -4574,6 +4722,14 @@ public class Configuration {
     return Integer.parseInt(getProperty(SERVER_STALE_CONFIG_CACHE_EXPIRATION));
   }
 
+  /**
+   * @return the maximum number of cached effective configurations; {@code 0}
+   *         if the cache is disabled
+   */
+  public int getEffectiveConfigCacheSize() {
+    return Integer.parseInt(getProperty(SERVER_EFFECTIVE_CONFIG_CACHE_SIZE));
+  }
+
   /**
    * @return a string array of suffixes used to validate repo URLs.
    */
@@ -4678,6 +4834,22 @@ public class Configuration {
     return Boolean.parseBoolean(configsMap.get(PARALLEL_STAGE_EXECUTION.getKey()));
   }
 
+  /**
+   * @return {@code true} if the action scheduler only re-evaluates requests
+   *         which changed since its previous run.
+   */
+  public boolean isActionSchedulerEventDriven() {
+    return Boolean.parseBoolean(getProperty(ACTION_SCHEDULER_EVENT_DRIVEN));
+  }
+
+  /**
+   * @return the interval, in seconds, between full evaluations of all
+   *         in-progress stages when the action scheduler is event driven.
+   */
+  public int getActionSchedulerFullScanInterval() {
+    return Integer.parseInt(getProperty(ACTION_SCHEDULER_FULL_SCAN_INTERVAL));
+  }
+
   public String getCustomActionDefinitionPath() {
     return getProperty(CUSTOM_ACTION_DEFINITION);
   }
@@ -4812,6 +4984,75 @@ public class Configuration {
     return Integer.parseInt(getProperty(AGENTS_REPORT_THREAD_POOL_SIZE));
   }
 
+  /**
+   * @return the maximum number of reports of a host processed in one unit of
+   *         work.
+   */
+  public int getAgentsReportProcessingBatchSize() {
+    return Integer.parseInt(getProperty(AGENTS_REPORT_PROCESSING_BATCH_SIZE));
+  }
+
+  /**
+   * @return {@code true} if configuration updates are sent to the agents as deltas.
+   */
+  public boolean isAgentConfigsDeltaEnabled() {
+    return Boolean.parseBoolean(getProperty(AGENT_CONFIGS_DELTA_ENABLED));
+  }
+
+  /**
+   * @return {@code true} if execution commands and task output are stored
+   *         compressed.
+   */
+  public boolean isTaskBlobCompressionEnabled() {
+    return Boolean.parseBoolean(getProperty(TASK_BLOB_COMPRESSION_ENABLED));
+  }
+
+  /**
+   * @return the minimum size, in bytes, of an execution command or task
+   *         output before it is stored compressed.
+   */
+  public int getTaskBlobCompressionMinSize() {
+    return Integer.parseInt(getProperty(TASK_BLOB_COMPRESSION_MIN_SIZE));
+  }
+
+  /**
+   * @return the number of threads used to query the sub-resources of an API
+   *         request concurrently.
+   */
+  public int getApiSubResourceQueryThreadPoolSize() {
+    return Integer.parseInt(getProperty(API_SUBRESOURCE_QUERY_THREAD_POOL_SIZE));
+  }
+
+  /**
+   * @return the time, in milliseconds, to wait for the concurrently queried
+   *         sub-resources of an API request.
+   */
+  public long getApiSubResourceQueryTimeout() {
+    return Long.parseLong(getProperty(API_SUBRESOURCE_QUERY_TIMEOUT));
+  }
+
+  /**
+   * @return the maximum number of parent resources whose sub-resources are
+   *         fetched with a single query.
+   */
+  public int getApiSubResourceQueryBatchSize() {
+    return Integer.parseInt(getProperty(API_SUBRESOURCE_QUERY_BATCH_SIZE));
+  }
+
+  /**
+   * @return the names of the sub-resource types which are fetched for several
+   *         parent resources at once.
+   */
+  public Set<String> getApiSubResourceQueryBatchTypes() {
+    Set<String> types = new HashSet<>();
+    for (String type : getProperty(API_SUBRESOURCE_QUERY_BATCH_TYPES).split(",")) {
+      if (StringUtils.isNotBlank(type)) {
+        types.add(type.trim());
+      }
+    }
+    return types;
+  }
+
   /**
    * @return server to API STOMP endpoint heartbeat interval in milliseconds.
    */
@@ -5287,6 +5528,14 @@ public class Configuration {
     return Integer.parseInt(getProperty(TIMELINE_METRICS_CACHE_ENTRY_UNIT_SIZE));
   }
 
+  /**
+   * Ambari metrics cache off-heap tier size.
+   * @return megabytes, 0 if the off-heap tier is disabled
+   */
+  public int getMetricCacheOffHeapSizeMB() {
+    return Integer.parseInt(getProperty(TIMELINE_METRICS_CACHE_OFFHEAP_SIZE));
+  }
+
   /**
    * Separate timeout settings for metrics cache.
    * @return milliseconds
@@ -5479,6 +5728,13 @@ public class Configuration {
     return NumberUtils.toInt(getProperty(AUDIT_LOGGER_CAPACITY));
   }
 
+  /**
+   * @return the file audit logger events are spilled to while the queue is full
+   */
+  public String getAuditLoggerSpillFile() {
+    return getProperty(AUDIT_LOGGER_SPILL_FILE);
+  }
+
   /**
    * Customized UDP port for SNMP dispatcher
    * @return Integer if property exists else null
@@ -5588,6 +5844,17 @@ public class Configuration {
     return Boolean.parseBoolean(getProperty(METRIC_RETRIEVAL_SERVICE_REQUEST_TTL_ENABLED));
   }
 
+  /**
+   * Gets the maximum number of concurrent requests which the
+   * {@link MetricsRetrievalService} makes to a single host.
+   *
+   * @return the maximum number of requests per host, or {@code 0} if
+   *         unlimited.
+   */
+  public int getMetricsServiceMaxRequestsPerHost() {
+    return Integer.parseInt(getProperty(METRIC_RETRIEVAL_SERVICE_MAX_REQUESTS_PER_HOST));
+  }
+
   /**
    * Get whether the current ambari server instance the active instance
    *
@@ -5729,6 +5996,22 @@ public class Configuration {
     return Integer.parseInt(getProperty(DEFAULT_FORK_JOIN_THREADPOOL_SIZE));
   }
 
+  /**
+   * Determines the amount of threads used to dispatch events of the
+   * {@link org.apache.ambari.server.events.publishers.AmbariEventPublisher}
+   */
+  public int getAmbariEventBusPartitions() {
+    return Integer.parseInt(getProperty(AMBARI_EVENT_BUS_PARTITIONS));
+  }
+
+  /**
+   * Determines the amount of threads used by each event bus of the
+   * {@link org.apache.ambari.server.events.publishers.STOMPUpdatePublisher}
+   */
+  public int getStompEventBusPartitions() {
+    return Integer.parseInt(getProperty(STOMP_EVENT_BUS_PARTITIONS));
+  }
+
   /**
    * Get the timeout, in seconds, when finalizing Kerberos
    * enable/disable/regenerate commands.
@@ -6219,6 +6502,13 @@ public class Configuration {
     return Integer.parseInt(getProperty(KERBEROS_OPERATION_RETRY_TIMEOUT));
   }
 
+  /**
+   * @return {@code true} if queries to an MIT KDC are sent through long-lived kadmin sessions
+   */
+  public boolean isKerberosKadminSessionsEnabled() {
+    return Boolean.parseBoolean(getProperty(KERBEROS_OPERATION_KADMIN_SESSIONS_ENABLED));
+  }
+
   public boolean validateKerberosOperationSSLCertTrust() {
     return Boolean.parseBoolean(getProperty(KERBEROS_OPERATION_VERIFY_KDC_TRUST));
   }
@@ -204,14 +204,30 @@ public class AlertDefinitionResourceProvider extends AbstractControllerResourceP
       }
     }
 
+    // invalidate the hashes, collecting the hosts of each cluster so that
+    // every host is sent its definitions once
+    Map<Long, Set<String>> invalidatedHosts = new HashMap<>();
     for (AlertDefinitionEntity entity : entities) {
       alertDefinitionDAO.create(entity);
-      long clusterId = entity.getClusterId();
 
-      // invalidate the hash and publish the event
-      final Set<String> invalidatedHosts = alertDefinitionHash.invalidateHosts(entity);
+      invalidatedHosts.computeIfAbsent(entity.getClusterId(), clusterId -> new HashSet<>())
+        .addAll(alertDefinitionHash.invalidateHosts(entity));
+    }
+
+    publishHashInvalidations(invalidatedHosts);
+  }
+
+  /**
+   * Publishes an {@link AlertHashInvalidationEvent} for the invalidated hosts
+   * of each cluster.
+   *
+   * @param invalidatedHosts
+   *          the invalidated hosts by cluster ID.
+   */
+  private void publishHashInvalidations(Map<Long, Set<String>> invalidatedHosts) {
+    for (Entry<Long, Set<String>> entry : invalidatedHosts.entrySet()) {
       AlertHashInvalidationEvent event = new AlertHashInvalidationEvent(
-          clusterId, invalidatedHosts);
+          entry.getKey(), entry.getValue());
 
       eventPublisher.publish(event);
     }
@@ -297,6 +313,7 @@ public class AlertDefinitionResourceProvider extends AbstractControllerResourceP
     }
 
     // if an AlertDefinition property body was specified, perform the update
+    Map<Long, Set<String>> invalidatedHosts = new HashMap<>();
     for (Map<String, Object> requestPropMap : request.getProperties()) {
       for (Map<String, Object> propertyMap : getPropertyMaps(requestPropMap, predicate)) {
         String stringId = (String) propertyMap.get(ALERT_DEF_ID);
@@ -314,12 +331,10 @@ public class AlertDefinitionResourceProvider extends AbstractControllerResourceP
           populateEntity(entity, propertyMap);
           alertDefinitionDAO.merge(entity);
 
-          // invalidate and publish the definition hash
-          Set<String> invalidatedHosts = alertDefinitionHash.invalidateHosts(entity);
-          AlertHashInvalidationEvent event = new AlertHashInvalidationEvent(
-              entity.getClusterId(), invalidatedHosts);
-
-          eventPublisher.publish(event);
+          // invalidate the definition hash; it is published once all of the
+          // definitions are updated
+          invalidatedHosts.computeIfAbsent(entity.getClusterId(), clusterId -> new HashSet<>())
+            .addAll(alertDefinitionHash.invalidateHosts(entity));
         } catch (AmbariException ae) {
           LOG.error("Unable to find cluster when updating alert definition", ae);
         }
@@ -335,6 +350,8 @@ public class AlertDefinitionResourceProvider extends AbstractControllerResourceP
       }
     }
 
+    publishHashInvalidations(invalidatedHosts);
+
     notifyUpdate(Resource.Type.AlertDefinition, request, predicate);
     return getRequestStatus(null);
   }
@@ -368,7 +368,11 @@ public class ClusterControllerImpl implements ClusterController {
   private ExtendedResourceProviderWrapper ensureResourceProviderWrapper(Type type) {
     synchronized (resourceProviders) {
       if (!resourceProviders.containsKey(type)) {
-        resourceProviders.put(type, new ExtendedResourceProviderWrapper(providerModule.getResourceProvider(type)));
+        ResourceProvider resourceProvider = providerModule.getResourceProvider(type);
+        if (resourceProvider instanceof BaseProvider) {
+          ResourcePropertyLayout.register(type, ((BaseProvider) resourceProvider).getPropertyIds());
+        }
+        resourceProviders.put(type, new ExtendedResourceProviderWrapper(resourceProvider));
       }
     }
     return resourceProviders.get(type);
@@ -716,8 +720,12 @@ public class ClusterControllerImpl implements ClusterController {
     private ResourceIterable(Set<Resource> resources, Predicate predicate,
                              ResourcePredicateEvaluator evaluator) {
       this.resources = resources;
-      this.predicate = predicate;
       this.evaluator = evaluator;
+
+      // a provider specific evaluator may rely on the given predicate classes
+      boolean defaultEvaluator = evaluator instanceof ExtendedResourceProviderWrapper &&
+          ((ExtendedResourceProviderWrapper) evaluator).usesDefaultEvaluator();
+      this.predicate = defaultEvaluator ? CompiledPredicate.compile(predicate) : predicate;
     }
 
     // ----- Iterable --------------------------------------------------------
@@ -1011,5 +1019,12 @@ public class ClusterControllerImpl implements ClusterController {
     public boolean evaluate(Predicate predicate, Resource resource) {
       return evaluator.evaluate(predicate, resource);
     }
+
+    /**
+     * @return true if predicates are evaluated by the default predicate evaluator
+     */
+    public boolean usesDefaultEvaluator() {
+      return evaluator == DEFAULT_RESOURCE_PREDICATE_EVALUATOR;
+    }
   }
 }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.ComparisonPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+/**
+ * A predicate evaluator specialized for one predicate tree.
+ * <p/>
+ * Compiling resolves the category and name of every compared property id
+ * once, so that evaluating the predicate against each of the resources of a
+ * query reads the property values of a {@link ResourceImpl} without parsing
+ * the property ids again.  Predicates other than AND, OR, NOT and comparisons
+ * are evaluated as given.
+ */
+abstract class CompiledPredicate implements Predicate {
+
+  /**
+   * The predicate this predicate was compiled from.
+   */
+  private final Predicate source;
+
+  private CompiledPredicate(Predicate source) {
+    this.source = source;
+  }
+
+  /**
+   * Compile the given predicate.
+   *
+   * @param predicate  the predicate; may be null
+   *
+   * @return the compiled predicate; null if the given predicate is null
+   */
+  static Predicate compile(Predicate predicate) {
+    if (predicate == null || predicate instanceof CompiledPredicate) {
+      return predicate;
+    }
+
+    // exact classes only; a subclass may change how it evaluates
+    Class<?> predicateClass = predicate.getClass();
+    if (predicateClass == AndPredicate.class) {
+      return new And(predicate, compile(((AndPredicate) predicate).getPredicates()));
+    }
+    if (predicateClass == OrPredicate.class) {
+      return new Or(predicate, compile(((OrPredicate) predicate).getPredicates()));
+    }
+    if (predicateClass == NotPredicate.class) {
+      return new Not(predicate, compile(((NotPredicate) predicate).getPredicate()));
+    }
+    if (predicate instanceof ComparisonPredicate) {
+      return new Comparison((ComparisonPredicate<?>) predicate);
+    }
+    return predicate;
+  }
+
+  private static Predicate[] compile(Predicate[] predicates) {
+    Predicate[] compiled = new Predicate[predicates.length];
+    for (int i = 0; i < predicates.length; i++) {
+      compiled[i] = compile(predicates[i]);
+    }
+    return compiled;
+  }
+
+
+  // ----- Object overrides --------------------------------------------------
+
+  @Override
+  public String toString() {
+    return String.valueOf(source);
+  }
+
+
+  // ----- compiled predicates -----------------------------------------------
+
+  private static final class And extends CompiledPredicate {
+    private final Predicate[] predicates;
+
+    private And(Predicate source, Predicate[] predicates) {
+      super(source);
+      this.predicates = predicates;
+    }
+
+    @Override
+    public boolean evaluate(Resource resource) {
+      for (Predicate predicate : predicates) {
+        if (!predicate.evaluate(resource)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Or extends CompiledPredicate {
+    private final Predicate[] predicates;
+
+    private Or(Predicate source, Predicate[] predicates) {
+      super(source);
+      this.predicates = predicates;
+    }
+
+    @Override
+    public boolean evaluate(Resource resource) {
+      for (Predicate predicate : predicates) {
+        if (predicate.evaluate(resource)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Not extends CompiledPredicate {
+    private final Predicate predicate;
+
+    private Not(Predicate source, Predicate predicate) {
+      super(source);
+      this.predicate = predicate;
+    }
+
+    @Override
+    public boolean evaluate(Resource resource) {
+      return !predicate.evaluate(resource);
+    }
+  }
+
+  private static final class Comparison extends CompiledPredicate {
+    private final ComparisonPredicate<?> predicate;
+    private final String propertyId;
+    private final String categoryKey;
+    private final String name;
+
+    private Comparison(ComparisonPredicate<?> predicate) {
+      super(predicate);
+      this.predicate = predicate;
+
+      propertyId = predicate.getPropertyId();
+
+      String category = PropertyHelper.getPropertyCategory(propertyId);
+      categoryKey = category == null ? "" : category;
+      name = PropertyHelper.getPropertyName(propertyId);
+    }
+
+    @Override
+    public boolean evaluate(Resource resource) {
+      Object propertyValue = resource instanceof ResourceImpl ?
+          ((ResourceImpl) resource).getPropertyValue(propertyId, categoryKey, name) :
+          resource.getPropertyValue(propertyId);
+
+      return predicate.evaluateValue(propertyValue);
+    }
+  }
+}
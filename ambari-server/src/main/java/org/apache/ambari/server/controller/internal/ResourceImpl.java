@@ -21,6 +21,7 @@ package org.apache.ambari.server.controller.internal;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 
@@ -29,19 +30,55 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 
 /**
  * Simple resource implementation.
+ * <p/>
+ * The values of the properties in the {@link ResourcePropertyLayout} of the
+ * resource type are kept in an array indexed by the slot of the property; all
+ * other properties and the added categories are kept in a map of property maps
+ * keyed by category.  Property values are read without locking.  Properties
+ * are set by a single thread while the resource is built and populated and are
+ * only read afterwards; the short synchronized sections of the writers only
+ * guard against late writers, such as property providers which timed out.
+ * <p/>
+ * The first call to {@link #getPropertiesMap()} moves all properties into the
+ * map of property maps, which then backs the resource, so that changes made
+ * through the returned map are reflected by the resource.
  */
 public class ResourceImpl implements Resource {
 
+  /**
+   * Stored in a slot for a property which is set to {@code null}; an empty
+   * slot holds {@code null}.
+   */
+  private static final Object NULL_VALUE = new Object();
+
+  private static final Object[] NO_VALUES = new Object[0];
+
   /**
    * The resource type.
    */
   private final Type type;
 
   /**
-   * The map of property maps keyed by property category.
+   * The slots of the properties of the resource type.
    */
-  private final Map<String, Map<String, Object>> propertiesMap =
-      Collections.synchronizedMap(new TreeMap<String, Map<String, Object>>());
+  private final ResourcePropertyLayout layout;
+
+  /**
+   * The property values indexed by slot.
+   */
+  private final Object[] values;
+
+  /**
+   * The map of property maps keyed by property category, holding the
+   * properties without a slot and the added categories.
+   */
+  private volatile Map<String, Map<String, Object>> otherProperties;
+
+  /**
+   * The map of property maps keyed by property category, holding all of the
+   * properties once it has been requested through {@link #getPropertiesMap()}.
+   */
+  private volatile Map<String, Map<String, Object>> propertiesMap;
 
   // ----- Constructors ------------------------------------------------------
 
@@ -51,7 +88,19 @@ public class ResourceImpl implements Resource {
    * @param type the resource type
    */
   public ResourceImpl(Type type) {
-    this.type = type;
+    this(type, ResourcePropertyLayout.forType(type));
+  }
+
+  /**
+   * Create a resource of the given type with the given property layout.
+   *
+   * @param type    the resource type
+   * @param layout  the property layout
+   */
+  ResourceImpl(Type type, ResourcePropertyLayout layout) {
+    this.type   = type;
+    this.layout = layout;
+    this.values = layout.size() == 0 ? NO_VALUES : new Object[layout.size()];
   }
 
   /**
@@ -71,21 +120,22 @@ public class ResourceImpl implements Resource {
    * @param propertyIds the set of requested property and category ids
    */
   public ResourceImpl(Resource resource, Set<String> propertyIds) {
-    this.type = resource.getType();
-
-    for (Map.Entry<String, Map<String, Object>> categoryEntry :
-        resource.getPropertiesMap().entrySet()) {
-      String category = categoryEntry.getKey();
-      Map<String, Object> propertyMap = categoryEntry.getValue();
-      if (propertyMap != null) {
-        for (Map.Entry<String, Object> propertyEntry : propertyMap.entrySet()) {
-          String propertyId = PropertyHelper.getPropertyId(category, propertyEntry.getKey());
-          if (propertyIds == null || propertyIds.isEmpty() || PropertyHelper.containsProperty(propertyIds, propertyId)) {
-            Object propertyValue = propertyEntry.getValue();
-            setProperty(propertyId, propertyValue);
-          }
-        }
+    this(resource.getType());
+
+    Map<String, Map<String, Object>> resourcePropertiesMap;
+    if (resource instanceof ResourceImpl) {
+      ResourceImpl source = (ResourceImpl) resource;
+      resourcePropertiesMap = source.propertiesMap;
+      if (resourcePropertiesMap == null) {
+        copySlotProperties(source, propertyIds);
+        resourcePropertiesMap = source.otherProperties;
       }
+    } else {
+      resourcePropertiesMap = resource.getPropertiesMap();
+    }
+
+    if (resourcePropertiesMap != null) {
+      copyProperties(resourcePropertiesMap, propertyIds);
     }
   }
 
@@ -99,40 +149,111 @@ public class ResourceImpl implements Resource {
 
   @Override
   public Map<String, Map<String, Object>> getPropertiesMap() {
-    return propertiesMap;
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map == null) {
+      synchronized (this) {
+        map = propertiesMap;
+        if (map == null) {
+          map = getOtherProperties();
+          for (int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+            if (value != null) {
+              getCategoryProperties(map, layout.getCategory(slot)).put(layout.getName(slot), fromSlotValue(value));
+            }
+          }
+          propertiesMap = map;
+        }
+      }
+    }
+    return map;
   }
 
   @Override
   public void setProperty(String id, Object value) {
-    String categoryKey = getCategoryKey(PropertyHelper.getPropertyCategory(id));
-
-    Map<String, Object> properties = propertiesMap.get(categoryKey);
-    if (properties == null) {
-      properties = Collections.synchronizedMap(new TreeMap<String, Object>());
-      propertiesMap.put(categoryKey, properties);
+    if (propertiesMap == null) {
+      synchronized (this) {
+        if (propertiesMap == null) {
+          int slot = layout.getSlot(id);
+          if (slot == -1) {
+            setProperty(getOtherProperties(), id, value);
+          } else {
+            values[slot] = value == null ? NULL_VALUE : value;
+          }
+          return;
+        }
+      }
     }
-    properties.put(PropertyHelper.getPropertyName(id), value);
+    setProperty(propertiesMap, id, value);
   }
 
   @Override
   public void addCategory(String id) {
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map == null) {
+      synchronized (this) {
+        map = propertiesMap == null ? getOtherProperties() : propertiesMap;
+      }
+    }
+
     String categoryKey = getCategoryKey(id);
 
-    if (!propertiesMap.containsKey(categoryKey)) {
-      propertiesMap.put(categoryKey, new HashMap<>());
+    if (!map.containsKey(categoryKey)) {
+      map.put(categoryKey, new HashMap<>());
     }
   }
 
   @Override
   public Object getPropertyValue(String id) {
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map == null) {
+      int slot = layout.getSlot(id);
+      if (slot != -1) {
+        Object value = values[slot];
+        return value == null ? null : fromSlotValue(value);
+      }
+      map = otherProperties;
+      if (map == null) {
+        return null;
+      }
+    }
+
     String categoryKey = getCategoryKey(PropertyHelper.getPropertyCategory(id));
 
-    Map<String, Object> properties = propertiesMap.get(categoryKey);
+    Map<String, Object> properties = map.get(categoryKey);
 
     return properties == null ?
         null : properties.get(PropertyHelper.getPropertyName(id));
   }
 
+  /**
+   * Get the value of a property whose category key and name have already been
+   * resolved from the property id, avoiding parsing the id again on every call.
+   *
+   * @param id           the property id
+   * @param categoryKey  the category key of the property id; "" for no category
+   * @param name         the property name of the property id
+   *
+   * @return the property value; null if the property is not set
+   */
+  Object getPropertyValue(String id, String categoryKey, String name) {
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map == null) {
+      int slot = layout.getSlot(id);
+      if (slot != -1) {
+        Object value = values[slot];
+        return value == null ? null : fromSlotValue(value);
+      }
+      map = otherProperties;
+      if (map == null) {
+        return null;
+      }
+    }
+
+    Map<String, Object> properties = map.get(categoryKey);
+
+    return properties == null ? null : properties.get(name);
+  }
+
 
   // ----- Object overrides --------------------------------------------------
 
@@ -142,7 +263,7 @@ public class ResourceImpl implements Resource {
 
     sb.append("Resource : ").append(type).append("\n");
     sb.append("Properties:\n");
-    sb.append(propertiesMap);
+    sb.append(getPropertiesSnapshot());
 
     return sb.toString();
   }
@@ -154,13 +275,43 @@ public class ResourceImpl implements Resource {
 
     ResourceImpl resource = (ResourceImpl) o;
 
-    return type == resource.type &&
-        !(propertiesMap != null ? !propertiesMap.equals(resource.propertiesMap) : resource.propertiesMap != null);
+    return type == resource.type && getPropertiesSnapshot().equals(resource.getPropertiesSnapshot());
   }
 
+  /**
+   * The hash code combines the type with the category, name and value of
+   * every property; equal resources have equal property maps and therefore
+   * the same hash code, no matter where their properties are kept.
+   */
   @Override
   public int hashCode() {
-    return 31 * type.hashCode() + (propertiesMap != null ? propertiesMap.hashCode() : 0);
+    int hash = 0;
+
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map == null) {
+      for (int slot = 0; slot < values.length; slot++) {
+        Object value = values[slot];
+        if (value != null) {
+          hash += layout.getKeyHash(slot) ^ Objects.hashCode(fromSlotValue(value));
+        }
+      }
+      map = otherProperties;
+    }
+
+    if (map != null) {
+      synchronized (map) {
+        for (Map.Entry<String, Map<String, Object>> categoryEntry : map.entrySet()) {
+          Map<String, Object> properties = categoryEntry.getValue();
+          synchronized (properties) {
+            for (Map.Entry<String, Object> propertyEntry : properties.entrySet()) {
+              hash += ResourcePropertyLayout.getKeyHash(categoryEntry.getKey(), propertyEntry.getKey()) ^
+                  Objects.hashCode(propertyEntry.getValue());
+            }
+          }
+        }
+      }
+    }
+    return 31 * type.hashCode() + hash;
   }
 
   // ----- utility methods ---------------------------------------------------
@@ -168,4 +319,99 @@ public class ResourceImpl implements Resource {
   private String getCategoryKey(String category) {
     return category == null ? "" : category;
   }
+
+  private static Object fromSlotValue(Object value) {
+    return value == NULL_VALUE ? null : value;
+  }
+
+  /**
+   * Get the map of property maps holding the properties without a slot,
+   * creating it if required.  Must be called while holding the lock of this
+   * resource.
+   */
+  private Map<String, Map<String, Object>> getOtherProperties() {
+    Map<String, Map<String, Object>> map = otherProperties;
+    if (map == null) {
+      map = Collections.synchronizedMap(new TreeMap<>());
+      otherProperties = map;
+    }
+    return map;
+  }
+
+  private Map<String, Object> getCategoryProperties(Map<String, Map<String, Object>> map, String categoryKey) {
+    Map<String, Object> properties = map.get(categoryKey);
+    if (properties == null) {
+      properties = Collections.synchronizedMap(new TreeMap<>());
+      map.put(categoryKey, properties);
+    }
+    return properties;
+  }
+
+  private void setProperty(Map<String, Map<String, Object>> map, String id, Object value) {
+    String categoryKey = getCategoryKey(PropertyHelper.getPropertyCategory(id));
+
+    getCategoryProperties(map, categoryKey).put(PropertyHelper.getPropertyName(id), value);
+  }
+
+  /**
+   * Get a copy of all of the properties of this resource without moving them
+   * into the map of property maps.
+   */
+  private Map<String, Map<String, Object>> getPropertiesSnapshot() {
+    Map<String, Map<String, Object>> map = propertiesMap;
+    if (map != null) {
+      return map;
+    }
+
+    Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+    synchronized (this) {
+      map = otherProperties;
+      if (map != null) {
+        synchronized (map) {
+          for (Map.Entry<String, Map<String, Object>> categoryEntry : map.entrySet()) {
+            snapshot.put(categoryEntry.getKey(), new TreeMap<>(categoryEntry.getValue()));
+          }
+        }
+      }
+      for (int slot = 0; slot < values.length; slot++) {
+        Object value = values[slot];
+        if (value != null) {
+          snapshot.computeIfAbsent(layout.getCategory(slot), k -> new TreeMap<>())
+              .put(layout.getName(slot), fromSlotValue(value));
+        }
+      }
+    }
+    return snapshot;
+  }
+
+  private void copySlotProperties(ResourceImpl source, Set<String> propertyIds) {
+    boolean allProperties = propertyIds == null || propertyIds.isEmpty();
+
+    for (int slot = 0; slot < source.values.length; slot++) {
+      Object value = source.values[slot];
+      if (value != null) {
+        String propertyId = source.layout.getPropertyId(slot);
+        if (allProperties || PropertyHelper.containsProperty(propertyIds, propertyId)) {
+          setProperty(propertyId, fromSlotValue(value));
+        }
+      }
+    }
+  }
+
+  private void copyProperties(Map<String, Map<String, Object>> resourcePropertiesMap, Set<String> propertyIds) {
+    for (Map.Entry<String, Map<String, Object>> categoryEntry :
+        resourcePropertiesMap.entrySet()) {
+      String category = categoryEntry.getKey();
+      Map<String, Object> propertyMap = categoryEntry.getValue();
+      if (propertyMap != null) {
+        for (Map.Entry<String, Object> propertyEntry : propertyMap.entrySet()) {
+          String propertyId = PropertyHelper.getPropertyId(category, propertyEntry.getKey());
+          if (propertyIds == null || propertyIds.isEmpty() || PropertyHelper.containsProperty(propertyIds, propertyId)) {
+            Object propertyValue = propertyEntry.getValue();
+            setProperty(propertyId, propertyValue);
+          }
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+/**
+ * Assigns the property ids of a resource type a fixed slot index so that a
+ * {@link ResourceImpl} can store the values of these properties in an array
+ * instead of in nested maps.
+ * <p/>
+ * A layout is immutable. The layout of a resource type is registered once,
+ * from the property ids of its resource provider, and is shared by all of the
+ * resources of the type created afterwards.
+ */
+final class ResourcePropertyLayout {
+
+  /**
+   * The layout used for resource types without a registered layout.
+   */
+  static final ResourcePropertyLayout EMPTY = new ResourcePropertyLayout(Collections.emptySet());
+
+  /**
+   * The registered layouts keyed by resource type.
+   */
+  private static final ConcurrentMap<Resource.Type, ResourcePropertyLayout> LAYOUTS =
+      new ConcurrentHashMap<>();
+
+  private final Map<String, Integer> slots;
+  private final String[] propertyIds;
+  private final String[] categories;
+  private final String[] names;
+  private final int[] keyHashes;
+
+  /**
+   * Constructor.
+   *
+   * @param supportedPropertyIds  the property ids to assign slots to
+   */
+  ResourcePropertyLayout(Set<String> supportedPropertyIds) {
+    Set<String> slotPropertyIds = new TreeSet<>();
+    for (String propertyId : supportedPropertyIds) {
+      // properties with arguments or a trailing separator don't map to a
+      // unique category and name
+      if (propertyId != null && !propertyId.isEmpty() && !propertyId.endsWith("/") &&
+          !PropertyHelper.containsArguments(propertyId)) {
+        slotPropertyIds.add(propertyId);
+      }
+    }
+
+    int size = slotPropertyIds.size();
+    slots       = new HashMap<>(size * 2);
+    propertyIds = new String[size];
+    categories  = new String[size];
+    names       = new String[size];
+    keyHashes   = new int[size];
+
+    int slot = 0;
+    for (String propertyId : slotPropertyIds) {
+      String category = PropertyHelper.getPropertyCategory(propertyId);
+
+      slots.put(propertyId, slot);
+      propertyIds[slot] = propertyId;
+      categories[slot] = category == null ? "" : category;
+      names[slot] = PropertyHelper.getPropertyName(propertyId);
+      keyHashes[slot] = getKeyHash(categories[slot], names[slot]);
+      slot++;
+    }
+  }
+
+  /**
+   * Registers the layout of the given resource type unless one is already
+   * registered.
+   *
+   * @param type         the resource type
+   * @param propertyIds  the property ids supported by the provider of the type
+   */
+  static void register(Resource.Type type, Set<String> propertyIds) {
+    if (!LAYOUTS.containsKey(type)) {
+      LAYOUTS.putIfAbsent(type, new ResourcePropertyLayout(propertyIds));
+    }
+  }
+
+  /**
+   * Gets the layout of the given resource type.
+   *
+   * @param type  the resource type
+   *
+   * @return the registered layout of the type; {@link #EMPTY} if none is registered
+   */
+  static ResourcePropertyLayout forType(Resource.Type type) {
+    ResourcePropertyLayout layout = LAYOUTS.get(type);
+    return layout == null ? EMPTY : layout;
+  }
+
+  /**
+   * Computes the hash of a property key as used by {@link ResourceImpl#hashCode()}.
+   *
+   * @param category  the category key
+   * @param name      the property name
+   *
+   * @return the hash of the key
+   */
+  static int getKeyHash(String category, String name) {
+    return 31 * category.hashCode() + name.hashCode();
+  }
+
+  /**
+   * @return the number of slots
+   */
+  int size() {
+    return propertyIds.length;
+  }
+
+  /**
+   * @param propertyId  the property id
+   *
+   * @return the slot of the property; -1 if the property has no slot
+   */
+  int getSlot(String propertyId) {
+    Integer slot = slots.get(propertyId);
+    return slot == null ? -1 : slot;
+  }
+
+  String getPropertyId(int slot) {
+    return propertyIds[slot];
+  }
+
+  String getCategory(int slot) {
+    return categories[slot];
+  }
+
+  String getName(int slot) {
+    return names[slot];
+  }
+
+  int getKeyHash(int slot) {
+    return keyHashes[slot];
+  }
+}
@@ -51,12 +51,14 @@ public class RootServiceComponentResourceProvider extends ReadOnlyResourceProvid
   public static final String COMPONENT_VERSION = "component_version";
   public static final String PROPERTIES = "properties";
   public static final String SERVER_CLOCK = "server_clock";
+  public static final String METRICS_CACHE = "metrics_cache";
 
   public static final String SERVICE_NAME_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + SERVICE_NAME;
   public static final String COMPONENT_NAME_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + COMPONENT_NAME;
   public static final String COMPONENT_VERSION_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + COMPONENT_VERSION;
   public static final String PROPERTIES_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + PROPERTIES;
   public static final String SERVER_CLOCK_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + SERVER_CLOCK;
+  public static final String METRICS_CACHE_PROPERTY_ID = RESPONSE_KEY + PropertyHelper.EXTERNAL_PATH_SEP + METRICS_CACHE;
 
   /**
    * The key property ids for a RootServiceComponent resource.
@@ -74,7 +76,8 @@ public class RootServiceComponentResourceProvider extends ReadOnlyResourceProvid
       COMPONENT_NAME_PROPERTY_ID,
       COMPONENT_VERSION_PROPERTY_ID,
       PROPERTIES_PROPERTY_ID,
-      SERVER_CLOCK_PROPERTY_ID);
+      SERVER_CLOCK_PROPERTY_ID,
+      METRICS_CACHE_PROPERTY_ID);
 
   protected RootServiceComponentResourceProvider(AmbariManagementController managementController) {
     super(Type.RootServiceComponent, propertyIds, keyPropertyIds, managementController);
@@ -116,6 +119,11 @@ public class RootServiceComponentResourceProvider extends ReadOnlyResourceProvid
       
       if (RootComponent.AMBARI_SERVER.name().equals(response.getComponentName())) {
         setResourceProperty(resource, SERVER_CLOCK_PROPERTY_ID, response.getServerClock(), requestedIds);
+
+        if (isPropertyRequested(METRICS_CACHE_PROPERTY_ID, requestedIds)) {
+          setResourceProperty(resource, METRICS_CACHE_PROPERTY_ID,
+              getManagementController().getTimelineMetricCacheProvider().getStatistics(), requestedIds);
+        }
       }      
 
       resources.add(resource);
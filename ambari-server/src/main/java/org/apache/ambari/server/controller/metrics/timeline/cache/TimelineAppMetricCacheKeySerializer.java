@@ -17,62 +17,76 @@
  */
 package org.apache.ambari.server.controller.metrics.timeline.cache;
 
-import java.io.ByteArrayInputStream;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.readString;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.writeString;
+
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.ehcache.spi.serialization.Serializer;
 import org.ehcache.spi.serialization.SerializerException;
 
+/**
+ * Serializes {@link TimelineAppMetricCacheKey}s for the off-heap tier of the
+ * metrics cache. Only the properties which contribute to the identity of the
+ * key and the request spec are stored; the temporal info describes a single
+ * request window and is not retained.
+ */
 public class TimelineAppMetricCacheKeySerializer implements Serializer<TimelineAppMetricCacheKey> {
-  private final ClassLoader classLoader;
+
   public TimelineAppMetricCacheKeySerializer(ClassLoader classLoader) {
-    this.classLoader = classLoader;
   }
+
   @Override
   public ByteBuffer serialize(TimelineAppMetricCacheKey key) throws SerializerException {
     try {
-      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-      ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
-      objectOutputStream.writeObject(key);
-      objectOutputStream.close();
-      return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
-    } catch (Exception e) {
-      throw new SerializerException(e);
-    }
-  }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
 
-  @Override
-  public TimelineAppMetricCacheKey read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
-    try {
-      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(binary.array());
-      ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream);
-      return (TimelineAppMetricCacheKey) objectInputStream.readObject();
-    } catch (IOException | ClassNotFoundException e) {
-      throw new SerializerException("Error during deserialization", e);
+      out.writeInt(key.getMetricNames().size());
+      for (String metricName : key.getMetricNames()) {
+        writeString(out, metricName);
+      }
+      writeString(out, key.getAppId());
+      writeString(out, key.getHostNames());
+      writeString(out, key.getSpec());
+
+      out.close();
+      return ByteBuffer.wrap(bytes.toByteArray());
+    } catch (IOException e) {
+      throw new SerializerException(e);
     }
   }
 
   @Override
-  public boolean equals(TimelineAppMetricCacheKey key, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+  public TimelineAppMetricCacheKey read(ByteBuffer binary) throws SerializerException {
     try {
-      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(binary.array());
-      ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream);
-      TimelineAppMetricCacheKey deserializedKey = (TimelineAppMetricCacheKey) objectInputStream.readObject();
+      ByteBuffer in = binary.duplicate();
 
-      // Now compare key and deserializedKey
-      if (key == deserializedKey) return true;
-      if (deserializedKey == null || (key.getClass() != deserializedKey.getClass())) return false;
+      int metricNameCount = in.getInt();
+      Set<String> metricNames = new HashSet<>(metricNameCount);
+      for (int i = 0; i < metricNameCount; i++) {
+        metricNames.add(readString(in));
+      }
 
-      if (!key.getMetricNames().equals(deserializedKey.getMetricNames())) return false;
-      if (!key.getAppId().equals(deserializedKey.getAppId())) return false;
-      return !(key.getHostNames() != null ? !key.getHostNames().equals(deserializedKey.getHostNames()) : deserializedKey.getHostNames() != null);
+      String appId = readString(in);
+      String hostNames = readString(in);
 
-    } catch (IOException e) {
+      TimelineAppMetricCacheKey key = new TimelineAppMetricCacheKey(metricNames, appId, hostNames, null);
+      key.setSpec(readString(in));
+      return key;
+    } catch (BufferUnderflowException e) {
       throw new SerializerException("Error during deserialization", e);
     }
   }
+
+  @Override
+  public boolean equals(TimelineAppMetricCacheKey key, ByteBuffer binary) throws SerializerException {
+    return key.equals(read(binary));
+  }
 }
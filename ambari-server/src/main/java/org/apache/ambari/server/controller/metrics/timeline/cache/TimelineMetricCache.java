@@ -19,22 +19,27 @@ package org.apache.ambari.server.controller.metrics.timeline.cache;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
 import org.ehcache.Cache;
 import org.ehcache.core.internal.statistics.DefaultStatisticsService;
 import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
 import org.ehcache.spi.loaderwriter.CacheLoadingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class TimelineMetricCache {
+public class TimelineMetricCache implements TimelineMetricCacheMXBean {
   private final Cache<TimelineAppMetricCacheKey, TimelineMetricsCacheValue> cache;
   private final DefaultStatisticsService statisticsService;
   private final TimelineMetricCacheEntryFactory cacheEntryFactory;
   public static final String TIMELINE_METRIC_CACHE_INSTANCE_NAME = "timelineMetricCache";
   private final static Logger LOG = LoggerFactory.getLogger(TimelineMetricCache.class);
+  private static final String HEAP_TIER = "OnHeap";
+  private static final String OFF_HEAP_TIER = "OffHeap";
   private static AtomicInteger printCacheStatsCounter = new AtomicInteger(0);
 
   /**
@@ -89,7 +94,7 @@ public class TimelineMetricCache {
     if (LOG.isDebugEnabled()) {
       // Print stats every 100 calls - Note: Supported in debug mode only
       if (printCacheStatsCounter.getAndIncrement() == 0) {
-        CacheStatistics cacheStatistics = statisticsService.getCacheStatistics(TIMELINE_METRIC_CACHE_INSTANCE_NAME);
+        CacheStatistics cacheStatistics = getCacheStatistics();
         if(cacheStatistics == null) {
           LOG.warn("Cache statistics not available.");
           return timelineMetrics;
@@ -104,6 +109,105 @@ public class TimelineMetricCache {
     return timelineMetrics;
   }
 
+  /**
+   * Get a snapshot of the cache statistics keyed by name, suitable for
+   * rendering as a resource property.
+   *
+   * @return the statistics, empty if they are not available
+   */
+  public Map<String, Object> getStatistics() {
+    Map<String, Object> statistics = new LinkedHashMap<>();
+    if (getCacheStatistics() == null) {
+      return statistics;
+    }
+
+    statistics.put("hits", getHits());
+    statistics.put("misses", getMisses());
+    statistics.put("hit_percentage", getHitPercentage());
+    statistics.put("puts", getPuts());
+    statistics.put("evictions", getEvictions());
+    statistics.put("expirations", getExpirations());
+    statistics.put("heap_entries", getHeapEntries());
+    statistics.put("offheap_entries", getOffHeapEntries());
+    statistics.put("offheap_occupied_bytes", getOffHeapOccupiedBytes());
+    statistics.put("offheap_allocated_bytes", getOffHeapAllocatedBytes());
+    return statistics;
+  }
+
+  @Override
+  public long getHits() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCacheHits();
+  }
+
+  @Override
+  public long getMisses() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCacheMisses();
+  }
+
+  @Override
+  public float getHitPercentage() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCacheHitPercentage();
+  }
+
+  @Override
+  public long getPuts() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCachePuts();
+  }
+
+  @Override
+  public long getEvictions() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCacheEvictions();
+  }
+
+  @Override
+  public long getExpirations() {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? 0 : statistics.getCacheExpirations();
+  }
+
+  @Override
+  public long getHeapEntries() {
+    TierStatistics statistics = getTierStatistics(HEAP_TIER);
+    return statistics == null ? 0 : statistics.getMappings();
+  }
+
+  @Override
+  public long getOffHeapEntries() {
+    TierStatistics statistics = getTierStatistics(OFF_HEAP_TIER);
+    return statistics == null ? 0 : statistics.getMappings();
+  }
+
+  @Override
+  public long getOffHeapOccupiedBytes() {
+    TierStatistics statistics = getTierStatistics(OFF_HEAP_TIER);
+    return statistics == null ? 0 : statistics.getOccupiedByteSize();
+  }
+
+  @Override
+  public long getOffHeapAllocatedBytes() {
+    TierStatistics statistics = getTierStatistics(OFF_HEAP_TIER);
+    return statistics == null ? 0 : statistics.getAllocatedByteSize();
+  }
+
+  private CacheStatistics getCacheStatistics() {
+    try {
+      return statisticsService.getCacheStatistics(TIMELINE_METRIC_CACHE_INSTANCE_NAME);
+    } catch (IllegalArgumentException e) {
+      // the cache has not been registered with the statistics service
+      return null;
+    }
+  }
+
+  private TierStatistics getTierStatistics(String tier) {
+    CacheStatistics statistics = getCacheStatistics();
+    return statistics == null ? null : statistics.getTierStatistics().get(tier);
+  }
+
   private void validateKey(TimelineAppMetricCacheKey key) throws IllegalArgumentException {
     StringBuilder msg = new StringBuilder("Invalid metric key requested.");
     boolean throwException = false;
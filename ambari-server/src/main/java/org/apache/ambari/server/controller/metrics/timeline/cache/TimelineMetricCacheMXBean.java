@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.metrics.timeline.cache;
+
+/**
+ * JMX view of the statistics of the {@link TimelineMetricCache}. The counters
+ * are cumulative since the cache was created.
+ */
+public interface TimelineMetricCacheMXBean {
+
+  /**
+   * The object name under which the cache is registered.
+   */
+  String OBJECT_NAME = "org.apache.ambari:type=TimelineMetricCache";
+
+  long getHits();
+
+  long getMisses();
+
+  float getHitPercentage();
+
+  long getPuts();
+
+  long getEvictions();
+
+  long getExpirations();
+
+  long getHeapEntries();
+
+  long getOffHeapEntries();
+
+  /**
+   * @return the number of bytes occupied by entries in the off-heap tier.
+   */
+  long getOffHeapOccupiedBytes();
+
+  /**
+   * @return the number of bytes reserved by the off-heap tier.
+   */
+  long getOffHeapAllocatedBytes();
+}
@@ -17,7 +17,14 @@
  */
 package org.apache.ambari.server.controller.metrics.timeline.cache;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.ambari.server.configuration.Configuration;
 import org.ehcache.Cache;
@@ -26,6 +33,7 @@ import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
 import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.internal.statistics.DefaultStatisticsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,26 +84,54 @@ public class TimelineMetricCacheProvider {
     LOG.info("Registering metrics cache with provider: name = " +
       TIMELINE_METRIC_CACHE_INSTANCE_NAME + ", manager = " + manager);
 
+    registerMBean(timelineMetricsCache);
+
     isCacheInitialized = true;
   }
 
+  /**
+   * Expose the cache statistics over JMX, replacing the registration of a
+   * previously created cache.
+   */
+  private void registerMBean(TimelineMetricCache cache) {
+    try {
+      MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(TimelineMetricCacheMXBean.OBJECT_NAME);
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+      mBeanServer.registerMBean(cache, objectName);
+    } catch (JMException e) {
+      LOG.warn("Unable to register the metrics cache statistics with JMX", e);
+    }
+  }
+
   // Having this as a separate public method for testing/mocking purposes
   public CacheConfigurationBuilder createCacheConfiguration() {
+    int offHeapSize = configuration.getMetricCacheOffHeapSizeMB();
     LOG.info("Creating Metrics Cache with timeouts => ttl = " +
       configuration.getMetricCacheTTLSeconds() + ", idle = " +
-      configuration.getMetricCacheIdleSeconds() + ", cache size = " + configuration.getMetricCacheEntryUnitSize());
+      configuration.getMetricCacheIdleSeconds() + ", cache size = " + configuration.getMetricCacheEntryUnitSize() +
+      ", off-heap size = " + offHeapSize + " MB");
 
     TimelineMetricCacheCustomExpiry timelineMetricCacheCustomExpiry = new TimelineMetricCacheCustomExpiry(
             Duration.ofSeconds(configuration.getMetricCacheTTLSeconds()),
             Duration.ofSeconds(configuration.getMetricCacheIdleSeconds())
     );
 
+    ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+            .heap(configuration.getMetricCacheEntryUnitSize(), EntryUnit.ENTRIES);
+
+    // entries evicted from the heap are kept serialized outside of the heap
+    if (offHeapSize > 0) {
+      resourcePools = resourcePools.offheap(offHeapSize, MemoryUnit.MB);
+    }
+
     CacheConfigurationBuilder<TimelineAppMetricCacheKey, TimelineMetricsCacheValue> cacheConfigurationBuilder = CacheConfigurationBuilder
             .newCacheConfigurationBuilder(
                     TimelineAppMetricCacheKey.class,
                     TimelineMetricsCacheValue.class,
-                    ResourcePoolsBuilder.newResourcePoolsBuilder()
-                    .heap(configuration.getMetricCacheEntryUnitSize(), EntryUnit.ENTRIES)
+                    resourcePools
             )
             .withKeySerializer(TimelineAppMetricCacheKeySerializer.class)
             .withValueSerializer(TimelineMetricsCacheValueSerializer.class)
@@ -119,4 +155,15 @@ public class TimelineMetricCacheProvider {
     }
     return timelineMetricsCache;
   }
+
+  /**
+   * Get the statistics of the cache without creating it.
+   * @return the statistics, empty if the cache is disabled or has not been used yet.
+   */
+  public Map<String, Object> getStatistics() {
+    if (!isCacheInitialized) {
+      return Collections.emptyMap();
+    }
+    return timelineMetricsCache.getStatistics();
+  }
 }
@@ -17,63 +17,189 @@
  */
 package org.apache.ambari.server.controller.metrics.timeline.cache;
 
-import java.io.ByteArrayInputStream;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.readNullableLong;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.readString;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.writeNullableLong;
+import static org.apache.ambari.server.controller.metrics.timeline.cache.TimelineMetricCacheSerialization.writeString;
+
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
+import org.apache.hadoop.metrics2.sink.timeline.Precision;
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
 import org.ehcache.spi.serialization.Serializer;
 import org.ehcache.spi.serialization.SerializerException;
 
+/**
+ * Serializes {@link TimelineMetricsCacheValue}s for the off-heap tier of the
+ * metrics cache. Each series is written as a run of primitive timestamps
+ * followed by a run of primitive values instead of as boxed map entries, which
+ * keeps the stored form close to 16 bytes per data point. Missing values are
+ * recorded in a bitmap after the values, which is empty unless the series has
+ * gaps.
+ */
 public class TimelineMetricsCacheValueSerializer implements Serializer<TimelineMetricsCacheValue> {
-    private final ClassLoader classLoader;
-    public TimelineMetricsCacheValueSerializer(ClassLoader classLoader) {
-        this.classLoader = classLoader;
-    }
-    @Override
-    public ByteBuffer serialize(TimelineMetricsCacheValue value) throws SerializerException {
+
+  public TimelineMetricsCacheValueSerializer(ClassLoader classLoader) {
+  }
+
+  @Override
+  public ByteBuffer serialize(TimelineMetricsCacheValue value) throws SerializerException {
     try {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
-        objectOutputStream.writeObject(value);
-        objectOutputStream.close();
-        return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
-    } catch (Exception e) {
-        throw new SerializerException(e);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+
+      writeNullableLong(out, value.getStartTime());
+      writeNullableLong(out, value.getEndTime());
+      writeString(out, value.getPrecision() == null ? null : value.getPrecision().name());
+
+      TimelineMetrics timelineMetrics = value.getTimelineMetrics();
+      out.writeInt(timelineMetrics.getMetrics().size());
+      for (TimelineMetric metric : timelineMetrics.getMetrics()) {
+        writeMetric(out, metric);
+      }
+
+      out.close();
+      return ByteBuffer.wrap(bytes.toByteArray());
+    } catch (IOException e) {
+      throw new SerializerException(e);
     }
   }
 
-    @Override
-    public TimelineMetricsCacheValue read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+  @Override
+  public TimelineMetricsCacheValue read(ByteBuffer binary) throws SerializerException {
     try {
-      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(binary.array());
-      ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream);
-      return (TimelineMetricsCacheValue) objectInputStream.readObject();
-    } catch (IOException | ClassNotFoundException e) {
+      ByteBuffer in = binary.duplicate();
+
+      Long startTime = readNullableLong(in);
+      Long endTime = readNullableLong(in);
+      String precision = readString(in);
+
+      TimelineMetrics timelineMetrics = new TimelineMetrics();
+      int metricCount = in.getInt();
+      for (int i = 0; i < metricCount; i++) {
+        timelineMetrics.getMetrics().add(readMetric(in));
+      }
+
+      return new TimelineMetricsCacheValue(startTime, endTime, timelineMetrics,
+          precision == null ? null : Precision.valueOf(precision));
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
       throw new SerializerException("Error during deserialization", e);
     }
   }
 
-    @Override
-    public boolean equals(TimelineMetricsCacheValue value, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
-      try {
-          ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(binary.array());
-          ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream);
-          TimelineMetricsCacheValue deserializedValue = (TimelineMetricsCacheValue) objectInputStream.readObject();
+  @Override
+  public boolean equals(TimelineMetricsCacheValue value, ByteBuffer binary) throws SerializerException {
+    TimelineMetricsCacheValue deserializedValue = read(binary);
 
-          // Now compare value and deserializedValue
-          if (value == deserializedValue) return true;
-          if (deserializedValue == null || (value.getClass() != deserializedValue.getClass())) return false;
+    if (value == deserializedValue) return true;
+    if (deserializedValue == null || (value.getClass() != deserializedValue.getClass())) return false;
 
-          if (!value.getStartTime().equals(deserializedValue.getStartTime())) return false;
-          if (!value.getEndTime().equals(deserializedValue.getEndTime())) return false;
-          if (!value.getTimelineMetrics().equals(deserializedValue.getTimelineMetrics())) return false;
-          return value.getPrecision() == deserializedValue.getPrecision();
+    if (!Objects.equals(value.getStartTime(), deserializedValue.getStartTime())) return false;
+    if (!Objects.equals(value.getEndTime(), deserializedValue.getEndTime())) return false;
+    if (!value.getTimelineMetrics().getMetrics().equals(deserializedValue.getTimelineMetrics().getMetrics())) return false;
+    return value.getPrecision() == deserializedValue.getPrecision();
+  }
+
+  private void writeMetric(DataOutputStream out, TimelineMetric metric) throws IOException {
+    writeString(out, metric.getMetricName());
+    writeString(out, metric.getAppId());
+    writeString(out, metric.getInstanceId());
+    writeString(out, metric.getHostName());
+    writeString(out, metric.getType());
+    writeString(out, metric.getUnits());
+    out.writeLong(metric.getStartTime());
+
+    Map<String, String> metadata = metric.getMetadata();
+    out.writeInt(metadata == null ? 0 : metadata.size());
+    if (metadata != null) {
+      for (Map.Entry<String, String> entry : metadata.entrySet()) {
+        writeString(out, entry.getKey());
+        writeString(out, entry.getValue());
+      }
+    }
 
-      } catch (IOException e) {
-          throw new SerializerException("Error during deserialization", e);
+    TreeMap<Long, Double> metricValues = metric.getMetricValues();
+    int size = metricValues == null ? 0 : metricValues.size();
+    long[] timestamps = new long[size];
+    double[] values = new double[size];
+    BitSet nullValues = new BitSet();
+    if (metricValues != null) {
+      int i = 0;
+      for (Map.Entry<Long, Double> entry : metricValues.entrySet()) {
+        timestamps[i] = entry.getKey();
+        if (entry.getValue() == null) {
+          nullValues.set(i);
+        } else {
+          values[i] = entry.getValue();
+        }
+        i++;
       }
+    }
+
+    out.writeInt(size);
+    for (long timestamp : timestamps) {
+      out.writeLong(timestamp);
+    }
+    for (double metricValue : values) {
+      out.writeDouble(metricValue);
+    }
+
+    long[] nullWords = nullValues.toLongArray();
+    out.writeInt(nullWords.length);
+    for (long word : nullWords) {
+      out.writeLong(word);
+    }
+  }
+
+  private TimelineMetric readMetric(ByteBuffer in) {
+    TimelineMetric metric = new TimelineMetric();
+    metric.setMetricName(readString(in));
+    metric.setAppId(readString(in));
+    metric.setInstanceId(readString(in));
+    metric.setHostName(readString(in));
+    metric.setType(readString(in));
+    metric.setUnits(readString(in));
+    metric.setStartTime(in.getLong());
+
+    int metadataSize = in.getInt();
+    HashMap<String, String> metadata = new HashMap<>();
+    for (int i = 0; i < metadataSize; i++) {
+      metadata.put(readString(in), readString(in));
+    }
+    metric.setMetadata(metadata);
+
+    int size = in.getInt();
+    long[] timestamps = new long[size];
+    for (int i = 0; i < size; i++) {
+      timestamps[i] = in.getLong();
+    }
+
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = in.getDouble();
+    }
+
+    long[] nullWords = new long[in.getInt()];
+    for (int i = 0; i < nullWords.length; i++) {
+      nullWords[i] = in.getLong();
+    }
+    BitSet nullValues = BitSet.valueOf(nullWords);
+
+    TreeMap<Long, Double> metricValues = new TreeMap<>();
+    for (int i = 0; i < size; i++) {
+      metricValues.put(timestamps[i], nullValues.get(i) ? null : values[i]);
+    }
+    metric.setMetricValues(metricValues);
+    return metric;
   }
 }
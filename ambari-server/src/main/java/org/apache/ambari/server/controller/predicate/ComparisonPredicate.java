@@ -27,6 +27,14 @@ import org.apache.ambari.server.controller.spi.Resource;
  * Predicate that compares a given value to a {@link Resource} property.
  */
 public abstract class ComparisonPredicate<T> extends PropertyPredicate implements BasePredicate {
+
+  /**
+   * Number format used to parse numeric property values.  Creating a format
+   * is expensive compared to the comparison itself, so each thread reuses one.
+   */
+  private static final ThreadLocal<NumberFormat> NUMBER_FORMAT =
+      ThreadLocal.withInitial(NumberFormat::getInstance);
+
   private final Comparable<T> value;
   private final String stringValue;
   private final Double doubleValue;
@@ -115,12 +123,21 @@ public abstract class ComparisonPredicate<T> extends PropertyPredicate implement
     }
 
     ParsePosition parsePosition = new ParsePosition(0);
-    NumberFormat  numberFormat  = NumberFormat.getInstance();
+    NumberFormat  numberFormat  = NUMBER_FORMAT.get();
     Number        parsedNumber  = numberFormat.parse(stringValue, parsePosition);
 
     return parsePosition.getIndex() == stringValue.length() ? parsedNumber.doubleValue() : null;
   }
 
+  /**
+   * Evaluate the predicate for the given property value.
+   *
+   * @param propertyValue  the value of the predicate property of a resource; may be null
+   *
+   * @return the result of applying the predicate to the given value
+   */
+  public abstract boolean evaluateValue(Object propertyValue);
+
   public abstract String getOperator();
 
   public abstract ComparisonPredicate<T> copy(String propertyId);
@@ -31,7 +31,11 @@ public class EqualsPredicate<T> extends ComparisonPredicate<T> {
 
   @Override
   public boolean evaluate(Resource resource) {
-    Object propertyValue  = resource.getPropertyValue(getPropertyId());
+    return evaluateValue(resource.getPropertyValue(getPropertyId()));
+  }
+
+  @Override
+  public boolean evaluateValue(Object propertyValue) {
     Object predicateValue = getValue();
 
     return predicateValue == null ?
@@ -42,7 +42,11 @@ public class LessEqualsPredicate<T> extends ComparisonPredicate<T> {
 
   @Override
   public boolean evaluate(Resource resource) {
-    Object propertyValue = resource.getPropertyValue(getPropertyId());
+    return evaluateValue(resource.getPropertyValue(getPropertyId()));
+  }
+
+  @Override
+  public boolean evaluateValue(Object propertyValue) {
     return propertyValue != null && compareValueTo(propertyValue) >= 0;
   }
 
@@ -41,7 +41,11 @@ public class LessPredicate<T> extends ComparisonPredicate<T> {
 
   @Override
   public boolean evaluate(Resource resource) {
-    Object propertyValue = resource.getPropertyValue(getPropertyId());
+    return evaluateValue(resource.getPropertyValue(getPropertyId()));
+  }
+
+  @Override
+  public boolean evaluateValue(Object propertyValue) {
     return propertyValue != null && compareValueTo(propertyValue) > 0;
   }
 
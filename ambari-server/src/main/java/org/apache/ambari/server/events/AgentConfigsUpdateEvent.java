@@ -20,16 +20,22 @@ package org.apache.ambari.server.events;
 
 import java.util.Objects;
 import java.util.SortedMap;
+import java.util.SortedSet;
 
 import org.apache.ambari.server.agent.stomp.dto.ClusterConfigs;
 import org.apache.ambari.server.agent.stomp.dto.Hashable;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Contains info about configs update for one host. This update will be sent to single host only.
  * Host can be identified by AgentConfigsUpdateEvent#hostName.
+ * <p/>
+ * The update is either a full snapshot of the host's configs or, if {@link #getBaseHash()} is set,
+ * a delta which contains only the added and changed properties and the names of the removed ones.
+ * A delta may only be applied by an agent whose configs have the base hash.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class AgentConfigsUpdateEvent extends STOMPHostEvent implements Hashable {
@@ -52,6 +58,17 @@ public class AgentConfigsUpdateEvent extends STOMPHostEvent implements Hashable
   @JsonProperty("clusters")
   private final SortedMap<String, ClusterConfigs> clustersConfigs;
 
+  /**
+   * Hash of the configs this delta applies to, {@code null} for a full snapshot.
+   */
+  private String baseHash;
+
+  /**
+   * Names of the properties removed by this delta grouped by cluster id and config type.
+   * An empty set of names removes the whole config type.
+   */
+  private SortedMap<String, SortedMap<String, SortedSet<String>>> removedConfigurations;
+
   public AgentConfigsUpdateEvent(Long hostId, SortedMap<String, ClusterConfigs> clustersConfigs) {
     super(Type.AGENT_CONFIGS);
     this.hostId = hostId;
@@ -59,6 +76,23 @@ public class AgentConfigsUpdateEvent extends STOMPHostEvent implements Hashable
     this.timestamp = System.currentTimeMillis();
   }
 
+  /**
+   * Creates a delta update.
+   *
+   * @param hostId host identifier.
+   * @param baseHash hash of the configs the delta applies to.
+   * @param changedConfigs added and changed properties grouped by cluster id.
+   * @param removedConfigurations removed properties grouped by cluster id and config type.
+   * @return the delta update.
+   */
+  public static AgentConfigsUpdateEvent delta(Long hostId, String baseHash, SortedMap<String, ClusterConfigs> changedConfigs,
+                                              SortedMap<String, SortedMap<String, SortedSet<String>>> removedConfigurations) {
+    AgentConfigsUpdateEvent delta = new AgentConfigsUpdateEvent(hostId, changedConfigs);
+    delta.baseHash = baseHash;
+    delta.removedConfigurations = removedConfigurations.isEmpty() ? null : removedConfigurations;
+    return delta;
+  }
+
   @Override
   public String getHash() {
     return hash;
@@ -86,6 +120,19 @@ public class AgentConfigsUpdateEvent extends STOMPHostEvent implements Hashable
     return clustersConfigs;
   }
 
+  public String getBaseHash() {
+    return baseHash;
+  }
+
+  public SortedMap<String, SortedMap<String, SortedSet<String>>> getRemovedConfigurations() {
+    return removedConfigurations;
+  }
+
+  @JsonIgnore
+  public boolean isDelta() {
+    return baseHash != null;
+  }
+
   public static AgentConfigsUpdateEvent emptyUpdate() {
     return new AgentConfigsUpdateEvent(null, null);
   }
@@ -98,11 +145,13 @@ public class AgentConfigsUpdateEvent extends STOMPHostEvent implements Hashable
     AgentConfigsUpdateEvent that = (AgentConfigsUpdateEvent) o;
 
     return Objects.equals(hostId, that.hostId) &&
-      Objects.equals(clustersConfigs, that.clustersConfigs);
+      Objects.equals(clustersConfigs, that.clustersConfigs) &&
+      Objects.equals(baseHash, that.baseHash) &&
+      Objects.equals(removedConfigurations, that.removedConfigurations);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(hostId, clustersConfigs);
+    return Objects.hash(hostId, clustersConfigs, baseHash, removedConfigurations);
   }
 }
@@ -26,6 +26,8 @@ import org.apache.ambari.server.agent.HeartBeatResponse;
 import org.apache.ambari.server.events.AlertHashInvalidationEvent;
 import org.apache.ambari.server.events.AmbariEvent.AmbariEventType;
 import org.apache.ambari.server.events.ClusterEvent;
+import org.apache.ambari.server.events.HostsRemovedEvent;
+import org.apache.ambari.server.events.ServiceComponentInstalledEvent;
 import org.apache.ambari.server.events.ServiceComponentUninstalledEvent;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.state.alert.AlertDefinitionHash;
@@ -49,6 +51,8 @@ import com.google.inject.Singleton;
  * <li>{@link AlertHashInvalidationEvent} - invalidates a specific alert across
  * affected hosts</li>
  * </ul>
+ * It also keeps the index of the hosts of each service component, which is
+ * used to find the hosts affected by an alert definition, up to date.
  */
 @Singleton
 @EagerSingleton
@@ -102,10 +106,34 @@ public class AlertHashInvalidationListener {
     hash.enqueueAgentCommands(clusterId, hosts);
   }
 
+  /**
+   * Handles {@link ServiceComponentInstalledEvent} by adding the host component
+   * to the index of the hosts of each service component.
+   *
+   * @param event
+   *          the event being handled.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(ServiceComponentInstalledEvent event) {
+    LOG.debug("Received event {}", event);
+
+    String hostName = event.getHostName();
+    if (null == hostName) {
+      return;
+    }
+
+    m_alertDefinitionHash.get().addComponentHost(event.getClusterId(),
+        event.getServiceName(), event.getComponentName(), hostName,
+        event.isMasterComponent());
+  }
+
   /**
    * Handles {@link AlertHashInvalidationEvent} by performing the following
    * tasks:
    * <ul>
+   * <li>Removing the host component from the index of the hosts of each
+   * service component</li>
    * <li>Alert has invalidation</li>
    * <li>Enqueuing {@link AlertDefinitionCommand}</li>
    * </ul>
@@ -122,12 +150,30 @@ public class AlertHashInvalidationListener {
       return;
     }
 
+    m_alertDefinitionHash.get().removeComponentHost(clusterId,
+        event.getServiceName(), event.getComponentName(), hostName);
+
     // invalidate hash and enqueue commands
     m_alertDefinitionHash.get().invalidate(hostName);
     m_alertDefinitionHash.get().enqueueAgentCommands(clusterId,
         Collections.singletonList(hostName));
   }
 
+  /**
+   * Handles {@link HostsRemovedEvent} by removing the hosts from the index of
+   * the hosts of each service component.
+   *
+   * @param event
+   *          the event being handled.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onEvent(HostsRemovedEvent event) {
+    LOG.debug("Received event {}", event);
+
+    m_alertDefinitionHash.get().removeHosts(event.getHostNames());
+  }
+
   /**
    * Handles {@link ClusterEvent} by performing the following tasks:
    * <ul>
@@ -397,9 +397,9 @@ public class AlertReceivedListener {
 
   private void clearStaleAlerts(String hostName, Long definitionId) throws AmbariException {
     if (StringUtil.isNotBlank(hostName)) {
-      Host host = m_clusters.get().getHosts().stream().filter(h -> h.getHostName().equals(hostName))
-          .findFirst().orElse(null);
-      if (host != null) {
+      Clusters clusters = m_clusters.get();
+      if (clusters.hostExists(hostName)) {
+        Host host = clusters.getHost(hostName);
         alertHelper.clearStaleAlert(host.getHostId(), definitionId);
       }
     } else {
@@ -23,7 +23,9 @@ import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.EagerSingleton;
 import org.apache.ambari.server.events.HostComponentUpdate;
 import org.apache.ambari.server.events.HostComponentsUpdateEvent;
+import org.apache.ambari.server.events.HostsRemovedEvent;
 import org.apache.ambari.server.events.MaintenanceModeEvent;
+import org.apache.ambari.server.events.ServiceComponentUninstalledEvent;
 import org.apache.ambari.server.events.StaleConfigsUpdateEvent;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.events.publishers.STOMPUpdatePublisher;
@@ -86,4 +88,17 @@ public class HostComponentsUpdateListener {
       }
     }
   }
+
+  @Subscribe
+  public void onServiceComponentUninstalled(ServiceComponentUninstalledEvent event) {
+    if (null != event.getHostName()) {
+      m_configHelper.get().removeStaleConfigsState(event.getClusterId(), event.getHostName(), event.getHostId(),
+          event.getServiceName(), event.getComponentName());
+    }
+  }
+
+  @Subscribe
+  public void onHostsRemoved(HostsRemovedEvent event) {
+    m_configHelper.get().removeStaleConfigsStates(event.getHostNames(), event.getHostIds());
+  }
 }
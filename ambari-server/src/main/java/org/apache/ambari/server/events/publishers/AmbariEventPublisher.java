@@ -17,25 +17,30 @@
  */
 package org.apache.ambari.server.events.publishers;
 
-import java.util.concurrent.Executors;
+import java.util.Collection;
+import java.util.Collections;
 
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.AmbariEvent;
+import org.apache.ambari.server.events.ClusterEvent;
+import org.apache.ambari.server.events.HostEvent;
 
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
  * The {@link AmbariEventPublisher} is used to publish instances of
  * {@link AmbariEvent} to any {@link Subscribe} methods interested. It uses a
- * single-threaded {@link AsyncEventBus}.
+ * {@link PartitionedEventBus} which dispatches the events of each cluster in
+ * serial.
  */
 @Singleton
 public class AmbariEventPublisher {
 
   /**
-   * A single threaded event bus for processing Ambari events in serial.
+   * An event bus which processes Ambari events in serial for each cluster.
    */
   private final EventBus m_eventBus;
 
@@ -43,8 +48,23 @@ public class AmbariEventPublisher {
    * Constructor.
    */
   public AmbariEventPublisher() {
-    m_eventBus = new AsyncEventBus("ambari-event-bus",
-        Executors.newSingleThreadExecutor());
+    this(Configuration.AMBARI_EVENT_BUS_PARTITIONS.getDefaultValue());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param configuration
+   *          used to determine the number of partitions of the event bus.
+   */
+  @Inject
+  public AmbariEventPublisher(Configuration configuration) {
+    this(configuration.getAmbariEventBusPartitions());
+  }
+
+  private AmbariEventPublisher(int partitions) {
+    m_eventBus = new PartitionedEventBus("ambari-event-bus", partitions,
+        AmbariEventPublisher::getPartitionKey);
   }
 
   /**
@@ -67,4 +87,32 @@ public class AmbariEventPublisher {
   public void register(Object object) {
     m_eventBus.register(object);
   }
+
+  /**
+   * Gets the partitioned event bus used by this publisher, for reporting its
+   * statistics.
+   *
+   * @return the event bus, or an empty collection if the bus has been
+   *         replaced by a synchronous one.
+   */
+  public Collection<PartitionedEventBus> getPartitionedEventBuses() {
+    if (m_eventBus instanceof PartitionedEventBus) {
+      return Collections.singletonList((PartitionedEventBus) m_eventBus);
+    }
+
+    return Collections.emptyList();
+  }
+
+  /**
+   * Events of different clusters are dispatched independently of each other.
+   * All other events, such as {@link HostEvent}s, have no key and are
+   * therefore ordered with respect to every event.
+   */
+  private static Object getPartitionKey(Object event) {
+    if (event instanceof ClusterEvent) {
+      return ((ClusterEvent) event).getClusterId();
+    }
+
+    return null;
+  }
 }
@@ -19,72 +19,241 @@
 package org.apache.ambari.server.events.publishers;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.server.events.STOMPEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Buffers UI updates of a single {@link STOMPEvent.Type} and periodically
+ * merges and posts them. All publishers share one flush thread.
+ * <p/>
+ * The flush interval adapts to the load: a small batch is followed by a short
+ * interval so that an isolated update reaches the UI almost immediately, while
+ * large batches stretch the interval up to {@value #MAX_FLUSH_INTERVAL} ms so
+ * that bursts are merged. Updates of the same entity, as determined by
+ * {@link #getCoalescingKey(Object)}, are coalesced while they are buffered and
+ * once the buffer holds {@value #BUFFER_CAPACITY} entries it is flushed right
+ * away. Until that flush takes the buffered events, updates of entities which
+ * are not buffered yet are dropped and counted, see
+ * {@link #getDroppedEvents()}. Flushes always happen on the flush thread, so that publishing threads
+ * never wait for {@link #mergeBufferAndPost(List, EventBus)}, which may access
+ * the database.
+ *
+ * @param <T> the type of the buffered events
+ */
 public abstract class BufferedUpdateEventPublisher<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(BufferedUpdateEventPublisher.class);
 
-  private static final long TIMEOUT = 1000L;
-  private final ConcurrentLinkedQueue<T> buffer = new ConcurrentLinkedQueue<>();
+  /**
+   * The longest time, in milliseconds, between two flushes of a publisher.
+   */
+  static final long MAX_FLUSH_INTERVAL = 1000L;
 
-  public abstract STOMPEvent.Type getType();
+  /**
+   * The batch size at which the flush interval reaches
+   * {@link #MAX_FLUSH_INTERVAL}.
+   */
+  static final int LOAD_BATCH_SIZE = 100;
+
+  /**
+   * The maximum number of buffered (coalesced) events.
+   */
+  static final int BUFFER_CAPACITY = 10000;
+
+  /**
+   * Flushes the buffers of all publishers.
+   */
+  private static final ScheduledExecutorService FLUSH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("buffered-update-publisher-%d").setDaemon(true).build());
+
+  /**
+   * The executor running the flushes of this publisher.
+   */
+  private final ScheduledExecutorService flushScheduler;
+
+  /**
+   * [ Coalescing Key -> Event ] in the order of the first update of each key.
+   * Also guards {@link #flushScheduled}, {@link #immediateFlushScheduled} and
+   * {@link #eventBus}.
+   */
+  private final Map<Object, T> buffer = new LinkedHashMap<>();
+
+  private boolean flushScheduled = false;
+
+  private boolean immediateFlushScheduled = false;
 
-  private ScheduledExecutorService scheduledExecutorService;
+  private EventBus eventBus;
+
+  /**
+   * Serializes {@link #mergeBufferAndPost(List, EventBus)} invocations, which
+   * also happen on the stopping thread when the server stops.
+   */
+  private final Object flushLock = new Object();
+
+  private volatile long lastFlushTime = 0L;
+
+  private volatile long flushInterval = 0L;
+
+  /**
+   * The number of events dropped because the buffer was full.
+   */
+  private final AtomicLong droppedEvents = new AtomicLong();
+
+  /**
+   * The number of events dropped since the buffer was last flushed, guarded by
+   * {@link #buffer}.
+   */
+  private long droppedSinceFlush = 0L;
+
+  public abstract STOMPEvent.Type getType();
 
   public BufferedUpdateEventPublisher(STOMPUpdatePublisher stompUpdatePublisher) {
+    this(stompUpdatePublisher, FLUSH_SCHEDULER);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param stompUpdatePublisher
+   *          the publisher to register with.
+   * @param flushScheduler
+   *          the executor running the flushes.
+   */
+  BufferedUpdateEventPublisher(STOMPUpdatePublisher stompUpdatePublisher,
+      ScheduledExecutorService flushScheduler) {
+    this.flushScheduler = flushScheduler;
     stompUpdatePublisher.registerPublisher(this);
   }
 
   public void publish(T event, EventBus m_eventBus) {
-    if (scheduledExecutorService == null) {
-      scheduledExecutorService =
-          Executors.newScheduledThreadPool(1);
-      scheduledExecutorService
-          .scheduleWithFixedDelay(getScheduledPublisher(m_eventBus), TIMEOUT, TIMEOUT, TimeUnit.MILLISECONDS);
+    synchronized (buffer) {
+      eventBus = m_eventBus;
+
+      Object key = getCoalescingKey(event);
+      if (null == key) {
+        key = new Object();
+      }
+
+      // publishers must not wait for the flush thread, which may itself be
+      // publishing, so the update is dropped if it would grow a full buffer
+      if (buffer.size() >= BUFFER_CAPACITY && !buffer.containsKey(key)) {
+        droppedEvents.incrementAndGet();
+        droppedSinceFlush++;
+        return;
+      }
+      buffer.merge(key, event, this::coalesce);
+
+      if (buffer.size() >= BUFFER_CAPACITY) {
+        if (!immediateFlushScheduled) {
+          immediateFlushScheduled = true;
+          flushScheduler.execute(this::flush);
+        }
+      } else if (!flushScheduled) {
+        flushScheduled = true;
+        flushScheduler.schedule(this::flush, getFlushDelay(), TimeUnit.MILLISECONDS);
+      }
     }
-    buffer.add(event);
   }
 
-  protected MergingRunnable getScheduledPublisher(EventBus m_eventBus) {
-    return new MergingRunnable(m_eventBus);
+  /**
+   * Gets the key identifying the entity the event is about. Buffered events
+   * with the same key are combined by {@link #coalesce(Object, Object)}.
+   *
+   * @param event
+   *          the event.
+   * @return the key, or {@code null} if the event can not be coalesced.
+   */
+  protected Object getCoalescingKey(T event) {
+    return null;
+  }
+
+  /**
+   * Combines a buffered event with a later update of the same entity.
+   *
+   * @param buffered
+   *          the buffered event.
+   * @param update
+   *          the later event with the same coalescing key.
+   * @return the combined event.
+   */
+  protected T coalesce(T buffered, T update) {
+    return update;
+  }
+
+  /**
+   * Gets the number of events which were dropped because the buffer was full.
+   *
+   * @return the number of dropped events.
+   */
+  public long getDroppedEvents() {
+    return droppedEvents.get();
   }
 
   protected List<T> retrieveBuffer() {
-    List<T> bufferContent = new ArrayList<>();
-    while (!buffer.isEmpty()) {
-      bufferContent.add(buffer.poll());
+    synchronized (buffer) {
+      List<T> bufferContent = new ArrayList<>(buffer.values());
+      buffer.clear();
+      flushScheduled = false;
+      immediateFlushScheduled = false;
+
+      if (droppedSinceFlush > 0) {
+        LOG.warn("Dropped {} {} updates because {} updates were buffered already", droppedSinceFlush, getType(),
+            BUFFER_CAPACITY);
+        droppedSinceFlush = 0L;
+      }
+      return bufferContent;
     }
-    return bufferContent;
   }
 
   public abstract void mergeBufferAndPost(List<T> events, EventBus m_eventBus);
 
-  private class MergingRunnable implements Runnable {
-
-    private final EventBus m_eventBus;
-
-    public MergingRunnable(EventBus m_eventBus) {
-      this.m_eventBus = m_eventBus;
-    }
+  /**
+   * Merges and posts the buffered events. Besides the flush thread, this is
+   * called by {@link STOMPUpdatePublisher#flushPublishers()} when the server
+   * stops, so that buffered updates are not lost.
+   */
+  void flush() {
+    synchronized (flushLock) {
+      EventBus currentEventBus;
+      synchronized (buffer) {
+        currentEventBus = eventBus;
+      }
 
-    @Override
-    public final void run() {
       List<T> events = retrieveBuffer();
       if (events.isEmpty()) {
         return;
       }
-      mergeBufferAndPost(events, m_eventBus);
+
+      try {
+        mergeBufferAndPost(events, currentEventBus);
+      } catch (RuntimeException e) {
+        LOG.error("Unable to post buffered {} updates", getType(), e);
+      } finally {
+        lastFlushTime = System.currentTimeMillis();
+        flushInterval = MAX_FLUSH_INTERVAL * Math.min(events.size(), LOAD_BATCH_SIZE) / LOAD_BATCH_SIZE;
+      }
     }
   }
 
+  /**
+   * @return the time, in milliseconds, until the next flush should happen
+   */
+  private long getFlushDelay() {
+    return Math.max(0L, lastFlushTime + flushInterval - System.currentTimeMillis());
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
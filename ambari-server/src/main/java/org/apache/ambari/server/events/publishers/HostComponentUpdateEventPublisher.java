@@ -18,6 +18,7 @@
 
 package org.apache.ambari.server.events.publishers;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -42,6 +43,47 @@ public class HostComponentUpdateEventPublisher extends BufferedUpdateEventPublis
     return STOMPEvent.Type.HOSTCOMPONENT;
   }
 
+  /**
+   * Events about a single host component are coalesced; events about several
+   * host components are buffered as they are.
+   */
+  @Override
+  protected Object getCoalescingKey(HostComponentsUpdateEvent event) {
+    List<HostComponentUpdate> updates = event.getHostComponentUpdates();
+    if (null == updates || updates.size() != 1) {
+      return null;
+    }
+
+    HostComponentUpdate update = updates.get(0);
+    return Arrays.asList(update.getClusterId(), update.getServiceName(), update.getHostName(),
+        update.getComponentName());
+  }
+
+  /**
+   * Applies the fields set by the later update to the buffered one. The state
+   * transition spans from the previous state of the first update to the
+   * current state of the last one.
+   */
+  @Override
+  protected HostComponentsUpdateEvent coalesce(HostComponentsUpdateEvent buffered, HostComponentsUpdateEvent update) {
+    HostComponentUpdate bufferedUpdate = buffered.getHostComponentUpdates().get(0);
+    HostComponentUpdate laterUpdate = update.getHostComponentUpdates().get(0);
+
+    if (null != laterUpdate.getCurrentState()) {
+      if (null == bufferedUpdate.getCurrentState()) {
+        bufferedUpdate.setPreviousState(laterUpdate.getPreviousState());
+      }
+      bufferedUpdate.setCurrentState(laterUpdate.getCurrentState());
+    }
+    if (null != laterUpdate.getMaintenanceState()) {
+      bufferedUpdate.setMaintenanceState(laterUpdate.getMaintenanceState());
+    }
+    if (null != laterUpdate.getStaleConfigs()) {
+      bufferedUpdate.setStaleConfigs(laterUpdate.getStaleConfigs());
+    }
+    return buffered;
+  }
+
   @Override
   public void mergeBufferAndPost(List<HostComponentsUpdateEvent> events, EventBus m_eventBus) {
     List<HostComponentUpdate> hostComponentUpdates = events.stream().flatMap(
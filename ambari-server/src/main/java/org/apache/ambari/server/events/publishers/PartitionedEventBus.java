@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.events.publishers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.ambari.server.utils.ThreadPools;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * The {@link PartitionedEventBus} is an asynchronous {@link EventBus} which
+ * dispatches events on a fixed number of single threaded partitions instead of
+ * the one thread used by an {@link AsyncEventBus} backed by a single threaded
+ * executor.
+ * <p/>
+ * Every event is routed to a partition by the key returned from the supplied
+ * key function (for example the cluster, host or request which the event is
+ * about). Events with the same key are always dispatched on the same thread
+ * and are therefore received in the order in which they were posted. Events
+ * without a key act as a barrier: they are dispatched once every partition
+ * has drained the events posted before them, and no partition proceeds until
+ * they have been dispatched. They are thus ordered with respect to all other
+ * events, which is what broadcasts such as metadata updates require.
+ * <p/>
+ * Subscribers are invoked through a single synchronous {@link EventBus}, so
+ * {@link Subscribe} methods which are not marked with
+ * {@link AllowConcurrentEvents} are still never invoked concurrently; only
+ * thread-safe subscribers receive events from several partitions in parallel.
+ * <p/>
+ * Each partition tracks the number of pending events and the time events
+ * spend between being posted and being fully dispatched, see
+ * {@link #getPartitionStatistics()}.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class PartitionedEventBus extends EventBus {
+
+  /**
+   * Dispatches events to the registered subscribers on the partition threads.
+   */
+  private final EventBus m_dispatcher;
+
+  /**
+   * Computes the partition key of an event, may return {@code null}.
+   */
+  private final Function<Object, Object> m_keyFunction;
+
+  private final Partition[] m_partitions;
+
+  /**
+   * Makes the enqueueing of a barrier on all partitions atomic so that every
+   * partition sees the barriers in the same order.
+   */
+  private final Object m_barrierLock = new Object();
+
+  /**
+   * Constructor.
+   *
+   * @param identifier
+   *          the name of the bus, also used to name the partition threads.
+   * @param partitionCount
+   *          the number of partitions; values less than 1 are treated as 1.
+   * @param keyFunction
+   *          computes the key used to route an event to a partition.
+   */
+  public PartitionedEventBus(String identifier, int partitionCount,
+      Function<Object, Object> keyFunction) {
+    super(identifier);
+
+    m_dispatcher = new EventBus(identifier);
+    m_keyFunction = keyFunction;
+    m_partitions = new Partition[Math.max(1, partitionCount)];
+    for (int i = 0; i < m_partitions.length; i++) {
+      m_partitions[i] = new Partition(i,
+          ThreadPools.getSingleThreadedExecutor(identifier + "-partition-" + i));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void register(Object object) {
+    m_dispatcher.register(object);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void unregister(Object object) {
+    m_dispatcher.unregister(object);
+  }
+
+  /**
+   * Queues the event on the partition which owns its key. The event is
+   * dispatched asynchronously.
+   *
+   * @param event
+   *          the event to post.
+   */
+  @Override
+  public void post(Object event) {
+    Object key = m_keyFunction.apply(event);
+    long postedAt = System.nanoTime();
+
+    if (null != key || m_partitions.length == 1) {
+      Partition partition = getPartition(key);
+      partition.m_pending.incrementAndGet();
+      partition.m_executor.execute(() -> {
+        try {
+          m_dispatcher.post(event);
+        } finally {
+          partition.completed(System.nanoTime() - postedAt);
+        }
+      });
+
+      return;
+    }
+
+    // the last partition to reach the barrier dispatches the event while the
+    // others wait for it
+    AtomicInteger arrivals = new AtomicInteger(m_partitions.length);
+    CountDownLatch dispatched = new CountDownLatch(1);
+    synchronized (m_barrierLock) {
+      for (Partition partition : m_partitions) {
+        partition.m_pending.incrementAndGet();
+        partition.m_executor.execute(() -> {
+          try {
+            if (arrivals.decrementAndGet() == 0) {
+              try {
+                m_dispatcher.post(event);
+              } finally {
+                dispatched.countDown();
+              }
+            } else {
+              dispatched.await();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            partition.completed(System.nanoTime() - postedAt);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Gets the number of partitions of this bus.
+   *
+   * @return the number of partitions.
+   */
+  public int getPartitionCount() {
+    return m_partitions.length;
+  }
+
+  /**
+   * Gets the statistics of every partition. The latency values are reset by
+   * this call so that each invocation reports the interval since the
+   * previous one.
+   *
+   * @return the statistics, ordered by partition.
+   */
+  public List<PartitionStatistics> getPartitionStatistics() {
+    List<PartitionStatistics> statistics = new ArrayList<>(m_partitions.length);
+    for (Partition partition : m_partitions) {
+      statistics.add(partition.snapshot());
+    }
+    return Collections.unmodifiableList(statistics);
+  }
+
+  /**
+   * Stops the partition threads. Events which are already queued are still
+   * dispatched.
+   */
+  public void shutdown() {
+    for (Partition partition : m_partitions) {
+      partition.m_executor.shutdown();
+    }
+  }
+
+  /**
+   * Blocks until all partitions have finished dispatching their queued events
+   * after {@link #shutdown()}, or the timeout elapses.
+   *
+   * @param timeout
+   *          the maximum time to wait.
+   * @param unit
+   *          the unit of the timeout.
+   * @return {@code true} if all partitions terminated.
+   * @throws InterruptedException
+   *           if interrupted while waiting.
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (Partition partition : m_partitions) {
+      long remaining = deadline - System.nanoTime();
+      if (!partition.m_executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Partition getPartition(Object key) {
+    if (null == key || m_partitions.length == 1) {
+      return m_partitions[0];
+    }
+
+    // spread the hash so keys which differ only in the high bits still land on
+    // different partitions
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return m_partitions[Math.floorMod(hash, m_partitions.length)];
+  }
+
+  /**
+   * A single threaded lane of the bus.
+   */
+  private static final class Partition {
+    private final int m_index;
+    private final ExecutorService m_executor;
+    private final AtomicLong m_pending = new AtomicLong();
+    private final AtomicLong m_dispatched = new AtomicLong();
+    private final AtomicLong m_totalLatency = new AtomicLong();
+    private final AtomicLong m_maxLatency = new AtomicLong();
+
+    private Partition(int index, ExecutorService executor) {
+      m_index = index;
+      m_executor = executor;
+    }
+
+    /**
+     * Invoked on the partition thread once an event has been dispatched.
+     */
+    private void completed(long latency) {
+      m_pending.decrementAndGet();
+      m_dispatched.incrementAndGet();
+      m_totalLatency.addAndGet(latency);
+      m_maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    private PartitionStatistics snapshot() {
+      long dispatched = m_dispatched.getAndSet(0);
+      long totalLatency = m_totalLatency.getAndSet(0);
+      long maxLatency = m_maxLatency.getAndSet(0);
+
+      return new PartitionStatistics(m_index, m_pending.get(), dispatched,
+          dispatched == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatency / dispatched),
+          TimeUnit.NANOSECONDS.toMillis(maxLatency));
+    }
+  }
+
+  /**
+   * The statistics of a partition since the previous call to
+   * {@link PartitionedEventBus#getPartitionStatistics()}.
+   */
+  public static final class PartitionStatistics {
+    private final int m_partition;
+    private final long m_queueDepth;
+    private final long m_dispatchedCount;
+    private final long m_averageLatency;
+    private final long m_maxLatency;
+
+    PartitionStatistics(int partition, long queueDepth, long dispatchedCount,
+        long averageLatency, long maxLatency) {
+      m_partition = partition;
+      m_queueDepth = queueDepth;
+      m_dispatchedCount = dispatchedCount;
+      m_averageLatency = averageLatency;
+      m_maxLatency = maxLatency;
+    }
+
+    /**
+     * @return the index of the partition.
+     */
+    public int getPartition() {
+      return m_partition;
+    }
+
+    /**
+     * @return the number of events waiting to be dispatched.
+     */
+    public long getQueueDepth() {
+      return m_queueDepth;
+    }
+
+    /**
+     * @return the number of events dispatched in the interval.
+     */
+    public long getDispatchedCount() {
+      return m_dispatchedCount;
+    }
+
+    /**
+     * @return the average time, in milliseconds, between posting and
+     *         dispatching an event in the interval.
+     */
+    public long getAverageLatency() {
+      return m_averageLatency;
+    }
+
+    /**
+     * @return the maximum time, in milliseconds, between posting and
+     *         dispatching an event in the interval.
+     */
+    public long getMaxLatency() {
+      return m_maxLatency;
+    }
+  }
+}
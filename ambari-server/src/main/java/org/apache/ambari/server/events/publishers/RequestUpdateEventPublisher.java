@@ -60,21 +60,26 @@ public class RequestUpdateEventPublisher extends BufferedUpdateEventPublisher<Re
     return STOMPEvent.Type.REQUEST;
   }
 
+  @Override
+  protected Object getCoalescingKey(RequestUpdateEvent event) {
+    return event.getRequestId();
+  }
+
+  @Override
+  protected RequestUpdateEvent coalesce(RequestUpdateEvent buffered, RequestUpdateEvent update) {
+    buffered.setEndTime(update.getEndTime());
+    buffered.setRequestStatus(update.getRequestStatus());
+    buffered.setRequestContext(update.getRequestContext());
+    buffered.getHostRoleCommands().removeAll(update.getHostRoleCommands());
+    buffered.getHostRoleCommands().addAll(update.getHostRoleCommands());
+    return buffered;
+  }
+
   @Override
   public void mergeBufferAndPost(List<RequestUpdateEvent> events, EventBus m_eventBus) {
     Map<Long, RequestUpdateEvent> filteredRequests = new HashMap<>();
     for (RequestUpdateEvent event : events) {
-      Long requestId = event.getRequestId();
-      if (filteredRequests.containsKey(requestId)) {
-        RequestUpdateEvent filteredRequest = filteredRequests.get(requestId);
-        filteredRequest.setEndTime(event.getEndTime());
-        filteredRequest.setRequestStatus(event.getRequestStatus());
-        filteredRequest.setRequestContext(event.getRequestContext());
-        filteredRequest.getHostRoleCommands().removeAll(event.getHostRoleCommands());
-        filteredRequest.getHostRoleCommands().addAll(event.getHostRoleCommands());
-      } else {
-        filteredRequests.put(requestId, event);
-      }
+      filteredRequests.merge(event.getRequestId(), event, this::coalesce);
     }
     for (RequestUpdateEvent requestUpdateEvent : filteredRequests.values()) {
       RequestUpdateEvent filled = fillRequest(requestUpdateEvent);
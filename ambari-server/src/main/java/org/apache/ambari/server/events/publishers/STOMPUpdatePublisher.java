@@ -18,17 +18,19 @@
 package org.apache.ambari.server.events.publishers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.ambari.server.AmbariRuntimeException;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.DefaultMessageEmitter;
 import org.apache.ambari.server.events.STOMPEvent;
-import org.apache.ambari.server.utils.ThreadPools;
+import org.apache.ambari.server.events.STOMPHostEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 @Singleton
@@ -42,9 +44,16 @@ public class STOMPUpdatePublisher {
   private final List<BufferedUpdateEventPublisher> publishers = new ArrayList<>();
 
 
-  public STOMPUpdatePublisher() {
-    agentEventBus = new AsyncEventBus("agent-update-bus", ThreadPools.getSingleThreadedExecutor("stomp-agent-bus"));
-    apiEventBus = new AsyncEventBus("api-update-bus", ThreadPools.getSingleThreadedExecutor("stomp-api-bus"));
+  @Inject
+  public STOMPUpdatePublisher(Configuration configuration) {
+    int partitions = configuration.getStompEventBusPartitions();
+
+    // agent updates are ordered per host, while broadcasts such as metadata and
+    // topology updates are ordered with respect to all of them
+    agentEventBus = new PartitionedEventBus("stomp-agent-bus", partitions,
+        event -> event instanceof STOMPHostEvent ? ((STOMPHostEvent) event).getHostId() : null);
+    apiEventBus = new PartitionedEventBus("stomp-api-bus", partitions,
+        event -> ((STOMPEvent) event).getType());
   }
 
   public void registerPublisher(BufferedUpdateEventPublisher publisher) {
@@ -80,6 +89,16 @@ public class STOMPUpdatePublisher {
     }
   }
 
+  /**
+   * Posts the updates buffered by all publishers, blocking until they are
+   * posted. Used when the server stops.
+   */
+  public void flushPublishers() {
+    for (BufferedUpdateEventPublisher publisher : publishers) {
+      publisher.flush();
+    }
+  }
+
   private void publishAgent(STOMPEvent event) {
     agentEventBus.post(event);
   }
@@ -91,4 +110,21 @@ public class STOMPUpdatePublisher {
   public void registerAPI(Object object) {
     apiEventBus.register(object);
   }
+
+  /**
+   * Gets the partitioned event buses used by this publisher, for reporting
+   * their statistics. Buses which have been replaced by synchronous ones are
+   * not returned.
+   *
+   * @return the agent and API event buses.
+   */
+  public Collection<PartitionedEventBus> getPartitionedEventBuses() {
+    List<PartitionedEventBus> eventBuses = new ArrayList<>();
+    for (EventBus eventBus : new EventBus[] { agentEventBus, apiEventBus }) {
+      if (eventBus instanceof PartitionedEventBus) {
+        eventBuses.add((PartitionedEventBus) eventBus);
+      }
+    }
+    return eventBuses;
+  }
 }
@@ -29,6 +29,7 @@ import org.apache.ambari.server.controller.utilities.state.ServiceCalculatedStat
 import org.apache.ambari.server.events.STOMPEvent;
 import org.apache.ambari.server.events.ServiceUpdateEvent;
 import org.apache.ambari.server.state.State;
+import org.apache.commons.lang3.tuple.Pair;
 
 import com.google.common.eventbus.EventBus;
 import com.google.inject.Inject;
@@ -48,18 +49,29 @@ public class ServiceUpdateEventPublisher extends BufferedUpdateEventPublisher<Se
     return STOMPEvent.Type.SERVICE;
   }
 
+  @Override
+  protected Object getCoalescingKey(ServiceUpdateEvent event) {
+    return Pair.of(event.getClusterName(), event.getServiceName());
+  }
+
+  @Override
+  protected ServiceUpdateEvent coalesce(ServiceUpdateEvent buffered, ServiceUpdateEvent update) {
+    if (update.isStateChanged()) {
+      buffered.setStateChanged(true);
+    }
+    if (update.getMaintenanceState() != null) {
+      buffered.setMaintenanceState(update.getMaintenanceState());
+    }
+    return buffered;
+  }
+
   @Override
   public void mergeBufferAndPost(List<ServiceUpdateEvent> events, EventBus eventBus) {
     List<ServiceUpdateEvent> filtered = new ArrayList<>();
     for (ServiceUpdateEvent event : events) {
       int pos = filtered.indexOf(event);
       if (pos != -1) {
-        if (event.isStateChanged()) {
-          filtered.get(pos).setStateChanged(true);
-        }
-        if (event.getMaintenanceState() != null) {
-          filtered.get(pos).setMaintenanceState(event.getMaintenanceState());
-        }
+        coalesce(filtered.get(pos), event);
       } else {
         filtered.add(event);
       }
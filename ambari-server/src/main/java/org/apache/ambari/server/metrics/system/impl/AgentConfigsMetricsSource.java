@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.agent.stomp.AgentConfigsHolder;
+import org.apache.ambari.server.agent.stomp.AgentConfigsHolder.ConfigUpdateStatistics;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the number of full and delta configuration updates sent to the
+ * agents by the {@link AgentConfigsHolder}, and the approximate number of bytes
+ * the deltas saved, to the configured Metric Sink.
+ */
+public class AgentConfigsMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(AgentConfigsMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "agent.configs.";
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private volatile AgentConfigsHolder agentConfigsHolder;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Sets the holder whose statistics should be published.
+   *
+   * @param agentConfigsHolder
+   *          the holder.
+   */
+  public void setAgentConfigsHolder(AgentConfigsHolder agentConfigsHolder) {
+    this.agentConfigsHolder = agentConfigsHolder;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting agent configs source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published agent configs metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting agent configs source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    if (null == agentConfigsHolder) {
+      return metrics;
+    }
+
+    long now = System.currentTimeMillis();
+    ConfigUpdateStatistics statistics = agentConfigsHolder.getUpdateStatistics();
+    metrics.add(new SingleMetric(METRIC_PREFIX + "updates.full", statistics.getFullUpdates(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "updates.delta", statistics.getDeltaUpdates(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "bytes.saved", statistics.getSavedBytes(), now));
+    return metrics;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.agent.AgentReportsProcessor;
+import org.apache.ambari.server.agent.AgentReportsProcessor.HostReportStatistics;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the per host queue depth and processing latency of the
+ * {@link AgentReportsProcessor} to the configured Metric Sink. Only hosts
+ * which had queued or processed reports during the interval are reported.
+ */
+public class AgentReportsMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(AgentReportsMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "agent.reports.";
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private volatile AgentReportsProcessor agentReportsProcessor;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Sets the processor whose statistics should be published.
+   *
+   * @param agentReportsProcessor
+   *          the processor.
+   */
+  public void setAgentReportsProcessor(AgentReportsProcessor agentReportsProcessor) {
+    this.agentReportsProcessor = agentReportsProcessor;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting agent reports source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published agent reports metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting agent reports source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    if (null == agentReportsProcessor) {
+      return metrics;
+    }
+
+    long now = System.currentTimeMillis();
+    long totalQueueDepth = 0;
+    long totalProcessed = 0;
+    for (HostReportStatistics statistics : agentReportsProcessor.getHostReportStatistics()) {
+      String prefix = METRIC_PREFIX + statistics.getHostName();
+      metrics.add(new SingleMetric(prefix + ".queue.depth", statistics.getQueueDepth(), now));
+      metrics.add(new SingleMetric(prefix + ".latency.avg", statistics.getAverageLatency(), now));
+      metrics.add(new SingleMetric(prefix + ".latency.max", statistics.getMaxLatency(), now));
+      totalQueueDepth += statistics.getQueueDepth();
+      totalProcessed += statistics.getProcessedCount();
+    }
+    metrics.add(new SingleMetric(METRIC_PREFIX + "queue.depth", totalQueueDepth, now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "processed", totalProcessed, now));
+    return metrics;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.audit.AsyncAuditLogger;
+import org.apache.ambari.server.audit.AsyncAuditLogger.QueueStatistics;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the queue depth and the spilled and replayed events of the
+ * {@link AsyncAuditLogger} to the configured Metric Sink.
+ */
+public class AuditLoggerMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(AuditLoggerMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "auditlog.logger.";
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private volatile AsyncAuditLogger auditLogger;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Sets the audit logger whose statistics should be published.
+   *
+   * @param auditLogger
+   *          the audit logger.
+   */
+  public void setAuditLogger(AsyncAuditLogger auditLogger) {
+    this.auditLogger = auditLogger;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting audit logger source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published audit logger metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting audit logger source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    if (null == auditLogger) {
+      return metrics;
+    }
+
+    long now = System.currentTimeMillis();
+    QueueStatistics statistics = auditLogger.getStatistics();
+    metrics.add(new SingleMetric(METRIC_PREFIX + "queue.depth", statistics.getQueueDepth(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "spilled", statistics.getSpilledEvents(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "replayed", statistics.getReplayedEvents(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "spill.failures", statistics.getSpillFailures(), now));
+    return metrics;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.apache.ambari.server.state.EffectiveConfigCache;
+import org.apache.ambari.server.state.EffectiveConfigCache.CacheStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the hits, misses, invalidations and size of the
+ * {@link EffectiveConfigCache} to the configured Metric Sink.
+ */
+public class EffectiveConfigMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(EffectiveConfigMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "configs.effective.cache.";
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private volatile EffectiveConfigCache effectiveConfigCache;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Sets the cache whose statistics should be published.
+   *
+   * @param effectiveConfigCache
+   *          the cache.
+   */
+  public void setEffectiveConfigCache(EffectiveConfigCache effectiveConfigCache) {
+    this.effectiveConfigCache = effectiveConfigCache;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting effective configs source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published effective configs metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting effective configs source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    if (null == effectiveConfigCache) {
+      return metrics;
+    }
+
+    long now = System.currentTimeMillis();
+    CacheStatistics statistics = effectiveConfigCache.getStatistics();
+    metrics.add(new SingleMetric(METRIC_PREFIX + "hits", statistics.getHits(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "misses", statistics.getMisses(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "invalidations", statistics.getInvalidations(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "size", statistics.getSize(), now));
+    return metrics;
+  }
+}
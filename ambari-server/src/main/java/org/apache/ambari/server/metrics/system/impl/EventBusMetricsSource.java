@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.events.publishers.PartitionedEventBus;
+import org.apache.ambari.server.events.publishers.PartitionedEventBus.PartitionStatistics;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the queue depth and dispatch latency of every partition of the
+ * server's {@link PartitionedEventBus}es to the configured Metric Sink.
+ */
+public class EventBusMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(EventBusMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "eventbus.";
+
+  private final List<PartitionedEventBus> eventBuses = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Adds event buses whose statistics should be published.
+   *
+   * @param buses
+   *          the event buses.
+   */
+  public void addEventBuses(Collection<PartitionedEventBus> buses) {
+    eventBuses.addAll(buses);
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting event bus source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published event bus metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting event bus source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    for (PartitionedEventBus eventBus : eventBuses) {
+      for (PartitionStatistics statistics : eventBus.getPartitionStatistics()) {
+        String prefix = METRIC_PREFIX + eventBus.identifier() + ".partition." + statistics.getPartition();
+        metrics.add(new SingleMetric(prefix + ".queue.depth", statistics.getQueueDepth(), now));
+        metrics.add(new SingleMetric(prefix + ".dispatched", statistics.getDispatchedCount(), now));
+        metrics.add(new SingleMetric(prefix + ".latency.avg", statistics.getAverageLatency(), now));
+        metrics.add(new SingleMetric(prefix + ".latency.max", statistics.getMaxLatency(), now));
+      }
+    }
+    return metrics;
+  }
+}
@@ -22,11 +22,18 @@ import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.ambari.server.agent.AgentReportsProcessor;
+import org.apache.ambari.server.agent.stomp.AgentConfigsHolder;
+import org.apache.ambari.server.api.query.SubResourceQueryExecutor;
+import org.apache.ambari.server.audit.AsyncAuditLogger;
+import org.apache.ambari.server.audit.AuditLogger;
 import org.apache.ambari.server.controller.AmbariManagementController;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.events.publishers.STOMPUpdatePublisher;
 import org.apache.ambari.server.metrics.system.MetricsService;
 import org.apache.ambari.server.metrics.system.MetricsSink;
 import org.apache.ambari.server.metrics.system.MetricsSource;
+import org.apache.ambari.server.state.EffectiveConfigCache;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +52,18 @@ public class MetricsServiceImpl implements MetricsService {
   AmbariManagementController amc;
   @Inject
   STOMPUpdatePublisher STOMPUpdatePublisher;
+  @Inject
+  AmbariEventPublisher ambariEventPublisher;
+  @Inject
+  AgentReportsProcessor agentReportsProcessor;
+  @Inject
+  AgentConfigsHolder agentConfigsHolder;
+  @Inject
+  SubResourceQueryExecutor subResourceQueryExecutor;
+  @Inject
+  EffectiveConfigCache effectiveConfigCache;
+  @Inject
+  AuditLogger auditLogger;
 
   @Override
   public void start() {
@@ -119,6 +138,25 @@ public class MetricsServiceImpl implements MetricsService {
           STOMPUpdatePublisher.registerAPI(src);
           STOMPUpdatePublisher.registerAgent(src);
         }
+        if (src instanceof EventBusMetricsSource) {
+          ((EventBusMetricsSource) src).addEventBuses(ambariEventPublisher.getPartitionedEventBuses());
+          ((EventBusMetricsSource) src).addEventBuses(STOMPUpdatePublisher.getPartitionedEventBuses());
+        }
+        if (src instanceof AgentReportsMetricsSource) {
+          ((AgentReportsMetricsSource) src).setAgentReportsProcessor(agentReportsProcessor);
+        }
+        if (src instanceof AgentConfigsMetricsSource) {
+          ((AgentConfigsMetricsSource) src).setAgentConfigsHolder(agentConfigsHolder);
+        }
+        if (src instanceof SubResourceQueryMetricsSource) {
+          ((SubResourceQueryMetricsSource) src).setSubResourceQueryExecutor(subResourceQueryExecutor);
+        }
+        if (src instanceof EffectiveConfigMetricsSource) {
+          ((EffectiveConfigMetricsSource) src).setEffectiveConfigCache(effectiveConfigCache);
+        }
+        if (src instanceof AuditLoggerMetricsSource && auditLogger instanceof AsyncAuditLogger) {
+          ((AuditLoggerMetricsSource) src).setAuditLogger((AsyncAuditLogger) auditLogger);
+        }
         src.start();
       }
 
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.api.query.SubResourceQueryExecutor;
+import org.apache.ambari.server.api.query.SubResourceQueryExecutor.QueryStatistics;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the number of provider queries issued for the sub-resources of API
+ * requests, the number of parent resources whose sub-resources were fetched
+ * together, the number of sub-resource queries run concurrently and the number
+ * of requests which timed out waiting for them to the configured Metric Sink.
+ */
+public class SubResourceQueryMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(SubResourceQueryMetricsSource.class);
+
+  private static final String METRIC_PREFIX = "api.subresource.";
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private volatile SubResourceQueryExecutor subResourceQueryExecutor;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", String.valueOf(interval)));
+  }
+
+  /**
+   * Sets the executor whose statistics should be published.
+   *
+   * @param subResourceQueryExecutor
+   *          the executor.
+   */
+  public void setSubResourceQueryExecutor(SubResourceQueryExecutor subResourceQueryExecutor) {
+    this.subResourceQueryExecutor = subResourceQueryExecutor;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting sub-resource query source...");
+    try {
+      executor.scheduleWithFixedDelay(() -> {
+        sink.publish(getMetrics());
+        LOG.debug("********* Published sub-resource query metrics to sink **********");
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting sub-resource query source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    List<SingleMetric> metrics = new ArrayList<>();
+    if (null == subResourceQueryExecutor) {
+      return metrics;
+    }
+
+    long now = System.currentTimeMillis();
+    QueryStatistics statistics = subResourceQueryExecutor.getStatistics();
+    metrics.add(new SingleMetric(METRIC_PREFIX + "queries", statistics.getProviderQueries(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "parents.batched", statistics.getBatchedParents(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "queries.concurrent", statistics.getConcurrentQueries(), now));
+    metrics.add(new SingleMetric(METRIC_PREFIX + "timeouts", statistics.getTimeouts(), now));
+    return metrics;
+  }
+}
@@ -20,8 +20,10 @@ package org.apache.ambari.server.orm;
 
 import java.lang.reflect.Method;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 
@@ -77,6 +79,24 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     }
   };
 
+  /**
+   * The tasks which must run once the outer-most transaction of this thread
+   * has completed. This is only set while an outer-most {@link Transactional}
+   * method is running.
+   *
+   * @see #runAfterCompletion(Runnable)
+   */
+  private static final ThreadLocal<List<Runnable>> s_afterCompletion = new ThreadLocal<>();
+
+  /**
+   * The tasks which must run if the outer-most transaction of this thread is
+   * rolled back. This is only set while an outer-most {@link Transactional}
+   * method is running.
+   *
+   * @see #runAfterRollback(Runnable)
+   */
+  private static final ThreadLocal<List<Runnable>> s_afterRollback = new ThreadLocal<>();
+
   /**
    * Used to ensure that methods which rely on the completion of
    * {@link Transactional} can detect when they are able to run.
@@ -118,6 +138,10 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
       return methodInvocation.proceed();
     }
 
+    s_afterCompletion.set(new ArrayList<>());
+    s_afterRollback.set(new ArrayList<>());
+    boolean committed = false;
+
     try {
       // this is the outer-most transactional, begin a transaction
       final EntityTransaction txn = em.getTransaction();
@@ -131,6 +155,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
         // commit transaction only if rollback didn't occur
         if (rollbackIfNecessary(transactional, e, txn)) {
           txn.commit();
+          committed = true;
         }
 
         detailedLogForPersistenceError(e);
@@ -151,6 +176,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
       // interferes with the advised method's throwing semantics)
       try {
         txn.commit();
+        committed = true;
       } catch (Exception e) {
         detailedLogForPersistenceError(e);
         throw e;
@@ -167,6 +193,81 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     } finally {
       // unlock all lock areas for this transaction
       unlockTransaction();
+
+      // the transaction is committed or rolled back, its changes are now
+      // visible to other threads
+      runAfterCompletionTasks(committed);
+    }
+  }
+
+  /**
+   * Runs the specified task once the outer-most {@link Transactional} method of
+   * the calling thread has completed, either by committing or by rolling back
+   * its transaction. If the calling thread is not inside of a
+   * {@link Transactional} method, then the task is run immediately.
+   * <p/>
+   * This is used by listeners of events which are published from inside of a
+   * transaction and which must not read the database until the changes that
+   * the event describes can be seen.
+   *
+   * @param task
+   *          the task to run (not {@code null}).
+   */
+  public static void runAfterCompletion(Runnable task) {
+    List<Runnable> tasks = s_afterCompletion.get();
+    if (null == tasks) {
+      task.run();
+      return;
+    }
+
+    tasks.add(task);
+  }
+
+  /**
+   * Runs the specified task if the outer-most {@link Transactional} method of
+   * the calling thread does not commit its transaction. This is used to undo
+   * changes which were made outside of the database, such as cached entities,
+   * along with the transaction. If the calling thread is not inside of a
+   * {@link Transactional} method, then there is nothing to roll back and the
+   * task is not run.
+   *
+   * @param task
+   *          the task to run (not {@code null}).
+   */
+  public static void runAfterRollback(Runnable task) {
+    List<Runnable> tasks = s_afterRollback.get();
+    if (null != tasks) {
+      tasks.add(task);
+    }
+  }
+
+  /**
+   * Runs and clears the tasks registered with
+   * {@link #runAfterCompletion(Runnable)} and, if the transaction was not
+   * committed, with {@link #runAfterRollback(Runnable)} during the transaction
+   * which just completed. A failing task is logged so that it does not prevent
+   * the others from running or hide the outcome of the transaction.
+   *
+   * @param committed
+   *          whether the transaction was committed.
+   */
+  private static void runAfterCompletionTasks(boolean committed) {
+    List<Runnable> tasks = new ArrayList<>();
+    if (!committed && null != s_afterRollback.get()) {
+      tasks.addAll(s_afterRollback.get());
+    }
+    if (null != s_afterCompletion.get()) {
+      tasks.addAll(s_afterCompletion.get());
+    }
+    s_afterRollback.remove();
+    s_afterCompletion.remove();
+
+    for (Runnable task : tasks) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOG.error("Unable to run a task after the completion of a transaction", e);
+      }
     }
   }
 
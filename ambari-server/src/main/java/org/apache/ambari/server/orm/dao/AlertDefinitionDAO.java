@@ -20,12 +20,15 @@ package org.apache.ambari.server.orm.dao;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.agent.stomp.dto.AlertGroupUpdate;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.RootComponent;
 import org.apache.ambari.server.controller.RootService;
 import org.apache.ambari.server.controller.internal.AlertDefinitionResourceProvider;
@@ -108,6 +111,20 @@ public class AlertDefinitionDAO {
   @Inject
   private STOMPUpdatePublisher STOMPUpdatePublisher;
 
+  @Inject
+  private Configuration configuration;
+
+  /**
+   * The definitions by name, per cluster ID, used by
+   * {@link #findByName(long, String)} when alert caching is enabled. This
+   * prevents a database query for every alert received from the agents. The
+   * entries of a cluster are discarded whenever one of its definitions is
+   * written.
+   *
+   * @see Configuration#isAlertCacheEnabled()
+   */
+  private final ConcurrentMap<Long, ConcurrentMap<String, AlertDefinitionEntity>> definitionsByName = new ConcurrentHashMap<>();
+
   /**
    * Gets an alert definition with the specified ID.
    *
@@ -123,7 +140,8 @@ public class AlertDefinitionDAO {
 
   /**
    * Gets an alert definition with the specified name. Alert definition names
-   * are unique within a cluster.
+   * are unique within a cluster. If alert caching is enabled, definitions
+   * which were already found are returned without querying the database.
    *
    * @param clusterId
    *          the ID of the cluster.
@@ -133,6 +151,35 @@ public class AlertDefinitionDAO {
    */
   @RequiresSession
   public AlertDefinitionEntity findByName(long clusterId, String definitionName) {
+    if (!configuration.isAlertCacheEnabled()) {
+      return findByNameInJPA(clusterId, definitionName);
+    }
+
+    ConcurrentMap<String, AlertDefinitionEntity> definitions = definitionsByName.computeIfAbsent(
+        clusterId, id -> new ConcurrentHashMap<>());
+
+    AlertDefinitionEntity definition = definitions.get(definitionName);
+    if (null == definition) {
+      // definitions which do not exist are not remembered
+      definition = findByNameInJPA(clusterId, definitionName);
+      if (null != definition) {
+        definitions.put(definitionName, definition);
+      }
+    }
+
+    return definition;
+  }
+
+  /**
+   * Gets an alert definition with the specified name from the database.
+   *
+   * @param clusterId
+   *          the ID of the cluster.
+   * @param definitionName
+   *          the name of the definition (not {@code null}).
+   * @return the alert definition or {@code null} if none exists.
+   */
+  private AlertDefinitionEntity findByNameInJPA(long clusterId, String definitionName) {
     TypedQuery<AlertDefinitionEntity> query = entityManagerProvider.get().createNamedQuery(
         "AlertDefinitionEntity.findByName", AlertDefinitionEntity.class);
 
@@ -341,6 +388,7 @@ public class AlertDefinitionDAO {
       throws AmbariException {
     EntityManager entityManager = entityManagerProvider.get();
     entityManager.persist(alertDefinition);
+    invalidateDefinitionsByName(alertDefinition.getClusterId());
 
     AlertGroupEntity group = dispatchDao.findDefaultServiceGroup(alertDefinition.getClusterId(),
         alertDefinition.getServiceName());
@@ -383,6 +431,7 @@ public class AlertDefinitionDAO {
   @Transactional
   public void refresh(AlertDefinitionEntity alertDefinition) {
     entityManagerProvider.get().refresh(alertDefinition);
+    invalidateDefinitionsByName(alertDefinition.getClusterId());
   }
 
   /**
@@ -396,6 +445,7 @@ public class AlertDefinitionDAO {
   @Transactional
   public AlertDefinitionEntity merge(AlertDefinitionEntity alertDefinition) {
     AlertDefinitionEntity entity = entityManagerProvider.get().merge(alertDefinition);
+    invalidateDefinitionsByName(alertDefinition.getClusterId());
 
     AlertDefinition definition = alertDefinitionFactory.coerce(entity);
 
@@ -442,6 +492,7 @@ public class AlertDefinitionDAO {
     alertDefinition = findById(alertDefinition.getDefinitionId());
     if (null != alertDefinition) {
       entityManager.remove(alertDefinition);
+      invalidateDefinitionsByName(alertDefinition.getClusterId());
 
       // publish the alert definition removal
       AlertDefinition coerced = alertDefinitionFactory.coerce(alertDefinition);
@@ -471,4 +522,17 @@ public class AlertDefinitionDAO {
       remove(definition);
     }
   }
+
+  /**
+   * Discards the definitions of the cluster which were remembered by
+   * {@link #findByName(long, String)}.
+   *
+   * @param clusterId
+   *          the ID of the cluster, may be {@code null}.
+   */
+  private void invalidateDefinitionsByName(Long clusterId) {
+    if (null != clusterId) {
+      definitionsByName.remove(clusterId);
+    }
+  }
 }
@@ -24,8 +24,10 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
@@ -48,6 +50,7 @@ import org.apache.ambari.server.controller.spi.Predicate;
 import org.apache.ambari.server.controller.utilities.PredicateHelper;
 import org.apache.ambari.server.events.AggregateAlertRecalculateEvent;
 import org.apache.ambari.server.events.publishers.AlertEventPublisher;
+import org.apache.ambari.server.orm.AmbariJpaLocalTxnInterceptor;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.entities.AlertCurrentEntity;
 import org.apache.ambari.server.orm.entities.AlertCurrentEntity_;
@@ -66,6 +69,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -150,6 +154,33 @@ public class AlertsDAO implements Cleanable {
    */
   private LoadingCache<AlertCacheKey, AlertCurrentEntity> m_currentAlertCache = null;
 
+  /**
+   * The clusters whose current alerts have all been loaded into
+   * {@link #m_currentAlertCache}. A cache miss for one of these clusters means
+   * that the alert does not exist yet, so it is answered without querying the
+   * database.
+   */
+  private final Set<Long> m_indexedClusters = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The clusters which have more current alerts than fit into the cache. They
+   * are not indexed until the cache is invalidated; every cache miss for them
+   * queries the database.
+   */
+  private final Set<Long> m_unindexableClusters = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The keys of the cached alerts which were only updated in the cache and
+   * must be written by the next flush.
+   */
+  private final Set<AlertCacheKey> m_dirtyAlerts = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Alerts which were evicted from the cache before their updates were
+   * flushed.
+   */
+  private final Queue<AlertCurrentEntity> m_evictedDirtyAlerts = new ConcurrentLinkedQueue<>();
+
   /**
    * Batch size to query the DB and use the results in an IN clause.
    */
@@ -171,15 +202,23 @@ public class AlertsDAO implements Cleanable {
 
       // construct a cache for current alerts which will prevent database hits
       // on every heartbeat
-      m_currentAlertCache = CacheBuilder.newBuilder().maximumSize(
-          maximumSize).build(new CacheLoader<AlertCacheKey, AlertCurrentEntity>() {
+      m_currentAlertCache = CacheBuilder.newBuilder().maximumSize(maximumSize)
+          .<AlertCacheKey, AlertCurrentEntity> removalListener(this::onCachedAlertRemoved)
+          .build(new CacheLoader<AlertCacheKey, AlertCurrentEntity>() {
             @Override
             public AlertCurrentEntity load(AlertCacheKey key) throws Exception {
+              long clusterId = key.getClusterId();
+
+              // every existing alert of an indexed cluster is already cached
+              if (m_indexedClusters.contains(clusterId)) {
+                LOG.trace("Cache lookup failed for {} because the alert does not yet exist", key);
+                throw new AlertNotYetCreatedException();
+              }
+
               LOG.debug("Cache miss for alert key {}, fetching from JPA", key);
 
               final AlertCurrentEntity alertCurrentEntity;
 
-              long clusterId = key.getClusterId();
               String alertDefinitionName = key.getAlertDefinitionName();
               String hostName = key.getHostName();
 
@@ -693,15 +732,20 @@ public class AlertsDAO implements Cleanable {
       String alertName) {
 
     if( m_configuration.isAlertCacheEnabled() ){
+      indexCluster(clusterId);
       AlertCacheKey key = new AlertCacheKey(clusterId, alertName, hostName);
 
       try {
         return m_currentAlertCache.get(key);
       } catch (ExecutionException executionException) {
         Throwable cause = executionException.getCause();
-        if (!(cause instanceof AlertNotYetCreatedException)) {
-          LOG.warn("Unable to retrieve alert for key {} from the cache", key);
+
+        // the loader has already found that the alert does not exist
+        if (cause instanceof AlertNotYetCreatedException) {
+          return null;
         }
+
+        LOG.warn("Unable to retrieve alert for key {} from the cache", key);
       }
     }
 
@@ -760,7 +804,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
   }
 
@@ -781,7 +825,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
 
     return rowsRemoved;
@@ -809,7 +853,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
 
     return rowsRemoved;
@@ -848,7 +892,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
 
     // publish the event to recalculate aggregates
@@ -886,7 +930,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
 
     // publish the event to recalculate aggregates for every cluster since a host could potentially have several clusters
@@ -947,7 +991,7 @@ public class AlertsDAO implements Cleanable {
     // if caching is enabled, invalidate the cache to force the latest values
     // back from the DB
     if (m_configuration.isAlertCacheEnabled()) {
-      m_currentAlertCache.invalidateAll();
+      invalidateCurrentAlertCache();
     }
 
     // publish the event to recalculate aggregates
@@ -1023,6 +1067,15 @@ public class AlertsDAO implements Cleanable {
   @Transactional
   public void create(AlertCurrentEntity alert) {
     m_entityManagerProvider.get().persist(alert);
+
+    // keep the cache complete for indexed clusters; the alert is evicted again
+    // if the transaction which persists it is rolled back
+    if (m_configuration.isAlertCacheEnabled()) {
+      AlertCacheKey key = AlertCacheKey.build(alert);
+      m_currentAlertCache.put(key, alert);
+      AmbariJpaLocalTxnInterceptor.runAfterRollback(
+          () -> m_currentAlertCache.asMap().remove(key, alert));
+    }
   }
 
   /**
@@ -1062,6 +1115,7 @@ public class AlertsDAO implements Cleanable {
     if( m_configuration.isAlertCacheEnabled() ){
       AlertCacheKey key = AlertCacheKey.build(alert);
       m_currentAlertCache.put(key, alert);
+      m_dirtyAlerts.remove(key);
     }
 
     return alert;
@@ -1094,6 +1148,7 @@ public class AlertsDAO implements Cleanable {
       } else {
         // update cache and return alert; no database work
         m_currentAlertCache.put(key, alert);
+        m_dirtyAlerts.add(key);
         return alert;
       }
     }
@@ -1153,6 +1208,7 @@ public class AlertsDAO implements Cleanable {
    */
   public AlertCurrentEntity findCurrentByNameNoHost(long clusterId, String alertName) {
     if( m_configuration.isAlertCacheEnabled() ){
+      indexCluster(clusterId);
       AlertCacheKey key = new AlertCacheKey(clusterId, alertName);
 
       try {
@@ -1160,9 +1216,12 @@ public class AlertsDAO implements Cleanable {
       } catch (ExecutionException executionException) {
         Throwable cause = executionException.getCause();
 
-        if (!(cause instanceof AlertNotYetCreatedException)) {
-          LOG.warn("Unable to retrieve alert for key {} from, the cache", key);
+        // the loader has already found that the alert does not exist
+        if (cause instanceof AlertNotYetCreatedException) {
+          return null;
         }
+
+        LOG.warn("Unable to retrieve alert for key {} from, the cache", key);
       }
     }
 
@@ -1191,8 +1250,9 @@ public class AlertsDAO implements Cleanable {
   }
 
   /**
-   * Writes all cached {@link AlertCurrentEntity} instances to the database and
-   * clears the cache.
+   * Writes the cached {@link AlertCurrentEntity} instances which were updated
+   * only in the cache to the database. The cache is kept so that it can
+   * continue to answer lookups without querying the database.
    */
   public void flushCachedEntitiesToJPA() {
     if (m_configuration.isAlertCacheEnabled()) {
@@ -1207,18 +1267,108 @@ public class AlertsDAO implements Cleanable {
   @Transactional
   protected void flushCachedEntitiesToJPATransactional() {
 
-    // capture for logging purposes
-    long cachedEntityCount = m_currentAlertCache.size();
+    int flushedEntityCount = 0;
+
+    AlertCurrentEntity evicted;
+    while (null != (evicted = m_evictedDirtyAlerts.poll())) {
+      merge(evicted);
+      flushedEntityCount++;
+    }
+
+    // the merges are written in JDBC batches when the transaction commits
+    for (AlertCacheKey key : m_dirtyAlerts) {
+      m_dirtyAlerts.remove(key);
 
-    ConcurrentMap<AlertCacheKey, AlertCurrentEntity> map = m_currentAlertCache.asMap();
-    Set<Entry<AlertCacheKey, AlertCurrentEntity>> entries = map.entrySet();
-    for (Entry<AlertCacheKey, AlertCurrentEntity> entry : entries) {
-      merge(entry.getValue());
+      AlertCurrentEntity alert = m_currentAlertCache.getIfPresent(key);
+      if (null != alert) {
+        merge(alert);
+        flushedEntityCount++;
+      }
+    }
+
+    LOG.info("Flushed {} of {} cached alerts to the database", flushedEntityCount,
+        m_currentAlertCache.size());
+  }
+
+  /**
+   * Loads all current alerts of the cluster into the cache, unless that has
+   * already been done, so that lookups of alerts which do not exist yet do not
+   * query the database. This method should only be invoked if
+   * {@link Configuration#isAlertCacheEnabled()} is {@code true}.
+   *
+   * @param clusterId
+   *          the ID of the cluster.
+   */
+  private void indexCluster(long clusterId) {
+    if (m_indexedClusters.contains(clusterId) || m_unindexableClusters.contains(clusterId)) {
+      return;
     }
 
-    m_currentAlertCache.invalidateAll();
+    synchronized (m_indexedClusters) {
+      if (m_indexedClusters.contains(clusterId) || m_unindexableClusters.contains(clusterId)) {
+        return;
+      }
+
+      TypedQuery<AlertCurrentEntity> query = m_entityManagerProvider.get().createNamedQuery(
+          "AlertCurrentEntity.findByCluster", AlertCurrentEntity.class);
+
+      query.setParameter("clusterId", Long.valueOf(clusterId));
 
-    LOG.info("Flushed {} cached alerts to the database", cachedEntityCount);
+      // alerts already in the cache may have newer, unflushed values
+      List<AlertCurrentEntity> alerts = m_daoUtils.selectList(query);
+      ConcurrentMap<AlertCacheKey, AlertCurrentEntity> cache = m_currentAlertCache.asMap();
+      for (AlertCurrentEntity alert : alerts) {
+        cache.putIfAbsent(AlertCacheKey.build(alert), alert);
+      }
+
+      // alerts of the cluster may have been evicted while loading
+      if (!m_unindexableClusters.contains(clusterId)) {
+        m_indexedClusters.add(clusterId);
+        LOG.info("Indexed {} current alerts of cluster id={}", alerts.size(), clusterId);
+      }
+    }
+  }
+
+  /**
+   * Invalidates all cached alerts, forcing them to be loaded from the database
+   * again. Updates which were not flushed yet are discarded. This method should
+   * only be invoked if {@link Configuration#isAlertCacheEnabled()} is
+   * {@code true}.
+   */
+  private void invalidateCurrentAlertCache() {
+    synchronized (m_indexedClusters) {
+      m_indexedClusters.clear();
+      m_unindexableClusters.clear();
+      m_currentAlertCache.invalidateAll();
+      m_dirtyAlerts.clear();
+    }
+  }
+
+  /**
+   * Invoked when an alert is removed from {@link #m_currentAlertCache}. If it
+   * was evicted because the cache is full, then the cache no longer contains
+   * all alerts of its cluster and any pending update must still be flushed.
+   *
+   * @param notification
+   *          the removal notification.
+   */
+  private void onCachedAlertRemoved(RemovalNotification<AlertCacheKey, AlertCurrentEntity> notification) {
+    if (!notification.wasEvicted()) {
+      return;
+    }
+
+    AlertCacheKey key = notification.getKey();
+    long clusterId = key.getClusterId();
+    if (m_unindexableClusters.add(clusterId)) {
+      LOG.warn("The current alerts of cluster id={} do not fit into the alert cache; consider increasing {}",
+          clusterId, Configuration.ALERTS_CACHE_SIZE.getKey());
+    }
+
+    m_indexedClusters.remove(clusterId);
+
+    if (m_dirtyAlerts.remove(key)) {
+      m_evictedDirtyAlerts.add(notification.getValue());
+    }
   }
 
   /**
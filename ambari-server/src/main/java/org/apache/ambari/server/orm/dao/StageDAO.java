@@ -173,6 +173,36 @@ public class StageDAO {
     return stages;
   }
 
+  /**
+   * Finds the first stage of a request matching any of the specified statuses.
+   * This is the single request variant of
+   * {@link #findFirstStageByStatus(Collection)}.
+   *
+   * @param requestId
+   *          the ID of the request.
+   * @param statuses
+   *          {@link HostRoleStatus}
+   * @return the first matching stage of the request, or {@code null} if none.
+   */
+  @RequiresSession
+  public StageEntity findFirstStageByRequestIdAndStatus(Long requestId, Collection<HostRoleStatus> statuses) {
+    TypedQuery<Long> query = entityManagerProvider.get().createNamedQuery(
+        "StageEntity.findFirstStageIdByRequestIdAndStatus", Long.class);
+
+    query.setParameter("requestId", requestId);
+    query.setParameter("statuses", statuses);
+
+    Long stageId = daoUtils.selectSingle(query);
+    if (null == stageId) {
+      return null;
+    }
+
+    StageEntityPK stagePK = new StageEntityPK();
+    stagePK.setRequestId(requestId);
+    stagePK.setStageId(stageId);
+    return findByPK(stagePK);
+  }
+
   @RequiresSession
   public Map<Long, String> findRequestContext(List<Long> requestIds) {
     Map<Long, String> resultMap = new HashMap<>();
@@ -717,10 +717,35 @@ public class Users {
 
   /**
    * Executes batch queries to database to insert large amounts of LDAP data.
+   * <p/>
+   * All changes are applied in a single transaction, so that they are written using JDBC batches.
    *
    * @param batchInfo DTO with batch information
    */
   public void processLdapSync(LdapBatchDto batchInfo) {
+    Set<String> createdUserNames = applyLdapSync(batchInfo);
+
+    // clear cached entities
+    entityManagerProvider.get().getEntityManagerFactory().getCache().evictAll();
+
+    // execute user initialization hook if required
+    if (!createdUserNames.isEmpty()) {
+      Map<String, Set<String>> userGroupsMap = new HashMap<>();
+      for (String userName : createdUserNames) {
+        userGroupsMap.put(userName, Collections.emptySet());
+      }
+      executeUserHook(userGroupsMap);
+    }
+  }
+
+  /**
+   * Applies the changes of an LDAP sync to the database.
+   *
+   * @param batchInfo DTO with batch information
+   * @return the names of the created users
+   */
+  @Transactional
+  protected Set<String> applyLdapSync(LdapBatchDto batchInfo) {
     final Map<String, UserEntity> allUsers = new HashMap<>();
     final Map<String, GroupEntity> allGroups = new HashMap<>();
 
@@ -745,7 +770,7 @@ public class Users {
     final Set<UserEntity> usersToRemove = new HashSet<>();
     final Set<UserAuthenticationEntity> authenticationEntitiesToRemove = new HashSet<>();
     for (LdapUserDto user : batchInfo.getUsersToBeRemoved()) {
-      UserEntity userEntity = userDAO.findUserByName(user.getUserName());
+      UserEntity userEntity = findUser(allUsers, user.getUserName());
       if (userEntity != null) {
         List<UserAuthenticationEntity> authenticationEntities = userAuthenticationDAO.findByUser(userEntity);
         Iterator<UserAuthenticationEntity> iterator = authenticationEntities.iterator();
@@ -759,6 +784,7 @@ public class Users {
             // DN's are case-insensitive.
             if (StringUtils.isEmpty(dn) || StringUtils.isEmpty(authenticationKey) || dn.equalsIgnoreCase(authenticationKey)) {
               authenticationEntitiesToRemove.add(authenticationEntity);
+              userEntity.getAuthenticationEntities().remove(authenticationEntity);
             }
             iterator.remove();
           }
@@ -776,7 +802,10 @@ public class Users {
     // remove groups
     final Set<GroupEntity> groupsToRemove = new HashSet<>();
     for (LdapGroupDto group : batchInfo.getGroupsToBeRemoved()) {
-      final GroupEntity groupEntity = groupDAO.findGroupByName(group.getGroupName());
+      final GroupEntity groupEntity = findGroup(allGroups, group.getGroupName());
+      if (groupEntity == null) {
+        continue;
+      }
       allGroups.remove(groupEntity.getGroupName());
       groupsToRemove.add(groupEntity);
     }
@@ -790,7 +819,7 @@ public class Users {
       // Ensure the username is all lowercase
       String userName = user.getUserName();
 
-      UserEntity userEntity = userDAO.findUserByName(userName);
+      UserEntity userEntity = findUser(allUsers, userName);
       if (userEntity != null) {
         LOG.trace("Enabling LDAP authentication for the user account with the username {}.", userName);
 
@@ -824,7 +853,11 @@ public class Users {
     // update groups
     final Set<GroupEntity> groupsToBecomeLdap = new HashSet<>();
     for (LdapGroupDto group : batchInfo.getGroupsToBecomeLdap()) {
-      final GroupEntity groupEntity = groupDAO.findGroupByName(group.getGroupName());
+      final GroupEntity groupEntity = findGroup(allGroups, group.getGroupName());
+      if (groupEntity == null) {
+        LOG.warn("Failed to find group {} while converting it to an LDAP group", group.getGroupName());
+        continue;
+      }
       groupEntity.setGroupType(GroupType.LDAP);
       allGroups.put(groupEntity.getGroupName(), groupEntity);
       groupsToBecomeLdap.add(groupEntity);
@@ -834,31 +867,47 @@ public class Users {
     // prepare create principals
     final List<PrincipalEntity> principalsToCreate = new ArrayList<>();
 
-    // Create users
+    // prepare create users, along with their LDAP authentication
+    final PrincipalTypeEntity userPrincipalType = principalTypeDAO
+        .ensurePrincipalTypeCreated(PrincipalTypeEntity.USER_PRINCIPAL_TYPE);
+    final Set<UserEntity> usersToCreate = new HashSet<>();
     for (LdapUserDto user : batchInfo.getUsersToBeCreated()) {
-      String userName = user.getUserName();
-      UserEntity userEntity;
-
+      // a user which can not be created is skipped, rather than failing the whole sync
+      String userName;
       try {
-        userEntity = createUser(userName, userName, userName, true);
-      } catch (AmbariException e) {
-        LOG.error(String.format("Failed to create new user: %s", userName), e);
-        userEntity = null;
+        userName = UserName.fromString(user.getUserName()).toString();
+      } catch (IllegalArgumentException e) {
+        LOG.error(String.format("Failed to create new user: %s", user.getUserName()), e);
+        continue;
       }
 
-      if (userEntity != null) {
-        LOG.trace("Enabling LDAP authentication for the user account with the username {}.", userName);
-        try {
-          addLdapAuthentication(userEntity, user.getDn(), false);
-        } catch (AmbariException e) {
-          LOG.warn(String.format("Failed to enable LDAP authentication for the user account with the username %s: %s", userName, e.getLocalizedMessage()), e);
-        }
+      if (findUser(allUsers, userName) != null) {
+        LOG.error("Failed to create new user: {}, the user already exists", userName);
+        continue;
+      }
 
-        userDAO.merge(userEntity);
+      final PrincipalEntity principalEntity = new PrincipalEntity();
+      principalEntity.setPrincipalType(userPrincipalType);
+      principalsToCreate.add(principalEntity);
 
-        // Add the new user to the allUsers map.
-        allUsers.put(userEntity.getUserName(), userEntity);
-      }
+      final UserEntity userEntity = new UserEntity();
+      userEntity.setUserName(userName);
+      userEntity.setDisplayName(userName);
+      userEntity.setLocalUsername(userName);
+      userEntity.setPrincipal(principalEntity);
+      userEntity.setActive(true);
+
+      LOG.trace("Enabling LDAP authentication for the user account with the username {}.", userName);
+      final UserAuthenticationEntity authenticationEntity = new UserAuthenticationEntity();
+      authenticationEntity.setUser(userEntity);
+      authenticationEntity.setAuthenticationType(UserAuthenticationType.LDAP);
+      // DNs are case-insensitive and are stored internally as the bytes of lowercase characters
+      authenticationEntity.setAuthenticationKey(StringUtils.lowerCase(user.getDn()));
+      userEntity.getAuthenticationEntities().add(authenticationEntity);
+
+      // Add the new user to the allUsers map.
+      allUsers.put(userEntity.getUserName(), userEntity);
+      usersToCreate.add(userEntity);
     }
 
     // prepare create groups
@@ -877,18 +926,26 @@ public class Users {
       groupsToCreate.add(groupEntity);
     }
 
-    // create groups
+    // create users and groups
     principalDAO.create(principalsToCreate);
+    userDAO.create(usersToCreate);
     groupDAO.create(groupsToCreate);
 
     // create membership
     final Set<MemberEntity> membersToCreate = new HashSet<>();
     final Set<GroupEntity> groupsToUpdate = new HashSet<>();
     for (LdapUserGroupMemberDto member : batchInfo.getMembershipToAdd()) {
-      final MemberEntity memberEntity = new MemberEntity();
       final GroupEntity groupEntity = allGroups.get(member.getGroupName());
+      final UserEntity userEntity = allUsers.get(member.getUserName());
+      if (groupEntity == null || userEntity == null) {
+        LOG.warn("Failed to add user {} to group {}, the user or the group does not exist",
+            member.getUserName(), member.getGroupName());
+        continue;
+      }
+
+      final MemberEntity memberEntity = new MemberEntity();
       memberEntity.setGroup(groupEntity);
-      memberEntity.setUser(allUsers.get(member.getUserName()));
+      memberEntity.setUser(userEntity);
       groupEntity.getMemberEntities().add(memberEntity);
       groupsToUpdate.add(groupEntity);
       membersToCreate.add(memberEntity);
@@ -903,15 +960,44 @@ public class Users {
     // remove membership
     final Set<MemberEntity> membersToRemove = new HashSet<>();
     for (LdapUserGroupMemberDto member : batchInfo.getMembershipToRemove()) {
-      MemberEntity memberEntity = memberDAO.findByUserAndGroup(member.getUserName(), member.getGroupName());
-      if (memberEntity != null) {
-        membersToRemove.add(memberEntity);
+      final GroupEntity groupEntity = findGroup(allGroups, member.getGroupName());
+      if (groupEntity == null || groupEntity.getMemberEntities() == null) {
+        continue;
+      }
+
+      Iterator<MemberEntity> iterator = groupEntity.getMemberEntities().iterator();
+      while (iterator.hasNext()) {
+        MemberEntity memberEntity = iterator.next();
+        if (memberEntity.getUser().getUserName().equalsIgnoreCase(member.getUserName())) {
+          iterator.remove();
+          memberEntity.getUser().getMemberEntities().remove(memberEntity);
+          membersToRemove.add(memberEntity);
+        }
       }
     }
     memberDAO.remove(membersToRemove);
 
-    // clear cached entities
-    entityManagerProvider.get().getEntityManagerFactory().getCache().evictAll();
+    Set<String> createdUserNames = new HashSet<>();
+    for (UserEntity userEntity : usersToCreate) {
+      createdUserNames.add(userEntity.getUserName());
+    }
+    return createdUserNames;
+  }
+
+  /**
+   * Gets a user from the users read by an LDAP sync, or from the database if it was not read.
+   */
+  private UserEntity findUser(Map<String, UserEntity> allUsers, String userName) {
+    UserEntity userEntity = allUsers.get(userName.toLowerCase());
+    return (userEntity == null) ? userDAO.findUserByName(userName) : userEntity;
+  }
+
+  /**
+   * Gets a group from the groups read by an LDAP sync, or from the database if it was not read.
+   */
+  private GroupEntity findGroup(Map<String, GroupEntity> allGroups, String groupName) {
+    GroupEntity groupEntity = allGroups.get(groupName);
+    return (groupEntity == null) ? groupDAO.findGroupByName(groupName) : groupEntity;
   }
 
   private void processLdapAdminGroupMappingRules(Set<MemberEntity> membershipsToCreate) {
@@ -17,10 +17,13 @@
  */
 package org.apache.ambari.server.security.ldap;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -28,9 +31,14 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.naming.InvalidNameException;
+import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.configuration.LdapUsernameCollisionHandlingBehavior;
@@ -91,10 +99,16 @@ public class AmbariLdapDataPopulator {
    */
   private LdapTemplate ldapTemplate;
 
+  /**
+   * The members resolved while synchronizing groups; null if no groups are being synchronized.
+   */
+  private MemberCache memberCache;
+
   // Constants
   private static final String UID_ATTRIBUTE = "uid";
   private static final String OBJECT_CLASS_ATTRIBUTE = "objectClass";
   private static final int USERS_PAGE_SIZE = 500;
+  private static final int MEMBERS_BATCH_SIZE = 100;
   private static final String SYSTEM_PROPERTY_DISABLE_ENDPOINT_IDENTIFICATION = "com.sun.jndi.ldap.object.disableEndpointIdentification";
 
   // REGEXP to check member attribute starts with "cn=" or "uid=" - case insensitive
@@ -201,9 +215,18 @@ public class AmbariLdapDataPopulator {
     final Map<String, Group> internalGroupsMap = getInternalGroups();
     final Map<String, User> internalUsersMap = getInternalUsers();
 
-    for (LdapGroupDto groupDto : externalLdapGroupInfo) {
-      addLdapGroup(batchInfo, internalGroupsMap, groupDto);
-      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, false, collectIgnoredUsers);
+    memberCache = new MemberCache();
+    try {
+      for (LdapGroupDto groupDto : externalLdapGroupInfo) {
+        memberCache.addPendingMembers(groupDto.getMemberAttributes());
+      }
+
+      for (LdapGroupDto groupDto : externalLdapGroupInfo) {
+        addLdapGroup(batchInfo, internalGroupsMap, groupDto);
+        refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, false, collectIgnoredUsers);
+      }
+    } finally {
+      memberCache = null;
     }
     for (Entry<String, Group> internalGroup : internalGroupsMap.entrySet()) {
       if (internalGroup.getValue().isLdapGroup()) {
@@ -283,9 +306,18 @@ public class AmbariLdapDataPopulator {
     final Map<String, Group> internalGroupsMap = getInternalGroups();
     final Map<String, User> internalUsersMap = getInternalUsers();
 
-    for (LdapGroupDto groupDto : specifiedGroups) {
-      addLdapGroup(batchInfo, internalGroupsMap, groupDto);
-      refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, true, collectIgnoredUsers);
+    memberCache = new MemberCache();
+    try {
+      for (LdapGroupDto groupDto : specifiedGroups) {
+        memberCache.addPendingMembers(groupDto.getMemberAttributes());
+      }
+
+      for (LdapGroupDto groupDto : specifiedGroups) {
+        addLdapGroup(batchInfo, internalGroupsMap, groupDto);
+        refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, true, collectIgnoredUsers);
+      }
+    } finally {
+      memberCache = null;
     }
 
     return batchInfo;
@@ -350,18 +382,24 @@ public class AmbariLdapDataPopulator {
 
     final Set<Group> internalGroupSet = Sets.newHashSet(internalGroupsMap.values());
 
-    for (Group group : internalGroupSet) {
-      if (group.isLdapGroup()) {
-        Set<LdapGroupDto> groupDtos = getLdapGroups(group.getGroupName());
-        if (groupDtos.isEmpty()) {
-          LdapGroupDto groupDto = new LdapGroupDto();
-          groupDto.setGroupName(group.getGroupName());
-          batchInfo.getGroupsToBeRemoved().add(groupDto);
-        } else {
-          LdapGroupDto groupDto = groupDtos.iterator().next();
-          refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, true, collectIgnoredUsers);
+    memberCache = new MemberCache();
+    try {
+      for (Group group : internalGroupSet) {
+        if (group.isLdapGroup()) {
+          Set<LdapGroupDto> groupDtos = getLdapGroups(group.getGroupName());
+          if (groupDtos.isEmpty()) {
+            LdapGroupDto groupDto = new LdapGroupDto();
+            groupDto.setGroupName(group.getGroupName());
+            batchInfo.getGroupsToBeRemoved().add(groupDto);
+          } else {
+            LdapGroupDto groupDto = groupDtos.iterator().next();
+            memberCache.addPendingMembers(groupDto.getMemberAttributes());
+            refreshGroupMembers(batchInfo, groupDto, internalUsersMap, internalGroupsMap, null, true, collectIgnoredUsers);
+          }
         }
       }
+    } finally {
+      memberCache = null;
     }
 
     return batchInfo;
@@ -429,6 +467,9 @@ public class AmbariLdapDataPopulator {
           // if the member is another group then add all of its members
           LdapGroupDto subGroup = getLdapGroupByMemberAttr(memberAttributeValue);
           if (subGroup != null) {
+            if (memberCache != null) {
+              memberCache.addPendingMembers(subGroup.getMemberAttributes());
+            }
             groupMemberAttributes.add(memberAttributeValue);
             addLdapGroup(batchInfo, internalGroupsMap, subGroup);
             refreshGroupMembers(batchInfo, subGroup, internalUsers, internalGroupsMap, groupMemberAttributes, true, collectIgnoredUsers);
@@ -505,11 +546,155 @@ public class AmbariLdapDataPopulator {
 
   /**
    * Get the LDAP user member for the given member attribute.
+   * <p/>
+   * While groups are being synchronized, the users of the members of these groups are looked up
+   * in batches and are cached until the synchronization completes.
    *
    * @param memberAttributeValue the member attribute value
    * @return the user for the given member attribute; null if not found
    */
   protected LdapUserDto getLdapUserByMemberAttr(String memberAttributeValue) {
+    MemberCache cache = memberCache;
+    if (cache == null || memberAttributeValue == null) {
+      return searchLdapUserByMemberAttr(memberAttributeValue);
+    }
+
+    if (!cache.users.containsKey(memberAttributeValue)) {
+      if (!cache.unresolved.contains(memberAttributeValue)) {
+        resolveLdapUsersByMemberAttr(cache, memberAttributeValue);
+      }
+
+      // the batched search could not resolve the member, as it may not be a user
+      if (!cache.users.containsKey(memberAttributeValue)) {
+        cache.unresolved.remove(memberAttributeValue);
+        cache.users.put(memberAttributeValue, searchLdapUserByMemberAttr(memberAttributeValue));
+      }
+    }
+    return cache.users.get(memberAttributeValue);
+  }
+
+  /**
+   * Resolves the given member attribute value along with other pending members, using as few
+   * searches as possible. The values which cannot be resolved by a batched search, for example
+   * because a custom member filter is configured or because the member is not a user, are marked
+   * as unresolved, to be searched for one by one.
+   *
+   * @param cache                the members resolved so far
+   * @param memberAttributeValue the member attribute value to resolve
+   */
+  private void resolveLdapUsersByMemberAttr(MemberCache cache, String memberAttributeValue) {
+    LdapServerProperties ldapServerProperties = getLdapProperties();
+
+    List<String> batch = new ArrayList<>(MEMBERS_BATCH_SIZE);
+    batch.add(memberAttributeValue);
+    cache.pending.remove(memberAttributeValue);
+    Iterator<String> iterator = cache.pending.iterator();
+    while (batch.size() < MEMBERS_BATCH_SIZE && iterator.hasNext()) {
+      String pendingMember = iterator.next();
+      iterator.remove();
+      if (!cache.users.containsKey(pendingMember) && !cache.unresolved.contains(pendingMember)) {
+        batch.add(pendingMember);
+      }
+    }
+
+    if (StringUtils.isNotEmpty(ldapServerProperties.getSyncUserMemberFilter())) {
+      cache.unresolved.addAll(batch);
+      return;
+    }
+
+    // the members are either DNs which are looked up by their RDNs below their parent DNs, or
+    // ids which are looked up by the username attribute
+    Map<LdapName, Map<LdapName, String>> membersByParentDn = new HashMap<>();
+    Map<String, String> membersById = new HashMap<>();
+    for (String member : batch) {
+      String uniqueId = getUniqueIdByMemberPattern(member, ldapServerProperties.getSyncUserMemberReplacePattern());
+      if (uniqueId != null && isMemberAttributeBaseDn(uniqueId)) {
+        LdapName dn = toLdapName(uniqueId);
+        if (dn != null && dn.size() > 1) {
+          membersByParentDn.computeIfAbsent((LdapName) dn.getPrefix(dn.size() - 1), parentDn -> new HashMap<>())
+              .put(dn, member);
+        } else {
+          cache.unresolved.add(member);
+        }
+      } else if (uniqueId != null) {
+        membersById.put(uniqueId.toLowerCase(), member);
+      } else {
+        cache.unresolved.add(member);
+      }
+    }
+
+    for (Entry<LdapName, Map<LdapName, String>> entry : membersByParentDn.entrySet()) {
+      Map<LdapName, String> membersByDn = entry.getValue();
+      OrFilter rdnFilter = new OrFilter();
+      for (LdapName dn : membersByDn.keySet()) {
+        rdnFilter.or(createRdnFilter(dn.getRdn(dn.size() - 1)));
+      }
+
+      for (LdapUserDto user : getFilteredLdapUsers(entry.getKey().toString(),
+          new EqualsFilter(OBJECT_CLASS_ATTRIBUTE, ldapServerProperties.getUserObjectClass()), rdnFilter)) {
+        String member = (user.getDn() == null) ? null : membersByDn.remove(toLdapName(user.getDn()));
+        if (member != null) {
+          cache.users.put(member, user);
+        }
+      }
+      cache.unresolved.addAll(membersByDn.values());
+    }
+
+    if (!membersById.isEmpty()) {
+      OrFilter idFilter = new OrFilter();
+      for (String uniqueId : membersById.keySet()) {
+        idFilter.or(new EqualsFilter(ldapServerProperties.getUsernameAttribute(), uniqueId));
+      }
+
+      for (LdapUserDto user : getFilteredLdapUsers(ldapServerProperties.getBaseDN(),
+          new EqualsFilter(OBJECT_CLASS_ATTRIBUTE, ldapServerProperties.getUserObjectClass()), idFilter)) {
+        String member = (user.getUserName() == null) ? null : membersById.remove(user.getUserName());
+        if (member != null) {
+          cache.users.put(member, user);
+        }
+      }
+      cache.unresolved.addAll(membersById.values());
+    }
+  }
+
+  /**
+   * Creates a filter which matches the entries with the given RDN, for example
+   * {@code (uid=jdoe)} for {@code uid=jdoe}, or {@code (&(cn=John Doe)(uid=jdoe))} for the
+   * multi-valued {@code cn=John Doe+uid=jdoe}.
+   *
+   * @param rdn the relative distinguished name
+   * @return the filter
+   */
+  private Filter createRdnFilter(Rdn rdn) {
+    AndFilter filter = new AndFilter();
+    try {
+      NamingEnumeration<? extends Attribute> attributes = rdn.toAttributes().getAll();
+      while (attributes.hasMore()) {
+        Attribute attribute = attributes.next();
+        filter.and(new EqualsFilter(attribute.getID(), String.valueOf(attribute.get())));
+      }
+    } catch (NamingException e) {
+      throw LdapUtils.convertLdapException(e);
+    }
+    return filter;
+  }
+
+  private LdapName toLdapName(String dn) {
+    try {
+      return new LdapName(dn);
+    } catch (InvalidNameException e) {
+      LOG.debug("Member '{}' is not a valid DN", dn, e);
+      return null;
+    }
+  }
+
+  /**
+   * Search for the LDAP user member for the given member attribute.
+   *
+   * @param memberAttributeValue the member attribute value
+   * @return the user for the given member attribute; null if not found
+   */
+  private LdapUserDto searchLdapUserByMemberAttr(String memberAttributeValue) {
     LdapServerProperties ldapServerProperties = getLdapProperties();
     Set<LdapUserDto> filteredLdapUsers;
 
@@ -543,6 +728,24 @@ public class AmbariLdapDataPopulator {
    * @return the group for the given member attribute; null if not found
    */
   protected LdapGroupDto getLdapGroupByMemberAttr(String memberAttributeValue) {
+    MemberCache cache = memberCache;
+    if (cache == null || memberAttributeValue == null) {
+      return searchLdapGroupByMemberAttr(memberAttributeValue);
+    }
+
+    if (!cache.groups.containsKey(memberAttributeValue)) {
+      cache.groups.put(memberAttributeValue, searchLdapGroupByMemberAttr(memberAttributeValue));
+    }
+    return cache.groups.get(memberAttributeValue);
+  }
+
+  /**
+   * Search for the LDAP group member for the given member attribute.
+   *
+   * @param memberAttributeValue the member attribute value
+   * @return the group for the given member attribute; null if not found
+   */
+  private LdapGroupDto searchLdapGroupByMemberAttr(String memberAttributeValue) {
     LdapServerProperties ldapServerProperties = getLdapProperties();
     Set<LdapGroupDto> filteredLdapGroups;
 
@@ -857,6 +1060,43 @@ public class AmbariLdapDataPopulator {
     return new LdapTemplate(ldapContextSource);
   }
 
+  /**
+   * The members of the groups being synchronized, and the LDAP users and groups they were resolved to.
+   */
+  private static final class MemberCache {
+
+    /**
+     * The users of the resolved member attribute values; null for values which are not users.
+     */
+    private final Map<String, LdapUserDto> users = new HashMap<>();
+
+    /**
+     * The groups of the resolved member attribute values; null for values which are not groups.
+     */
+    private final Map<String, LdapGroupDto> groups = new HashMap<>();
+
+    /**
+     * The member attribute values to resolve along with the next member which is not resolved yet.
+     */
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    /**
+     * The member attribute values which a batched search could not resolve.
+     */
+    private final Set<String> unresolved = new HashSet<>();
+
+    private void addPendingMembers(Collection<String> memberAttributeValues) {
+      if (memberAttributeValues == null) {
+        return;
+      }
+      for (String memberAttributeValue : memberAttributeValues) {
+        if (memberAttributeValue != null && !users.containsKey(memberAttributeValue)) {
+          pending.add(memberAttributeValue);
+        }
+      }
+    }
+  }
+
   //
   // ContextMapper implementations
   //
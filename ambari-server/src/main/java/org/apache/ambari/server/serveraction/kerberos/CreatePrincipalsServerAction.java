@@ -19,9 +19,9 @@
 package org.apache.ambari.server.serveraction.kerberos;
 
 import java.io.File;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 
@@ -77,9 +77,9 @@ public class CreatePrincipalsServerAction extends KerberosServerAction {
 
   /**
    * A set of visited principal names used to prevent unnecessary processing on already processed
-   * principal names
+   * principal names; identities may be processed concurrently
    */
-  private Set<String> seenPrincipals = new HashSet<>();
+  private Set<String> seenPrincipals = ConcurrentHashMap.newKeySet();
 
   /**
    * Called to execute this action. Upon invocation, calls
@@ -135,8 +135,7 @@ public class CreatePrincipalsServerAction extends KerberosServerAction {
 
     //  Only process this principal name if we haven't already processed it
     // TODO optimize - split invalidation and principal creation to separate stages
-    if (!seenPrincipals.contains(resolvedPrincipal.getPrincipal())) {
-      seenPrincipals.add(resolvedPrincipal.getPrincipal());
+    if (seenPrincipals.add(resolvedPrincipal.getPrincipal())) {
 
       boolean processPrincipal;
 
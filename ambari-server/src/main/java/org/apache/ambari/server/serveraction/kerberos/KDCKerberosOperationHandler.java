@@ -25,6 +25,7 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.security.credential.PrincipalKeyCredential;
@@ -60,7 +61,7 @@ abstract class KDCKerberosOperationHandler extends KerberosOperationHandler {
    * A map of principal names to {@link Keytab} entries to ensure a Keyab file is not created/exported
    * for the same principal more than once.
    */
-  private HashMap<String, Keytab> cachedKeytabs = null;
+  private Map<String, Keytab> cachedKeytabs = null;
 
   /**
    * A String containing the resolved path to the kinit executable
@@ -182,8 +183,9 @@ abstract class KDCKerberosOperationHandler extends KerberosOperationHandler {
     }
 
     // use cache if available
-    if (cachedKeytabs.containsKey(principal)) {
-      return cachedKeytabs.get(principal);
+    Keytab cachedKeytab = cachedKeytabs.get(principal);
+    if (cachedKeytab != null) {
+      return cachedKeytab;
     }
 
     File keytabFile = null;
@@ -330,7 +332,7 @@ abstract class KDCKerberosOperationHandler extends KerberosOperationHandler {
       throw new KerberosAdminAuthenticationException(message);
     }
 
-    cachedKeytabs = new HashMap<>();
+    cachedKeytabs = new ConcurrentHashMap<>();
 
     return true;
   }
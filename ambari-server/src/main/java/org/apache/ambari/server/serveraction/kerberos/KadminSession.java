@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.serveraction.kerberos;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.utils.ShellCommandUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * KadminSession is a long-lived kadmin process executing the queries written to its STDIN, so that
+ * many queries can be sent to the KDC without starting a kadmin process for each of them.
+ * <p/>
+ * kadmin does not mark the end of its response to a query. Therefore each query is followed by a
+ * request unknown to kadmin, named uniquely; kadmin answers it with an error message containing that
+ * name, which ends the response to the query. STDERR is merged into STDOUT so that the error
+ * messages of a query are part of its response.
+ * <p/>
+ * The output of kadmin is read by a separate thread, so that a kadmin process which stops
+ * responding, for example while waiting for an unreachable KDC, is killed once the timeout of the
+ * session expires.
+ */
+final class KadminSession implements Closeable {
+
+  private final static Logger LOG = LoggerFactory.getLogger(KadminSession.class);
+
+  /**
+   * The prefix of the requests marking the end of a response
+   */
+  private static final String END_OF_RESPONSE_REQUEST = "ambari_end_of_response_";
+
+  /**
+   * Queued by the output reader once kadmin closed its output; compared by identity
+   */
+  private static final String END_OF_OUTPUT = new String("");
+
+  private final Process process;
+  private final Writer input;
+  private final BufferedReader output;
+
+  /**
+   * The lines written by kadmin which were not consumed by a request yet
+   */
+  private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+  /**
+   * The time to wait for the response to a request, in milliseconds
+   */
+  private final long timeout;
+
+  /**
+   * The number of requests sent to kadmin, used to name the end-of-response requests
+   */
+  private long requestCount = 0;
+
+  private KadminSession(Process process, long timeout) {
+    this.process = process;
+    this.timeout = timeout;
+    input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+    output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Starts a kadmin session.
+   *
+   * @param command     the kadmin command and its arguments, without a query
+   * @param environment a map of environment variables to set for kadmin; may be null
+   * @param timeout     the time to wait for kadmin to get ready and for the response to each query,
+   *                    in milliseconds
+   * @return the session, once kadmin is ready to execute queries
+   * @throws IOException if kadmin could not be started, exited or did not respond in time, for
+   *                     example because it failed to authenticate with the KDC
+   */
+  static KadminSession start(List<String> command, Map<String, String> environment, long timeout) throws IOException {
+    ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+    if (environment != null) {
+      builder.environment().putAll(environment);
+    }
+
+    KadminSession session = new KadminSession(builder.start(), timeout);
+    Thread reader = new Thread(session::readOutput, "kadmin-session-output");
+    reader.setDaemon(true);
+    reader.start();
+    try {
+      // skips the messages kadmin prints while authenticating
+      session.request(null);
+    } catch (IOException e) {
+      session.close();
+      throw e;
+    }
+    return session;
+  }
+
+  /**
+   * Executes a query.
+   * <p/>
+   * The result has an exit code of 0 and contains the response to the query, including any error
+   * messages, as STDOUT as well as STDERR.
+   *
+   * @param query a String containing the query to send to kadmin
+   * @return a ShellCommandUtil.Result containing the response to the query
+   * @throws IOException if the query could not be sent, or kadmin exited or did not respond in time
+   */
+  ShellCommandUtil.Result execute(String query) throws IOException {
+    if (query.indexOf('\n') >= 0 || query.indexOf('\r') >= 0) {
+      throw new IOException("A kadmin query spanning multiple lines cannot be executed in a session");
+    }
+
+    String response = request(query);
+    return new ShellCommandUtil.Result(0, response, response);
+  }
+
+  private String request(String query) throws IOException {
+    String endOfResponse = END_OF_RESPONSE_REQUEST + (++requestCount);
+    try {
+      if (query != null) {
+        input.write(query);
+        input.write('\n');
+      }
+      input.write(endOfResponse);
+      input.write('\n');
+      input.flush();
+    } catch (IOException e) {
+      // kadmin exited, its output tells why
+      LOG.debug("Failed to send a request to the kadmin session", e);
+    }
+
+    StringBuilder response = new StringBuilder();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    while (true) {
+      String line;
+      try {
+        line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        process.destroyForcibly();
+        throw new IOException("Interrupted while waiting for kadmin to respond", e);
+      }
+
+      if (line == null) {
+        process.destroyForcibly();
+        throw new IOException(String.format("kadmin did not respond within %d ms:\n%s", timeout, response));
+      }
+      if (line == END_OF_OUTPUT) {
+        throw new IOException(String.format("kadmin exited with exit code %s:\n%s", exitCode(), response));
+      }
+      if (line.contains(endOfResponse)) {
+        return response.toString();
+      }
+      response.append(line).append('\n');
+    }
+  }
+
+  /**
+   * Queues the lines written by kadmin until it closes its output.
+   */
+  private void readOutput() {
+    try {
+      String line;
+      while (null != (line = output.readLine())) {
+        lines.add(line);
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to read the output of the kadmin session", e);
+    } finally {
+      lines.add(END_OF_OUTPUT);
+    }
+  }
+
+  private String exitCode() {
+    try {
+      return String.valueOf(process.waitFor());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "unknown";
+    }
+  }
+
+  /**
+   * Ends the session.
+   */
+  @Override
+  public void close() {
+    try {
+      input.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close the input of the kadmin session", e);
+    }
+    process.destroy();
+  }
+}
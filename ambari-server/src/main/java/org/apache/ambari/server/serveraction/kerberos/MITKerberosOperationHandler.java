@@ -18,12 +18,15 @@
 
 package org.apache.ambari.server.serveraction.kerberos;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.security.credential.PrincipalKeyCredential;
@@ -48,6 +51,21 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
 
   private final static Logger LOG = LoggerFactory.getLogger(MITKerberosOperationHandler.class);
 
+  /**
+   * The error messages of kadmin indicating that it failed to authenticate with or connect to the
+   * KDC, or that the realm is invalid
+   */
+  private static final String KADMIN_ERROR_CLIENT_NOT_FOUND = "Client not found in Kerberos database";
+  private static final String KADMIN_ERROR_INCORRECT_PASSWORD = "Incorrect password while initializing";
+  private static final String KADMIN_ERROR_CANNOT_CONTACT_KDC = "Cannot contact any KDC";
+  private static final String KADMIN_ERROR_CANNOT_RESOLVE_ADMIN_SERVER = "Cannot resolve network address for admin server in requested realm while initializing kadmin interface";
+  private static final String KADMIN_ERROR_MISSING_PARAMETERS = "Missing parameters in krb5.conf required for kadmin client";
+  private static final String KADMIN_ERROR_CANNOT_FIND_KDC = "Cannot find KDC for requested realm while initializing kadmin interface";
+
+  private static final List<String> KADMIN_ERRORS = Arrays.asList(KADMIN_ERROR_CLIENT_NOT_FOUND,
+      KADMIN_ERROR_INCORRECT_PASSWORD, KADMIN_ERROR_CANNOT_CONTACT_KDC, KADMIN_ERROR_CANNOT_RESOLVE_ADMIN_SERVER,
+      KADMIN_ERROR_MISSING_PARAMETERS, KADMIN_ERROR_CANNOT_FIND_KDC);
+
   @Inject
   private Configuration configuration;
   
@@ -64,6 +82,18 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
    */
   private String executableKadmin = null;
 
+  /**
+   * Indicates whether kadmin queries are sent through long-lived kadmin sessions; reset if a
+   * session fails, so that the remaining queries are executed by separate kadmin processes
+   */
+  private volatile boolean kadminSessionsEnabled = false;
+
+  /**
+   * The kadmin sessions not currently executing a query; a new session is started whenever a
+   * query is executed while all sessions are busy
+   */
+  private final ConcurrentLinkedQueue<KadminSession> idleKadminSessions = new ConcurrentLinkedQueue<>();
+
   /**
    * Prepares and creates resources to be used by this KerberosOperationHandler
    * <p/>
@@ -92,10 +122,15 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
     executableKadmin = getExecutable("kadmin");
 
     super.open(administratorCredentials, realm, kerberosConfiguration);
+
+    kadminSessionsEnabled = configuration.isKerberosKadminSessionsEnabled();
   }
 
   @Override
   public void close() throws KerberosOperationException {
+    kadminSessionsEnabled = false;
+    closeKadminSessions();
+
     createAttributes = null;
     executableKadmin = null;
 
@@ -236,29 +271,14 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
       throw new KerberosOperationException("No path for kadmin is available - this KerberosOperationHandler may not have been opened.");
     }
 
-    List<String> command = new ArrayList<>();
-    command.add(executableKadmin);
-
-    // Add the credential cache, if available
-    String credentialCacheFilePath = getCredentialCacheFilePath();
-    if (!StringUtils.isEmpty(credentialCacheFilePath)) {
-      command.add("-c");
-      command.add(credentialCacheFilePath);
-    }
-
-    // Add explicit KDC admin host, if available
-    String adminSeverHost = getAdminServerHost(true);
-    if (!StringUtils.isEmpty(adminSeverHost)) {
-      command.add("-s");
-      command.add(adminSeverHost);
+    if (kadminSessionsEnabled) {
+      ShellCommandUtil.Result result = invokeKAdminSession(query);
+      if (result != null) {
+        return result;
+      }
     }
 
-    // Add default realm clause, if available
-    String defaultRealm = getDefaultRealm();
-    if (!StringUtils.isEmpty(defaultRealm)) {
-      command.add("-r");
-      command.add(defaultRealm);
-    }
+    List<String> command = getKAdminCommand();
 
     // Add kadmin query
     command.add("-q");
@@ -309,21 +329,21 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
 
       // Test STDERR to see of any "expected" error conditions were encountered...
       // Did admin credentials fail?
-      if (stdErr.contains("Client not found in Kerberos database")) {
+      if (stdErr.contains(KADMIN_ERROR_CLIENT_NOT_FOUND)) {
         throw new KerberosAdminAuthenticationException(stdErr);
-      } else if (stdErr.contains("Incorrect password while initializing")) {
+      } else if (stdErr.contains(KADMIN_ERROR_INCORRECT_PASSWORD)) {
         throw new KerberosAdminAuthenticationException(stdErr);
       }
       // Did we fail to connect to the KDC?
-      else if (stdErr.contains("Cannot contact any KDC")) {
+      else if (stdErr.contains(KADMIN_ERROR_CANNOT_CONTACT_KDC)) {
         throw new KerberosKDCConnectionException(stdErr);
-      } else if (stdErr.contains("Cannot resolve network address for admin server in requested realm while initializing kadmin interface")) {
+      } else if (stdErr.contains(KADMIN_ERROR_CANNOT_RESOLVE_ADMIN_SERVER)) {
         throw new KerberosKDCConnectionException(stdErr);
       }
       // Was the realm invalid?
-      else if (stdErr.contains("Missing parameters in krb5.conf required for kadmin client")) {
+      else if (stdErr.contains(KADMIN_ERROR_MISSING_PARAMETERS)) {
         throw new KerberosRealmException(stdErr);
-      } else if (stdErr.contains("Cannot find KDC for requested realm while initializing kadmin interface")) {
+      } else if (stdErr.contains(KADMIN_ERROR_CANNOT_FIND_KDC)) {
         throw new KerberosRealmException(stdErr);
       } else {
         throw new KerberosOperationException(String.format("Unexpected error condition executing the kadmin command. STDERR: %s", stdErr));
@@ -338,6 +358,113 @@ public class MITKerberosOperationHandler extends KDCKerberosOperationHandler {
     return result;
   }
 
+  /**
+   * Executes a query in an idle kadmin session, or in a new session if all sessions are busy.
+   * <p/>
+   * If the session fails, does not respond in time or reports a KDC, authentication or realm error,
+   * it is closed and kadmin sessions are no longer used by this handler, so that the query and all
+   * further queries are executed by separate kadmin processes, with retries and detailed error
+   * reporting.
+   *
+   * @param query a String containing the query to send to the kdamin command
+   * @return a ShellCommandUtil.Result containing the response to the query, or null if the query
+   * could not be executed in a session
+   */
+  private ShellCommandUtil.Result invokeKAdminSession(String query) {
+    KadminSession session = idleKadminSessions.poll();
+    try {
+      if (session == null) {
+        List<String> command = getKAdminCommand();
+        LOG.debug("Starting kadmin session: {}", command);
+        session = KadminSession.start(command, null,
+            TimeUnit.SECONDS.toMillis(configuration.getKerberosOperationRetryTimeout()));
+      }
+
+      ShellCommandUtil.Result result = session.execute(query);
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Executed the following kadmin query in a session:\n{}\nRESPONSE: {}", query, result.getStdout());
+      }
+
+      // the response of a session is always successful, so errors are detected by their messages
+      for (String error : KADMIN_ERRORS) {
+        if (result.getStderr().contains(error)) {
+          throw new IOException(result.getStderr());
+        }
+      }
+
+      releaseKadminSession(session);
+      return result;
+    } catch (IOException e) {
+      LOG.warn("Failed to execute a query in a kadmin session, executing the remaining queries by separate kadmin processes: {}",
+          e.getMessage());
+      kadminSessionsEnabled = false;
+      if (session != null) {
+        session.close();
+      }
+      closeKadminSessions();
+      return null;
+    }
+  }
+
+  /**
+   * Makes the session available to other queries, or closes it if kadmin sessions were disabled
+   * while it executed a query.
+   */
+  private void releaseKadminSession(KadminSession session) {
+    if (!kadminSessionsEnabled) {
+      session.close();
+      return;
+    }
+
+    idleKadminSessions.offer(session);
+
+    // the idle sessions may have been closed before this one was offered
+    if (!kadminSessionsEnabled && idleKadminSessions.remove(session)) {
+      session.close();
+    }
+  }
+
+  private void closeKadminSessions() {
+    KadminSession session;
+    while (null != (session = idleKadminSessions.poll())) {
+      session.close();
+    }
+  }
+
+  /**
+   * Builds the kadmin command to connect to the KDC, not including a query.
+   *
+   * @return a List of the command and its arguments
+   */
+  private List<String> getKAdminCommand() {
+    List<String> command = new ArrayList<>();
+    command.add(executableKadmin);
+
+    // Add the credential cache, if available
+    String credentialCacheFilePath = getCredentialCacheFilePath();
+    if (!StringUtils.isEmpty(credentialCacheFilePath)) {
+      command.add("-c");
+      command.add(credentialCacheFilePath);
+    }
+
+    // Add explicit KDC admin host, if available
+    String adminSeverHost = getAdminServerHost(true);
+    if (!StringUtils.isEmpty(adminSeverHost)) {
+      command.add("-s");
+      command.add(adminSeverHost);
+    }
+
+    // Add default realm clause, if available
+    String defaultRealm = getDefaultRealm();
+    if (!StringUtils.isEmpty(defaultRealm)) {
+      command.add("-r");
+      command.add(defaultRealm);
+    }
+
+    return command;
+  }
+
   @Override
   protected String[] getKinitCommand(String executableKinit, PrincipalKeyCredential credentials, String credentialsCache, Map<String, String> kerberosConfiguration) throws KerberosOperationException {
     // kinit -c <path> -S kadmin/`hostname -f` <principal>
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.stack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.apache.ambari.server.AmbariException;
+
+/**
+ * Parses independent parts of the stack definition, such as the stack versions or the
+ * services of a stack, concurrently.
+ * <p/>
+ * The parts are forked as tasks of the fork-join pool the caller runs in, so that
+ * parsing a stack may fork the parsing of its services without blocking a thread of the
+ * pool.  Outside of a fork-join pool the parts are parsed one after the other on the
+ * calling thread.  Results are always returned in the order of the given parts.
+ */
+final class ParallelParser {
+
+  private static final String THREAD_NAME_PREFIX = "stack-parser-";
+
+  private ParallelParser() {
+  }
+
+  /**
+   * Create a pool for parsing the stack definition.
+   *
+   * @return a new pool with one thread per processor
+   */
+  private static ForkJoinPool createPool() {
+    return new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName(THREAD_NAME_PREFIX + thread.getPoolIndex());
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Parse the given parts.
+   *
+   * @param parts   the parts to parse
+   * @param parser  parses one part
+   *
+   * @return the results of parsing the parts, in the order of the parts
+   * @throws AmbariException if parsing any of the parts failed
+   */
+  static <T, R> List<R> parse(Collection<T> parts, Parser<T, R> parser) throws AmbariException {
+    List<R> results = new ArrayList<>(parts.size());
+    if (parts.size() < 2 || !ForkJoinTask.inForkJoinPool()) {
+      for (T part : parts) {
+        results.add(parser.parse(part));
+      }
+      return results;
+    }
+
+    List<ForkJoinTask<R>> tasks = new ArrayList<>(parts.size());
+    for (T part : parts) {
+      tasks.add(ForkJoinTask.adapt(() -> parser.parse(part)));
+    }
+    ForkJoinTask.invokeAll(tasks);
+
+    for (ForkJoinTask<R> task : tasks) {
+      try {
+        results.add(task.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AmbariException("Interrupted while parsing the stack definitions", e);
+      } catch (ExecutionException e) {
+        throw toAmbariException(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Run the given parser on a new pool and wait for it to complete.
+   *
+   * @param parser  the parser
+   *
+   * @throws AmbariException if the parser failed
+   */
+  static void run(Task parser) throws AmbariException {
+    ForkJoinPool pool = createPool();
+    try {
+      pool.submit(() -> {
+        parser.run();
+        return null;
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AmbariException("Interrupted while parsing the stack definitions", e);
+    } catch (ExecutionException e) {
+      throw toAmbariException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Unwrap the exception thrown by a parser; the fork-join framework wraps checked
+   * exceptions and may wrap exceptions rethrown on another thread again.
+   */
+  private static AmbariException toAmbariException(Throwable cause) {
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof AmbariException) {
+        return (AmbariException) t;
+      }
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new AmbariException("Unable to parse the stack definitions", cause);
+  }
+
+  /**
+   * Parses one part of the stack definition.
+   *
+   * @param <T>  the type of the part
+   * @param <R>  the type of the result
+   */
+  @FunctionalInterface
+  interface Parser<T, R> {
+    R parse(T part) throws AmbariException;
+  }
+
+  /**
+   * Parses the stack definition.
+   */
+  @FunctionalInterface
+  interface Task {
+    void run() throws AmbariException;
+  }
+}
@@ -397,16 +397,15 @@ public class StackDirectory extends StackDefinitionDirectory {
       File baseServiceDir = new File(servicesDir);
       File[] serviceFolders = baseServiceDir.listFiles(FILENAME_FILTER);
       if (serviceFolders != null) {
+        List<File> serviceDirs = new ArrayList<>();
         for (File d : serviceFolders) {
           if (d.isDirectory()) {
-            try {
-              dirs.add(new StackServiceDirectory(d.getAbsolutePath()));
-            } catch (AmbariException e) {
-              //todo: this seems as though we should propagate this exception
-              //todo: eating it now to keep backwards compatibility
-              LOG.warn(String.format("Unable to parse stack definition service at '%s'.  Ignoring service. : %s",
-                  d.getAbsolutePath(), e.toString()));
-            }
+            serviceDirs.add(d);
+          }
+        }
+        for (ServiceDirectory dir : ParallelParser.parse(serviceDirs, this::parseServiceDirectory)) {
+          if (dir != null) {
+            dirs.add(dir);
           }
         }
       }
@@ -419,6 +418,24 @@ public class StackDirectory extends StackDefinitionDirectory {
     serviceDirectories = dirs;
   }
 
+  /**
+   * Parse a service directory of the stack.
+   *
+   * @param d  the service directory
+   * @return the parsed service directory or null if it could not be parsed
+   */
+  private ServiceDirectory parseServiceDirectory(File d) {
+    try {
+      return new StackServiceDirectory(d.getAbsolutePath());
+    } catch (AmbariException e) {
+      //todo: this seems as though we should propagate this exception
+      //todo: eating it now to keep backwards compatibility
+      LOG.warn(String.format("Unable to parse stack definition service at '%s'.  Ignoring service. : %s",
+          d.getAbsolutePath(), e.toString()));
+      return null;
+    }
+  }
+
 
   /**
    * Parse all stack upgrade files for the stack.
@@ -609,20 +609,41 @@ public class StackModule extends BaseModule<StackModule, StackInfo> implements V
    * Populate the child services.
    */
   private void populateServices()throws AmbariException {
-    for (ServiceDirectory serviceDir : stackDirectory.getServiceDirectories()) {
-      populateService(serviceDir);
+    // creating the service modules parses their configurations, so the services are
+    // created concurrently and then added one after the other
+    List<ServiceDirectory> serviceDirs = new ArrayList<>(stackDirectory.getServiceDirectories());
+    List<Collection<ServiceModule>> serviceModules = ParallelParser.parse(serviceDirs, this::createServiceModules);
+    for (int i = 0; i < serviceDirs.size(); i++) {
+      populateService(serviceDirs.get(i), serviceModules.get(i));
     }
   }
 
   /**
-   * Populate a child service.
+   * Create the modules of the services of a child service directory.
    *
    * @param serviceDirectory the child service directory
+   * @return the service modules; empty if the service metainfo is invalid
    */
-  private void populateService(ServiceDirectory serviceDirectory)  {
+  private Collection<ServiceModule> createServiceModules(ServiceDirectory serviceDirectory) {
     Collection<ServiceModule> serviceModules = new ArrayList<>();
     // unfortunately, we allow multiple services to be specified in the same metainfo.xml,
     // so we can't move the unmarshal logic into ServiceModule
+    ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
+    if (metaInfoXml.isValid()) {
+      for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
+        serviceModules.add(new ServiceModule(stackContext, serviceInfo, serviceDirectory));
+      }
+    }
+    return serviceModules;
+  }
+
+  /**
+   * Populate a child service.
+   *
+   * @param serviceDirectory the child service directory
+   * @param serviceModules the modules of the services of the directory
+   */
+  private void populateService(ServiceDirectory serviceDirectory, Collection<ServiceModule> serviceModules)  {
     ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
     if (!metaInfoXml.isValid()){
       stackInfo.setValid(metaInfoXml.isValid());
@@ -631,11 +652,8 @@ public class StackModule extends BaseModule<StackModule, StackInfo> implements V
       addErrors(metaInfoXml.getErrors());
       return;
     }
-    List<ServiceInfo> serviceInfos = metaInfoXml.getServices();
 
-    for (ServiceInfo serviceInfo : serviceInfos) {
-      ServiceModule serviceModule = new ServiceModule(stackContext, serviceInfo, serviceDirectory);
-      serviceModules.add(serviceModule);
+    for (ServiceModule serviceModule : serviceModules) {
       if (!serviceModule.isValid()) {
         stackInfo.setValid(false);
         setValid(false);
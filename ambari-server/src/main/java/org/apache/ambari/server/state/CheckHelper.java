@@ -18,9 +18,23 @@
 package org.apache.ambari.server.state;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.ClusterNotFoundException;
@@ -35,6 +49,7 @@ import org.apache.ambari.server.state.repository.VersionDefinitionXml;
 import org.apache.ambari.spi.RepositoryVersion;
 import org.apache.ambari.spi.upgrade.CheckQualification;
 import org.apache.ambari.spi.upgrade.UpgradeCheck;
+import org.apache.ambari.spi.upgrade.UpgradeCheckDescription;
 import org.apache.ambari.spi.upgrade.UpgradeCheckRequest;
 import org.apache.ambari.spi.upgrade.UpgradeCheckResult;
 import org.apache.ambari.spi.upgrade.UpgradeCheckStatus;
@@ -42,11 +57,15 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
 
 @Singleton
 public class CheckHelper {
@@ -70,6 +89,49 @@ public class CheckHelper {
   @Inject
   protected Provider<AmbariMetaInfo> metaInfoProvider;
 
+  /**
+   * Used to perform each check on the thread pool in its own unit of work.
+   */
+  @Inject
+  protected UnitOfWork unitOfWork;
+
+  /**
+   * The snapshots of the requests which are performing their checks.
+   */
+  private final Map<UpgradeCheckRequest, RequestSnapshot> m_snapshots = new ConcurrentHashMap<>();
+
+  /**
+   * The thread pool shared by all requests performing their checks, or
+   * {@code null} if the checks are performed by the requesting thread.
+   */
+  private final ExecutorService m_threadPool;
+
+  /**
+   * Constructor. The checks are performed by the requesting thread.
+   */
+  public CheckHelper() {
+    m_threadPool = null;
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param configuration
+   *          used to size the thread pool performing the checks.
+   */
+  @Inject
+  public CheckHelper(Configuration configuration) {
+    int threadPoolSize = configuration.getUpgradePrecheckThreadPoolSize();
+    if (threadPoolSize > 1) {
+      ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60L,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder().setNameFormat("upgrade-check-%d").setDaemon(true).build());
+      threadPool.allowCoreThreadTimeOut(true);
+      m_threadPool = threadPool;
+    } else {
+      m_threadPool = null;
+    }
+  }
 
   /**
    * Gets any {@link UpgradeCheck}s which have passed all of their {@link CheckQualification}s
@@ -121,46 +183,183 @@ public class CheckHelper {
 
   /**
    * Executes all registered pre-requisite checks.
+   * <p/>
+   * The checks are performed concurrently on a pool of
+   * {@link Configuration#getUpgradePrecheckThreadPoolSize()} threads shared by
+   * all requests. Each check runs with the security context of the request and
+   * in its own unit of work. A check is only performed once the checks it
+   * depends on have completed and their results were added to the request.
+   * The VDF and the services in the upgrade are only loaded once and shared by
+   * all checks of the request.
    *
    * @param request
    *          pre-requisite check request
-   * @return list of pre-requisite check results
+   * @return list of pre-requisite check results, in the order of the checks
    */
   public List<UpgradeCheckResult> performChecks(UpgradeCheckRequest request,
                                                List<UpgradeCheck> upgradeChecks, Configuration config) {
 
-    final String clusterName = request.getClusterName();
-    final List<UpgradeCheckResult> results = new ArrayList<>();
     final boolean canBypassPreChecks = config.isUpgradePrecheckBypass();
 
-    List<UpgradeCheck> applicablePreChecks = getApplicableChecks(request, upgradeChecks);
+    m_snapshots.put(request, new RequestSnapshot(request));
+    try {
+      List<UpgradeCheck> applicablePreChecks = getApplicableChecks(request, upgradeChecks);
+
+      // without a thread pool, the checks are performed by this thread in the
+      // order of their dependencies
+      final boolean concurrent = null != m_threadPool && applicablePreChecks.size() > 1;
+      final Executor executor = concurrent ? m_threadPool : Runnable::run;
+      final SecurityContext securityContext = SecurityContextHolder.getContext();
+
+      Map<UpgradeCheck, CompletableFuture<UpgradeCheckResult>> futures = new HashMap<>();
+      Map<UpgradeCheckDescription, CompletableFuture<UpgradeCheckResult>> futuresByDescription = new HashMap<>();
+      for (UpgradeCheck check : orderByDependencies(applicablePreChecks)) {
+        List<CompletableFuture<UpgradeCheckResult>> dependencies = new ArrayList<>();
+        for (UpgradeCheckDescription dependency : check.getDependencies()) {
+          CompletableFuture<UpgradeCheckResult> future = futuresByDescription.get(dependency);
+          if (null != future) {
+            dependencies.add(future);
+          }
+        }
 
-    for (UpgradeCheck check : applicablePreChecks) {
-      UpgradeCheckResult result = new UpgradeCheckResult(check);
-      try {
-        result = check.perform(request);
-      } catch (ClusterNotFoundException ex) {
-        result.setFailReason("Cluster with name " + clusterName + " doesn't exists");
-        result.setStatus(UpgradeCheckStatus.FAIL);
-      } catch (Exception ex) {
-        LOG.error("Check " + check.getCheckDescription().name() + " failed", ex);
-        result.setFailReason("Unexpected server error happened");
-        result.setStatus(UpgradeCheckStatus.FAIL);
+        CompletableFuture<UpgradeCheckResult> future = CompletableFuture.allOf(
+            dependencies.toArray(new CompletableFuture[dependencies.size()])).thenApplyAsync(
+                ignored -> concurrent ? performCheckInPool(request, check, canBypassPreChecks, securityContext)
+                    : performCheck(request, check, canBypassPreChecks), executor);
+        futures.put(check, future);
+        futuresByDescription.put(check.getCheckDescription(), future);
       }
 
-      if (result.getStatus() == UpgradeCheckStatus.FAIL && canBypassPreChecks) {
-        LOG.error("Check {} failed but stack upgrade is allowed to bypass failures. Error to bypass: {}. Failed on: {}",
-          check.getCheckDescription().name(),
-          result.getFailReason(),
-          StringUtils.join(result.getFailedOn(), ", "));
-        result.setStatus(UpgradeCheckStatus.BYPASS);
+      final List<UpgradeCheckResult> results = new ArrayList<>();
+      for (UpgradeCheck check : applicablePreChecks) {
+        try {
+          results.add(futures.get(check).join());
+        } catch (CompletionException ex) {
+          if (ex.getCause() instanceof Error) {
+            throw (Error) ex.getCause();
+          }
+          throw ex;
+        }
       }
 
-      results.add(result);
-      request.addResult(check.getCheckDescription(), result.getStatus());
+      return results;
+    } finally {
+      m_snapshots.remove(request);
     }
+  }
 
-    return results;
+  /**
+   * Performs a check on a thread of the pool, with the security context of the
+   * request and in its own unit of work.
+   *
+   * @param request
+   *          pre-requisite check request
+   * @param check
+   *          the check to perform
+   * @param canBypassPreChecks
+   *          {@code true} if a failed check is bypassed
+   * @param securityContext
+   *          the security context of the request
+   * @return the result of the check
+   */
+  private UpgradeCheckResult performCheckInPool(UpgradeCheckRequest request, UpgradeCheck check,
+      boolean canBypassPreChecks, SecurityContext securityContext) {
+    SecurityContext previousContext = SecurityContextHolder.getContext();
+    SecurityContextHolder.setContext(securityContext);
+    unitOfWork.begin();
+    try {
+      return performCheck(request, check, canBypassPreChecks);
+    } finally {
+      unitOfWork.end();
+      SecurityContextHolder.setContext(previousContext);
+    }
+  }
+
+  /**
+   * Performs a check, adding its result to the request.
+   *
+   * @param request
+   *          pre-requisite check request
+   * @param check
+   *          the check to perform
+   * @param canBypassPreChecks
+   *          {@code true} if a failed check is bypassed
+   * @return the result of the check
+   */
+  private UpgradeCheckResult performCheck(UpgradeCheckRequest request, UpgradeCheck check,
+      boolean canBypassPreChecks) {
+    UpgradeCheckResult result = new UpgradeCheckResult(check);
+    long startTime = System.currentTimeMillis();
+    try {
+      result = check.perform(request);
+    } catch (ClusterNotFoundException ex) {
+      result.setFailReason("Cluster with name " + request.getClusterName() + " doesn't exists");
+      result.setStatus(UpgradeCheckStatus.FAIL);
+    } catch (Exception ex) {
+      LOG.error("Check " + check.getCheckDescription().name() + " failed", ex);
+      result.setFailReason("Unexpected server error happened");
+      result.setStatus(UpgradeCheckStatus.FAIL);
+    }
+    result.setDuration(System.currentTimeMillis() - startTime);
+
+    if (result.getStatus() == UpgradeCheckStatus.FAIL && canBypassPreChecks) {
+      LOG.error("Check {} failed but stack upgrade is allowed to bypass failures. Error to bypass: {}. Failed on: {}",
+        check.getCheckDescription().name(),
+        result.getFailReason(),
+        StringUtils.join(result.getFailedOn(), ", "));
+      result.setStatus(UpgradeCheckStatus.BYPASS);
+    }
+
+    request.addResult(check.getCheckDescription(), result.getStatus());
+    return result;
+  }
+
+  /**
+   * Orders the checks so that each check follows the checks it depends on.
+   * Checks which depend on each other in a cycle are put last, without
+   * ordering them.
+   *
+   * @param checks
+   *          the checks to order
+   * @return the ordered checks
+   */
+  private List<UpgradeCheck> orderByDependencies(List<UpgradeCheck> checks) {
+    Map<UpgradeCheckDescription, UpgradeCheck> checksByDescription = new HashMap<>();
+    for (UpgradeCheck check : checks) {
+      checksByDescription.put(check.getCheckDescription(), check);
+    }
+
+    List<UpgradeCheck> ordered = new ArrayList<>(checks.size());
+    Set<UpgradeCheck> remaining = new LinkedHashSet<>(checks);
+    boolean progress = true;
+    while (progress && !remaining.isEmpty()) {
+      progress = false;
+      Iterator<UpgradeCheck> iterator = remaining.iterator();
+      while (iterator.hasNext()) {
+        UpgradeCheck check = iterator.next();
+        boolean dependenciesOrdered = true;
+        for (UpgradeCheckDescription dependency : check.getDependencies()) {
+          if (remaining.contains(checksByDescription.get(dependency))) {
+            dependenciesOrdered = false;
+            break;
+          }
+        }
+
+        if (dependenciesOrdered) {
+          ordered.add(check);
+          iterator.remove();
+          progress = true;
+        }
+      }
+    }
+
+    if (!remaining.isEmpty()) {
+      LOG.warn("The pre-upgrade checks {} depend on each other and will not wait for each other",
+          remaining.stream().map(check -> check.getCheckDescription().name()).collect(Collectors.joining(", ")));
+      ordered.addAll(remaining);
+    }
+
+    return ordered;
   }
 
   /**
@@ -173,6 +372,24 @@ public class CheckHelper {
    * @throws AmbariException
    */
   public final VersionDefinitionXml getVersionDefinitionXml(UpgradeCheckRequest request) throws AmbariException {
+    RequestSnapshot snapshot = m_snapshots.get(request);
+    return null == snapshot ? loadVersionDefinitionXml(request) : snapshot.getVersionDefinitionXml();
+  }
+
+  /**
+   * Gets the services participating in the upgrade from the VDF.
+   *
+   * @param request
+   *          the upgrade check request.
+   * @return the services participating in the upgrade, which can either be all
+   *         of the cluster's services or a subset based on repository type.
+   */
+  public final Set<String> getServicesInUpgrade(UpgradeCheckRequest request) throws AmbariException {
+    RequestSnapshot snapshot = m_snapshots.get(request);
+    return null == snapshot ? loadServicesInUpgrade(request) : snapshot.getServicesInUpgrade();
+  }
+
+  private VersionDefinitionXml loadVersionDefinitionXml(UpgradeCheckRequest request) throws AmbariException {
     RepositoryVersion repositoryVersion = request.getTargetRepositoryVersion();
     RepositoryVersionEntity entity = repositoryVersionDaoProvider.get().findByPK(
         repositoryVersion.getId());
@@ -186,15 +403,7 @@ public class CheckHelper {
     }
   }
 
-  /**
-   * Gets the services participating in the upgrade from the VDF.
-   *
-   * @param request
-   *          the upgrade check request.
-   * @return the services participating in the upgrade, which can either be all
-   *         of the cluster's services or a subset based on repository type.
-   */
-  public final Set<String> getServicesInUpgrade(UpgradeCheckRequest request) throws AmbariException {
+  private Set<String> loadServicesInUpgrade(UpgradeCheckRequest request) throws AmbariException {
     final Cluster cluster = clustersProvider.get().getCluster(request.getClusterName());
 
     // the check is scoped to some services, so determine if any of those
@@ -210,6 +419,40 @@ public class CheckHelper {
     }
   }
 
+  /**
+   * The state of the cluster read by the checks of a request which is
+   * performing its checks. Each value is loaded by the first check reading it
+   * and is then shared by all checks of the request.
+   */
+  private final class RequestSnapshot {
+
+    private final UpgradeCheckRequest m_request;
+
+    private boolean m_vdfLoaded = false;
+    private VersionDefinitionXml m_vdf;
+
+    private Set<String> m_servicesInUpgrade;
+
+    private RequestSnapshot(UpgradeCheckRequest request) {
+      m_request = request;
+    }
+
+    private synchronized VersionDefinitionXml getVersionDefinitionXml() throws AmbariException {
+      if (!m_vdfLoaded) {
+        m_vdf = loadVersionDefinitionXml(m_request);
+        m_vdfLoaded = true;
+      }
+      return m_vdf;
+    }
+
+    private synchronized Set<String> getServicesInUpgrade() throws AmbariException {
+      if (null == m_servicesInUpgrade) {
+        m_servicesInUpgrade = Collections.unmodifiableSet(loadServicesInUpgrade(m_request));
+      }
+      return m_servicesInUpgrade;
+    }
+  }
+
   /**
    * The {@link ServiceQualification} class is used to determine if the
    * service(s) associated with an upgraade check are both installed in the
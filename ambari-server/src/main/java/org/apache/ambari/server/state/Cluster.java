@@ -135,6 +135,16 @@ public interface Cluster {
    * @return collection of hosts that are associated with this cluster
    */
   Collection<Host> getHosts();
+
+  /**
+   * Gets the version of the cluster's topology. The version changes whenever a
+   * host is mapped to or unmapped from the cluster and whenever a host
+   * component is added or removed, so it can be used to tell whether
+   * information derived from the topology is still current.
+   *
+   * @return the topology version.
+   */
+  long getTopologyVersion();
   default Set<String> getHostNames() { return getHosts().stream().map(Host::getHostName).collect(toSet()); }
 
   /**
@@ -31,6 +31,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -97,11 +99,11 @@ public class ConfigHelper {
   private final Cache<Integer, Boolean> staleConfigsCache;
 
   /**
-   * clusterId -> hostId -> serviceName -> serviceComponentName -> state map to reduce redundant updates sending.
+   * clusterId -> materialized stale configs state of the cluster's host components. Updated whenever
+   * the restart required flag of a host component is written or its configs change, so that listing
+   * host components looks the state up instead of recomputing it for each of them.
    */
-  private final Map<Long, Map<Long, Map<String, Map<String, Boolean>>>> stateCache = new HashMap<>();
-
-  private final Cache<Integer, String> refreshConfigCommandCache;
+  private final ConcurrentMap<Long, StaleConfigsState> staleConfigsStates = new ConcurrentHashMap<>();
 
   private static final Logger LOG =
       LoggerFactory.getLogger(ConfigHelper.class);
@@ -150,6 +152,9 @@ public class ConfigHelper {
   @Inject
   private ServiceConfigDAO serviceConfigDAO;
 
+  @Inject
+  private EffectiveConfigCache effectiveConfigCache;
+
   @Inject
   public ConfigHelper(Clusters c, AmbariMetaInfo metaInfo, Configuration configuration, ClusterDAO clusterDAO) {
     clusters = c;
@@ -159,9 +164,6 @@ public class ConfigHelper {
     STALE_CONFIGS_CACHE_EXPIRATION_TIME = configuration.staleConfigCacheExpiration();
     staleConfigsCache = CacheBuilder.newBuilder().
         expireAfterWrite(STALE_CONFIGS_CACHE_EXPIRATION_TIME, TimeUnit.SECONDS).build();
-
-    refreshConfigCommandCache = CacheBuilder.newBuilder().
-            expireAfterWrite(STALE_CONFIGS_CACHE_EXPIRATION_TIME, TimeUnit.SECONDS).build();
   }
 
   /**
@@ -305,6 +307,24 @@ public class ConfigHelper {
   public Map<String, Map<String, String>> getEffectiveConfigProperties(
       Cluster cluster, Map<String, Map<String, String>> desiredTags) {
 
+    if (null == effectiveConfigCache || null == cluster || null == desiredTags) {
+      return mergeEffectiveConfigProperties(cluster, desiredTags);
+    }
+    return effectiveConfigCache.get(cluster, desiredTags,
+        () -> mergeEffectiveConfigProperties(cluster, desiredTags));
+  }
+
+  /**
+   * Merges the config properties of the given desired tags.
+   *
+   * @param cluster
+   * @param desiredTags
+   * @return {type : {key, value}}
+   * @see #getEffectiveConfigProperties(Cluster, Map)
+   */
+  private Map<String, Map<String, String>> mergeEffectiveConfigProperties(
+      Cluster cluster, Map<String, Map<String, String>> desiredTags) {
+
     Map<String, Map<String, String>> properties = new HashMap<>();
 
     if (desiredTags != null) {
@@ -580,6 +600,12 @@ public class ConfigHelper {
    */
   public boolean isStaleConfigs(ServiceComponentHost sch, Map<String, DesiredConfig> requestDesiredConfigs)
       throws AmbariException {
+    if (STALE_CONFIGS_CACHE_ENABLED) {
+      Boolean restartRequired = getStaleConfigsState(sch.getClusterId()).getRestartRequired(sch);
+      if (null != restartRequired && (restartRequired || MapUtils.isEmpty(sch.getActualConfigs()))) {
+        return restartRequired;
+      }
+    }
     HostComponentDesiredStateEntity hostComponentDesiredStateEntity = sch.getDesiredStateEntity();
     return isStaleConfigs(sch, requestDesiredConfigs, hostComponentDesiredStateEntity);
   }
@@ -1461,7 +1487,11 @@ public class ConfigHelper {
   private boolean calculateIsStaleConfigs(ServiceComponentHost sch, Map<String, DesiredConfig> desiredConfigs,
                                           HostComponentDesiredStateEntity hostComponentDesiredStateEntity) throws AmbariException {
 
-    if (sch.isRestartRequired(hostComponentDesiredStateEntity)) {
+    boolean restartRequired = sch.isRestartRequired(hostComponentDesiredStateEntity);
+    if (STALE_CONFIGS_CACHE_ENABLED) {
+      getStaleConfigsState(sch.getClusterId()).setRestartRequired(sch, restartRequired);
+    }
+    if (restartRequired) {
       return true;
     }
 
@@ -1543,9 +1573,7 @@ public class ConfigHelper {
 
     if (STALE_CONFIGS_CACHE_ENABLED) {
       staleConfigsCache.put(staleHash, stale);
-      if (refreshCommand != null) {
-        refreshConfigCommandCache.put(staleHash, refreshCommand);
-      }
+      getStaleConfigsState(sch.getClusterId()).setRefreshCommand(sch, refreshCommand);
     }
 
     // gather all changed properties and see if we can find a common refreshConfigs command for this component
@@ -1692,26 +1720,53 @@ public class ConfigHelper {
    * @return true if value from cache is different from {@param staleConfigs}.
    */
   public boolean wasStaleConfigsStatusUpdated(Long clusterId, Long hostId, String serviceName, String hostComponentName, Boolean staleConfigs) {
-    if (!stateCache.containsKey(clusterId)) {
-      stateCache.put(clusterId, new HashMap<>());
-    }
-    Map<Long, Map<String, Map<String, Boolean>>> hosts = stateCache.get(clusterId);
-    if (!hosts.containsKey(hostId)) {
-      hosts.put(hostId, new HashMap<>());
+    return getStaleConfigsState(clusterId).setPublished(hostId, serviceName, hostComponentName, staleConfigs);
+  }
+
+  /**
+   * Records the restart required flag written for a host component, so that its stale configs status
+   * is looked up instead of being read from its desired state.
+   * @param sch host component.
+   * @param restartRequired the restart required flag.
+   */
+  public void updateRestartRequired(ServiceComponentHost sch, boolean restartRequired) {
+    if (STALE_CONFIGS_CACHE_ENABLED) {
+      getStaleConfigsState(sch.getClusterId()).setRestartRequired(sch, restartRequired);
     }
-    Map<String, Map<String, Boolean>> services = hosts.get(hostId);
-    if (!services.containsKey(serviceName)) {
-      services.put(serviceName, new HashMap<>());
+  }
+
+  /**
+   * Forgets the stale configs state of an uninstalled host component.
+   * @param clusterId cluster id.
+   * @param hostName host name.
+   * @param hostId host id, or {@code null} if unknown.
+   * @param serviceName service name.
+   * @param componentName component name.
+   */
+  public void removeStaleConfigsState(long clusterId, String hostName, Long hostId, String serviceName,
+                                      String componentName) {
+    StaleConfigsState staleConfigsState = staleConfigsStates.get(clusterId);
+    if (null != staleConfigsState) {
+      staleConfigsState.removeHostComponent(hostName, hostId, serviceName, componentName);
     }
-    Map<String, Boolean> hostComponents = services.get(serviceName);
-    if (staleConfigs.equals(hostComponents.get(hostComponentName))) {
-      return false;
-    } else {
-      hostComponents.put(hostComponentName, staleConfigs);
-      return true;
+  }
+
+  /**
+   * Forgets the stale configs state of the host components of removed hosts.
+   * @param hostNames names of the removed hosts.
+   * @param hostIds ids of the removed hosts.
+   */
+  public void removeStaleConfigsStates(Set<String> hostNames, Set<Long> hostIds) {
+    for (StaleConfigsState staleConfigsState : staleConfigsStates.values()) {
+      staleConfigsState.removeHosts(hostNames, hostIds);
     }
   }
 
+  private StaleConfigsState getStaleConfigsState(long clusterId) {
+    return staleConfigsStates.computeIfAbsent(clusterId,
+        id -> new StaleConfigsState(STALE_CONFIGS_CACHE_EXPIRATION_TIME));
+  }
+
   /**
    * Checks configs are stale for specified host component.
    * @param sch host component to check.
@@ -1722,13 +1777,9 @@ public class ConfigHelper {
   public boolean checkStaleConfigsStatusForHostComponent(ServiceComponentHost sch,
                                                          Map<String, Collection<String>> changedConfigs) throws AmbariException {
     HostComponentDesiredStateEntity hostComponentDesiredStateEntity = sch.getDesiredStateEntity();
-    if (sch.isRestartRequired(hostComponentDesiredStateEntity)) {
-      return true;
-    }
+    boolean restartRequired = sch.isRestartRequired(hostComponentDesiredStateEntity);
     boolean stale = false;
 
-    Cluster cluster = clusters.getClusterById(sch.getClusterId());
-
     StackId stackId = sch.getServiceComponent().getDesiredStackId();
 
     StackInfo stackInfo = ambariMetaInfo.getStack(stackId);
@@ -1749,21 +1800,18 @@ public class ConfigHelper {
       }
     }
 
-    String refreshCommand = calculateRefreshCommand(stackInfo.getRefreshCommandConfiguration(), sch, changedProperties);
-
-    Map<String, HostConfig> actual = sch.getActualConfigs();
+    if (restartRequired) {
+      // the refresh command of the earlier changes doesn't cover these ones
+      if (STALE_CONFIGS_CACHE_ENABLED && stale) {
+        getStaleConfigsState(sch.getClusterId()).setRefreshCommand(sch, null);
+      }
+      return true;
+    }
 
-    Map<String, Map<String, String>> desired = getEffectiveDesiredTags(cluster, sch.getHostName(),cluster.getDesiredConfigs());
+    String refreshCommand = calculateRefreshCommand(stackInfo.getRefreshCommandConfiguration(), sch, changedProperties);
 
     if (STALE_CONFIGS_CACHE_ENABLED) {
-      if (refreshCommand != null) {
-        int staleHash = Objects.hashCode(actual.hashCode(),
-            desired.hashCode(),
-            sch.getHostName(),
-            sch.getServiceComponentName(),
-            sch.getServiceName());
-        refreshConfigCommandCache.put(staleHash, refreshCommand);
-      }
+      getStaleConfigsState(sch.getClusterId()).setRefreshCommand(sch, refreshCommand);
     }
 
     return stale;
@@ -1851,17 +1899,8 @@ public class ConfigHelper {
 
   public String getRefreshConfigsCommand(Cluster cluster, ServiceComponentHost sch) throws AmbariException {
     String refreshCommand = null;
-
-    Map<String, HostConfig> actual = sch.getActualConfigs();
     if (STALE_CONFIGS_CACHE_ENABLED) {
-      Map<String, Map<String, String>> desired = getEffectiveDesiredTags(cluster, sch.getHostName(),
-              cluster.getDesiredConfigs());
-      int staleHash = Objects.hashCode(actual.hashCode(),
-              desired.hashCode(),
-              sch.getHostName(),
-              sch.getServiceComponentName(),
-              sch.getServiceName());
-      refreshCommand = refreshConfigCommandCache.getIfPresent(staleHash);
+      refreshCommand = getStaleConfigsState(sch.getClusterId()).getRefreshCommand(sch);
     }
     return refreshCommand;
   }
@@ -99,6 +99,9 @@ public class ConfigImpl implements Config {
   @Inject
   private ServiceConfigDAO serviceConfigDAO;
 
+  @Inject
+  private EffectiveConfigCache effectiveConfigCache;
+
   private final AmbariEventPublisher eventPublisher;
 
   @AssistedInject
@@ -326,6 +329,7 @@ public class ConfigImpl implements Config {
     } finally {
       propertyLock.writeLock().unlock();
     }
+    invalidateEffectiveConfigs();
   }
 
   @Override
@@ -341,6 +345,7 @@ public class ConfigImpl implements Config {
     } finally {
       propertyLock.writeLock().unlock();
     }
+    invalidateEffectiveConfigs();
   }
 
   @Override
@@ -362,6 +367,18 @@ public class ConfigImpl implements Config {
     } finally {
       propertyLock.writeLock().unlock();
     }
+    invalidateEffectiveConfigs();
+  }
+
+  /**
+   * Discards the merged configurations of the cluster which may include the
+   * properties of this configuration.
+   */
+  private void invalidateEffectiveConfigs() {
+    // properties are set from the constructor, before members are injected
+    if (null != effectiveConfigCache) {
+      effectiveConfigCache.invalidate(cluster.getClusterName());
+    }
   }
 
   /**
@@ -426,6 +443,9 @@ public class ConfigImpl implements Config {
       // re-load the entity associations for the cluster
       cluster.refresh();
 
+      // merged configurations must not wait for the change event
+      invalidateEffectiveConfigs();
+
       // broadcast the change event for the configuration
       ClusterConfigChangedEvent event = new ClusterConfigChangedEvent(cluster.getClusterName(),
           getType(), getTag(), getVersion());
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.ClusterConfigChangedEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the effective configuration properties merged by
+ * {@link ConfigHelper#getEffectiveConfigProperties(Cluster, Map)}.
+ * <p/>
+ * Entries are keyed by the cluster and the effective desired tags of a host.
+ * The tags identify the desired version of every configuration type together
+ * with the overrides of the config groups the host belongs to, so changing the
+ * desired configurations or the membership of a config group yields a new key
+ * instead of requiring an invalidation, and all hosts with the same tags share
+ * one entry. Only changes to the properties of an existing configuration
+ * version invalidate the entries of its cluster; these are reported by
+ * {@link Config#save()} and by {@link ClusterConfigChangedEvent}.
+ */
+@Singleton
+public class EffectiveConfigCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EffectiveConfigCache.class);
+
+  /**
+   * The merged configurations, or {@code null} if the cache is disabled.
+   */
+  private final Cache<CacheKey, Map<String, Map<String, String>>> cache;
+
+  /**
+   * Incremented on every invalidation so that a configuration merged while
+   * the cache was invalidated is not stored.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  @Inject
+  public EffectiveConfigCache(Configuration configuration, AmbariEventPublisher eventPublisher) {
+    int size = configuration.getEffectiveConfigCacheSize();
+    cache = size > 0 ? CacheBuilder.newBuilder().maximumSize(size).build() : null;
+
+    eventPublisher.register(this);
+  }
+
+  /**
+   * Gets the effective configuration properties for the given desired tags,
+   * merging them with the given loader if they are not cached.
+   *
+   * @param cluster
+   *          the cluster.
+   * @param desiredTags
+   *          the effective desired tags, as returned by
+   *          {@link ConfigHelper#getEffectiveDesiredTags(Cluster, String)}.
+   * @param loader
+   *          merges the configuration properties.
+   * @return a copy of the effective configuration properties which the caller
+   *         may modify.
+   */
+  public Map<String, Map<String, String>> get(Cluster cluster, Map<String, Map<String, String>> desiredTags,
+      Supplier<Map<String, Map<String, String>>> loader) {
+    if (null == cache) {
+      return loader.get();
+    }
+
+    CacheKey key = new CacheKey(cluster.getClusterName(), desiredTags);
+    Map<String, Map<String, String>> properties = cache.getIfPresent(key);
+    if (null != properties) {
+      hits.incrementAndGet();
+      return copy(properties);
+    }
+
+    misses.incrementAndGet();
+    long loadGeneration = generation.get();
+    properties = loader.get();
+
+    Map<String, Map<String, String>> cached = copy(properties);
+    if (loadGeneration == generation.get()) {
+      cache.put(key, Collections.unmodifiableMap(cached));
+
+      // an invalidation may have run before the entry was put
+      if (loadGeneration != generation.get()) {
+        cache.invalidate(key);
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Discards the cached configurations of the given cluster.
+   *
+   * @param clusterName
+   *          the cluster name.
+   */
+  public void invalidate(String clusterName) {
+    generation.incrementAndGet();
+    invalidations.incrementAndGet();
+    if (null != cache) {
+      cache.asMap().keySet().removeIf(key -> key.clusterName.equals(clusterName));
+    }
+    LOG.debug("Invalidated the effective configurations of cluster {}", clusterName);
+  }
+
+  /**
+   * Discards the cached configurations of a cluster whose configuration
+   * properties changed.
+   *
+   * @param event
+   *          the change event.
+   */
+  @Subscribe
+  @AllowConcurrentEvents
+  public void onClusterConfigChanged(ClusterConfigChangedEvent event) {
+    invalidate(event.getClusterName());
+  }
+
+  /**
+   * Gets the statistics of the cache. The counters are reset by this call so
+   * that each invocation reports the interval since the previous one.
+   *
+   * @return the statistics.
+   */
+  public CacheStatistics getStatistics() {
+    return new CacheStatistics(hits.getAndSet(0), misses.getAndSet(0), invalidations.getAndSet(0),
+        null == cache ? 0 : cache.size());
+  }
+
+  private static Map<String, Map<String, String>> copy(Map<String, Map<String, String>> properties) {
+    Map<String, Map<String, String>> copy = new HashMap<>(properties.size() * 2);
+    for (Entry<String, Map<String, String>> entry : properties.entrySet()) {
+      copy.put(entry.getKey(), new HashMap<>(entry.getValue()));
+    }
+    return copy;
+  }
+
+  /**
+   * The key of a cache entry.
+   */
+  private static final class CacheKey {
+    private final String clusterName;
+    private final Map<String, Map<String, String>> desiredTags;
+    private final int hashCode;
+
+    private CacheKey(String clusterName, Map<String, Map<String, String>> desiredTags) {
+      this.clusterName = clusterName;
+      this.desiredTags = new HashMap<>(desiredTags.size() * 2);
+      for (Entry<String, Map<String, String>> entry : desiredTags.entrySet()) {
+        this.desiredTags.put(entry.getKey(), new HashMap<>(entry.getValue()));
+      }
+      hashCode = 31 * clusterName.hashCode() + this.desiredTags.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return hashCode == that.hashCode && clusterName.equals(that.clusterName)
+          && desiredTags.equals(that.desiredTags);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The statistics of the cache since the previous call to
+   * {@link EffectiveConfigCache#getStatistics()}.
+   */
+  public static final class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long invalidations;
+    private final long size;
+
+    CacheStatistics(long hits, long misses, long invalidations, long size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.invalidations = invalidations;
+      this.size = size;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache.
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * @return the number of lookups which merged the configurations.
+     */
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * @return the number of cluster invalidations.
+     */
+    public long getInvalidations() {
+      return invalidations;
+    }
+
+    /**
+     * @return the current number of entries.
+     */
+    public long getSize() {
+      return size;
+    }
+  }
+}
@@ -325,6 +325,7 @@ public class ServiceComponentImpl implements ServiceComponent {
       ClusterImpl clusterImpl = (ClusterImpl) service.getCluster();
       clusterImpl.addServiceComponentHost(hostComponent);
       hostComponents.put(hostComponent.getHostName(), hostComponent);
+      topologyChanged();
     } finally {
       readWriteLock.writeLock().unlock();
     }
@@ -546,6 +547,7 @@ public class ServiceComponentImpl implements ServiceComponent {
       }
 
       hostComponents.clear();
+      topologyChanged();
     } finally {
       readWriteLock.writeLock().unlock();
     }
@@ -570,12 +572,23 @@ public class ServiceComponentImpl implements ServiceComponent {
       }
       sch.delete(deleteMetaData);
       hostComponents.remove(hostname);
+      topologyChanged();
 
     } finally {
       readWriteLock.writeLock().unlock();
     }
   }
 
+  /**
+   * Notifies the cluster that the hosts of this component have changed.
+   */
+  private void topologyChanged() {
+    Cluster cluster = service.getCluster();
+    if (cluster instanceof ClusterImpl) {
+      ((ClusterImpl) cluster).topologyChanged();
+    }
+  }
+
   @Override
   @Transactional
   public void delete(DeleteHostComponentStatusMetaData deleteMetaData) {
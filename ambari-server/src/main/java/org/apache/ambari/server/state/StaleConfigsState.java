@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The materialized stale configs state of the host components of one cluster.
+ * <p/>
+ * Every host component is assigned a dense index the first time it is seen,
+ * and the index is reused once the host component or its host is removed.
+ * The state keeps, per index:
+ * <ul>
+ * <li>whether the component has to be restarted to pick up its configurations,
+ * as last written to its desired state;</li>
+ * <li>the command which refreshes the changed configurations without a restart,
+ * if there is one, for as long as the stale configs cache keeps entries;</li>
+ * <li>the stale configs status last sent to the UI.</li>
+ * </ul>
+ * The restart required state is only answered for the
+ * {@link ServiceComponentHost} instance it was recorded for, so that a host
+ * component which was deleted and added again is read from its entity.
+ */
+final class StaleConfigsState {
+
+  /**
+   * host name/service name/component name -> index
+   */
+  private final Map<String, Integer> indexes = new HashMap<>();
+
+  /**
+   * host id/service name/component name -> index of the published status
+   */
+  private final Map<String, Integer> publishedIndexes = new HashMap<>();
+
+  /**
+   * The host component each restart required bit was recorded for.
+   */
+  private final List<ServiceComponentHost> components = new ArrayList<>();
+
+  private final BitSet restartRequiredKnown = new BitSet();
+  private final BitSet restartRequired = new BitSet();
+
+  private final BitSet publishedKnown = new BitSet();
+  private final BitSet published = new BitSet();
+
+  /**
+   * Indexes of removed host components, which are assigned before new ones.
+   */
+  private final Deque<Integer> freeIndexes = new ArrayDeque<>();
+
+  /**
+   * Indexes of removed published statuses, which are assigned before new ones.
+   */
+  private final Deque<Integer> freePublishedIndexes = new ArrayDeque<>();
+
+  /**
+   * index -> refresh command
+   */
+  private final Map<Integer, RefreshCommand> refreshCommands = new HashMap<>();
+
+  /**
+   * The time, in nanoseconds, a refresh command is kept after it was recorded.
+   */
+  private final long refreshCommandExpiration;
+
+  /**
+   * Constructor.
+   *
+   * @param refreshCommandExpiration
+   *          the time, in seconds, a refresh command is kept after it was
+   *          recorded.
+   */
+  StaleConfigsState(long refreshCommandExpiration) {
+    this.refreshCommandExpiration = TimeUnit.SECONDS.toNanos(refreshCommandExpiration);
+  }
+
+  /**
+   * Gets the recorded restart required state of a host component.
+   *
+   * @param sch
+   *          the host component.
+   * @return the state, or {@code null} if none was recorded for this host
+   *         component.
+   */
+  synchronized Boolean getRestartRequired(ServiceComponentHost sch) {
+    Integer index = indexes.get(getKey(sch));
+    if (null == index || !restartRequiredKnown.get(index) || components.get(index) != sch) {
+      return null;
+    }
+    return restartRequired.get(index);
+  }
+
+  /**
+   * Records the restart required state of a host component. The refresh command
+   * of the component is discarded once it was restarted.
+   *
+   * @param sch
+   *          the host component.
+   * @param stale
+   *          whether the component has to be restarted.
+   * @return {@code true} if the state differs from the previously recorded one.
+   */
+  synchronized boolean setRestartRequired(ServiceComponentHost sch, boolean stale) {
+    int index = getIndex(getKey(sch));
+    boolean changed = !restartRequiredKnown.get(index) || components.get(index) != sch
+        || restartRequired.get(index) != stale;
+
+    if (!stale && restartRequired.get(index)) {
+      refreshCommands.remove(index);
+    }
+    components.set(index, sch);
+    restartRequiredKnown.set(index);
+    restartRequired.set(index, stale);
+    return changed;
+  }
+
+  /**
+   * @param sch
+   *          the host component.
+   * @return the command refreshing the changed configurations of the host
+   *         component, or {@code null} if there is none.
+   */
+  synchronized String getRefreshCommand(ServiceComponentHost sch) {
+    Integer index = indexes.get(getKey(sch));
+    RefreshCommand refreshCommand = null == index ? null : refreshCommands.get(index);
+    if (null == refreshCommand) {
+      return null;
+    }
+
+    if (System.nanoTime() - refreshCommand.recordedAt >= refreshCommandExpiration) {
+      refreshCommands.remove(index);
+      return null;
+    }
+    return refreshCommand.command;
+  }
+
+  /**
+   * @param sch
+   *          the host component.
+   * @param refreshCommand
+   *          the command refreshing the changed configurations of the host
+   *          component, or {@code null} if it has to be restarted instead.
+   */
+  synchronized void setRefreshCommand(ServiceComponentHost sch, String refreshCommand) {
+    int index = getIndex(getKey(sch));
+    if (null == refreshCommand) {
+      refreshCommands.remove(index);
+    } else {
+      refreshCommands.put(index, new RefreshCommand(refreshCommand));
+    }
+  }
+
+  /**
+   * Records the stale configs status sent to the UI for a host component.
+   *
+   * @return {@code true} if the status differs from the previously sent one.
+   */
+  synchronized boolean setPublished(Long hostId, String serviceName, String componentName, boolean stale) {
+    String key = hostId + "/" + serviceName + "/" + componentName;
+    Integer index = publishedIndexes.get(key);
+    if (null == index) {
+      index = freePublishedIndexes.isEmpty() ? publishedIndexes.size() : freePublishedIndexes.pop();
+      publishedIndexes.put(key, index);
+    }
+    if (publishedKnown.get(index) && published.get(index) == stale) {
+      return false;
+    }
+    publishedKnown.set(index);
+    published.set(index, stale);
+    return true;
+  }
+
+  /**
+   * Forgets a host component which was uninstalled.
+   *
+   * @param hostName
+   *          the name of the host.
+   * @param hostId
+   *          the ID of the host, or {@code null} if it is unknown.
+   * @param serviceName
+   *          the service of the host component.
+   * @param componentName
+   *          the component of the host component.
+   */
+  synchronized void removeHostComponent(String hostName, Long hostId, String serviceName,
+      String componentName) {
+    Integer index = indexes.remove(hostName + "/" + serviceName + "/" + componentName);
+    if (null != index) {
+      release(index);
+    }
+
+    if (null != hostId) {
+      Integer publishedIndex = publishedIndexes.remove(hostId + "/" + serviceName + "/" + componentName);
+      if (null != publishedIndex) {
+        releasePublished(publishedIndex);
+      }
+    }
+  }
+
+  /**
+   * Forgets all host components of the removed hosts.
+   *
+   * @param hostNames
+   *          the names of the removed hosts.
+   * @param hostIds
+   *          the IDs of the removed hosts.
+   */
+  synchronized void removeHosts(Collection<String> hostNames, Collection<Long> hostIds) {
+    for (Iterator<Map.Entry<String, Integer>> iterator = indexes.entrySet().iterator(); iterator.hasNext();) {
+      Map.Entry<String, Integer> entry = iterator.next();
+      String key = entry.getKey();
+      if (hostNames.contains(key.substring(0, key.indexOf('/')))) {
+        iterator.remove();
+        release(entry.getValue());
+      }
+    }
+
+    for (Iterator<Map.Entry<String, Integer>> iterator = publishedIndexes.entrySet().iterator(); iterator.hasNext();) {
+      Map.Entry<String, Integer> entry = iterator.next();
+      String key = entry.getKey();
+      if (hostIds.contains(Long.valueOf(key.substring(0, key.indexOf('/'))))) {
+        iterator.remove();
+        releasePublished(entry.getValue());
+      }
+    }
+  }
+
+  private int getIndex(String key) {
+    Integer index = indexes.get(key);
+    if (null == index) {
+      if (freeIndexes.isEmpty()) {
+        index = components.size();
+        components.add(null);
+      } else {
+        index = freeIndexes.pop();
+      }
+      indexes.put(key, index);
+    }
+    return index;
+  }
+
+  private void release(int index) {
+    components.set(index, null);
+    restartRequiredKnown.clear(index);
+    restartRequired.clear(index);
+    refreshCommands.remove(index);
+    freeIndexes.push(index);
+  }
+
+  private void releasePublished(int index) {
+    publishedKnown.clear(index);
+    published.clear(index);
+    freePublishedIndexes.push(index);
+  }
+
+  private static String getKey(ServiceComponentHost sch) {
+    return sch.getHostName() + "/" + sch.getServiceName() + "/" + sch.getServiceComponentName();
+  }
+
+  /**
+   * A refresh command and the time it was recorded at.
+   */
+  private static final class RefreshCommand {
+    private final String command;
+    private final long recordedAt = System.nanoTime();
+
+    private RefreshCommand(String command) {
+      this.command = command;
+    }
+  }
+}
@@ -20,11 +20,11 @@ package org.apache.ambari.server.state.alert;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -117,6 +117,16 @@ public class AlertDefinitionHash {
   private ConcurrentMap<String, ConcurrentMap<String, String>> m_hashes =
     new ConcurrentHashMap<>();
 
+  /**
+   * The hosts of every service component for any cluster, so that the hosts
+   * affected by a definition can be found without walking all of the host
+   * components of the cluster. The key is the cluster ID. The index of a
+   * cluster is kept up to date by the host component lifecycle events, and the
+   * host components of the cluster are added to it when it is first needed.
+   */
+  private final ConcurrentMap<Long, ComponentHostIndex> m_componentHosts =
+    new ConcurrentHashMap<>();
+
   /**
    * Gets a unique hash value reprssenting all of the alert definitions that
    * should be scheduled to run on a given host.
@@ -143,17 +153,37 @@ public class AlertDefinitionHash {
       }
     }
 
-    String hash = clusterMapping.get(hostName);
+    String hash = clusterMapping.get(clusterName);
     if (null != hash) {
       return hash;
     }
 
-    hash = hash(clusterName, hostName);
+    hash = hash(getAlertDefinitionEntities(clusterName, hostName));
     clusterMapping.put(clusterName, hash);
 
     return hash;
   }
 
+  /**
+   * Gets the hash of the specified host, calculating it from the given alert
+   * definitions of the host if it is not cached.
+   *
+   * @param clusterName
+   *          the cluster name (not {@code null}).
+   * @param hostName
+   *          the host name (not {@code null}).
+   * @param definitions
+   *          the alert definitions of the host (not {@code null}).
+   * @return the unique hash or {@value #NULL_MD5_HASH} if none.
+   */
+  private String getHash(String clusterName, String hostName,
+      Set<AlertDefinitionEntity> definitions) {
+    ConcurrentMap<String, String> clusterMapping = m_hashes.computeIfAbsent(
+        hostName, key -> new ConcurrentHashMap<>());
+
+    return clusterMapping.computeIfAbsent(clusterName, key -> hash(definitions));
+  }
+
   /**
    * Invalidate all cached hashes causing subsequent lookups to recalculate.
    */
@@ -161,6 +191,76 @@ public class AlertDefinitionHash {
     m_hashes.clear();
   }
 
+  /**
+   * Adds the specified host component to the index of the hosts of each
+   * service component.
+   *
+   * @param clusterId
+   *          the ID of the cluster.
+   * @param serviceName
+   *          the service name (not {@code null}).
+   * @param componentName
+   *          the component name (not {@code null}).
+   * @param hostName
+   *          the host name (not {@code null}).
+   * @param masterComponent
+   *          {@code true} if the component is a master component.
+   */
+  public void addComponentHost(long clusterId, String serviceName,
+      String componentName, String hostName, boolean masterComponent) {
+    // the host component may not be part of the cluster yet, so it is added
+    // even if the host components of the cluster have not been loaded
+    m_componentHosts.computeIfAbsent(clusterId, id -> new ComponentHostIndex())
+      .add(serviceName, componentName, hostName, masterComponent);
+  }
+
+  /**
+   * Removes the specified host component from the index of the hosts of each
+   * service component.
+   *
+   * @param clusterId
+   *          the ID of the cluster.
+   * @param serviceName
+   *          the service name (not {@code null}).
+   * @param componentName
+   *          the component name (not {@code null}).
+   * @param hostName
+   *          the host name (not {@code null}).
+   */
+  public void removeComponentHost(long clusterId, String serviceName,
+      String componentName, String hostName) {
+    // host components are uninstalled when a cluster is deleted, so this does
+    // not create an index which would outlive the cluster
+    ComponentHostIndex index = m_componentHosts.get(clusterId);
+    if (null != index) {
+      index.remove(serviceName, componentName, hostName);
+    }
+  }
+
+  /**
+   * Removes the specified hosts from the index of the hosts of each service
+   * component of every cluster.
+   *
+   * @param hostNames
+   *          the hosts which were removed (not {@code null}).
+   */
+  public void removeHosts(Collection<String> hostNames) {
+    for (ComponentHostIndex index : m_componentHosts.values()) {
+      index.removeHosts(hostNames);
+    }
+  }
+
+  /**
+   * Removes the index of the hosts of each service component of the specified
+   * cluster.
+   *
+   * @param clusterId
+   *          the ID of the cluster which was deleted.
+   */
+  public void removeCluster(long clusterId) {
+    m_componentHosts.remove(clusterId);
+  }
+
   /**
    * Invalidates the cached hash for the specified agent host across all
    * clusters.
@@ -361,18 +461,15 @@ public class AlertDefinitionHash {
       return Collections.emptySet();
     }
 
-    String clusterName = cluster.getClusterName();
-    Map<String, Host> hosts = m_clusters.get().getHostsForCluster(clusterName);
-    Set<String> affectedHosts = new HashSet<>();
-
     String ambariServiceName = RootService.AMBARI.name();
     String agentComponentName = RootComponent.AMBARI_AGENT.name();
 
     // intercept host agent alerts; they affect all hosts
     if (ambariServiceName.equals(definitionServiceName)
         && agentComponentName.equals(definitionComponentName)) {
-      affectedHosts.addAll(hosts.keySet());
-      return affectedHosts;
+      String clusterName = cluster.getClusterName();
+      Map<String, Host> hosts = m_clusters.get().getHostsForCluster(clusterName);
+      return new HashSet<>(hosts.keySet());
     }
 
     // ignore other AMBARI components as they are server-side only
@@ -381,50 +478,40 @@ public class AlertDefinitionHash {
     }
 
     // find all hosts that have the matching service and component
-    for (String hostName : hosts.keySet()) {
-      List<ServiceComponentHost> hostComponents = cluster.getServiceComponentHosts(hostName);
-      if (null == hostComponents || hostComponents.size() == 0) {
-        continue;
-      }
-
-      // if a host has a matching service/component, invalidate it
-      for (ServiceComponentHost component : hostComponents) {
-        String serviceName = component.getServiceName();
-        String componentName = component.getServiceComponentName();
-        if (serviceName.equals(definitionServiceName)
-            && componentName.equals(definitionComponentName)) {
-          affectedHosts.add(hostName);
-        }
-      }
-    }
+    ComponentHostIndex index = getComponentHostIndex(cluster);
+    Set<String> affectedHosts = index.getHosts(definitionServiceName,
+        definitionComponentName);
 
     // get the service that this alert definition is associated with
-    Map<String, Service> services = cluster.getServices();
-    Service service = services.get(definitionServiceName);
-    if (null == service) {
+    if (!cluster.getServices().containsKey(definitionServiceName)) {
       LOG.warn("The alert definition {} has an unknown service of {}",
           definitionName, definitionServiceName);
 
       return affectedHosts;
     }
 
-    // get all master components of the definition's service; any hosts that
-    // run the master should be invalidated as well
-    Map<String, ServiceComponent> components = service.getServiceComponents();
-    if (null != components) {
-      for (Entry<String, ServiceComponent> component : components.entrySet()) {
-        if (component.getValue().isMasterComponent()) {
-          Map<String, ServiceComponentHost> componentHosts = component.getValue().getServiceComponentHosts();
-          if (null != componentHosts) {
-            affectedHosts.addAll(componentHosts.keySet());
-          }
-        }
-      }
-    }
-
+    // any hosts that run a master component of the definition's service
+    // should be invalidated as well
+    affectedHosts.addAll(index.getMasterHosts(definitionServiceName));
     return affectedHosts;
   }
 
+  /**
+   * Gets the index of the hosts of each service component of the specified
+   * cluster, adding the host components of the cluster to it if needed.
+   *
+   * @param cluster
+   *          the cluster (not {@code null}).
+   * @return the index (never {@code null}).
+   */
+  private ComponentHostIndex getComponentHostIndex(Cluster cluster) {
+    ComponentHostIndex index = m_componentHosts.computeIfAbsent(
+        cluster.getClusterId(), id -> new ComponentHostIndex());
+
+    index.load(cluster);
+    return index;
+  }
+
   /**
    * Enqueue {@link AlertDefinitionCommand}s for every host in the cluster so
    * that they will receive a payload of alert definitions that they should be
@@ -508,28 +595,37 @@ public class AlertDefinitionHash {
       return;
     }
 
+    // build the commands before taking the lock; the definitions of each host
+    // are looked up once and only the hashes which were invalidated are
+    // calculated again
+    Map<String, AlertDefinitionCommand> commands = new HashMap<>();
+    for (String hostName : hosts) {
+      Set<AlertDefinitionEntity> entities = getAlertDefinitionEntities(
+          clusterName, hostName);
+
+      List<AlertDefinition> definitions = coerce(entities);
+      String hash = getHash(clusterName, hostName, entities);
+
+      Host host = cluster.getHost(hostName);
+      String publicHostName = host == null? hostName : host.getPublicHostName();
+      AlertDefinitionCommand command = new AlertDefinitionCommand(
+          clusterName, hostName, publicHostName, hash, definitions);
+
+      try {
+        command.addConfigs(m_configHelper.get(), cluster);
+      } catch (AmbariException ae) {
+        LOG.warn("Unable to add configurations to alert definition command",
+            ae);
+      }
+
+      commands.put(hostName, command);
+    }
+
     try {
       m_actionQueueLock.lock();
-      for (String hostName : hosts) {
-        List<AlertDefinition> definitions = getAlertDefinitions(clusterName,
-            hostName);
-
-        String hash = getHash(clusterName, hostName);
-
-        Host host = cluster.getHost(hostName);
-        String publicHostName = host == null? hostName : host.getPublicHostName();
-        AlertDefinitionCommand command = new AlertDefinitionCommand(
-            clusterName, hostName, publicHostName, hash, definitions);
-
-        try {
-          command.addConfigs(m_configHelper.get(), cluster);
-        } catch (AmbariException ae) {
-          LOG.warn("Unable to add configurations to alert definition command",
-              ae);
-        }
-
+      for (Entry<String, AlertDefinitionCommand> command : commands.entrySet()) {
         // TODO implement alert execution commands logic
-        //m_actionQueue.enqueue(hostName, command);
+        //m_actionQueue.enqueue(command.getKey(), command.getValue());
       }
     } finally {
       m_actionQueueLock.unlock();
@@ -542,34 +638,22 @@ public class AlertDefinitionHash {
    * {@link SourceType#AGGREGATE} are not included in the hash since they are
    * not run on the agents.
    *
-   * @param clusterName
-   *          the cluster name (not {@code null}).
-   * @param hostName
-   *          the host name (not {@code null}).
+   * @param definitions
+   *          the alert definitions of the host (not {@code null}).
    * @return the unique hash or {@value #NULL_MD5_HASH} if none.
    */
-  private String hash(String clusterName, String hostName) {
-    Set<AlertDefinitionEntity> definitions = getAlertDefinitionEntities(
-        clusterName,
-        hostName);
-
+  private String hash(Set<AlertDefinitionEntity> definitions) {
     // no definitions found for this host, don't bother hashing
     if(definitions.isEmpty()) {
       return NULL_MD5_HASH;
     }
 
-    // strip out all AGGREGATE types
-    Iterator<AlertDefinitionEntity> iterator = definitions.iterator();
-    while (iterator.hasNext()) {
-      if (SourceType.AGGREGATE.equals(iterator.next().getSourceType())) {
-        iterator.remove();
-      }
-    }
-
-    // build the UUIDs
+    // build the UUIDs, stripping out all AGGREGATE types
     List<String> uuids = new ArrayList<>(definitions.size());
     for (AlertDefinitionEntity definition : definitions) {
-      uuids.add(definition.getHash());
+      if (!SourceType.AGGREGATE.equals(definition.getSourceType())) {
+        uuids.add(definition.getHash());
+      }
     }
 
     // sort the UUIDs so that the digest is created with bytes in the same order
@@ -631,22 +715,8 @@ public class AlertDefinitionHash {
           }
         }
 
-        // for every service, get the master components and see if the host
-        // is a master
-        Set<String> services = new HashSet<>();
-        for (Entry<String, Service> entry : cluster.getServices().entrySet()) {
-          Service service = entry.getValue();
-          Map<String, ServiceComponent> components = service.getServiceComponents();
-          for (Entry<String, ServiceComponent> component : components.entrySet()) {
-            if (component.getValue().isMasterComponent()) {
-              Map<String, ServiceComponentHost> hosts = component.getValue().getServiceComponentHosts();
-
-              if (hosts.containsKey(hostName)) {
-                services.add(service.getName());
-              }
-            }
-          }
-        }
+        // get the services for which the host is a master
+        Set<String> services = getComponentHostIndex(cluster).getMasterServices(hostName);
 
         // add all service scoped alerts
         if (services.size() > 0) {
@@ -682,4 +752,166 @@ public class AlertDefinitionHash {
       .collect(Collectors.toMap(AlertDefinition::getDefinitionId, Function.identity()));
   }
 
+  /**
+   * The {@link ComponentHostIndex} maps each service component of a cluster to
+   * the hosts it is installed on, and keeps track of the master components of
+   * each service.
+   * <p/>
+   * Host components can be added and removed before the host components of the
+   * cluster are loaded. Since a removed host component may still be part of
+   * the cluster while it is loaded, it is not loaded again unless it is added.
+   */
+  private static final class ComponentHostIndex {
+
+    /**
+     * Set once the host components of the cluster have been loaded.
+     */
+    private boolean m_loaded = false;
+
+    /**
+     * The host components removed before the cluster was loaded, as service,
+     * component and host names.
+     */
+    private final Set<List<String>> m_removedComponentHosts = new HashSet<>();
+
+    /**
+     * The hosts removed before the cluster was loaded.
+     */
+    private final Set<String> m_removedHosts = new HashSet<>();
+
+    /**
+     * The hosts of each component, by service name and component name.
+     */
+    private final Map<String, Map<String, Set<String>>> m_hosts = new HashMap<>();
+
+    /**
+     * The master components of each service.
+     */
+    private final Map<String, Set<String>> m_masterComponents = new HashMap<>();
+
+    /**
+     * Adds the host components of the cluster, unless they have been loaded
+     * already.
+     */
+    private synchronized void load(Cluster cluster) {
+      if (m_loaded) {
+        return;
+      }
+
+      for (Entry<String, Service> service : cluster.getServices().entrySet()) {
+        Map<String, ServiceComponent> components = service.getValue().getServiceComponents();
+        if (null == components) {
+          continue;
+        }
+
+        for (Entry<String, ServiceComponent> component : components.entrySet()) {
+          Map<String, ServiceComponentHost> componentHosts = component.getValue().getServiceComponentHosts();
+          if (null == componentHosts) {
+            continue;
+          }
+
+          boolean masterComponent = component.getValue().isMasterComponent();
+          for (String hostName : componentHosts.keySet()) {
+            if (!m_removedHosts.contains(hostName) && !m_removedComponentHosts.contains(
+                Arrays.asList(service.getKey(), component.getKey(), hostName))) {
+              add(service.getKey(), component.getKey(), hostName, masterComponent);
+            }
+          }
+        }
+      }
+
+      m_removedComponentHosts.clear();
+      m_removedHosts.clear();
+      m_loaded = true;
+    }
+
+    private synchronized void add(String serviceName, String componentName,
+        String hostName, boolean masterComponent) {
+      if (!m_loaded) {
+        m_removedComponentHosts.remove(Arrays.asList(serviceName, componentName, hostName));
+      }
+
+      m_hosts.computeIfAbsent(serviceName, key -> new HashMap<>())
+        .computeIfAbsent(componentName, key -> new HashSet<>()).add(hostName);
+
+      if (masterComponent) {
+        m_masterComponents.computeIfAbsent(serviceName, key -> new HashSet<>()).add(componentName);
+      }
+    }
+
+    private synchronized void remove(String serviceName, String componentName,
+        String hostName) {
+      if (!m_loaded) {
+        m_removedComponentHosts.add(Arrays.asList(serviceName, componentName, hostName));
+      }
+
+      Map<String, Set<String>> components = m_hosts.get(serviceName);
+      if (null == components) {
+        return;
+      }
+
+      Set<String> hosts = components.get(componentName);
+      if (null != hosts) {
+        hosts.remove(hostName);
+      }
+    }
+
+    private synchronized void removeHosts(Collection<String> hostNames) {
+      if (!m_loaded) {
+        m_removedHosts.addAll(hostNames);
+      }
+
+      for (Map<String, Set<String>> components : m_hosts.values()) {
+        for (Set<String> hosts : components.values()) {
+          hosts.removeAll(hostNames);
+        }
+      }
+    }
+
+    /**
+     * @return a copy of the hosts of the component, never {@code null}.
+     */
+    private synchronized Set<String> getHosts(String serviceName, String componentName) {
+      Map<String, Set<String>> components = m_hosts.get(serviceName);
+      if (null == components || !components.containsKey(componentName)) {
+        return new HashSet<>();
+      }
+
+      return new HashSet<>(components.get(componentName));
+    }
+
+    /**
+     * @return the hosts of all master components of the service, never
+     *         {@code null}.
+     */
+    private synchronized Set<String> getMasterHosts(String serviceName) {
+      Set<String> masterHosts = new HashSet<>();
+      for (String componentName : m_masterComponents.getOrDefault(serviceName, Collections.emptySet())) {
+        masterHosts.addAll(getHosts(serviceName, componentName));
+      }
+
+      return masterHosts;
+    }
+
+    /**
+     * @return the services with a master component on the host, never
+     *         {@code null}.
+     */
+    private synchronized Set<String> getMasterServices(String hostName) {
+      Set<String> services = new HashSet<>();
+      for (Entry<String, Set<String>> entry : m_masterComponents.entrySet()) {
+        Map<String, Set<String>> components = m_hosts.get(entry.getKey());
+        for (String componentName : entry.getValue()) {
+          Set<String> hosts = components.get(componentName);
+          if (null != hosts && hosts.contains(hostName)) {
+            services.add(entry.getKey());
+            break;
+          }
+        }
+      }
+
+      return services;
+    }
+  }
+
 }
@@ -39,6 +39,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -191,8 +193,12 @@ public class ClusterImpl implements Cluster {
 
   /**
    * [ Config Type -> [ Config Version Tag -> Config ] ]
+   * <p/>
+   * Readers access this map without locking. {@link #cacheConfigurations()}
+   * replaces the whole map instead of clearing and refilling it so that readers
+   * never observe a partially populated cache.
    */
-  private final ConcurrentMap<String, ConcurrentMap<String, Config>> allConfigs = new ConcurrentHashMap<>();
+  private volatile ConcurrentMap<String, ConcurrentMap<String, Config>> allConfigs = new ConcurrentHashMap<>();
 
   /**
    * [ ServiceName -> [ ServiceComponentName -> [ HostName -> [ ... ] ] ] ]
@@ -204,6 +210,11 @@ public class ClusterImpl implements Cluster {
    */
   private final ConcurrentMap<String, List<ServiceComponentHost>> serviceComponentHostsByHost = new ConcurrentHashMap<>();
 
+  /**
+   * Incremented after every change of the hosts or host components of this cluster.
+   */
+  private final AtomicLong topologyVersion = new AtomicLong();
+
   /**
    * Map of existing config groups
    */
@@ -214,8 +225,28 @@ public class ClusterImpl implements Cluster {
    */
   private final Map<Long, RequestExecution> requestExecutions = new ConcurrentHashMap<>();
 
+  /**
+   * Guards cluster-wide structural changes such as stack changes, service
+   * removal and reloading the configuration cache. Operations scoped to a
+   * single configuration type or service hold the read side of this lock and
+   * then the write side of the matching stripe in {@link #configTypeLocks} or
+   * {@link #serviceLocks}. Locks are always acquired in the order global lock,
+   * config type stripes (sorted by type), service stripe.
+   */
   private final ReadWriteLock clusterGlobalLock;
 
+  /**
+   * [ Config Type -> Lock ] Serializes writes of configurations of the same type.
+   */
+  private final ConcurrentMap<String, ReadWriteLock> configTypeLocks = new ConcurrentHashMap<>();
+
+  /**
+   * [ ServiceName -> Lock ] Serializes the creation of service config versions
+   * of the same service, and the changes of desired configurations of a
+   * service until their service config version is created.
+   */
+  private final ConcurrentMap<String, ReadWriteLock> serviceLocks = new ConcurrentHashMap<>();
+
   /**
    * The unique ID of the {@link @ClusterEntity}.
    */
@@ -1181,30 +1212,22 @@ public class ClusterImpl implements Cluster {
 
   @Override
   public Map<String, Config> getConfigsByType(String configType) {
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (!allConfigs.containsKey(configType)) {
-        return null;
-      }
-
-      return Collections.unmodifiableMap(allConfigs.get(configType));
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+    ConcurrentMap<String, Config> configs = allConfigs.get(configType);
+    if (null == configs) {
+      return null;
     }
+
+    return Collections.unmodifiableMap(configs);
   }
 
   @Override
   public Config getConfig(String configType, String versionTag) {
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (!allConfigs.containsKey(configType)
-          || !allConfigs.get(configType).containsKey(versionTag)) {
-        return null;
-      }
-      return allConfigs.get(configType).get(versionTag);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+    ConcurrentMap<String, Config> configs = allConfigs.get(configType);
+    if (null == configs || null == versionTag) {
+      return null;
     }
+
+    return configs.get(versionTag);
   }
 
   @Override
@@ -1225,22 +1248,18 @@ public class ClusterImpl implements Cluster {
 
   @Override
   public Config getConfigByVersion(String configType, Long configVersion) {
-    clusterGlobalLock.readLock().lock();
-    try {
-      if (!allConfigs.containsKey(configType)) {
-        return null;
-      }
+    ConcurrentMap<String, Config> configs = allConfigs.get(configType);
+    if (null == configs) {
+      return null;
+    }
 
-      for (Map.Entry<String, Config> entry : allConfigs.get(configType).entrySet()) {
-        if (entry.getValue().getVersion().equals(configVersion)) {
-          return entry.getValue();
-        }
+    for (Config config : configs.values()) {
+      if (config.getVersion().equals(configVersion)) {
+        return config;
       }
-
-      return null;
-    } finally {
-      clusterGlobalLock.readLock().unlock();
     }
+
+    return null;
   }
 
   @Override
@@ -1249,30 +1268,27 @@ public class ClusterImpl implements Cluster {
       throw new IllegalArgumentException("Config type cannot be empty");
     }
 
-    clusterGlobalLock.writeLock().lock();
+    Lock configTypeLock = getConfigTypeLock(config.getType()).writeLock();
+    clusterGlobalLock.readLock().lock();
     try {
-      if (!allConfigs.containsKey(config.getType())) {
-        allConfigs.put(config.getType(), new ConcurrentHashMap<>());
+      configTypeLock.lock();
+      try {
+        allConfigs.computeIfAbsent(config.getType(), type -> new ConcurrentHashMap<>()).put(config.getTag(), config);
+      } finally {
+        configTypeLock.unlock();
       }
-
-      allConfigs.get(config.getType()).put(config.getTag(), config);
     } finally {
-      clusterGlobalLock.writeLock().unlock();
+      clusterGlobalLock.readLock().unlock();
     }
   }
 
   @Override
   public Collection<Config> getAllConfigs() {
-    clusterGlobalLock.readLock().lock();
-    try {
-      List<Config> list = new ArrayList<>();
-      for (Entry<String, ConcurrentMap<String, Config>> entry : allConfigs.entrySet()) {
-        list.addAll(entry.getValue().values());
-      }
-      return Collections.unmodifiableList(list);
-    } finally {
-      clusterGlobalLock.readLock().unlock();
+    List<Config> list = new ArrayList<>();
+    for (Entry<String, ConcurrentMap<String, Config>> entry : allConfigs.entrySet()) {
+      list.addAll(entry.getValue().values());
     }
+    return Collections.unmodifiableList(list);
   }
 
   @Override
@@ -1443,7 +1459,7 @@ public class ClusterImpl implements Cluster {
 
       refresh(); // update one-to-many clusterServiceEntities
       removeEntities();
-      allConfigs.clear();
+      allConfigs = new ConcurrentHashMap<>();
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -1479,11 +1495,23 @@ public class ClusterImpl implements Cluster {
       throw new NullPointerException("User must be specified.");
     }
 
-    clusterGlobalLock.writeLock().lock();
-    try {
-      if (configs == null) {
-        return null;
+    if (configs == null) {
+      return null;
+    }
+
+    Set<String> configTypes = new TreeSet<>();
+    for (Config config : configs) {
+      if (null != config) {
+        configTypes.add(config.getType());
       }
+    }
+
+    // desired configs of unrelated types can be changed concurrently, and
+    // neither blocks readers of the cluster
+    List<Lock> configTypeWriteLocks = Collections.emptyList();
+    clusterGlobalLock.readLock().lock();
+    try {
+      configTypeWriteLocks = lockConfigTypesForWrite(configTypes);
 
       Iterator<Config> configIterator = configs.iterator();
 
@@ -1502,12 +1530,91 @@ public class ClusterImpl implements Cluster {
         }
       }
 
-      ServiceConfigVersionResponse serviceConfigVersionResponse = applyConfigs(
-          configs, user, serviceConfigVersionNote);
+      // the service config version is a snapshot of the selected configs of
+      // all types of the service, so other types of the same service must not
+      // change until it is created
+      String serviceName = getServiceForConfigTypes(
+          configs.stream().map(Config::getType).collect(toList()));
+      Lock serviceLock = null == serviceName ? null : getServiceLock(serviceName).writeLock();
+      if (null != serviceLock) {
+        serviceLock.lock();
+      }
 
-      return serviceConfigVersionResponse;
+      try {
+        ServiceConfigVersionResponse serviceConfigVersionResponse = applyConfigs(
+            configs, user, serviceConfigVersionNote);
+
+        return serviceConfigVersionResponse;
+      } finally {
+        if (null != serviceLock) {
+          serviceLock.unlock();
+        }
+      }
     } finally {
-      clusterGlobalLock.writeLock().unlock();
+      unlockAll(configTypeWriteLocks);
+      clusterGlobalLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the lock stripe for the given configuration type, creating it on
+   * first use.
+   *
+   * @param configType
+   *          the configuration type (not {@code null}).
+   * @return the lock for the type
+   */
+  private ReadWriteLock getConfigTypeLock(String configType) {
+    return configTypeLocks.computeIfAbsent(configType,
+        type -> lockFactory.newReadWriteLock("clusterConfigTypeLock[" + clusterName + "/" + type + "]"));
+  }
+
+  /**
+   * Gets the lock stripe for the given service, creating it on first use.
+   *
+   * @param serviceName
+   *          the service name, or {@code null} for cluster level
+   *          configurations.
+   * @return the lock for the service
+   */
+  private ReadWriteLock getServiceLock(@Nullable String serviceName) {
+    String key = StringUtils.defaultString(serviceName);
+    return serviceLocks.computeIfAbsent(key,
+        name -> lockFactory.newReadWriteLock("clusterServiceLock[" + clusterName + "/" + name + "]"));
+  }
+
+  /**
+   * Acquires the write locks of the given configuration types. The types are
+   * locked in their natural order so that writers of overlapping sets of types
+   * can not deadlock. The caller must hold the read lock of
+   * {@link #clusterGlobalLock}.
+   *
+   * @param configTypes
+   *          the types to lock
+   * @return the acquired locks, which must be released with
+   *         {@link #unlockAll(List)}
+   */
+  private List<Lock> lockConfigTypesForWrite(Collection<String> configTypes) {
+    List<Lock> locks = new ArrayList<>(configTypes.size());
+    try {
+      for (String configType : new TreeSet<>(configTypes)) {
+        Lock lock = getConfigTypeLock(configType).writeLock();
+        lock.lock();
+        locks.add(lock);
+      }
+    } catch (RuntimeException e) {
+      unlockAll(locks);
+      throw e;
+    }
+    return locks;
+  }
+
+  /**
+   * Releases the locks in the reverse order of their acquisition.
+   */
+  private static void unlockAll(List<Lock> locks) {
+    for (int i = locks.size() - 1; i >= 0; i--) {
+      locks.get(i).unlock();
     }
   }
 
@@ -1559,12 +1666,12 @@ public class ClusterImpl implements Cluster {
           desiredConfig.setServiceName(null);
           desiredConfig.setTag(configEntity.getTag());
 
-          if (!allConfigs.containsKey(configEntity.getType())) {
+          Map<String, Config> configMap = allConfigs.get(configEntity.getType());
+          if (null == configMap) {
             LOG.error("An inconsistency exists for configuration {}", configEntity.getType());
             continue;
           }
 
-          Map<String, Config> configMap = allConfigs.get(configEntity.getType());
           if(!configMap.containsKey(configEntity.getTag())) {
             LOG.error("An inconsistency exists for the configuration {} with tag {}",
                 configEntity.getType(), configEntity.getTag());
@@ -1628,7 +1735,11 @@ public class ClusterImpl implements Cluster {
     // Create next service config version
     ServiceConfigEntity serviceConfigEntity = new ServiceConfigEntity();
 
-    clusterGlobalLock.writeLock().lock();
+    // the service lock keeps the version numbers of a service unique without
+    // stalling config changes of other services
+    Lock serviceLock = getServiceLock(serviceName).writeLock();
+    clusterGlobalLock.readLock().lock();
+    serviceLock.lock();
     try {
       ClusterEntity clusterEntity = getClusterEntity();
       // set config group
@@ -1683,7 +1794,8 @@ public class ClusterImpl implements Cluster {
       STOMPUpdatePublisher.publish(new ConfigsUpdateEvent(serviceConfigEntity,
           configGroup == null ? null : configGroup.getName(), groupHostNames, changedConfigs.keySet()));
     } finally {
-      clusterGlobalLock.writeLock().unlock();
+      serviceLock.unlock();
+      clusterGlobalLock.readLock().unlock();
     }
 
     String configGroupName = configGroup == null ? ServiceConfigVersionResponse.DEFAULT_CONFIG_GROUP_NAME : configGroup.getName();
@@ -2033,10 +2145,15 @@ public class ClusterImpl implements Cluster {
     // update the selected flag for every config type
     ClusterEntity clusterEntity = getClusterEntity();
     Collection<ClusterConfigEntity> clusterConfigs = clusterEntity.getClusterConfigEntities();
+
+    // only the entities of the types being applied are merged back, since other
+    // types may be changed concurrently by another thread
+    Set<ClusterConfigEntity> changedClusterConfigs = new HashSet<>();
     for (Config config: configs) {
       for (ClusterConfigEntity clusterConfigEntity : clusterConfigs) {
         // unset for this config type
         if (StringUtils.equals(clusterConfigEntity.getType(), config.getType())) {
+          changedClusterConfigs.add(clusterConfigEntity);
           clusterConfigEntity.setSelected(false);
 
           // unless both the tag and type match, then enable it
@@ -2048,7 +2165,7 @@ public class ClusterImpl implements Cluster {
       }
     }
 
-    clusterDAO.merge(clusterConfigs);
+    clusterDAO.merge(changedClusterConfigs);
 
     if (serviceName == null) {
       ArrayList<String> configTypes = new ArrayList<>();
@@ -2316,6 +2433,19 @@ public class ClusterImpl implements Cluster {
     return clusters.getHostsForCluster(clusterName).values();
   }
 
+  @Override
+  public long getTopologyVersion() {
+    return topologyVersion.get();
+  }
+
+  /**
+   * Must be invoked after the hosts or host components of this cluster have
+   * changed.
+   */
+  public void topologyChanged() {
+    topologyVersion.incrementAndGet();
+  }
+
   private ClusterHealthReport getClusterHealthReport(
       Map<String, Host> clusterHosts) throws AmbariException {
 
@@ -2682,20 +2812,14 @@ public class ClusterImpl implements Cluster {
     clusterGlobalLock.writeLock().lock();
     try {
       ClusterEntity clusterEntity = getClusterEntity();
-      allConfigs.clear();
-
-      if (!clusterEntity.getClusterConfigEntities().isEmpty()) {
-        for (ClusterConfigEntity entity : clusterEntity.getClusterConfigEntities()) {
-
-          if (!allConfigs.containsKey(entity.getType())) {
-            allConfigs.put(entity.getType(), new ConcurrentHashMap<>());
-          }
+      ConcurrentMap<String, ConcurrentMap<String, Config>> configs = new ConcurrentHashMap<>();
 
-          Config config = configFactory.createExisting(this, entity);
-
-          allConfigs.get(entity.getType()).put(entity.getTag(), config);
-        }
+      for (ClusterConfigEntity entity : clusterEntity.getClusterConfigEntities()) {
+        Config config = configFactory.createExisting(this, entity);
+        configs.computeIfAbsent(entity.getType(), type -> new ConcurrentHashMap<>()).put(entity.getTag(), config);
       }
+
+      allConfigs = configs;
     } finally {
       clusterGlobalLock.writeLock().unlock();
     }
@@ -82,6 +82,7 @@ import org.apache.ambari.server.state.HostHealthStatus.HealthStatus;
 import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.SecurityType;
 import org.apache.ambari.server.state.StackId;
+import org.apache.ambari.server.state.alert.AlertDefinitionHash;
 import org.apache.ambari.server.state.configgroup.ConfigGroup;
 import org.apache.ambari.server.state.host.HostFactory;
 import org.apache.ambari.server.topology.TopologyManager;
@@ -163,6 +164,12 @@ public class ClustersImpl implements Clusters {
   @Inject
   private Provider<AmbariManagementControllerImpl> m_ambariManagementController;
 
+  /**
+   * Used to forget the host components of deleted clusters.
+   */
+  @Inject
+  private Provider<AlertDefinitionHash> m_alertDefinitionHash;
+
   @Inject
   public ClustersImpl(ClusterDAO clusterDAO, ClusterFactory clusterFactory, HostDAO hostDAO,
       HostFactory hostFactory) {
@@ -659,6 +666,7 @@ public class ClustersImpl implements Clusters {
     mapHostClusterEntities(hostname, clusterId);
     hostClustersMap.get(hostname).add(cluster);
     getClusterHostsMap().get(clusterName).add(host);
+    topologyChanged(cluster);
   }
 
   @Transactional
@@ -746,6 +754,8 @@ public class ClustersImpl implements Clusters {
     }
     getClusterHostsMap().remove(cluster.getClusterName());
     getClustersByName().remove(clusterName);
+
+    m_alertDefinitionHash.get().removeCluster(cluster.getClusterId());
   }
 
   @Override
@@ -780,6 +790,7 @@ public class ClustersImpl implements Clusters {
 
       getHostClustersMap().get(hostname).remove(cluster);
       getClusterHostsMap().get(cluster.getClusterName()).remove(host);
+      topologyChanged(cluster);
     }
 
     deleteConfigGroupHostMapping(hostEntity.getHostId());
@@ -949,6 +960,12 @@ public class ClustersImpl implements Clusters {
 
   // ----- helper methods ---------------------------------------------------
 
+  private void topologyChanged(Cluster cluster) {
+    if (cluster instanceof ClusterImpl) {
+      ((ClusterImpl) cluster).topologyChanged();
+    }
+  }
+
   /**
    * Find the cluster for the given name.
    *
@@ -23,12 +23,19 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -80,6 +87,12 @@ import com.google.inject.Inject;
  * In order to control throttling requests to the same endpoint,
  * {@link Configuration#isMetricsServiceRequestTTLCacheEnabled()} can be enabled
  * to allow for a fixed interval of time to pass between requests.
+ * <p/>
+ * The number of requests made to a single host at the same time is bounded by
+ * {@link Configuration#getMetricsServiceMaxRequestsPerHost()}. Requests beyond
+ * this limit are parked per host and handed to the executor as the earlier
+ * requests complete, so that a slow host neither ties up the threads of the
+ * service nor receives a burst of connections.
  */
 @AmbariService
 public class MetricsRetrievalService extends AbstractService {
@@ -176,6 +189,17 @@ public class MetricsRetrievalService extends AbstractService {
    */
   private int m_queueMaximumSize;
 
+  /**
+   * The maximum number of concurrent requests to a single host, or {@code 0}
+   * if requests are not limited per host.
+   */
+  private int m_maxRequestsPerHost;
+
+  /**
+   * The running and waiting requests of every host which currently has any.
+   */
+  private final Map<String, HostRequests> m_hostRequests = new ConcurrentHashMap<>();
+
   /**
    * Constructor.
    *
@@ -217,7 +241,8 @@ public class MetricsRetrievalService extends AbstractService {
         TimeUnit.SECONDS, m_queueMaximumSize);
 
     m_threadPoolExecutor.allowCoreThreadTimeOut(true);
-    m_threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+    m_threadPoolExecutor.setRejectedExecutionHandler(new DiscardOldestRequestPolicy());
+    m_maxRequestsPerHost = m_configuration.getMetricsServiceMaxRequestsPerHost();
 
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat(
         "ambari-metrics-retrieval-service-thread-%d").setPriority(
@@ -227,8 +252,8 @@ public class MetricsRetrievalService extends AbstractService {
     m_threadPoolExecutor.setThreadFactory(threadFactory);
 
     LOG.info(
-        "Initializing the Metrics Retrieval Service with core={}, max={}, workerQueue={}, threadPriority={}",
-        corePoolSize, maxPoolSize, m_queueMaximumSize, threadPriority);
+        "Initializing the Metrics Retrieval Service with core={}, max={}, workerQueue={}, threadPriority={}, maxRequestsPerHost={}",
+        corePoolSize, maxPoolSize, m_queueMaximumSize, threadPriority, m_maxRequestsPerHost);
 
     if (ttlCacheEnabled) {
       LOG.info("Metrics Retrieval Service request TTL cache is enabled and set to {} seconds",
@@ -246,6 +271,16 @@ public class MetricsRetrievalService extends AbstractService {
     m_threadPoolExecutor = threadPoolExecutor;
   }
 
+  /**
+   * Testing method for getting the number of hosts which have running or
+   * waiting requests.
+   *
+   * @return the number of hosts with requests.
+   */
+  int getHostsWithRequestsCount() {
+    return m_hostRequests.size();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -259,6 +294,7 @@ public class MetricsRetrievalService extends AbstractService {
     }
 
     m_queuedUrls.clear();
+    m_hostRequests.clear();
     m_threadPoolExecutor.shutdownNow();
     notifyStopped();
   }
@@ -328,7 +364,45 @@ public class MetricsRetrievalService extends AbstractService {
     }
 
     if (null != runnable) {
+      execute(url, runnable);
+    }
+  }
+
+  /**
+   * Executes the request, or parks it until a slot is available if the host of
+   * the URL already has the maximum number of requests running.
+   *
+   * @param url
+   *          the URL being requested
+   * @param runnable
+   *          the request
+   */
+  private void execute(String url, Runnable runnable) {
+    if (m_maxRequestsPerHost <= 0) {
       m_threadPoolExecutor.execute(runnable);
+      return;
+    }
+
+    String host = getHost(url);
+
+    // the requests of a host are removed once it has none left, so retry with
+    // a new instance if the one found was removed concurrently
+    HostRequests hostRequests;
+    do {
+      hostRequests = m_hostRequests.computeIfAbsent(host, HostRequests::new);
+    } while (!hostRequests.submit(runnable));
+  }
+
+  /**
+   * Gets the host of the URL, falling back to the URL itself if it can not be
+   * parsed.
+   */
+  private static String getHost(String url) {
+    try {
+      String host = URI.create(url).getHost();
+      return null != host ? host : url;
+    } catch (IllegalArgumentException exception) {
+      return url;
     }
   }
 
@@ -463,6 +537,14 @@ public class MetricsRetrievalService extends AbstractService {
       }
     }
 
+    /**
+     * Invoked instead of {@link #run()} when the request is discarded because
+     * the worker queue is full, so that the URL can be requested again.
+     */
+    final void discarded() {
+      m_queuedUrls.remove(m_url);
+    }
+
     /**
      * Removes metric values for current URL from cache.
      */
@@ -617,6 +699,186 @@ public class MetricsRetrievalService extends AbstractService {
     }
   }
 
+  /**
+   * The requests of a single host. At most {@link #m_maxRequestsPerHost}
+   * requests are handed to the executor at once; the rest wait here. The
+   * instance removes itself from {@link #m_hostRequests} once the host has no
+   * running or waiting requests left.
+   */
+  private final class HostRequests {
+
+    private final String m_host;
+
+    /**
+     * Requests waiting for one of the running requests to complete.
+     */
+    private final Queue<Runnable> m_waiting = new ArrayDeque<>();
+
+    /**
+     * The number of requests handed to the executor and not yet completed.
+     */
+    private int m_running;
+
+    /**
+     * {@code true} once this instance was removed from
+     * {@link #m_hostRequests}, after which it accepts no more requests.
+     */
+    private boolean m_removed;
+
+    private HostRequests(String host) {
+      m_host = host;
+    }
+
+    /**
+     * Executes the request if the host has a free slot, otherwise parks it.
+     *
+     * @return {@code false} if this instance was already removed and the
+     *         request must be submitted to a new one.
+     */
+    private boolean submit(Runnable runnable) {
+      synchronized (this) {
+        if (m_removed) {
+          return false;
+        }
+
+        if (m_running >= m_maxRequestsPerHost) {
+          m_waiting.add(runnable);
+          return true;
+        }
+
+        m_running++;
+      }
+
+      m_threadPoolExecutor.execute(new HostRequest(this, runnable));
+      return true;
+    }
+
+    /**
+     * Hands the slot of a completed request to the next waiting request, if
+     * any.
+     */
+    private void release() {
+      Runnable next;
+      synchronized (this) {
+        next = m_waiting.poll();
+        if (null == next) {
+          m_running--;
+          removeIfIdle();
+          return;
+        }
+      }
+
+      m_threadPoolExecutor.execute(new HostRequest(this, next));
+    }
+
+    /**
+     * Frees the slot of a request discarded by the executor. Nothing is handed
+     * to the executor since its queue is full; the waiting requests are
+     * discarded as well and are made again the next time their metrics are
+     * requested.
+     */
+    private void discard() {
+      List<Runnable> waiting;
+      synchronized (this) {
+        m_running--;
+        waiting = new ArrayList<>(m_waiting);
+        m_waiting.clear();
+        removeIfIdle();
+      }
+
+      for (Runnable runnable : waiting) {
+        if (runnable instanceof MetricRunnable) {
+          ((MetricRunnable) runnable).discarded();
+        }
+      }
+    }
+
+    /**
+     * Removes this instance from {@link #m_hostRequests} if the host has no
+     * running or waiting requests. Must be called while holding the lock.
+     */
+    private void removeIfIdle() {
+      if (m_running == 0 && m_waiting.isEmpty()) {
+        m_removed = true;
+        m_hostRequests.remove(m_host, this);
+      }
+    }
+  }
+
+  /**
+   * A request which occupies a slot of its host while it runs.
+   */
+  private static final class HostRequest implements Runnable {
+
+    private final HostRequests m_hostRequests;
+    private final Runnable m_request;
+
+    private HostRequest(HostRequests hostRequests, Runnable request) {
+      m_hostRequests = hostRequests;
+      m_request = request;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+      try {
+        m_request.run();
+      } finally {
+        m_hostRequests.release();
+      }
+    }
+
+    /**
+     * Frees the slot of a request which will never run.
+     */
+    private void discarded() {
+      try {
+        if (m_request instanceof MetricRunnable) {
+          ((MetricRunnable) m_request).discarded();
+        }
+      } finally {
+        m_hostRequests.discard();
+      }
+    }
+  }
+
+  /**
+   * Discards the oldest queued request when the worker queue is full, like
+   * {@link ThreadPoolExecutor.DiscardOldestPolicy}, while making sure that the
+   * discarded request frees its host slot and can be requested again. The
+   * rejected request is queued in its place, or is discarded too if the queue
+   * filled up again in the meantime; it is not handed back to the executor,
+   * which could reject it again.
+   */
+  private static final class DiscardOldestRequestPolicy implements RejectedExecutionHandler {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        return;
+      }
+
+      discard(executor.getQueue().poll());
+
+      if (!executor.getQueue().offer(runnable)) {
+        discard(runnable);
+      }
+    }
+
+    private void discard(Runnable runnable) {
+      if (runnable instanceof HostRequest) {
+        ((HostRequest) runnable).discarded();
+      } else if (runnable instanceof MetricRunnable) {
+        ((MetricRunnable) runnable).discarded();
+      }
+    }
+  }
+
   /**
    * A default exception handler.
    */
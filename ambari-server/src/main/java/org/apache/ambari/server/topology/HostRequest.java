@@ -31,6 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ambari.server.actionmanager.HostRoleCommand;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.actionmanager.TaskBlobCodec;
 import org.apache.ambari.server.api.predicate.InvalidQueryException;
 import org.apache.ambari.server.api.predicate.PredicateCompiler;
 import org.apache.ambari.server.controller.internal.HostResourceProvider;
@@ -417,9 +418,9 @@ public class HostRequest implements Comparable<HostRequest> {
           //todo: may be handled at a higher level than physical task
           entity.setLastAttemptTime(physicalTask.getLastAttemptTime());
           entity.setOutputLog(physicalTask.getOutputLog());
-          entity.setStdError(physicalTask.getStderr().getBytes());
-          entity.setStdOut(physicalTask.getStdout().getBytes());
-          entity.setStructuredOut(physicalTask.getStructuredOut().getBytes());
+          entity.setStdError(TaskBlobCodec.encode(physicalTask.getStderr()));
+          entity.setStdOut(TaskBlobCodec.encode(physicalTask.getStdout()));
+          entity.setStructuredOut(TaskBlobCodec.encode(physicalTask.getStructuredOut()));
         }
       }
 
@@ -35,6 +35,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -45,6 +46,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -93,6 +95,12 @@ public class StageUtils {
   protected static final String IPV4_ADDRESSES = "all_ipv4_ips";
 
   private static Map<String, String> componentToClusterInfoKeyMap = new HashMap<>();
+
+  /**
+   * The last index of the hosts and host components of every cluster.
+   */
+  private static final Map<Cluster, ClusterTopology> clusterTopologies = Collections.synchronizedMap(new WeakHashMap<>());
+
   private volatile static Gson gson;
 
   @Inject
@@ -281,18 +289,27 @@ public class StageUtils {
     return componentName.toLowerCase()+"_hosts";
   }
 
+  /**
+   * Builds the clusterHostInfo section of an execution command. The index of
+   * the cluster's hosts and host components is built once per
+   * {@link Cluster#getTopologyVersion() topology version} and reused by all
+   * stages created until the topology changes; only the host attributes and
+   * the components pending in the topology manager are read on every call.
+   *
+   * @param cluster the cluster
+   * @return a new, modifiable clusterHostInfo map
+   * @throws AmbariException if the cluster's topology can not be read
+   */
   public static Map<String, Set<String>> getClusterHostInfo(Cluster cluster) throws AmbariException {
+    ClusterTopology topology = getClusterTopology(cluster);
+
     //Fill hosts and ports lists
-    Set<String>   hostsSet  = new LinkedHashSet<>();
+    Set<String>   hostsSet  = new LinkedHashSet<>(topology.hostNames);
     List<Integer> portsList = new ArrayList<>();
     List<String>  rackList  = new ArrayList<>();
     List<String>  ipV4List  = new ArrayList<>();
 
-    Collection<Host> allHosts = cluster.getHosts();
-    for (Host host : allHosts) {
-
-      hostsSet.add(host.getHostName());
-
+    for (Host host : topology.hosts) {
       Integer currentPingPort = host.getCurrentPingPort();
       portsList.add(currentPingPort == null ? DEFAULT_PING_PORT : currentPingPort);
 
@@ -304,9 +321,14 @@ public class StageUtils {
     }
 
     // add hosts from topology manager
+    Map<String, Integer> hostIndexes = topology.hostIndexes;
     Map<String, Collection<String>> pendingHostComponents = topologyManager.getPendingHostComponents();
     for (String hostname : pendingHostComponents.keySet()) {
-      if (!hostsSet.contains(hostname)) {
+      if (!hostIndexes.containsKey(hostname)) {
+        if (hostIndexes == topology.hostIndexes) {
+          hostIndexes = new HashMap<>(topology.hostIndexes);
+        }
+        hostIndexes.put(hostname, hostsSet.size());
         hostsSet.add(hostname);
         portsList.add(DEFAULT_PING_PORT);
         rackList.add(DEFAULT_RACK);
@@ -314,68 +336,26 @@ public class StageUtils {
       }
     }
 
-    List<String> hostsList = new ArrayList<>(hostsSet);
-    Map<String, String> additionalComponentToClusterInfoKeyMap = new HashMap<>();
-
-    // Fill hosts for services
-    Map<String, SortedSet<Integer>> hostRolesInfo = new HashMap<>();
-    for (Map.Entry<String, Service> serviceEntry : cluster.getServices().entrySet()) {
-
-      Service service = serviceEntry.getValue();
-
-      for (Map.Entry<String, ServiceComponent> serviceComponentEntry : service.getServiceComponents().entrySet()) {
-
-        ServiceComponent serviceComponent = serviceComponentEntry.getValue();
-        String componentName = serviceComponent.getName();
-
-        String roleName = componentToClusterInfoKeyMap.get(componentName);
-        if(null == roleName) {
-          roleName = additionalComponentToClusterInfoKeyMap.get(componentName);
-        }
-        if (null == roleName && !serviceComponent.isClientComponent()) {
-          roleName = componentName.toLowerCase() + "_hosts";
-          additionalComponentToClusterInfoKeyMap.put(componentName, roleName);
-        }
-
-        if (roleName == null) {
-          continue;
-        }
-
-        for (String hostName : serviceComponent.getServiceComponentHosts().keySet()) {
-
-          SortedSet<Integer> hostsForComponentsHost = hostRolesInfo.get(roleName);
-
-          if (hostsForComponentsHost == null) {
-            hostsForComponentsHost = new TreeSet<>();
-            hostRolesInfo.put(roleName, hostsForComponentsHost);
-          }
-
-          int hostIndex = hostsList.indexOf(hostName);
-          //Add index of host to current host role
-          hostsForComponentsHost.add(hostIndex);
-        }
-      }
-    }
-
-    // add components from topology manager
+    // add components from topology manager, only the roles they belong to
+    // need to be ranged again
+    Map<String, SortedSet<Integer>> pendingRolesInfo = new HashMap<>();
     for (Map.Entry<String, Collection<String>> entry : pendingHostComponents.entrySet()) {
       String hostname = entry.getKey();
       Collection<String> hostComponents = entry.getValue();
 
       for (String hostComponent : hostComponents) {
         String roleName = getClusterHostInfoKey(hostComponent);
-        SortedSet<Integer> hostsForComponentsHost = hostRolesInfo.get(roleName);
+        SortedSet<Integer> hostsForComponentsHost = pendingRolesInfo.get(roleName);
 
         if (hostsForComponentsHost == null) {
-          hostsForComponentsHost = new TreeSet<>();
-          hostRolesInfo.put(roleName, hostsForComponentsHost);
+          SortedSet<Integer> installedHosts = topology.hostRolesInfo.get(roleName);
+          hostsForComponentsHost = installedHosts == null ? new TreeSet<>() : new TreeSet<>(installedHosts);
+          pendingRolesInfo.put(roleName, hostsForComponentsHost);
         }
 
-        int hostIndex = hostsList.indexOf(hostname);
-        if (hostIndex != -1) {
-          if (!hostsForComponentsHost.contains(hostIndex)) {
-            hostsForComponentsHost.add(hostIndex);
-          }
+        Integer hostIndex = hostIndexes.get(hostname);
+        if (hostIndex != null) {
+          hostsForComponentsHost.add(hostIndex);
         } else {
           //todo: I don't think that this can happen
           //todo: determine if it can and if so, handle properly
@@ -387,12 +367,11 @@ public class StageUtils {
 
     Map<String, Set<String>> clusterHostInfo = new HashMap<>();
 
-    for (Map.Entry<String, SortedSet<Integer>> entry : hostRolesInfo.entrySet()) {
-      TreeSet<Integer> sortedSet = new TreeSet<>(entry.getValue());
-
-      Set<String> replacedRangesSet = replaceRanges(sortedSet);
-
-      clusterHostInfo.put(entry.getKey(), replacedRangesSet);
+    for (Map.Entry<String, Set<String>> entry : topology.rangedHostRolesInfo.entrySet()) {
+      clusterHostInfo.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    }
+    for (Map.Entry<String, SortedSet<Integer>> entry : pendingRolesInfo.entrySet()) {
+      clusterHostInfo.put(entry.getKey(), replaceRanges(entry.getValue()));
     }
 
     clusterHostInfo.put(HOSTS_LIST, hostsSet);
@@ -417,6 +396,20 @@ public class StageUtils {
     return clusterHostInfo;
   }
 
+  /**
+   * Gets the index of the cluster's hosts and host components, rebuilding it if
+   * the topology of the cluster changed since it was last built.
+   */
+  private static ClusterTopology getClusterTopology(Cluster cluster) {
+    long version = cluster.getTopologyVersion();
+    ClusterTopology topology = clusterTopologies.get(cluster);
+    if (topology == null || topology.version != version) {
+      topology = new ClusterTopology(cluster, version);
+      clusterTopologies.put(cluster, topology);
+    }
+    return topology;
+  }
+
   /**
    * Given a clusterHostInfo map, replaces host indexes with the mapped host names.
    * <p/>
@@ -639,4 +632,60 @@ public class StageUtils {
     }
     return componentHostsMap;
   }
+
+  /**
+   * The hosts and host components of a cluster at a given topology version,
+   * with the hosts indexed by name.
+   */
+  private static final class ClusterTopology {
+    private final long version;
+    private final List<Host> hosts;
+    private final List<String> hostNames;
+    private final Map<String, Integer> hostIndexes;
+    private final Map<String, SortedSet<Integer>> hostRolesInfo = new HashMap<>();
+    private final Map<String, Set<String>> rangedHostRolesInfo = new HashMap<>();
+
+    private ClusterTopology(Cluster cluster, long version) {
+      this.version = version;
+
+      hosts = new ArrayList<>(cluster.getHosts());
+      hostNames = new ArrayList<>(hosts.size());
+      hostIndexes = new HashMap<>();
+      for (Host host : hosts) {
+        hostIndexes.put(host.getHostName(), hostNames.size());
+        hostNames.add(host.getHostName());
+      }
+
+      // Fill hosts for services
+      Map<String, String> additionalComponentToClusterInfoKeyMap = new HashMap<>();
+      for (Service service : cluster.getServices().values()) {
+        for (ServiceComponent serviceComponent : service.getServiceComponents().values()) {
+          String componentName = serviceComponent.getName();
+
+          String roleName = componentToClusterInfoKeyMap.get(componentName);
+          if (null == roleName) {
+            roleName = additionalComponentToClusterInfoKeyMap.get(componentName);
+          }
+          if (null == roleName && !serviceComponent.isClientComponent()) {
+            roleName = componentName.toLowerCase() + "_hosts";
+            additionalComponentToClusterInfoKeyMap.put(componentName, roleName);
+          }
+
+          if (roleName == null) {
+            continue;
+          }
+
+          for (String hostName : serviceComponent.getServiceComponentHosts().keySet()) {
+            Integer hostIndex = hostIndexes.get(hostName);
+            //Add index of host to current host role
+            hostRolesInfo.computeIfAbsent(roleName, key -> new TreeSet<>()).add(hostIndex == null ? -1 : hostIndex);
+          }
+        }
+      }
+
+      for (Map.Entry<String, SortedSet<Integer>> entry : hostRolesInfo.entrySet()) {
+        rangedHostRolesInfo.put(entry.getKey(), replaceRanges(entry.getValue()));
+      }
+    }
+  }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * TaskBlobCodec tests.
+ */
+public class TaskBlobCodecTest {
+
+  private static final String LARGE_VALUE = "{\"configurations\":{\"hdfs-site\":{"
+      + StringUtils.repeat("\"dfs.property\":\"value\",", 200) + "}}}";
+
+  @After
+  public void teardown() {
+    setCompression(false, 1024);
+  }
+
+  @Test
+  public void testValuesAreStoredUnchangedWhenDisabled() {
+    setCompression(false, 0);
+
+    byte[] encoded = TaskBlobCodec.encode(LARGE_VALUE);
+    assertArrayEquals(LARGE_VALUE.getBytes(), encoded);
+    assertEquals(LARGE_VALUE, TaskBlobCodec.decode(encoded));
+  }
+
+  @Test
+  public void testLargeValuesAreCompressed() {
+    setCompression(true, 1024);
+
+    byte[] encoded = TaskBlobCodec.encode(LARGE_VALUE);
+    assertTrue(TaskBlobCodec.isCompressed(encoded));
+    assertTrue(encoded.length < LARGE_VALUE.length());
+    assertEquals(LARGE_VALUE, TaskBlobCodec.decode(encoded));
+
+    // small values are not worth compressing
+    byte[] small = TaskBlobCodec.encode("{}");
+    assertFalse(TaskBlobCodec.isCompressed(small));
+    assertEquals("{}", TaskBlobCodec.decode(small));
+  }
+
+  /**
+   * Tests that values stored in either mode can be read in the other one.
+   */
+  @Test
+  public void testDecodingIsIndependentOfMode() {
+    setCompression(true, 0);
+    byte[] compressed = TaskBlobCodec.encode(LARGE_VALUE);
+
+    setCompression(false, 0);
+    byte[] uncompressed = TaskBlobCodec.encode(LARGE_VALUE);
+    assertEquals(LARGE_VALUE, TaskBlobCodec.decode(compressed));
+
+    setCompression(true, 0);
+    assertEquals(LARGE_VALUE, TaskBlobCodec.decode(uncompressed));
+  }
+
+  @Test
+  public void testNullValues() {
+    setCompression(true, 0);
+    assertNull(TaskBlobCodec.encode(null));
+    assertNull(TaskBlobCodec.decode(null));
+    assertEquals("", TaskBlobCodec.decode(TaskBlobCodec.encode("")));
+  }
+
+  private static void setCompression(boolean enabled, int minSize) {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.TASK_BLOB_COMPRESSION_ENABLED.getKey(), String.valueOf(enabled));
+    properties.setProperty(Configuration.TASK_BLOB_COMPRESSION_MIN_SIZE.getKey(), String.valueOf(minSize));
+    TaskBlobCodec.setConfiguration(new Configuration(properties));
+  }
+}
@@ -57,6 +57,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.EntityManager;
@@ -75,6 +76,7 @@ import org.apache.ambari.server.agent.ExecutionCommand;
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.HostsMap;
 import org.apache.ambari.server.events.AmbariEvent;
+import org.apache.ambari.server.events.TaskEvent;
 import org.apache.ambari.server.events.publishers.AgentCommandsPublisher;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
 import org.apache.ambari.server.metadata.RoleCommandOrder;
@@ -127,6 +129,7 @@ import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
 import com.google.inject.persist.UnitOfWork;
 
 public class TestActionScheduler {
@@ -3210,6 +3213,154 @@ public class TestActionScheduler {
     EasyMock.verify(previousStage, nextStage, actionDBAccessor, hostRoleCommand);
   }
 
+  /**
+   * Tests that a task event wakes the event driven scheduler up and that,
+   * once the first full evaluation is done, only the stages of the changed
+   * request are read.
+   */
+  @Test
+  public void testEventDrivenSchedulerRunsOnTaskEvent() throws Exception {
+    Properties properties = new Properties();
+    properties.put(Configuration.ACTION_SCHEDULER_EVENT_DRIVEN.getKey(), "true");
+    properties.put(Configuration.ACTION_SCHEDULER_FULL_SCAN_INTERVAL.getKey(), "3600");
+    Configuration conf = new Configuration(properties);
+
+    CountDownLatch fullScan = new CountDownLatch(1);
+    CountDownLatch requestRead = new CountDownLatch(1);
+    ActionDBAccessor db = mock(ActionDBAccessorImpl.class);
+    doAnswer(invocation -> {
+      fullScan.countDown();
+      return 0;
+    }).when(db).getCommandsInProgressCount();
+    doAnswer(invocation -> {
+      requestRead.countDown();
+      return null;
+    }).when(db).getFirstStageInProgress(2L);
+
+    // the scheduler would only poll once an hour
+    ActionScheduler scheduler = new ActionScheduler(TimeUnit.HOURS.toMillis(1), 5, db, mock(Clusters.class),
+        3, new HostsMap((String) null), mock(UnitOfWork.class), null, conf, entityManagerProviderMock,
+        mock(HostRoleCommandDAO.class), null, mock(AgentCommandsPublisher.class));
+
+    scheduler.start();
+    try {
+      scheduler.onTaskEvent(createTaskEvent(1L));
+      assertTrue(fullScan.await(10, TimeUnit.SECONDS));
+
+      scheduler.onTaskEvent(createTaskEvent(2L));
+      assertTrue(requestRead.await(10, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+
+    verify(db, times(1)).getCommandsInProgressCount();
+    verify(db, times(0)).getFirstStageInProgress(1L);
+  }
+
+  /**
+   * Tests that a task event which is published from inside of a transaction
+   * only makes the event driven scheduler read the request once the
+   * transaction has completed.
+   */
+  @Test
+  public void testEventDrivenSchedulerWaitsForTransaction() throws Exception {
+    Properties properties = new Properties();
+    properties.put(Configuration.ACTION_SCHEDULER_EVENT_DRIVEN.getKey(), "true");
+    properties.put(Configuration.ACTION_SCHEDULER_FULL_SCAN_INTERVAL.getKey(), "3600");
+    Configuration conf = new Configuration(properties);
+
+    CountDownLatch fullScan = new CountDownLatch(1);
+    CountDownLatch requestRead = new CountDownLatch(1);
+    AtomicBoolean readInTransaction = new AtomicBoolean(false);
+    TaskUpdater taskUpdater = injector.getInstance(TaskUpdater.class);
+
+    ActionDBAccessor db = mock(ActionDBAccessorImpl.class);
+    doAnswer(invocation -> {
+      fullScan.countDown();
+      return 0;
+    }).when(db).getCommandsInProgressCount();
+    doAnswer(invocation -> {
+      readInTransaction.compareAndSet(false, taskUpdater.inTransaction);
+      requestRead.countDown();
+      return null;
+    }).when(db).getFirstStageInProgress(2L);
+
+    ActionScheduler scheduler = new ActionScheduler(TimeUnit.HOURS.toMillis(1), 5, db, mock(Clusters.class),
+        3, new HostsMap((String) null), mock(UnitOfWork.class), null, conf, entityManagerProviderMock,
+        mock(HostRoleCommandDAO.class), null, mock(AgentCommandsPublisher.class));
+
+    scheduler.start();
+    try {
+      scheduler.onTaskEvent(createTaskEvent(1L));
+      assertTrue(fullScan.await(10, TimeUnit.SECONDS));
+
+      // the event is published before the changed tasks are committed
+      taskUpdater.update(scheduler, createTaskEvent(2L));
+      assertTrue(requestRead.await(10, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+
+    assertFalse(readInTransaction.get());
+  }
+
+  /**
+   * Tests that the event driven scheduler still evaluates all in-progress
+   * stages periodically when no task events arrive.
+   */
+  @Test
+  public void testEventDrivenSchedulerPollsWithoutTaskEvents() throws Exception {
+    Properties properties = new Properties();
+    properties.put(Configuration.ACTION_SCHEDULER_EVENT_DRIVEN.getKey(), "true");
+    properties.put(Configuration.ACTION_SCHEDULER_FULL_SCAN_INTERVAL.getKey(), "0");
+    Configuration conf = new Configuration(properties);
+
+    CountDownLatch fullScans = new CountDownLatch(3);
+    ActionDBAccessor db = mock(ActionDBAccessorImpl.class);
+    doAnswer(invocation -> {
+      fullScans.countDown();
+      return 0;
+    }).when(db).getCommandsInProgressCount();
+
+    ActionScheduler scheduler = new ActionScheduler(50, 5, db, mock(Clusters.class), 3,
+        new HostsMap((String) null), mock(UnitOfWork.class), null, conf, entityManagerProviderMock,
+        mock(HostRoleCommandDAO.class), null, mock(AgentCommandsPublisher.class));
+
+    scheduler.start();
+    try {
+      assertTrue(fullScans.await(10, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  private TaskEvent createTaskEvent(long requestId) {
+    HostRoleCommand hostRoleCommand = mock(HostRoleCommand.class);
+    when(hostRoleCommand.getRequestId()).thenReturn(requestId);
+    return new TaskEvent(Collections.singletonList(hostRoleCommand));
+  }
+
+  /**
+   * Publishes a task event from inside of a transaction, the way that
+   * {@link HostRoleCommandDAO#merge(HostRoleCommandEntity)} does.
+   */
+  public static class TaskUpdater {
+    private volatile boolean inTransaction = false;
+
+    @Transactional
+    public void update(ActionScheduler scheduler, TaskEvent event) throws InterruptedException {
+      inTransaction = true;
+      try {
+        scheduler.onTaskEvent(event);
+
+        // give a woken up scheduler the time to read the request
+        Thread.sleep(500);
+      } finally {
+        inTransaction = false;
+      }
+    }
+  }
+
   public static class MockModule extends AbstractModule {
     @Override
     protected void configure() {
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.HostsRemovedEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.persist.UnitOfWork;
+
+public class AgentReportsProcessorTest {
+
+  private AgentReportsProcessor underTest;
+
+  private final CountingUnitOfWork unitOfWork = new CountingUnitOfWork();
+
+  @Before
+  public void setUp() {
+    Configuration configuration = EasyMock.createNiceMock(Configuration.class);
+    expect(configuration.getAgentsReportThreadPoolSize()).andReturn(2).anyTimes();
+    expect(configuration.getAgentsReportProcessingBatchSize()).andReturn(3).anyTimes();
+    AmbariEventPublisher ambariEventPublisher = EasyMock.createNiceMock(AmbariEventPublisher.class);
+    replay(configuration, ambariEventPublisher);
+
+    underTest = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(Configuration.class).toInstance(configuration);
+        bind(AmbariEventPublisher.class).toInstance(ambariEventPublisher);
+        bind(UnitOfWork.class).toInstance(unitOfWork);
+      }
+    }).getInstance(AgentReportsProcessor.class);
+  }
+
+  @Test
+  public void reportsOfHostAreProcessedInOrder() throws Exception {
+    int hosts = 8;
+    int reportsPerHost = 100;
+    CountDownLatch latch = new CountDownLatch(hosts * reportsPerHost);
+    Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    for (int i = 0; i < reportsPerHost; i++) {
+      for (int host = 0; host < hosts; host++) {
+        underTest.addAgentReport(new TestReport("host" + host, i, processed, latch));
+      }
+    }
+
+    assertTrue(latch.await(30, TimeUnit.SECONDS));
+    assertEquals(hosts, processed.size());
+    for (List<Integer> sequences : processed.values()) {
+      assertEquals(reportsPerHost, sequences.size());
+      for (int i = 0; i < reportsPerHost; i++) {
+        assertEquals(i, sequences.get(i).intValue());
+      }
+    }
+  }
+
+  @Test
+  public void slowHostDoesNotBlockOtherHosts() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch otherHostsDone = new CountDownLatch(10);
+
+    // occupies one of the two workers until released
+    underTest.addAgentReport(new AgentReport<Void>("slow", null) {
+      @Override
+      protected void process(Void report, String hostName) {
+        try {
+          release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+    for (int host = 0; host < 10; host++) {
+      underTest.addAgentReport(new TestReport("host" + host, 0, processed, otherHostsDone));
+    }
+
+    try {
+      assertTrue(otherHostsDone.await(30, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void failedReportEndsUnitOfWork() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(3);
+    Map<Integer, Integer> units = new ConcurrentHashMap<>();
+
+    // holds the host queue until all of the reports below are queued
+    underTest.addAgentReport(new AgentReport<Void>("host", null) {
+      @Override
+      protected void process(Void report, String hostName) {
+        try {
+          release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    for (int i = 0; i < 3; i++) {
+      underTest.addAgentReport(new AgentReport<Integer>("host", i) {
+        @Override
+        protected void process(Integer report, String hostName) {
+          units.put(report, unitOfWork.current());
+          done.countDown();
+          if (report == 1) {
+            throw new IllegalStateException("transaction rolled back");
+          }
+        }
+      });
+    }
+
+    release.countDown();
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+
+    // the report after the failed one is processed in a new unit of work
+    assertEquals(units.get(0), units.get(1));
+    assertTrue(units.get(2) > units.get(1));
+  }
+
+  @Test
+  public void queuesOfRemovedHostsArePruned() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    // keeps a report queued behind a held one on each host
+    for (String hostName : new String[] { "host1", "host2" }) {
+      underTest.addAgentReport(new AgentReport<Void>(hostName, null) {
+        @Override
+        protected void process(Void report, String hostName) {
+          try {
+            release.await(30, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+      underTest.addAgentReport(new TestReport(hostName, 0, processed, new CountDownLatch(1)));
+    }
+
+    try {
+      underTest.onHostsRemoved(new HostsRemovedEvent(Collections.singleton("host1"), Collections.singleton(1L)));
+
+      List<String> hostNames = new ArrayList<>();
+      for (AgentReportsProcessor.HostReportStatistics statistics : underTest.getHostReportStatistics()) {
+        hostNames.add(statistics.getHostName());
+      }
+      assertFalse(hostNames.contains("host1"));
+      assertTrue(hostNames.contains("host2"));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  /**
+   * Numbers the units of work.
+   */
+  private static class CountingUnitOfWork implements UnitOfWork {
+    private final AtomicInteger units = new AtomicInteger();
+    private final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+    @Override
+    public void begin() {
+      current.set(units.incrementAndGet());
+    }
+
+    @Override
+    public void end() {
+      current.remove();
+    }
+
+    private int current() {
+      return current.get();
+    }
+  }
+
+  private static class TestReport extends AgentReport<Integer> {
+    private final Map<String, List<Integer>> processed;
+    private final CountDownLatch latch;
+
+    private TestReport(String hostName, int sequence, Map<String, List<Integer>> processed, CountDownLatch latch) {
+      super(hostName, sequence);
+      this.processed = processed;
+      this.latch = latch;
+    }
+
+    @Override
+    protected void process(Integer report, String hostName) {
+      processed.computeIfAbsent(hostName, h -> Collections.synchronizedList(new ArrayList<>())).add(report);
+      latch.countDown();
+    }
+  }
+}
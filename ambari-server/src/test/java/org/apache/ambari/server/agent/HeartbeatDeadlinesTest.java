@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * HeartbeatDeadlines tests.
+ */
+public class HeartbeatDeadlinesTest {
+
+  @Test
+  public void testExpire() {
+    HeartbeatDeadlines deadlines = new HeartbeatDeadlines(100, 4, 1000);
+    deadlines.schedule(1L, 1150);
+    deadlines.schedule(2L, 1250);
+    deadlines.schedule(3L, 1180);
+
+    assertTrue(deadlines.expire(1100).isEmpty());
+    assertEquals(new HashSet<>(Arrays.asList(1L, 3L)), new HashSet<>(deadlines.expire(1199)));
+    assertTrue(deadlines.expire(1249).isEmpty());
+    assertEquals(Collections.singletonList(2L), deadlines.expire(1250));
+    assertEquals(0, deadlines.size());
+  }
+
+  @Test
+  public void testReschedule() {
+    HeartbeatDeadlines deadlines = new HeartbeatDeadlines(100, 4, 1000);
+    deadlines.schedule(1L, 1150);
+    deadlines.schedule(2L, 1150);
+
+    // heartbeats move the deadlines
+    deadlines.schedule(1L, 1350);
+    deadlines.remove(2L);
+
+    assertTrue(deadlines.expire(1200).isEmpty());
+    assertEquals(Collections.singletonList(1L), deadlines.expire(1400));
+  }
+
+  @Test
+  public void testDeadlinesInLaterRounds() {
+    HeartbeatDeadlines deadlines = new HeartbeatDeadlines(100, 4, 1000);
+    // shares the bucket of tick 11
+    deadlines.schedule(1L, 1550);
+
+    assertTrue(deadlines.expire(1199).isEmpty());
+    assertTrue(deadlines.expire(1500).isEmpty());
+    assertEquals(Collections.singletonList(1L), deadlines.expire(1550));
+  }
+
+  @Test
+  public void testPassedDeadlines() {
+    HeartbeatDeadlines deadlines = new HeartbeatDeadlines(100, 4, 1000);
+    deadlines.expire(1500);
+
+    deadlines.schedule(1L, 900);
+    deadlines.schedule(2L, 1520);
+
+    assertEquals(Collections.singletonList(1L), deadlines.expire(1510));
+
+    // more than one round has passed since the last expiry
+    assertEquals(Collections.singletonList(2L), deadlines.expire(5000));
+  }
+}
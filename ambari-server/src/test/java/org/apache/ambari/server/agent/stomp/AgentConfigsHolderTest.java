@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent.stomp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.ambari.server.agent.stomp.dto.ClusterConfigs;
+import org.apache.ambari.server.events.AgentConfigsUpdateEvent;
+import org.junit.Test;
+
+public class AgentConfigsHolderTest {
+
+  @Test
+  public void testCreateDelta() {
+    AgentConfigsUpdateEvent previous = createEvent(
+        createConfigs("core-site", "a", "1", "b", "2", "c", "3"),
+        createConfigs("hdfs-site", "d", "4"),
+        createConfigs("yarn-site", "e", "5"));
+    previous.setHash("previous-hash");
+
+    AgentConfigsUpdateEvent update = createEvent(
+        createConfigs("core-site", "a", "1", "b", "changed", "f", "6"),
+        createConfigs("hdfs-site", "d", "4"),
+        createConfigs("zoo.cfg", "g", "7"));
+
+    AgentConfigsUpdateEvent delta = AgentConfigsHolder.createDelta(previous, update);
+
+    assertTrue(delta.isDelta());
+    assertEquals("previous-hash", delta.getBaseHash());
+
+    SortedMap<String, SortedMap<String, String>> changed = delta.getClustersConfigs().get("1").getConfigurations();
+    assertEquals(2, changed.size());
+    assertEquals(createConfigs("core-site", "b", "changed", "f", "6").get("core-site"), changed.get("core-site"));
+    assertEquals(createConfigs("zoo.cfg", "g", "7").get("zoo.cfg"), changed.get("zoo.cfg"));
+
+    SortedMap<String, ?> removed = delta.getRemovedConfigurations().get("1");
+    assertEquals(2, removed.size());
+    assertEquals(new TreeSet<>(Collections.singleton("c")), removed.get("core-site"));
+    assertTrue(((Set<?>) removed.get("yarn-site")).isEmpty());
+  }
+
+  @Test
+  public void testCreateDeltaWithoutChanges() {
+    AgentConfigsUpdateEvent previous = createEvent(createConfigs("core-site", "a", "1"));
+    previous.setHash("previous-hash");
+
+    AgentConfigsUpdateEvent update = createEvent(createConfigs("core-site", "a", "1"));
+    AgentConfigsUpdateEvent delta = AgentConfigsHolder.createDelta(previous, update);
+
+    assertTrue(delta.getClustersConfigs().isEmpty());
+    assertNull(delta.getRemovedConfigurations());
+    assertEquals(0, AgentConfigsHolder.estimateSize(delta.getClustersConfigs(), delta.getRemovedConfigurations()));
+    assertEquals(12, AgentConfigsHolder.estimateSize(update.getClustersConfigs(), null));
+  }
+
+  @Test
+  public void testFullSnapshotIfClustersChanged() {
+    AgentConfigsUpdateEvent previous = createEvent(createConfigs("core-site", "a", "1"));
+    previous.setHash("previous-hash");
+
+    SortedMap<String, ClusterConfigs> clusters = new TreeMap<>();
+    clusters.put("2", new ClusterConfigs(createConfigs("core-site", "a", "1"), new TreeMap<>()));
+
+    assertNull(AgentConfigsHolder.createDelta(previous, new AgentConfigsUpdateEvent(1L, clusters)));
+    assertNull(AgentConfigsHolder.createDelta(new AgentConfigsUpdateEvent(1L, null), previous));
+  }
+
+  @Test
+  public void testFullSnapshotIfAttributesRemoved() {
+    SortedMap<String, SortedMap<String, SortedMap<String, String>>> attributes = new TreeMap<>();
+    attributes.put("core-site", new TreeMap<>());
+    attributes.get("core-site").put("final", createConfigs("a", "a", "true").get("a"));
+
+    SortedMap<String, ClusterConfigs> previousClusters = new TreeMap<>();
+    previousClusters.put("1", new ClusterConfigs(createConfigs("core-site", "a", "1"), attributes));
+    AgentConfigsUpdateEvent previous = new AgentConfigsUpdateEvent(1L, previousClusters);
+    previous.setHash("previous-hash");
+
+    AgentConfigsUpdateEvent update = createEvent(createConfigs("core-site", "a", "1"));
+    update.setHash("update-hash");
+    assertNull(AgentConfigsHolder.createDelta(previous, update));
+
+    // added attributes are sent with the delta
+    AgentConfigsUpdateEvent delta = AgentConfigsHolder.createDelta(update, previous);
+    assertEquals(attributes, delta.getClustersConfigs().get("1").getConfigurationAttributes());
+    assertFalse(delta.getClustersConfigs().get("1").getConfigurations().containsKey("core-site"));
+  }
+
+  @SafeVarargs
+  private static AgentConfigsUpdateEvent createEvent(SortedMap<String, SortedMap<String, String>>... types) {
+    SortedMap<String, SortedMap<String, String>> configurations = new TreeMap<>();
+    for (SortedMap<String, SortedMap<String, String>> type : types) {
+      configurations.putAll(type);
+    }
+    SortedMap<String, ClusterConfigs> clusters = new TreeMap<>();
+    clusters.put("1", new ClusterConfigs(configurations, new TreeMap<>()));
+    return new AgentConfigsUpdateEvent(1L, clusters);
+  }
+
+  private static SortedMap<String, SortedMap<String, String>> createConfigs(String type, String... properties) {
+    SortedMap<String, String> values = new TreeMap<>();
+    for (int i = 0; i < properties.length; i += 2) {
+      values.put(properties[i], properties[i + 1]);
+    }
+    SortedMap<String, SortedMap<String, String>> configs = new TreeMap<>();
+    configs.put(type, values);
+    return configs;
+  }
+}
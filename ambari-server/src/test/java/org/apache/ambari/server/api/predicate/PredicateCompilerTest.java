@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.EqualsPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * PredicateCompiler unit tests.
+ */
+public class PredicateCompilerTest {
+
+  @After
+  public void teardown() {
+    PredicateCompiler.clearCache();
+  }
+
+  @Test
+  public void testCompile() throws Exception {
+    Predicate predicate = new PredicateCompiler().compile("a=b&c>5");
+
+    assertEquals(new AndPredicate(new EqualsPredicate<>("a", "b"), new GreaterPredicate<>("c", "5")), predicate);
+  }
+
+  @Test
+  public void testCompile_cached() throws Exception {
+    Predicate predicate = new PredicateCompiler().compile("a=b&c>5");
+
+    assertSame(predicate, new PredicateCompiler().compile("a=b&c>5"));
+    // ignored properties don't change the predicate
+    assertSame(predicate, new PredicateCompiler().compile("a=b&c>5&_=1234567890"));
+    assertSame(predicate, new PredicateCompiler().compile("fields=x&a=b&c>5&_=1234567891"));
+    assertSame(predicate, new PredicateCompiler().compile("a=b&c>5&d=1", Collections.singleton("d")));
+
+    assertEquals(new EqualsPredicate<>("a", "c"), new PredicateCompiler().compile("a=c"));
+  }
+
+  @Test
+  public void testCompile_empty() throws Exception {
+    assertNull(new PredicateCompiler().compile("fields=x"));
+  }
+}
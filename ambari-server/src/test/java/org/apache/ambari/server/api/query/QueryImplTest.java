@@ -34,11 +34,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -54,6 +56,7 @@ import org.apache.ambari.server.api.resources.SubResourceDefinition;
 import org.apache.ambari.server.api.services.Result;
 import org.apache.ambari.server.api.util.TreeNode;
 import org.apache.ambari.server.api.util.TreeNodeImpl;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.internal.ClusterControllerImpl;
 import org.apache.ambari.server.controller.internal.ClusterControllerImplTest;
 import org.apache.ambari.server.controller.internal.PageRequestImpl;
@@ -76,15 +79,27 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.EasyMockSupport;
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.persist.UnitOfWork;
+
 
 /**
  * QueryImpl unit tests.
  */
 public class QueryImplTest {
 
+  @Before
+  @After
+  public void resetSubResourceQueryExecutor() throws Exception {
+    setSubResourceQueryExecutor(null);
+  }
+
   @Test
   public void testIsCollection__True() {
     ResourceDefinition resourceDefinition = createNiceMock(ResourceDefinition.class);
@@ -1081,6 +1096,86 @@ public class QueryImplTest {
 
   }
 
+  /**
+   * Tests that sub-resources which are fetched for several parents at once
+   * and concurrently are assigned to the same parents as when they are
+   * fetched for each parent separately.
+   */
+  @Test
+  public void testExecute__Stack_instance_batchedSubResources() throws Exception {
+    SubResourceQueryExecutor executor = createSubResourceQueryExecutor("");
+    setSubResourceQueryExecutor(executor);
+    TreeNode<Resource> expected = executeStackVersionsQuery();
+    SubResourceQueryExecutor.QueryStatistics sequentialStatistics = executor.getStatistics();
+
+    executor = createSubResourceQueryExecutor("OperatingSystem,Repository");
+    setSubResourceQueryExecutor(executor);
+    TreeNode<Resource> actual = executeStackVersionsQuery();
+    SubResourceQueryExecutor.QueryStatistics batchedStatistics = executor.getStatistics();
+
+    Assert.assertEquals(0, sequentialStatistics.getBatchedParents());
+    Assert.assertTrue(batchedStatistics.getBatchedParents() >= 12);
+    Assert.assertTrue(batchedStatistics.getProviderQueries() < sequentialStatistics.getProviderQueries());
+    Assert.assertEquals(0, batchedStatistics.getTimeouts());
+
+    TreeNode<Resource> expectedVersions = expected.getChild("Stack:1").getChild("versions");
+    TreeNode<Resource> actualVersions = actual.getChild("Stack:1").getChild("versions");
+    Assert.assertEquals(getRepositories(expectedVersions), getRepositories(actualVersions));
+  }
+
+  private TreeNode<Resource> executeStackVersionsQuery() throws Exception {
+    Map<Resource.Type, String> mapIds = new HashMap<>();
+    mapIds.put(Resource.Type.Stack, "HDP");
+
+    QueryImpl instance = new TestQuery(mapIds, new StackResourceDefinition());
+    instance.addProperty("versions/operating_systems/repositories/*", null);
+    return instance.execute().getResultTree();
+  }
+
+  // get the repository ids by stack version and os type
+  private Map<String, Set<String>> getRepositories(TreeNode<Resource> versionsNode) {
+    Map<String, Set<String>> repositories = new HashMap<>();
+    for (TreeNode<Resource> versionNode : versionsNode.getChildren()) {
+      Object version = versionNode.getObject().getPropertyValue("Versions/stack_version");
+      for (TreeNode<Resource> osNode : versionNode.getChild("operating_systems").getChildren()) {
+        Object osType = osNode.getObject().getPropertyValue("OperatingSystems/os_type");
+        Set<String> repositoryIds = new HashSet<>();
+        for (TreeNode<Resource> repositoryNode : osNode.getChild("repositories").getChildren()) {
+          Resource repository = repositoryNode.getObject();
+          Assert.assertEquals(version, repository.getPropertyValue("Repositories/stack_version"));
+          Assert.assertEquals(osType, repository.getPropertyValue("Repositories/os_type"));
+          repositoryIds.add((String) repository.getPropertyValue("Repositories/repo_id"));
+        }
+        Assert.assertNull(repositories.put(version + "/" + osType, repositoryIds));
+      }
+    }
+    Assert.assertEquals(9, repositories.size());
+    return repositories;
+  }
+
+  private static SubResourceQueryExecutor createSubResourceQueryExecutor(String batchTypes) {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.API_SUBRESOURCE_QUERY_THREAD_POOL_SIZE.getKey(), "2");
+    properties.setProperty(Configuration.API_SUBRESOURCE_QUERY_BATCH_TYPES.getKey(), batchTypes);
+    Configuration configuration = new Configuration(properties);
+    UnitOfWork unitOfWork = createNiceMock(UnitOfWork.class);
+    replay(unitOfWork);
+
+    return Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(Configuration.class).toInstance(configuration);
+        bind(UnitOfWork.class).toInstance(unitOfWork);
+      }
+    }).getInstance(SubResourceQueryExecutor.class);
+  }
+
+  private static void setSubResourceQueryExecutor(SubResourceQueryExecutor executor) throws Exception {
+    Field field = QueryImpl.class.getDeclaredField("subResourceQueryExecutor");
+    field.setAccessible(true);
+    field.set(null, executor);
+  }
+
   public static class TestQuery extends QueryImpl {
     public TestQuery(Map<Resource.Type, String> mapIds, ResourceDefinition resourceDefinition) {
       super(mapIds, resourceDefinition, new ClusterControllerImpl(new ClusterControllerImplTest.TestProviderModule()));
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.services.serializers;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.ambari.server.api.services.Result;
+import org.apache.ambari.server.api.services.ResultImpl;
+import org.apache.ambari.server.api.services.ResultStatus;
+import org.apache.ambari.server.api.util.TreeNode;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.junit.Test;
+
+/**
+ * StreamingJsonSerializer unit tests
+ */
+public class StreamingJsonSerializerTest {
+
+  @Test
+  public void testSerializeMatchesJsonSerializer() throws Exception {
+    String expected = new JsonSerializer().serialize(createResult(5)).toString();
+
+    Result result = createResult(5);
+    Object o = new StreamingJsonSerializer().serialize(result);
+    assertTrue(o instanceof StreamingOutput);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) o).write(out);
+
+    assertEquals(expected, out.toString("UTF-8"));
+    // written resources are released
+    assertTrue(result.getResultTree().getChild("resources").getChildren().isEmpty());
+  }
+
+  @Test
+  public void testSerializeError() throws Exception {
+    Result result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.NOT_FOUND, "not found"));
+
+    Object o = new StreamingJsonSerializer().serialize(result);
+
+    assertEquals(new JsonSerializer().serializeError(result.getStatus()), o);
+  }
+
+  private Result createResult(int resourceCount) {
+    Result result = new ResultImpl(true);
+    result.setResultStatus(new ResultStatus(ResultStatus.STATUS.OK));
+    TreeNode<Resource> resourcesNode = result.getResultTree().addChild(null, "resources");
+
+    for (int i = 0; i < resourceCount; i++) {
+      Map<String, Object> mapRootProps = new LinkedHashMap<>();
+      mapRootProps.put("id", i);
+
+      Map<String, Object> mapCategoryProps = new LinkedHashMap<>();
+      mapCategoryProps.put("catProp1", "catValue" + i);
+
+      Map<String, Map<String, Object>> propertyMap = new LinkedHashMap<>();
+      propertyMap.put(null, mapRootProps);
+      propertyMap.put("category", mapCategoryProps);
+
+      Resource resource = createNiceMock(Resource.class);
+      expect(resource.getPropertiesMap()).andReturn(propertyMap).anyTimes();
+      expect(resource.getType()).andReturn(Resource.Type.Host).anyTimes();
+      replay(resource);
+
+      TreeNode<Resource> child = resourcesNode.addChild(resource, "resource" + i);
+      child.setProperty("href", "http://host/resource" + i);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.audit.event.AuditEvent;
+import org.apache.ambari.server.configuration.Configuration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * AsyncAuditLogger tests.
+ */
+public class AsyncAuditLoggerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testSpillWhileQueueIsFull() throws Exception {
+    File spillFile = new File(temporaryFolder.getRoot(), "audit-spill.log");
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingAuditLogger innerLogger = new RecordingAuditLogger(blocked, release, 10);
+
+    AsyncAuditLogger auditLogger = new AsyncAuditLogger(innerLogger, createConfiguration(spillFile, 2));
+
+    // the first event blocks the logging thread, the next two fill the queue
+    auditLogger.log(event(0));
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    for (int i = 1; i < 10; i++) {
+      auditLogger.log(event(i));
+    }
+
+    assertTrue(spillFile.exists());
+    AsyncAuditLogger.QueueStatistics statistics = auditLogger.getStatistics();
+    assertEquals(2, statistics.getQueueDepth());
+    assertEquals(7, statistics.getSpilledEvents());
+
+    release.countDown();
+    assertTrue(innerLogger.await());
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      expected.add("message " + i);
+    }
+    assertEquals(expected, innerLogger.getMessages());
+    assertEquals(7, auditLogger.getStatistics().getReplayedEvents());
+    assertFalse(spillFile.exists());
+  }
+
+  @Test
+  public void testReplaySpillFileOnStart() throws Exception {
+    File spillFile = new File(temporaryFolder.getRoot(), "audit-spill.log");
+    Files.write(spillFile.toPath(), (AsyncAuditLogger.encode(event(1)) + AsyncAuditLogger.encode(event(2)))
+        .getBytes(StandardCharsets.UTF_8));
+
+    RecordingAuditLogger innerLogger = new RecordingAuditLogger(null, null, 3);
+    AsyncAuditLogger auditLogger = new AsyncAuditLogger(innerLogger, createConfiguration(spillFile, 10));
+    auditLogger.log(event(3));
+
+    assertTrue(innerLogger.await());
+    assertEquals(Arrays.asList("message 1", "message 2", "message 3"), innerLogger.getMessages());
+  }
+
+  @Test
+  public void testOrderIsKeptWhileSpillingConcurrently() throws Exception {
+    File spillFile = new File(temporaryFolder.getRoot(), "audit-spill.log");
+    int threadCount = 4;
+    int eventsPerThread = 500;
+    RecordingAuditLogger innerLogger = new RecordingAuditLogger(null, null, threadCount * eventsPerThread);
+    AsyncAuditLogger auditLogger = new AsyncAuditLogger(innerLogger, createConfiguration(spillFile, 2));
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < eventsPerThread; i++) {
+          auditLogger.log(new TestAuditEvent((long) i, thread + ":" + i));
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertTrue(innerLogger.await());
+
+    // the events of each thread are written in the order they were logged
+    int[] next = new int[threadCount];
+    for (String message : innerLogger.getMessages()) {
+      String[] parts = message.split(":");
+      int thread = Integer.parseInt(parts[0]);
+      assertEquals(next[thread]++, Integer.parseInt(parts[1]));
+    }
+  }
+
+  @Test
+  public void testEncodeDecode() throws Exception {
+    AuditEvent event = new TestAuditEvent(42L, "multi\nline\r\\message\twith tab");
+    String line = AsyncAuditLogger.encode(event);
+
+    assertEquals(1, line.split("\n").length);
+
+    AuditEvent decoded = AsyncAuditLogger.decode(line.substring(0, line.length() - 1));
+    assertEquals(Long.valueOf(42L), decoded.getTimestamp());
+    assertEquals(event.getAuditMessage(), decoded.getAuditMessage());
+
+    assertNull(AsyncAuditLogger.decode("not an event"));
+  }
+
+  private static Configuration createConfiguration(File spillFile, int capacity) {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.AUDIT_LOG_ENABLED.getKey(), "true");
+    properties.setProperty(Configuration.AUDIT_LOGGER_CAPACITY.getKey(), String.valueOf(capacity));
+    properties.setProperty(Configuration.AUDIT_LOGGER_SPILL_FILE.getKey(), spillFile.getPath());
+    return new Configuration(properties);
+  }
+
+  private static AuditEvent event(int i) {
+    return new TestAuditEvent((long) i, "message " + i);
+  }
+
+  private static final class TestAuditEvent implements AuditEvent {
+    private final Long timestamp;
+    private final String message;
+
+    private TestAuditEvent(Long timestamp, String message) {
+      this.timestamp = timestamp;
+      this.message = message;
+    }
+
+    @Override
+    public Long getTimestamp() {
+      return timestamp;
+    }
+
+    @Override
+    public String getAuditMessage() {
+      return message;
+    }
+  }
+
+  /**
+   * Records the messages of the logged events; blocks on the first event if latches are given.
+   */
+  private static final class RecordingAuditLogger implements AuditLogger {
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch blocked;
+    private final CountDownLatch release;
+    private final CountDownLatch logged;
+
+    private RecordingAuditLogger(CountDownLatch blocked, CountDownLatch release, int expectedEvents) {
+      this.blocked = blocked;
+      this.release = release;
+      logged = new CountDownLatch(expectedEvents);
+    }
+
+    @Override
+    public void log(AuditEvent event) {
+      if (null != blocked && blocked.getCount() > 0) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      messages.add(event.getAuditMessage());
+      logged.countDown();
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return true;
+    }
+
+    private boolean await() throws InterruptedException {
+      return logged.await(10, TimeUnit.SECONDS);
+    }
+
+    private List<String> getMessages() {
+      return new ArrayList<>(messages);
+    }
+  }
+}
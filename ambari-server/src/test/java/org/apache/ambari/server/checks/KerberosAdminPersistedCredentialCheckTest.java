@@ -88,6 +88,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
 
 @RunWith(EasyMockRunner.class)
 public class KerberosAdminPersistedCredentialCheckTest extends EasyMockSupport {
@@ -248,6 +249,7 @@ public class KerberosAdminPersistedCredentialCheckTest extends EasyMockSupport {
         bind(MpackManagerFactory.class).toInstance(createNiceMock(MpackManagerFactory.class));
 
         bind(CredentialStoreService.class).toInstance(createMock(CredentialStoreService.class));
+        bind(UnitOfWork.class).toInstance(createNiceMock(UnitOfWork.class));
       }
     });
   }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.ambari.server.controller.predicate.AlwaysPredicate;
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.FilterPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PredicateBuilder;
+import org.junit.Test;
+
+/**
+ * CompiledPredicate tests.
+ */
+public class CompiledPredicateTest {
+
+  private static final String NAME = "c1/name";
+  private static final String SIZE = "c1/size";
+  private static final String STATE = "c1/c2/state";
+  private static final String TAG = "tag";
+
+  @Test
+  public void testEvaluate() {
+    Predicate and = new PredicateBuilder().property(NAME).equals("n1").and().property(SIZE).greaterThan(5).toPredicate();
+    Predicate or = new PredicateBuilder().property(STATE).equals("STARTED").or().property(TAG).equals("t2").toPredicate();
+    Predicate not = new PredicateBuilder().not().property(SIZE).lessThanEqualTo(3).toPredicate();
+    Predicate filter = new AndPredicate(new FilterPredicate(NAME, "n[12]"),
+        new PredicateBuilder().property(SIZE).lessThan(10).toPredicate());
+    Predicate nested = new PredicateBuilder().begin().property(NAME).equals("n3").or().property(STATE).equals("INSTALLED").end()
+        .and().not().property(SIZE).greaterThanEqualTo(8).toPredicate();
+
+    List<Resource> resources = getResources();
+
+    for (Predicate predicate : Arrays.asList(and, or, not, filter, nested)) {
+      Predicate compiled = CompiledPredicate.compile(predicate);
+      for (Resource resource : resources) {
+        assertEquals(predicate + " " + resource, predicate.evaluate(resource), compiled.evaluate(resource));
+      }
+      assertEquals(predicate.toString(), compiled.toString());
+    }
+  }
+
+  @Test
+  public void testCompile() {
+    assertNull(CompiledPredicate.compile(null));
+
+    // predicates which can't be compiled are evaluated as given
+    Predicate always = AlwaysPredicate.INSTANCE;
+    assertSame(always, CompiledPredicate.compile(always));
+
+    Predicate compiled = CompiledPredicate.compile(new PredicateBuilder().property(NAME).equals("n1").toPredicate());
+    assertSame(compiled, CompiledPredicate.compile(compiled));
+  }
+
+  private static List<Resource> getResources() {
+    ResourcePropertyLayout layout = new ResourcePropertyLayout(new HashSet<>(Arrays.asList(NAME, SIZE)));
+
+    List<Resource> resources = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      // alternate between resources with and without slots for the properties
+      ResourceImpl resource = i % 2 == 0 ?
+          new ResourceImpl(Resource.Type.Service, layout) :
+          new ResourceImpl(Resource.Type.Service);
+
+      resource.setProperty(NAME, "n" + (i % 4));
+      if (i != 7) {
+        resource.setProperty(SIZE, i);
+      }
+      resource.setProperty(STATE, i % 3 == 0 ? "STARTED" : "INSTALLED");
+      resource.setProperty(TAG, "t" + (i % 3));
+
+      if (i == 6) {
+        // properties moved to the map
+        resource.getPropertiesMap();
+      }
+      resources.add(resource);
+    }
+    return resources;
+  }
+}
@@ -18,6 +18,8 @@
 
 package org.apache.ambari.server.controller.internal;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.apache.ambari.server.controller.spi.Resource;
@@ -184,5 +186,62 @@ public class ResourceImplTest {
     Assert.assertTrue(resource1.equals(resource2));
     Assert.assertTrue(resource2.equals(resource1));
   }
+
+  @Test
+  public void testLayoutProperties() {
+    ResourcePropertyLayout layout = new ResourcePropertyLayout(new HashSet<>(Arrays.asList(
+        "p1", "c1/p2", "c1/c2/p3")));
+
+    Resource resource = new ResourceImpl(Resource.Type.Cluster, layout);
+    resource.setProperty("p1", "foo");
+    resource.setProperty("c1/p2", null);
+    resource.setProperty("c1/p5", 65L);
+    resource.addCategory("c4");
+
+    Assert.assertEquals("foo", resource.getPropertyValue("p1"));
+    Assert.assertNull(resource.getPropertyValue("c1/p2"));
+    Assert.assertNull(resource.getPropertyValue("c1/c2/p3"));
+    Assert.assertEquals(65L, resource.getPropertyValue("c1/p5"));
+
+    // the properties with and without a slot are equal to those of a resource without a layout
+    Resource expected = new ResourceImpl(Resource.Type.Cluster, ResourcePropertyLayout.EMPTY);
+    expected.setProperty("p1", "foo");
+    expected.setProperty("c1/p2", null);
+    expected.setProperty("c1/p5", 65L);
+    expected.addCategory("c4");
+
+    Assert.assertEquals(expected, resource);
+    Assert.assertEquals(expected.hashCode(), resource.hashCode());
+    Assert.assertEquals(expected.getPropertiesMap(), resource.getPropertiesMap());
+
+    Map<String, Map<String, Object>> map = resource.getPropertiesMap();
+    Assert.assertEquals(3, map.size());
+    Assert.assertTrue(map.get("c1").containsKey("p2"));
+    Assert.assertTrue(map.get("c4").isEmpty());
+  }
+
+  @Test
+  public void testLayoutPropertiesMapWritesThrough() {
+    ResourcePropertyLayout layout = new ResourcePropertyLayout(new HashSet<>(Arrays.asList("c1/p1", "c1/p2")));
+
+    Resource resource = new ResourceImpl(Resource.Type.Cluster, layout);
+    resource.setProperty("c1/p1", "foo");
+    resource.setProperty("c1/p2", "bar");
+    int hashCode = resource.hashCode();
+
+    Map<String, Map<String, Object>> map = resource.getPropertiesMap();
+    Assert.assertEquals(hashCode, resource.hashCode());
+
+    map.get("c1").remove("p1");
+    Assert.assertNull(resource.getPropertyValue("c1/p1"));
+
+    resource.setProperty("c1/p2", "baz");
+    Assert.assertEquals("baz", map.get("c1").get("p2"));
+
+    Resource copy = new ResourceImpl(resource);
+    Assert.assertEquals(resource, copy);
+    Assert.assertNull(copy.getPropertyValue("c1/p1"));
+    Assert.assertEquals("baz", copy.getPropertyValue("c1/p2"));
+  }
 }
 
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.metrics.timeline.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.TreeMap;
+
+import org.apache.hadoop.metrics2.sink.timeline.Precision;
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
+import org.junit.Test;
+
+/**
+ * Tests the serializers used by the off-heap tier of the metrics cache.
+ */
+public class TimelineMetricCacheSerializerTest {
+
+  @Test
+  public void testValueRoundTrip() throws Exception {
+    TimelineMetricsCacheValueSerializer serializer = new TimelineMetricsCacheValueSerializer(null);
+    TimelineMetricsCacheValue value = createValue();
+
+    TimelineMetricsCacheValue copy = serializer.read(toDirectBuffer(serializer.serialize(value)));
+
+    assertEquals(value.getStartTime(), copy.getStartTime());
+    assertEquals(value.getEndTime(), copy.getEndTime());
+    assertEquals(value.getPrecision(), copy.getPrecision());
+    assertEquals(1, copy.getTimelineMetrics().getMetrics().size());
+
+    TimelineMetric metric = value.getTimelineMetrics().getMetrics().get(0);
+    TimelineMetric metricCopy = copy.getTimelineMetrics().getMetrics().get(0);
+    assertEquals(metric.getMetricName(), metricCopy.getMetricName());
+    assertEquals(metric.getAppId(), metricCopy.getAppId());
+    assertEquals(metric.getHostName(), metricCopy.getHostName());
+    assertNull(metricCopy.getInstanceId());
+    assertEquals(metric.getStartTime(), metricCopy.getStartTime());
+    assertEquals(metric.getMetricValues(), metricCopy.getMetricValues());
+  }
+
+  @Test
+  public void testValueRoundTripWithNulls() throws Exception {
+    TimelineMetricsCacheValueSerializer serializer = new TimelineMetricsCacheValueSerializer(null);
+    TimelineMetricsCacheValue value = createValue();
+    TreeMap<Long, Double> metricValues = value.getTimelineMetrics().getMetrics().get(0).getMetricValues();
+    metricValues.put(metricValues.firstKey(), null);
+    metricValues.put(metricValues.lastKey(), null);
+    metricValues.put(metricValues.firstKey() + 70000, Double.NaN);
+
+    TimelineMetricsCacheValue copy = serializer.read(toDirectBuffer(serializer.serialize(value)));
+
+    TreeMap<Long, Double> valuesCopy = copy.getTimelineMetrics().getMetrics().get(0).getMetricValues();
+    assertEquals(metricValues, valuesCopy);
+    assertNull(valuesCopy.firstEntry().getValue());
+    assertNull(valuesCopy.lastEntry().getValue());
+    assertTrue(valuesCopy.get(metricValues.firstKey() + 70000).isNaN());
+  }
+
+  @Test
+  public void testValueEqualsWithoutStartTime() throws Exception {
+    TimelineMetricsCacheValueSerializer serializer = new TimelineMetricsCacheValueSerializer(null);
+    TimelineMetricsCacheValue value = createValue();
+    TimelineMetricsCacheValue withoutStartTime = new TimelineMetricsCacheValue(null, value.getEndTime(),
+        value.getTimelineMetrics(), value.getPrecision());
+
+    assertTrue(serializer.equals(withoutStartTime, serializer.serialize(withoutStartTime)));
+    assertFalse(serializer.equals(withoutStartTime, serializer.serialize(value)));
+    assertFalse(serializer.equals(value, serializer.serialize(withoutStartTime)));
+  }
+
+  @Test
+  public void testKeyRoundTrip() throws Exception {
+    TimelineAppMetricCacheKeySerializer serializer = new TimelineAppMetricCacheKeySerializer(null);
+    TimelineAppMetricCacheKey key = new TimelineAppMetricCacheKey(
+        new HashSet<>(Arrays.asList("cpu_user", "cpu_system")), "HOST", "host1,host2", null);
+    key.setSpec("http://collector:6188/ws/v1/timeline/metrics");
+
+    TimelineAppMetricCacheKey copy = serializer.read(toDirectBuffer(serializer.serialize(key)));
+
+    assertEquals(key, copy);
+    assertEquals(key.getSpec(), copy.getSpec());
+    assertNull(copy.getTemporalInfo());
+    assertTrue(serializer.equals(key, serializer.serialize(key)));
+  }
+
+  private TimelineMetricsCacheValue createValue() {
+    long now = System.currentTimeMillis();
+
+    TimelineMetric timelineMetric = new TimelineMetric();
+    timelineMetric.setMetricName("cpu_user");
+    timelineMetric.setAppId("HOST");
+    timelineMetric.setHostName("host1");
+    timelineMetric.setStartTime(now);
+    TreeMap<Long, Double> metricValues = new TreeMap<>();
+    for (int i = 0; i < 100; i++) {
+      metricValues.put(now + i * 1000, (double) i);
+    }
+    timelineMetric.setMetricValues(metricValues);
+
+    TimelineMetrics metrics = new TimelineMetrics();
+    metrics.getMetrics().add(timelineMetric);
+    return new TimelineMetricsCacheValue(now, now + 100000, metrics, Precision.SECONDS);
+  }
+
+  /**
+   * The off-heap store hands out direct buffers which have no backing array.
+   */
+  private ByteBuffer toDirectBuffer(ByteBuffer buffer) {
+    ByteBuffer direct = ByteBuffer.allocateDirect(buffer.remaining());
+    direct.put(buffer.duplicate());
+    direct.flip();
+    return direct;
+  }
+}
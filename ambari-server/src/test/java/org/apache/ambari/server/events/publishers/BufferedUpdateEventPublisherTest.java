@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.events.publishers;
+
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.HostComponentUpdate;
+import org.apache.ambari.server.events.HostComponentsUpdateEvent;
+import org.apache.ambari.server.events.STOMPEvent;
+import org.apache.ambari.server.state.MaintenanceState;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * BufferedUpdateEventPublisher tests.
+ */
+public class BufferedUpdateEventPublisherTest {
+
+  private ScheduledExecutorService scheduler;
+  private EventBus eventBus;
+  private Capture<Runnable> scheduledFlush;
+  private Capture<Runnable> immediateFlush;
+  private TestPublisher publisher;
+
+  @Before
+  public void setup() {
+    scheduler = createNiceMock(ScheduledExecutorService.class);
+    eventBus = createNiceMock(EventBus.class);
+    scheduledFlush = EasyMock.newCapture();
+    immediateFlush = EasyMock.newCapture(CaptureType.ALL);
+
+    expect(scheduler.schedule(capture(scheduledFlush), anyLong(), eq(TimeUnit.MILLISECONDS))).andReturn(null).anyTimes();
+    scheduler.execute(capture(immediateFlush));
+    expectLastCall().anyTimes();
+    replay(scheduler, eventBus);
+
+    publisher = new TestPublisher(createNiceMock(STOMPUpdatePublisher.class), scheduler);
+  }
+
+  /**
+   * Tests that updates of the same entity are coalesced and that the buffered
+   * events are posted in the order of the first update of each entity.
+   */
+  @Test
+  public void testMergeOrder() {
+    publisher.publish("b:1", eventBus);
+    publisher.publish("a:1", eventBus);
+    publisher.publish("b:2", eventBus);
+    publisher.publish("c:1", eventBus);
+    publisher.publish("a:2", eventBus);
+
+    assertTrue(scheduledFlush.hasCaptured());
+    assertTrue(publisher.batches.isEmpty());
+
+    scheduledFlush.getValue().run();
+
+    assertEquals(1, publisher.batches.size());
+    assertEquals(Arrays.asList("b:1,2", "a:1,2", "c:1"), publisher.batches.get(0));
+  }
+
+  /**
+   * Tests that a full buffer is flushed right away by the flush thread rather
+   * than by the publishing thread, and that updates of entities which are not
+   * buffered are dropped until then.
+   */
+  @Test
+  public void testThresholdFlush() {
+    for (int i = 0; i < BufferedUpdateEventPublisher.BUFFER_CAPACITY - 1; i++) {
+      publisher.publish("key" + i + ":1", eventBus);
+    }
+    assertTrue(scheduledFlush.hasCaptured());
+    assertTrue(immediateFlush.getValues().isEmpty());
+
+    publisher.publish("last:1", eventBus);
+    publisher.publish("overflow:1", eventBus);
+    publisher.publish("key0:2", eventBus);
+
+    // a single flush is requested and nothing is posted by the publisher
+    assertEquals(1, immediateFlush.getValues().size());
+    assertTrue(publisher.batches.isEmpty());
+    assertEquals(1, publisher.getDroppedEvents());
+
+    immediateFlush.getValue().run();
+    assertEquals(1, publisher.batches.size());
+    assertEquals(BufferedUpdateEventPublisher.BUFFER_CAPACITY, publisher.batches.get(0).size());
+    assertEquals("key0:1,2", publisher.batches.get(0).get(0));
+    assertFalse(publisher.batches.get(0).contains("overflow:1"));
+
+    // the delayed flush finds nothing left to post
+    scheduledFlush.getValue().run();
+    assertEquals(1, publisher.batches.size());
+  }
+
+  /**
+   * Tests that the buffered events are posted when the server stops, without
+   * waiting for the scheduled flush.
+   */
+  @Test
+  public void testFlushOnShutdown() {
+    STOMPUpdatePublisher stompUpdatePublisher = new STOMPUpdatePublisher(createConfiguration());
+    publisher = new TestPublisher(stompUpdatePublisher, scheduler);
+
+    publisher.publish("a:1", eventBus);
+    publisher.publish("b:1", eventBus);
+
+    stompUpdatePublisher.flushPublishers();
+
+    assertEquals(1, publisher.batches.size());
+    assertEquals(Arrays.asList("a:1", "b:1"), publisher.batches.get(0));
+    verify(scheduler);
+
+    for (PartitionedEventBus partitionedEventBus : stompUpdatePublisher.getPartitionedEventBuses()) {
+      partitionedEventBus.shutdown();
+    }
+  }
+
+  /**
+   * Tests that the updates of a single host component are coalesced.
+   */
+  @Test
+  public void testHostComponentUpdatesAreCoalesced() {
+    HostComponentUpdateEventPublisher hostComponentPublisher = new HostComponentUpdateEventPublisher(
+        createNiceMock(STOMPUpdatePublisher.class));
+
+    HostComponentsUpdateEvent maintenanceUpdate = new HostComponentsUpdateEvent(Collections.singletonList(
+        HostComponentUpdate.createHostComponentMaintenanceStatusUpdate(1L, "HDFS", "host1", "DATANODE",
+            MaintenanceState.ON)));
+    HostComponentsUpdateEvent staleConfigsUpdate = new HostComponentsUpdateEvent(Collections.singletonList(
+        HostComponentUpdate.createHostComponentStaleConfigsStatusUpdate(1L, "HDFS", "host1", "DATANODE", true)));
+    HostComponentsUpdateEvent otherHostUpdate = new HostComponentsUpdateEvent(Collections.singletonList(
+        HostComponentUpdate.createHostComponentStaleConfigsStatusUpdate(1L, "HDFS", "host2", "DATANODE", true)));
+
+    assertEquals(hostComponentPublisher.getCoalescingKey(maintenanceUpdate),
+        hostComponentPublisher.getCoalescingKey(staleConfigsUpdate));
+    assertFalse(hostComponentPublisher.getCoalescingKey(maintenanceUpdate).equals(
+        hostComponentPublisher.getCoalescingKey(otherHostUpdate)));
+
+    HostComponentUpdate coalesced = hostComponentPublisher.coalesce(maintenanceUpdate, staleConfigsUpdate)
+        .getHostComponentUpdates().get(0);
+    assertEquals(MaintenanceState.ON, coalesced.getMaintenanceState());
+    assertEquals(Boolean.TRUE, coalesced.getStaleConfigs());
+  }
+
+  private Configuration createConfiguration() {
+    Configuration configuration = createNiceMock(Configuration.class);
+    expect(configuration.getStompEventBusPartitions()).andReturn(1).anyTimes();
+    replay(configuration);
+    return configuration;
+  }
+
+  /**
+   * Buffers "key:value" events, coalescing the values of each key.
+   */
+  private static class TestPublisher extends BufferedUpdateEventPublisher<String> {
+    private final List<List<String>> batches = new ArrayList<>();
+
+    private TestPublisher(STOMPUpdatePublisher stompUpdatePublisher, ScheduledExecutorService scheduler) {
+      super(stompUpdatePublisher, scheduler);
+    }
+
+    @Override
+    public STOMPEvent.Type getType() {
+      return STOMPEvent.Type.REQUEST;
+    }
+
+    @Override
+    protected Object getCoalescingKey(String event) {
+      return event.substring(0, event.indexOf(':'));
+    }
+
+    @Override
+    protected String coalesce(String buffered, String update) {
+      return buffered + "," + update.substring(update.indexOf(':') + 1);
+    }
+
+    @Override
+    public void mergeBufferAndPost(List<String> events, EventBus m_eventBus) {
+      batches.add(new ArrayList<>(events));
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.events.publishers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * PartitionedEventBus tests.
+ */
+public class PartitionedEventBusTest {
+
+  private PartitionedEventBus eventBus;
+
+  @After
+  public void teardown() {
+    if (null != eventBus) {
+      eventBus.shutdown();
+    }
+  }
+
+  /**
+   * Tests that events with the same key are received in the order in which
+   * they were posted.
+   */
+  @Test
+  public void testOrderingPerKey() throws Exception {
+    eventBus = new PartitionedEventBus("test-bus", 4, event -> ((KeyedEvent) event).key);
+
+    int keys = 10;
+    int eventsPerKey = 200;
+    Listener listener = new Listener(keys * eventsPerKey);
+    eventBus.register(listener);
+
+    for (int i = 0; i < eventsPerKey; i++) {
+      for (int key = 0; key < keys; key++) {
+        eventBus.post(new KeyedEvent("key-" + key, i));
+      }
+    }
+
+    assertTrue(listener.latch.await(30, TimeUnit.SECONDS));
+    assertEquals(keys, listener.received.size());
+    for (List<Integer> sequences : listener.received.values()) {
+      assertEquals(eventsPerKey, sequences.size());
+      for (int i = 0; i < eventsPerKey; i++) {
+        assertEquals(i, sequences.get(i).intValue());
+      }
+    }
+  }
+
+  /**
+   * Tests that an event without a key is dispatched after every event posted
+   * before it and before every event posted after it.
+   */
+  @Test
+  public void testEventsWithoutKeyAreBarriers() throws Exception {
+    eventBus = new PartitionedEventBus("test-bus", 4, event -> ((KeyedEvent) event).key);
+
+    int keys = 8;
+    Listener listener = new Listener(keys * 2 + 1);
+    eventBus.register(listener);
+
+    for (int key = 0; key < keys; key++) {
+      eventBus.post(new KeyedEvent("key-" + key, 0));
+    }
+    eventBus.post(new KeyedEvent(null, 1));
+    for (int key = 0; key < keys; key++) {
+      eventBus.post(new KeyedEvent("key-" + key, 2));
+    }
+
+    assertTrue(listener.latch.await(30, TimeUnit.SECONDS));
+    List<Integer> order = listener.order;
+    assertEquals(keys * 2 + 1, order.size());
+    assertEquals(1, order.get(keys).intValue());
+    for (int i = 0; i < keys; i++) {
+      assertEquals(0, order.get(i).intValue());
+      assertEquals(2, order.get(keys + 1 + i).intValue());
+    }
+  }
+
+  /**
+   * Tests that the statistics account for every dispatched event.
+   */
+  @Test
+  public void testPartitionStatistics() throws Exception {
+    eventBus = new PartitionedEventBus("test-bus", 2, event -> ((KeyedEvent) event).key);
+
+    Listener listener = new Listener(10);
+    eventBus.register(listener);
+    for (int i = 0; i < 10; i++) {
+      eventBus.post(new KeyedEvent("key-" + i, i));
+    }
+    assertTrue(listener.latch.await(30, TimeUnit.SECONDS));
+
+    // the counters are updated after the listener has been invoked
+    eventBus.shutdown();
+    assertTrue(eventBus.awaitTermination(30, TimeUnit.SECONDS));
+
+    long dispatched = 0;
+    for (PartitionedEventBus.PartitionStatistics statistics : eventBus.getPartitionStatistics()) {
+      assertEquals(0, statistics.getQueueDepth());
+      dispatched += statistics.getDispatchedCount();
+    }
+    assertEquals(10, dispatched);
+    assertEquals(2, eventBus.getPartitionCount());
+  }
+
+  private static final class KeyedEvent {
+    private final String key;
+    private final int sequence;
+
+    private KeyedEvent(String key, int sequence) {
+      this.key = key;
+      this.sequence = sequence;
+    }
+  }
+
+  private static final class Listener {
+    private final Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+    private final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch latch;
+
+    private Listener(int expected) {
+      latch = new CountDownLatch(expected);
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(KeyedEvent event) {
+      if (null != event.key) {
+        received.computeIfAbsent(event.key, key -> Collections.synchronizedList(new ArrayList<>())).add(
+            event.sequence);
+      }
+      order.add(event.sequence);
+      latch.countDown();
+    }
+  }
+}
@@ -190,6 +190,86 @@ public class AlertsDAOCachedTest {
     EasyMock.verify(definition, history, entityManager, daoUtils);
   }
 
+  /**
+   * Tests that once the alerts of a cluster have been loaded, looking up an
+   * alert which does not exist yet does not query the database.
+   *
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLookupsOfIndexedClusterDoNotQueryJPA() throws Exception {
+    EntityManager entityManager = m_injector.getInstance(EntityManager.class);
+    DaoUtils daoUtils = m_injector.getInstance(DaoUtils.class);
+
+    AlertHistoryEntity history = EasyMock.createNiceMock(AlertHistoryEntity.class);
+    AlertDefinitionEntity definition = EasyMock.createNiceMock(AlertDefinitionEntity.class);
+    mock(definition, history);
+
+    AlertCurrentEntity jpaCurrent = new AlertCurrentEntity();
+    jpaCurrent.setAlertHistory(history);
+    jpaCurrent.setLatestTimestamp(2L);
+
+    // only the query for all alerts of the cluster is mocked; querying a
+    // single alert would fail
+    TypedQuery<AlertCurrentEntity> typedQuery = EasyMock.createNiceMock(TypedQuery.class);
+    EasyMock.expect(entityManager.createNamedQuery("AlertCurrentEntity.findByCluster",
+        AlertCurrentEntity.class)).andReturn(typedQuery).once();
+
+    EasyMock.expect(daoUtils.selectList(typedQuery)).andReturn(
+        Lists.newArrayList(jpaCurrent)).once();
+
+    EasyMock.replay(entityManager, daoUtils, typedQuery);
+
+    AlertsDAO alertsDAO = m_injector.getInstance(AlertsDAO.class);
+    Assert.assertSame(jpaCurrent, alertsDAO.findCurrentByHostAndName(1L, HOST, "definitionName"));
+    Assert.assertNull(alertsDAO.findCurrentByHostAndName(1L, HOST, "otherDefinitionName"));
+    Assert.assertNull(alertsDAO.findCurrentByNameNoHost(1L, "definitionName"));
+
+    EasyMock.verify(definition, history, entityManager, daoUtils);
+  }
+
+  /**
+   * Tests that a flush only writes the alerts which were updated in the cache
+   * and keeps them cached.
+   *
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFlushWritesOnlyUpdatedAlerts() throws Exception {
+    EntityManager entityManager = m_injector.getInstance(EntityManager.class);
+    DaoUtils daoUtils = m_injector.getInstance(DaoUtils.class);
+
+    AlertHistoryEntity history = EasyMock.createNiceMock(AlertHistoryEntity.class);
+    AlertDefinitionEntity definition = EasyMock.createNiceMock(AlertDefinitionEntity.class);
+    mock(definition, history);
+
+    AlertCurrentEntity memoryCurrent = new AlertCurrentEntity();
+    memoryCurrent.setAlertHistory(history);
+    memoryCurrent.setLatestTimestamp(3L);
+
+    TypedQuery<AlertCurrentEntity> typedQuery = EasyMock.createNiceMock(TypedQuery.class);
+    EasyMock.expect(entityManager.createNamedQuery("AlertCurrentEntity.findByCluster",
+        AlertCurrentEntity.class)).andReturn(typedQuery).once();
+    EasyMock.expect(daoUtils.selectList(typedQuery)).andReturn(
+        Lists.<AlertCurrentEntity> newArrayList()).once();
+
+    // the updated alert is merged by the first flush only
+    EasyMock.expect(entityManager.merge(memoryCurrent)).andReturn(memoryCurrent).once();
+
+    EasyMock.replay(entityManager, daoUtils, typedQuery);
+
+    AlertsDAO alertsDAO = m_injector.getInstance(AlertsDAO.class);
+    alertsDAO.merge(memoryCurrent, true);
+    alertsDAO.flushCachedEntitiesToJPA();
+    alertsDAO.flushCachedEntitiesToJPA();
+
+    Assert.assertSame(memoryCurrent, alertsDAO.findCurrentByHostAndName(1L, HOST, "definitionName"));
+
+    EasyMock.verify(definition, history, entityManager, daoUtils);
+  }
+
   @SuppressWarnings("unchecked")
   private void testFindUsesCache(CachedAlertTestArea testArea) throws Exception {
     EntityManager entityManager = m_injector.getInstance(EntityManager.class);
@@ -614,6 +614,63 @@ public class TestUsers {
     assertEquals(0, authorities.size());
   }
 
+  @Test
+  public void testProcessLdapSync_createAndRemove() {
+    AmbariLdapConfiguration ambariLdapConfiguration = EasyMock.createMock(AmbariLdapConfiguration.class);
+    EasyMock.expect(ambariLdapConfiguration.groupMappingRules()).andReturn("admins").anyTimes();
+
+    AmbariLdapConfigurationProvider ambariLdapConfigurationProvider = injector.getInstance(AmbariLdapConfigurationProvider.class);
+    EasyMock.expect(ambariLdapConfigurationProvider.get()).andReturn(ambariLdapConfiguration).anyTimes();
+
+    EasyMock.replay(ambariLdapConfigurationProvider, ambariLdapConfiguration);
+
+    // the invalid user and its membership are skipped, the rest of the sync is applied
+    LdapBatchDto batchInfo = new LdapBatchDto();
+    batchInfo.getUsersToBeCreated().add(createLdapUser("user1"));
+    batchInfo.getUsersToBeCreated().add(createLdapUser("user2"));
+    batchInfo.getUsersToBeCreated().add(createLdapUser("user3"));
+    batchInfo.getUsersToBeCreated().add(createLdapUser("invalid<user"));
+
+    LdapGroupDto groupToBeCreated = new LdapGroupDto();
+    groupToBeCreated.setGroupName("group1");
+    batchInfo.getGroupsToBeCreated().add(groupToBeCreated);
+
+    batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto("group1", "user1"));
+    batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto("group1", "user2"));
+    batchInfo.getMembershipToAdd().add(new LdapUserGroupMemberDto("group1", "invalid<user"));
+
+    users.processLdapSync(batchInfo);
+
+    assertNotNull(users.getUser("user1"));
+    assertNotNull(users.getUser("user2"));
+    assertNotNull(users.getUser("user3"));
+    assertNull(users.getUser("invalid<user"));
+    assertEquals(2, users.getGroupMembers("group1").size());
+
+    // remove a user and a membership
+    batchInfo = new LdapBatchDto();
+    batchInfo.getUsersToBeRemoved().add(createLdapUser("user3"));
+    batchInfo.getMembershipToRemove().add(new LdapUserGroupMemberDto("group1", "user2"));
+
+    users.processLdapSync(batchInfo);
+
+    assertNotNull(users.getUser("user1"));
+    assertNotNull(users.getUser("user2"));
+    assertNull(users.getUser("user3"));
+
+    Collection<User> members = users.getGroupMembers("group1");
+    assertEquals(1, members.size());
+    assertEquals("user1", members.iterator().next().getUserName());
+  }
+
+  private static LdapUserDto createLdapUser(String userName) {
+    LdapUserDto user = new LdapUserDto();
+    user.setDn("uid=" + userName + ",ou=people,dc=example,dc=com");
+    user.setUid(userName);
+    user.setUserName(userName);
+    return user;
+  }
+
   private UserAuthenticationEntity getAuthenticationEntity(UserEntity userEntity, UserAuthenticationType type) {
     assertNotNull(userEntity);
     Collection<UserAuthenticationEntity> authenticationEntities = userEntity.getAuthenticationEntities();
@@ -1743,6 +1743,135 @@ public class AmbariLdapDataPopulatorTest {
     verify(ldapTemplate, ldapServerProperties, users, configurationProvider, configuration, processor, cookie);
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testSynchronizeExistingLdapGroups_batchedMemberSearch() throws Exception {
+    Group group1 = createNiceMock(Group.class);
+    expect(group1.getGroupName()).andReturn("group1").anyTimes();
+    expect(group1.isLdapGroup()).andReturn(true).anyTimes();
+
+    final Provider<AmbariLdapConfiguration> configurationProvider = createNiceMock(Provider.class);
+    AmbariLdapConfiguration configuration = createNiceMock(AmbariLdapConfiguration.class);
+    Users users = createNiceMock(Users.class);
+    LdapTemplate ldapTemplate = createNiceMock(LdapTemplate.class);
+    LdapServerProperties ldapServerProperties = createNiceMock(LdapServerProperties.class);
+    Capture<String> filterCapture = EasyMock.newCapture();
+
+    expect(configurationProvider.get()).andReturn(configuration).anyTimes();
+    expect(configuration.getLdapServerProperties()).andReturn(ldapServerProperties).anyTimes();
+    expect(ldapServerProperties.isPaginationEnabled()).andReturn(false).anyTimes();
+    expect(ldapServerProperties.getUserObjectClass()).andReturn("objectClass").anyTimes();
+    expect(ldapServerProperties.getUsernameAttribute()).andReturn("uid").anyTimes();
+    expect(ldapServerProperties.getGroupNamingAttr()).andReturn("cn").anyTimes();
+    expect(ldapServerProperties.getDnAttribute()).andReturn("dn").anyTimes();
+    expect(ldapServerProperties.getBaseDN()).andReturn("cn=testUser,ou=Ambari,dc=SME,dc=support,dc=com").anyTimes();
+    expect(users.getAllGroups()).andReturn(Collections.singletonList(group1));
+    expect(users.getAllUsers()).andReturn(Collections.emptyList());
+
+    List<LdapUserDto> list = new LinkedList<>();
+    for (String userName : Arrays.asList("user1", "user2", "user3")) {
+      LdapUserDto dto = new LdapUserDto();
+      dto.setUserName(userName);
+      list.add(dto);
+    }
+
+    // all the members are looked up by a single search
+    expect(ldapTemplate.search(eq(LdapUtils.newLdapName("cn=testUser,ou=Ambari,dc=SME,dc=support,dc=com")), capture(filterCapture),
+        anyObject(SearchControls.class), anyObject(ContextMapper.class))).andReturn(list).once();
+
+    LdapGroupDto group1Dto = new LdapGroupDto();
+    group1Dto.setGroupName("group1");
+    group1Dto.setMemberAttributes(Sets.newHashSet("user1", "user2", "user3"));
+
+    replay(ldapTemplate, ldapServerProperties, users, configurationProvider, configuration, group1);
+
+    AmbariLdapDataPopulatorTestInstance populator = createMockBuilder(AmbariLdapDataPopulatorTestInstance.class)
+        .withConstructor(configurationProvider, users)
+        .addMockedMethod("getLdapGroups")
+        .createNiceMock();
+    expect(populator.getLdapGroups("group1")).andReturn(Collections.singleton(group1Dto)).anyTimes();
+    replay(populator);
+
+    populator.setLdapTemplate(ldapTemplate);
+
+    LdapBatchDto result = populator.synchronizeExistingLdapGroups(new LdapBatchDto(), false);
+
+    verifyUsersInSet(result.getUsersToBeCreated(), Sets.newHashSet("user1", "user2", "user3"));
+    verifyMembershipInSet(result.getMembershipToAdd(), Sets.newHashSet("user1", "user2", "user3"));
+    assertTrue(filterCapture.getValue().contains("(uid=user1)"));
+    assertTrue(filterCapture.getValue().contains("(uid=user2)"));
+    assertTrue(filterCapture.getValue().contains("(uid=user3)"));
+    verify(ldapTemplate, populator);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testSynchronizeExistingLdapGroups_batchedMemberDnSearch() throws Exception {
+    Group group1 = createNiceMock(Group.class);
+    expect(group1.getGroupName()).andReturn("group1").anyTimes();
+    expect(group1.isLdapGroup()).andReturn(true).anyTimes();
+
+    final Provider<AmbariLdapConfiguration> configurationProvider = createNiceMock(Provider.class);
+    AmbariLdapConfiguration configuration = createNiceMock(AmbariLdapConfiguration.class);
+    Users users = createNiceMock(Users.class);
+    LdapTemplate ldapTemplate = createNiceMock(LdapTemplate.class);
+    LdapServerProperties ldapServerProperties = createNiceMock(LdapServerProperties.class);
+    Capture<String> peopleFilterCapture = EasyMock.newCapture();
+    Capture<String> adminsFilterCapture = EasyMock.newCapture();
+
+    expect(configurationProvider.get()).andReturn(configuration).anyTimes();
+    expect(configuration.getLdapServerProperties()).andReturn(ldapServerProperties).anyTimes();
+    expect(ldapServerProperties.isPaginationEnabled()).andReturn(false).anyTimes();
+    expect(ldapServerProperties.getUserObjectClass()).andReturn("objectClass").anyTimes();
+    expect(ldapServerProperties.getUsernameAttribute()).andReturn("uid").anyTimes();
+    expect(ldapServerProperties.getGroupNamingAttr()).andReturn("cn").anyTimes();
+    expect(ldapServerProperties.getDnAttribute()).andReturn("dn").anyTimes();
+    expect(ldapServerProperties.getBaseDN()).andReturn("dc=example,dc=com").anyTimes();
+    expect(users.getAllGroups()).andReturn(Collections.singletonList(group1));
+    expect(users.getAllUsers()).andReturn(Collections.emptyList());
+
+    // the members are looked up by their RDNs, with a single search below each parent DN
+    expect(ldapTemplate.search(eq(LdapUtils.newLdapName("ou=people,dc=example,dc=com")), capture(peopleFilterCapture),
+        anyObject(SearchControls.class), anyObject(ContextMapper.class)))
+        .andReturn(Arrays.asList(createLdapUserDto("user1", "uid=user1,ou=people,dc=example,dc=com"),
+            createLdapUserDto("user2", "uid=user2,ou=people,dc=example,dc=com"))).once();
+    expect(ldapTemplate.search(eq(LdapUtils.newLdapName("ou=admins,dc=example,dc=com")), capture(adminsFilterCapture),
+        anyObject(SearchControls.class), anyObject(ContextMapper.class)))
+        .andReturn(Collections.singletonList(createLdapUserDto("user3", "uid=user3,ou=admins,dc=example,dc=com"))).once();
+
+    LdapGroupDto group1Dto = new LdapGroupDto();
+    group1Dto.setGroupName("group1");
+    group1Dto.setMemberAttributes(Sets.newHashSet("uid=user1,ou=people,dc=example,dc=com",
+        "uid=user2,ou=people,dc=example,dc=com", "uid=user3,ou=admins,dc=example,dc=com"));
+
+    replay(ldapTemplate, ldapServerProperties, users, configurationProvider, configuration, group1);
+
+    AmbariLdapDataPopulatorTestInstance populator = createMockBuilder(AmbariLdapDataPopulatorTestInstance.class)
+        .withConstructor(configurationProvider, users)
+        .addMockedMethod("getLdapGroups")
+        .createNiceMock();
+    expect(populator.getLdapGroups("group1")).andReturn(Collections.singleton(group1Dto)).anyTimes();
+    replay(populator);
+
+    populator.setLdapTemplate(ldapTemplate);
+
+    LdapBatchDto result = populator.synchronizeExistingLdapGroups(new LdapBatchDto(), false);
+
+    verifyUsersInSet(result.getUsersToBeCreated(), Sets.newHashSet("user1", "user2", "user3"));
+    verifyMembershipInSet(result.getMembershipToAdd(), Sets.newHashSet("user1", "user2", "user3"));
+    assertTrue(peopleFilterCapture.getValue().contains("(uid=user1)"));
+    assertTrue(peopleFilterCapture.getValue().contains("(uid=user2)"));
+    assertTrue(adminsFilterCapture.getValue().contains("(uid=user3)"));
+    verify(ldapTemplate, populator);
+  }
+
+  private static LdapUserDto createLdapUserDto(String userName, String dn) {
+    LdapUserDto dto = new LdapUserDto();
+    dto.setUserName(userName);
+    dto.setDn(dn);
+    return dto;
+  }
+
   @Test
   public void testLdapUserContextMapper_uidIsNull() throws Exception {
     LdapServerProperties ldapServerProperties = createNiceMock(LdapServerProperties.class);
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.serveraction.kerberos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.ambari.server.utils.ShellCommandUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * KadminSession tests, using a script which responds like kadmin.
+ */
+public class KadminSessionTest {
+
+  /**
+   * Responds to queries like kadmin, writing error messages to STDERR.
+   */
+  private static final String KADMIN_STUB = "#!/bin/sh\n" +
+      "echo \"Authenticating as principal admin/admin@EXAMPLE.COM with existing credentials.\"\n" +
+      "while IFS= read -r line; do\n" +
+      "  printf 'kadmin:  '\n" +
+      "  case \"$line\" in\n" +
+      "    \"get_principal missing@EXAMPLE.COM\")\n" +
+      "      echo \"get_principal: Principal does not exist while retrieving \\\"missing@EXAMPLE.COM\\\".\" >&2 ;;\n" +
+      "    \"get_principal \"*)\n" +
+      "      echo \"Principal: ${line#get_principal }\"; echo \"Expiration date: [never]\" ;;\n" +
+      "    \"add_principal \"*)\n" +
+      "      echo \"Principal \\\"${line##* }\\\" created.\" ;;\n" +
+      "    quit)\n" +
+      "      exit 0 ;;\n" +
+      "    hang)\n" +
+      "      sleep 5 ;;\n" +
+      "    *)\n" +
+      "      echo \"kadmin: Unknown request \\\"$line\\\".  Type \\\"?\\\" for a request list.\" >&2 ;;\n" +
+      "  esac\n" +
+      "done\n";
+
+  private static final String FAILING_KADMIN_STUB = "#!/bin/sh\n" +
+      "echo \"kadmin: Client not found in Kerberos database while initializing kadmin interface\" >&2\n" +
+      "exit 1\n";
+
+  private static final long TIMEOUT = 10000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testExecute() throws Exception {
+    try (KadminSession session = KadminSession.start(
+        Arrays.asList("/bin/sh", createScript(KADMIN_STUB)), Collections.singletonMap("KRB5CCNAME", "FILE:/tmp/cc"), TIMEOUT)) {
+
+      ShellCommandUtil.Result result = session.execute("get_principal user@EXAMPLE.COM");
+      assertTrue(result.isSuccessful());
+      assertTrue(result.getStdout().contains("Principal: user@EXAMPLE.COM"));
+      assertTrue(result.getStdout().contains("Expiration date: [never]"));
+      assertFalse(result.getStdout().contains("Authenticating"));
+      assertFalse(result.getStdout().contains("Unknown request"));
+
+      result = session.execute("add_principal -randkey service/host1@EXAMPLE.COM");
+      assertTrue(result.getStdout().contains("Principal \"service/host1@EXAMPLE.COM\" created"));
+
+      // error messages are part of the response
+      result = session.execute("get_principal missing@EXAMPLE.COM");
+      assertFalse(result.getStdout().contains("Principal: missing@EXAMPLE.COM"));
+      assertTrue(result.getStderr().contains("Principal does not exist"));
+    }
+  }
+
+  @Test
+  public void testStartFailure() throws Exception {
+    try {
+      KadminSession.start(Arrays.asList("/bin/sh", createScript(FAILING_KADMIN_STUB)), null, TIMEOUT);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("Client not found in Kerberos database"));
+    }
+  }
+
+  @Test
+  public void testExit() throws Exception {
+    try (KadminSession session = KadminSession.start(Arrays.asList("/bin/sh", createScript(KADMIN_STUB)), null, TIMEOUT)) {
+      session.execute("quit");
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("exit code 0"));
+    }
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    try (KadminSession session = KadminSession.start(Arrays.asList("/bin/sh", createScript(KADMIN_STUB)), null, 500)) {
+      long start = System.currentTimeMillis();
+      try {
+        session.execute("hang");
+        fail("Expected IOException");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("did not respond within 500 ms"));
+      }
+      assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+  }
+
+  @Test
+  public void testMultiLineQuery() throws Exception {
+    try (KadminSession session = KadminSession.start(Arrays.asList("/bin/sh", createScript(KADMIN_STUB)), null, TIMEOUT)) {
+      try {
+        session.execute("get_principal user@EXAMPLE.COM\nquit");
+        fail("Expected IOException");
+      } catch (IOException e) {
+        // expected
+      }
+
+      assertEquals("kadmin:  Principal: user@EXAMPLE.COM\nExpiration date: [never]\n",
+          session.execute("get_principal user@EXAMPLE.COM").getStdout());
+    }
+  }
+
+  private String createScript(String content) throws IOException {
+    File script = folder.newFile();
+    Files.write(script.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return script.getAbsolutePath();
+  }
+}
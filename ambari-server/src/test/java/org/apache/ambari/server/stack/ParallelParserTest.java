@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ambari.server.AmbariException;
+import org.junit.Test;
+
+/**
+ * ParallelParser unit tests.
+ */
+public class ParallelParserTest {
+
+  @Test
+  public void testParseKeepsOrder() throws Exception {
+    AtomicReference<List<List<Integer>>> results = new AtomicReference<>();
+
+    ParallelParser.run(() -> results.set(ParallelParser.parse(Arrays.asList(1, 2, 3, 4),
+        i -> ParallelParser.parse(Arrays.asList(i, i * 10), j -> j + 1))));
+
+    assertEquals(Arrays.asList(Arrays.asList(2, 11), Arrays.asList(3, 21), Arrays.asList(4, 31),
+        Arrays.asList(5, 41)), results.get());
+  }
+
+  @Test
+  public void testParseOutsideOfPool() throws Exception {
+    List<String> threads = new ArrayList<>();
+
+    List<Integer> results = ParallelParser.parse(Arrays.asList(1, 2, 3), i -> {
+      threads.add(Thread.currentThread().getName());
+      return i * 2;
+    });
+
+    assertEquals(Arrays.asList(2, 4, 6), results);
+    assertEquals(Arrays.asList(Thread.currentThread().getName(), Thread.currentThread().getName(),
+        Thread.currentThread().getName()), threads);
+  }
+
+  @Test
+  public void testParseFailure() throws Exception {
+    try {
+      ParallelParser.run(() -> ParallelParser.parse(Arrays.asList(1, 2, 3), i -> {
+        if (i == 2) {
+          throw new AmbariException("Unable to parse " + i);
+        }
+        return i;
+      }));
+      fail("Expected AmbariException");
+    } catch (AmbariException e) {
+      assertEquals("Unable to parse 2", e.getMessage());
+    }
+  }
+}
@@ -19,10 +19,14 @@
 package org.apache.ambari.server.state;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.annotations.UpgradeCheckInfo;
 import org.apache.ambari.server.AmbariException;
@@ -42,6 +46,7 @@ import org.apache.ambari.spi.upgrade.UpgradeCheckDescription;
 import org.apache.ambari.spi.upgrade.UpgradeCheckRequest;
 import org.apache.ambari.spi.upgrade.UpgradeCheckResult;
 import org.apache.ambari.spi.upgrade.UpgradeCheckStatus;
+import org.apache.ambari.spi.upgrade.UpgradeCheckType;
 import org.apache.ambari.spi.upgrade.UpgradeType;
 import org.easymock.EasyMock;
 import org.junit.Before;
@@ -50,8 +55,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 
 import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
 
 import junit.framework.Assert;
 
@@ -260,6 +269,74 @@ public class CheckHelperTest {
     Assert.assertEquals(UpgradeCheckStatus.FAIL, request.getResult(m_mockUpgradeCheckDescription));
   }
 
+  /**
+   * Checks are performed concurrently, but only after the checks they depend on.
+   */
+  @Test
+  public void testPreUpgradeCheckDependencies() throws Exception {
+    Configuration configuration = EasyMock.createNiceMock(Configuration.class);
+    EasyMock.expect(configuration.isUpgradePrecheckBypass()).andReturn(false);
+    EasyMock.expect(configuration.getUpgradePrecheckThreadPoolSize()).andReturn(4);
+    EasyMock.replay(configuration);
+
+    final CheckHelper helper = new CheckHelper(configuration);
+    helper.clustersProvider = () -> clusters;
+    helper.repositoryVersionDaoProvider = () -> repositoryVersionDao;
+    helper.unitOfWork = Mockito.mock(UnitOfWork.class);
+
+    // the checks are performed with the security context of the request
+    final SecurityContext securityContext = new SecurityContextImpl();
+    SecurityContextHolder.setContext(securityContext);
+
+    ClusterInformation clusterInformation = new ClusterInformation("cluster", false, null, null, null);
+    UpgradeCheckRequest request = new UpgradeCheckRequest(clusterInformation, UpgradeType.ROLLING, m_repositoryVersion, null, null);
+
+    final UpgradeCheckDescription first = new UpgradeCheckDescription("FIRST", UpgradeCheckType.CLUSTER, "first", "failed");
+    final UpgradeCheckDescription second = new UpgradeCheckDescription("SECOND", UpgradeCheckType.CLUSTER, "second", "failed");
+    final UpgradeCheckDescription independent = new UpgradeCheckDescription("INDEPENDENT", UpgradeCheckType.CLUSTER, "independent", "failed");
+    final CountDownLatch independentStarted = new CountDownLatch(1);
+
+    List<UpgradeCheck> updateChecksRegistry = new ArrayList<>();
+
+    // the dependent check is registered before the check it depends on
+    updateChecksRegistry.add(new DependentMockCheck(second, Collections.singleton(first), () -> {
+      Assert.assertEquals(UpgradeCheckStatus.FAIL, request.getResult(first));
+      return UpgradeCheckStatus.PASS;
+    }));
+
+    // only completes if the independent check runs at the same time
+    updateChecksRegistry.add(new DependentMockCheck(first, Collections.emptySet(), () -> {
+      Assert.assertTrue(independentStarted.await(10, TimeUnit.SECONDS));
+      Thread.sleep(10);
+      return UpgradeCheckStatus.FAIL;
+    }));
+
+    updateChecksRegistry.add(new DependentMockCheck(independent, Collections.emptySet(), () -> {
+      independentStarted.countDown();
+      Assert.assertSame(securityContext, SecurityContextHolder.getContext());
+      return UpgradeCheckStatus.PASS;
+    }));
+
+    List<UpgradeCheckResult> results;
+    try {
+      results = helper.performChecks(request, updateChecksRegistry, configuration);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals("SECOND", results.get(0).getId());
+    Assert.assertEquals(UpgradeCheckStatus.PASS, results.get(0).getStatus());
+    Assert.assertEquals("FIRST", results.get(1).getId());
+    Assert.assertEquals(UpgradeCheckStatus.FAIL, results.get(1).getStatus());
+    Assert.assertTrue(results.get(1).getDuration() >= 10);
+    Assert.assertEquals(UpgradeCheckStatus.PASS, request.getResult(independent));
+
+    // each check is performed in its own unit of work
+    Mockito.verify(helper.unitOfWork, Mockito.times(3)).begin();
+    Mockito.verify(helper.unitOfWork, Mockito.times(3)).end();
+  }
+
   @UpgradeCheckInfo(
       required = { UpgradeType.ROLLING })
   class MockCheck extends ClusterCheck {
@@ -291,4 +368,37 @@ public class CheckHelperTest {
       return new UpgradeCheckResult(this);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * A check which depends on other checks, with a status determined by the test.
+   */
+  @UpgradeCheckInfo(
+      required = { UpgradeType.ROLLING })
+  class DependentMockCheck extends ClusterCheck {
+
+    private final Set<UpgradeCheckDescription> m_dependencies;
+    private final Callable<UpgradeCheckStatus> m_perform;
+
+    DependentMockCheck(UpgradeCheckDescription description, Set<UpgradeCheckDescription> dependencies,
+        Callable<UpgradeCheckStatus> perform) {
+      super(description);
+      m_dependencies = dependencies;
+      m_perform = perform;
+    }
+
+    @Override
+    public Set<UpgradeCheckDescription> getDependencies() {
+      return m_dependencies;
+    }
+
+    @Override
+    public UpgradeCheckResult perform(UpgradeCheckRequest request)
+        throws AmbariException {
+      try {
+        return new UpgradeCheckResult(this, m_perform.call());
+      } catch (Exception e) {
+        throw new AmbariException("Unable to perform the check", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.ClusterConfigChangedEvent;
+import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.junit.Test;
+
+/**
+ * EffectiveConfigCache tests.
+ */
+public class EffectiveConfigCacheTest {
+
+  @Test
+  public void testHostsWithSameTagsShareEntry() {
+    EffectiveConfigCache cache = createCache(10);
+    Cluster cluster = createCluster("c1");
+    AtomicInteger merges = new AtomicInteger();
+
+    Map<String, Map<String, String>> first = cache.get(cluster, tags("version1", null), loader(merges, "v1"));
+    Map<String, Map<String, String>> second = cache.get(cluster, tags("version1", null), loader(merges, "v2"));
+
+    assertEquals(1, merges.get());
+    assertEquals(first, second);
+    assertNotSame(first, second);
+
+    // callers may modify the returned configurations
+    second.get("hdfs-site").put("dfs.replication", "1");
+    assertEquals("v1", cache.get(cluster, tags("version1", null), loader(merges, "v3"))
+        .get("hdfs-site").get("dfs.replication"));
+
+    // a config group override or another desired version is another entry
+    cache.get(cluster, tags("version1", "override1"), loader(merges, "v4"));
+    cache.get(cluster, tags("version2", null), loader(merges, "v5"));
+    assertEquals(3, merges.get());
+
+    EffectiveConfigCache.CacheStatistics statistics = cache.getStatistics();
+    assertEquals(2, statistics.getHits());
+    assertEquals(3, statistics.getMisses());
+    assertEquals(3, statistics.getSize());
+  }
+
+  @Test
+  public void testInvalidation() {
+    EffectiveConfigCache cache = createCache(10);
+    Cluster c1 = createCluster("c1");
+    Cluster c2 = createCluster("c2");
+    AtomicInteger merges = new AtomicInteger();
+
+    cache.get(c1, tags("version1", null), loader(merges, "v1"));
+    cache.get(c2, tags("version1", null), loader(merges, "v1"));
+
+    cache.onClusterConfigChanged(new ClusterConfigChangedEvent("c1", "hdfs-site", "version1", 1L));
+
+    assertEquals("v2", cache.get(c1, tags("version1", null), loader(merges, "v2"))
+        .get("hdfs-site").get("dfs.replication"));
+    assertEquals("v1", cache.get(c2, tags("version1", null), loader(merges, "v2"))
+        .get("hdfs-site").get("dfs.replication"));
+    assertEquals(3, merges.get());
+  }
+
+  @Test
+  public void testDisabled() {
+    EffectiveConfigCache cache = createCache(0);
+    Cluster cluster = createCluster("c1");
+    AtomicInteger merges = new AtomicInteger();
+
+    cache.get(cluster, tags("version1", null), loader(merges, "v1"));
+    cache.get(cluster, tags("version1", null), loader(merges, "v1"));
+
+    assertEquals(2, merges.get());
+    assertEquals(0, cache.getStatistics().getSize());
+  }
+
+  private static EffectiveConfigCache createCache(int size) {
+    Configuration configuration = createNiceMock(Configuration.class);
+    expect(configuration.getEffectiveConfigCacheSize()).andReturn(size).anyTimes();
+    AmbariEventPublisher eventPublisher = createNiceMock(AmbariEventPublisher.class);
+    replay(configuration, eventPublisher);
+
+    return new EffectiveConfigCache(configuration, eventPublisher);
+  }
+
+  private static Cluster createCluster(String clusterName) {
+    Cluster cluster = createNiceMock(Cluster.class);
+    expect(cluster.getClusterName()).andReturn(clusterName).anyTimes();
+    replay(cluster);
+    return cluster;
+  }
+
+  private static Map<String, Map<String, String>> tags(String tag, String overrideTag) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    tags.put(ConfigHelper.CLUSTER_DEFAULT_TAG, tag);
+    if (null != overrideTag) {
+      tags.put("1", overrideTag);
+    }
+    return Collections.singletonMap("hdfs-site", tags);
+  }
+
+  private static Supplier<Map<String, Map<String, String>>> loader(AtomicInteger merges, String value) {
+    return () -> {
+      merges.incrementAndGet();
+      Map<String, Map<String, String>> properties = new HashMap<>();
+      properties.put("hdfs-site", new HashMap<>(Collections.singletonMap("dfs.replication", value)));
+      return properties;
+    };
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * StaleConfigsState tests.
+ */
+public class StaleConfigsStateTest {
+
+  @Test
+  public void testRestartRequired() {
+    StaleConfigsState state = new StaleConfigsState(600);
+    ServiceComponentHost datanode = createHostComponent("h1", "HDFS", "DATANODE");
+    ServiceComponentHost namenode = createHostComponent("h1", "HDFS", "NAMENODE");
+
+    assertNull(state.getRestartRequired(datanode));
+
+    assertTrue(state.setRestartRequired(datanode, true));
+    assertFalse(state.setRestartRequired(datanode, true));
+    assertTrue(state.getRestartRequired(datanode));
+    assertNull(state.getRestartRequired(namenode));
+
+    assertTrue(state.setRestartRequired(namenode, false));
+    assertFalse(state.getRestartRequired(namenode));
+
+    assertTrue(state.setRestartRequired(datanode, false));
+    assertFalse(state.getRestartRequired(datanode));
+
+    // a host component which was added again is not answered from the state
+    ServiceComponentHost readded = createHostComponent("h1", "HDFS", "DATANODE");
+    assertNull(state.getRestartRequired(readded));
+    assertTrue(state.setRestartRequired(readded, false));
+    assertFalse(state.getRestartRequired(readded));
+  }
+
+  @Test
+  public void testRefreshCommandIsDiscardedAfterRestart() {
+    StaleConfigsState state = new StaleConfigsState(600);
+    ServiceComponentHost namenode = createHostComponent("h1", "HDFS", "NAMENODE");
+
+    state.setRefreshCommand(namenode, "reload_configs");
+    state.setRestartRequired(namenode, true);
+    assertEquals("reload_configs", state.getRefreshCommand(namenode));
+
+    state.setRestartRequired(namenode, false);
+    assertNull(state.getRefreshCommand(namenode));
+
+    state.setRefreshCommand(namenode, "reload_configs");
+    state.setRefreshCommand(namenode, null);
+    assertNull(state.getRefreshCommand(namenode));
+  }
+
+  @Test
+  public void testPublished() {
+    StaleConfigsState state = new StaleConfigsState(600);
+
+    assertTrue(state.setPublished(1L, "HDFS", "DATANODE", false));
+    assertFalse(state.setPublished(1L, "HDFS", "DATANODE", false));
+    assertTrue(state.setPublished(1L, "HDFS", "DATANODE", true));
+    assertTrue(state.setPublished(2L, "HDFS", "DATANODE", true));
+    assertFalse(state.setPublished(1L, "HDFS", "DATANODE", true));
+  }
+
+  @Test
+  public void testRefreshCommandExpires() {
+    StaleConfigsState state = new StaleConfigsState(0);
+    ServiceComponentHost namenode = createHostComponent("h1", "HDFS", "NAMENODE");
+
+    state.setRestartRequired(namenode, true);
+    state.setRefreshCommand(namenode, "reload_configs");
+    assertNull(state.getRefreshCommand(namenode));
+  }
+
+  @Test
+  public void testRemovedHostComponentsAreForgotten() {
+    StaleConfigsState state = new StaleConfigsState(600);
+    ServiceComponentHost datanode = createHostComponent("h1", "HDFS", "DATANODE");
+    ServiceComponentHost namenode = createHostComponent("h1", "HDFS", "NAMENODE");
+    ServiceComponentHost otherDatanode = createHostComponent("h2", "HDFS", "DATANODE");
+
+    state.setRestartRequired(datanode, true);
+    state.setRefreshCommand(datanode, "reload_configs");
+    state.setPublished(1L, "HDFS", "DATANODE", true);
+    state.setRestartRequired(namenode, true);
+    state.setPublished(1L, "HDFS", "NAMENODE", true);
+    state.setRestartRequired(otherDatanode, true);
+    state.setPublished(2L, "HDFS", "DATANODE", true);
+
+    state.removeHostComponent("h1", 1L, "HDFS", "DATANODE");
+    assertNull(state.getRestartRequired(datanode));
+    assertNull(state.getRefreshCommand(datanode));
+    assertTrue(state.setPublished(1L, "HDFS", "DATANODE", true));
+    assertTrue(state.getRestartRequired(namenode));
+
+    // the freed index is reused without carrying over the removed state
+    ServiceComponentHost journalnode = createHostComponent("h1", "HDFS", "JOURNALNODE");
+    assertTrue(state.setRestartRequired(journalnode, false));
+    assertFalse(state.getRestartRequired(journalnode));
+    assertNull(state.getRefreshCommand(journalnode));
+
+    state.removeHosts(Collections.singleton("h1"), Collections.singleton(1L));
+    assertNull(state.getRestartRequired(namenode));
+    assertTrue(state.setPublished(1L, "HDFS", "NAMENODE", true));
+    assertTrue(state.getRestartRequired(otherDatanode));
+    assertFalse(state.setPublished(2L, "HDFS", "DATANODE", true));
+  }
+
+  private static ServiceComponentHost createHostComponent(String hostName, String serviceName,
+      String componentName) {
+    ServiceComponentHost sch = createNiceMock(ServiceComponentHost.class);
+    expect(sch.getHostName()).andReturn(hostName).anyTimes();
+    expect(sch.getServiceName()).andReturn(serviceName).anyTimes();
+    expect(sch.getServiceComponentName()).andReturn(componentName).anyTimes();
+    replay(sch);
+    return sch;
+  }
+}
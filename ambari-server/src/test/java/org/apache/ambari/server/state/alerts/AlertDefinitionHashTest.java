@@ -51,6 +51,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import com.google.common.collect.Sets;
 import com.google.inject.Binder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -346,6 +347,75 @@ public class AlertDefinitionHashTest extends TestCase {
     assertEquals(1, associatedHosts.size());
   }
 
+  /**
+   * Tests that the hosts associated with a definition follow the host
+   * components which are added and removed.
+   */
+  @Test
+  public void testAssociatedHostsFollowComponentHosts() {
+    String otherHostName = "c6402.ambari.apache.org";
+
+    Set<String> associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "YARN", "NODEMANAGER");
+    assertEquals(0, associatedHosts.size());
+
+    m_hash.addComponentHost(1L, "YARN", "NODEMANAGER", otherHostName, false);
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "YARN", "NODEMANAGER");
+    assertEquals(Collections.singleton(otherHostName), associatedHosts);
+
+    m_hash.removeComponentHost(1L, "YARN", "NODEMANAGER", otherHostName);
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "YARN", "NODEMANAGER");
+    assertEquals(0, associatedHosts.size());
+
+    // a new master of the service is affected by all of its definitions
+    m_hash.addComponentHost(1L, "HDFS", "SECONDARY_NAMENODE", otherHostName, true);
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "HDFS", "DATANODE");
+    assertEquals(Sets.newHashSet(HOSTNAME, otherHostName), associatedHosts);
+
+    m_hash.removeHosts(Collections.singleton(otherHostName));
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "HDFS", "DATANODE");
+    assertEquals(Collections.singleton(HOSTNAME), associatedHosts);
+  }
+
+  /**
+   * Tests that host components which are added and removed before the host
+   * components of the cluster are loaded are not lost, and that the index of a
+   * deleted cluster is dropped.
+   */
+  @Test
+  public void testComponentHostsChangedBeforeIndexIsLoaded() {
+    String otherHostName = "c6402.ambari.apache.org";
+
+    // an installed host component may not be part of the cluster yet
+    m_hash.addComponentHost(1L, "YARN", "NODEMANAGER", otherHostName, false);
+
+    // an uninstalled host component may still be part of the cluster
+    m_hash.removeComponentHost(1L, "HDFS", "NAMENODE", HOSTNAME);
+
+    Set<String> associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "YARN", "NODEMANAGER");
+    assertEquals(Collections.singleton(otherHostName), associatedHosts);
+
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "HDFS", "NAMENODE");
+    assertEquals(0, associatedHosts.size());
+
+    // the host components are loaded from the cluster again
+    m_hash.removeCluster(1L);
+
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "YARN", "NODEMANAGER");
+    assertEquals(0, associatedHosts.size());
+
+    associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
+        SourceType.PORT, "definitionName", "HDFS", "NAMENODE");
+    assertEquals(Collections.singleton(HOSTNAME), associatedHosts);
+  }
+
   @Test
   public void testHashingAlgorithm() throws Exception {
     List<String> uuids = new ArrayList<>();
@@ -20,8 +20,11 @@ package org.apache.ambari.server.state.services;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.EntityManager;
 
@@ -41,6 +44,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.Sets;
 import com.google.inject.Binder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -291,6 +295,140 @@ public class MetricsRetrievalServiceTest extends EasyMockSupport {
     verifyAll();
   }
 
+  /**
+   * Tests that no more than the configured number of requests are made to the
+   * same host at once and that parked requests are executed once a slot
+   * becomes free.
+   */
+  @Test
+  public void testMaxRequestsPerHost() throws Exception {
+    Configuration configuration = m_injector.getInstance(Configuration.class);
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_MAX_REQUESTS_PER_HOST.getKey(), "2");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_CORE_SIZE.getKey(), "4");
+
+    int requests = 6;
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch completed = new CountDownLatch(requests);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    StreamProvider streamProvider = new StreamProvider() {
+      @Override
+      public InputStream readFrom(String spec) throws IOException {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          release.await(METRICS_SERVICE_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          running.decrementAndGet();
+          completed.countDown();
+        }
+        return IOUtils.toInputStream("{ \"beans\": [] }");
+      }
+
+      @Override
+      public InputStream readFrom(String spec, String requestMethod, String params) throws IOException {
+        return readFrom(spec);
+      }
+    };
+
+    m_service.startAsync();
+    m_service.awaitRunning(METRICS_SERVICE_TIMEOUT, TimeUnit.SECONDS);
+
+    for (int i = 0; i < requests; i++) {
+      m_service.submitRequest(MetricSourceType.JMX, streamProvider, "http://host1:" + (8000 + i) + "/jmx");
+    }
+
+    Thread.sleep(500);
+    Assert.assertEquals(2, running.get());
+
+    release.countDown();
+    Assert.assertTrue(completed.await(METRICS_SERVICE_TIMEOUT, TimeUnit.SECONDS));
+    Assert.assertEquals(2, maxRunning.get());
+  }
+
+  /**
+   * Tests that overflowing the worker queue with the requests of several hosts
+   * discards requests without resubmitting them, that the discarded requests
+   * can be made again and that hosts without requests are forgotten.
+   */
+  @Test
+  public void testSaturatedWorkerQueue() throws Exception {
+    Configuration configuration = m_injector.getInstance(Configuration.class);
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_MAX_REQUESTS_PER_HOST.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_CORE_SIZE.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_MAX_SIZE.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_WORKER_QUEUE_SIZE.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_REQUEST_TTL_ENABLED.getKey(), "false");
+
+    String firstUrl = "http://host0:8000/jmx";
+    CountDownLatch release = new CountDownLatch(1);
+    Set<String> requested = Sets.newConcurrentHashSet();
+
+    StreamProvider streamProvider = new StreamProvider() {
+      @Override
+      public InputStream readFrom(String spec) throws IOException {
+        requested.add(spec);
+        if (firstUrl.equals(spec)) {
+          try {
+            release.await(METRICS_SERVICE_TIMEOUT, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return IOUtils.toInputStream("{ \"beans\": [] }");
+      }
+
+      @Override
+      public InputStream readFrom(String spec, String requestMethod, String params) throws IOException {
+        return readFrom(spec);
+      }
+    };
+
+    m_service.startAsync();
+    m_service.awaitRunning(METRICS_SERVICE_TIMEOUT, TimeUnit.SECONDS);
+
+    // the first request holds the only thread; the first request of every
+    // other host takes the only queue slot from the previous host, whose
+    // parked request is dropped with it
+    for (int host = 0; host < 5; host++) {
+      for (int port = 8000; port < 8002; port++) {
+        m_service.submitRequest(MetricSourceType.JMX, streamProvider, "http://host" + host + ":" + port + "/jmx");
+      }
+    }
+
+    Assert.assertEquals(2, m_service.getHostsWithRequestsCount());
+
+    // the second request of host0 in turn takes the queue slot of host4
+    release.countDown();
+    waitForHostsWithRequests(0);
+    Assert.assertEquals(Sets.newHashSet(firstUrl, "http://host0:8001/jmx"), requested);
+
+    // discarded requests are made again the next time they are submitted
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, "http://host1:8001/jmx");
+    waitForHostsWithRequests(0);
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, "http://host4:8000/jmx");
+    waitForHostsWithRequests(0);
+    Assert.assertTrue(requested.contains("http://host1:8001/jmx"));
+    Assert.assertTrue(requested.contains("http://host4:8000/jmx"));
+  }
+
+  private void waitForHostsWithRequests(int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(METRICS_SERVICE_TIMEOUT);
+    while (m_service.getHostsWithRequestsCount() != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(expected, m_service.getHostsWithRequestsCount());
+  }
+
   /**
    *
    */
@@ -35,6 +35,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -485,6 +486,7 @@ public class StageUtilsTest extends EasyMockSupport {
 
 
     Cluster cluster = createMock(Cluster.class);
+    expect(cluster.getTopologyVersion()).andReturn(1L).anyTimes();
     expect(cluster.getHosts()).andReturn(hosts).anyTimes();
     expect(cluster.getServices()).andReturn(new HashMap<String, Service>() {{
       put("HDFS", hdfsService);
@@ -580,6 +582,51 @@ public class StageUtilsTest extends EasyMockSupport {
     }
   }
 
+  @Test
+  public void testGetClusterHostInfoReusesTopologyOfSameVersion() throws Exception {
+    List<Host> hosts = new ArrayList<>();
+    Map<String, ServiceComponentHost> dataNodeHosts = new HashMap<>();
+    for (int i = 0; i < 3; i++) {
+      Host host = createNiceMock(Host.class);
+      expect(host.getHostName()).andReturn("h" + i).anyTimes();
+      hosts.add(host);
+    }
+    dataNodeHosts.put("h0", createNiceMock(ServiceComponentHost.class));
+    dataNodeHosts.put("h1", createNiceMock(ServiceComponentHost.class));
+
+    ServiceComponent dataNode = createNiceMock(ServiceComponent.class);
+    expect(dataNode.getName()).andReturn("DATANODE").anyTimes();
+    expect(dataNode.getServiceComponentHosts()).andReturn(dataNodeHosts).anyTimes();
+
+    Service hdfs = createNiceMock(Service.class);
+    expect(hdfs.getServiceComponents()).andReturn(Collections.singletonMap("DATANODE", dataNode)).anyTimes();
+
+    // the hosts and components are read once per topology version
+    Cluster cluster = createMock(Cluster.class);
+    expect(cluster.getTopologyVersion()).andReturn(1L).times(2);
+    expect(cluster.getTopologyVersion()).andReturn(2L).once();
+    expect(cluster.getHosts()).andReturn(hosts).times(2);
+    expect(cluster.getServices()).andReturn(Collections.singletonMap("HDFS", hdfs)).times(2);
+
+    TopologyManager topologyManager = injector.getInstance(TopologyManager.class);
+    expect(topologyManager.getPendingHostComponents()).andReturn(
+        Collections.<String, Collection<String>>singletonMap("h2", Collections.singletonList("DATANODE"))).once();
+    expect(topologyManager.getPendingHostComponents()).andReturn(
+        Collections.emptyMap()).times(2);
+
+    replayAll();
+
+    // pending components are added to the returned map only
+    assertEquals(Collections.singleton("0-2"), StageUtils.getClusterHostInfo(cluster).get("datanode_hosts"));
+    assertEquals(Collections.singleton("0-1"), StageUtils.getClusterHostInfo(cluster).get("datanode_hosts"));
+
+    // a new version rebuilds the index
+    dataNodeHosts.remove("h0");
+    assertEquals(Collections.singleton("1"), StageUtils.getClusterHostInfo(cluster).get("datanode_hosts"));
+
+    verifyAll();
+  }
+
   @Test
   public void testUseAmbariJdkWithoutavaHome() {
     // GIVEN